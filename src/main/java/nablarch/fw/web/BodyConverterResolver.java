@@ -0,0 +1,117 @@
+package nablarch.fw.web;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * リクエストボディとMIMEタイプから、使用する{@link RestTestBodyConverter}を選択するクラス。
+ * <p>
+ * {@link RestTestBodyConverter}を先頭から順に{@link RestTestBodyConverter#isConvertible(Object, RestTestBodyConverter.MediaType)}
+ * で判定し、最初に変換可能と判定されたものを使用する。
+ * キャッシュを有効にした場合は、ボディのクラスとMIMEタイプ（パラメータを除く）の組み合わせ毎に選択結果を保持し、
+ * 2回目以降は判定を行わない。そのため、キャッシュを有効にする場合は、
+ * 判定結果がボディのクラスとMIMEタイプのみで決まる{@link RestTestBodyConverter}を使用すること。
+ * </p>
+ * <p>
+ * {@link RestMockHttpRequestBuilder}が生成したリクエストで共有するため、スレッドセーフに実装している。
+ * </p>
+ */
+final class BodyConverterResolver {
+
+    /** キャッシュする組み合わせの最大数 */
+    private static final int MAX_CACHE_SIZE = 256;
+
+    /** 利用可能な{@link RestTestBodyConverter} */
+    private final Collection<? extends RestTestBodyConverter> bodyConverters;
+
+    /** 選択結果のキャッシュ。キャッシュしない場合は{@code null} */
+    private final ConcurrentMap<Key, RestTestBodyConverter> cache;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param bodyConverters 利用可能な{@link RestTestBodyConverter}
+     * @param cacheEnabled   選択結果をキャッシュする場合は{@code true}
+     */
+    BodyConverterResolver(Collection<? extends RestTestBodyConverter> bodyConverters, boolean cacheEnabled) {
+        this.bodyConverters = bodyConverters;
+        this.cache = cacheEnabled ? new ConcurrentHashMap<Key, RestTestBodyConverter>() : null;
+    }
+
+    /**
+     * リクエストボディとMIMEタイプに合った{@link RestTestBodyConverter}を選択する。
+     *
+     * @param body      リクエストボディ
+     * @param mediaType MIMEタイプ
+     * @return 選択した{@link RestTestBodyConverter}
+     */
+    RestTestBodyConverter resolve(Object body, RestTestBodyConverter.MediaType mediaType) {
+        if (cache == null) {
+            return find(body, mediaType);
+        }
+        Key key = new Key(body.getClass(), mediaType);
+        RestTestBodyConverter bodyConverter = cache.get(key);
+        if (bodyConverter == null) {
+            bodyConverter = find(body, mediaType);
+            // 想定外に多くの組み合わせが使用された場合も、メモリを使い続けないよう上限を設ける
+            if (cache.size() < MAX_CACHE_SIZE) {
+                cache.putIfAbsent(key, bodyConverter);
+            }
+        }
+        return bodyConverter;
+    }
+
+    /**
+     * {@link RestTestBodyConverter}を先頭から順に判定し、変換可能なものを見つける。
+     *
+     * @param body      リクエストボディ
+     * @param mediaType MIMEタイプ
+     * @return 見つかった{@link RestTestBodyConverter}
+     */
+    private RestTestBodyConverter find(Object body, RestTestBodyConverter.MediaType mediaType) {
+        for (RestTestBodyConverter bodyConverter : bodyConverters) {
+            if (bodyConverter.isConvertible(body, mediaType)) {
+                return bodyConverter;
+            }
+        }
+        throw new RuntimeException("unsupported media type requested. MIME type = [ " + mediaType + " ]");
+    }
+
+    /**
+     * キャッシュのキー。
+     */
+    private static final class Key {
+
+        /** ボディのクラス */
+        private final Class<?> bodyClass;
+
+        /** MIMEタイプ */
+        private final RestTestBodyConverter.MediaType mediaType;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param bodyClass ボディのクラス
+         * @param mediaType MIMEタイプ
+         */
+        Key(Class<?> bodyClass, RestTestBodyConverter.MediaType mediaType) {
+            this.bodyClass = bodyClass;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return bodyClass == other.bodyClass && mediaType.equals(other.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * bodyClass.hashCode() + mediaType.hashCode();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package nablarch.fw.web;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * 書き出したデータをチャンク形式（Transfer-Encoding: chunked）に変換する{@link OutputStream}。
+ * <p>
+ * データはバッファが一杯になる度に1チャンクとして書き出す。
+ * {@link #finish()}で残りのデータと終端のチャンクを書き出す。書き出し先はクローズしない。
+ * </p>
+ */
+class ChunkedOutputStream extends FilterOutputStream {
+
+    /** チャンクサイズ行の文字コード */
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    /** 改行 */
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    /** 終端のチャンク */
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+
+    /** 1チャンクのバッファ */
+    private final byte[] buffer;
+
+    /** バッファに保持しているバイト数 */
+    private int count;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param out       書き出し先
+     * @param chunkSize 1チャンクの最大バイト数
+     */
+    ChunkedOutputStream(OutputStream out, int chunkSize) {
+        super(out);
+        this.buffer = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            writeChunk();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (count == buffer.length) {
+                writeChunk();
+            }
+            int copied = Math.min(remaining, buffer.length - count);
+            System.arraycopy(b, offset, buffer, count, copied);
+            count += copied;
+            offset += copied;
+            remaining -= copied;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeChunk();
+        out.flush();
+    }
+
+    /**
+     * 残りのデータと終端のチャンクを書き出す。
+     *
+     * @throws IOException 書き出しに失敗した場合
+     */
+    void finish() throws IOException {
+        writeChunk();
+        out.write(LAST_CHUNK);
+        out.flush();
+    }
+
+    /**
+     * バッファに保持しているデータを1チャンクとして書き出す。
+     *
+     * @throws IOException 書き出しに失敗した場合
+     */
+    private void writeChunk() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        out.write(Integer.toHexString(count).getBytes(ASCII));
+        out.write(CRLF);
+        out.write(buffer, 0, count);
+        out.write(CRLF);
+        count = 0;
+    }
+}
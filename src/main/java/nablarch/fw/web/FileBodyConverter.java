@@ -0,0 +1,112 @@
+package nablarch.fw.web;
+
+import nablarch.core.util.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link File}型、{@link Path}型のbodyを、全体をメモリ上に読み込まずに書き出すための
+ * {@link RestTestBodyConverter}実装クラス。
+ * <p>
+ * ファイルのサイズをContent-Lengthとして送信する。
+ * チャネルへ書き出す場合は、{@link FileChannel#transferTo(long, long, WritableByteChannel)}で転送する。
+ * </p>
+ */
+public class FileBodyConverter implements RestTestStreamingBodyWriter {
+
+    /** 読み込みに使用するバッファのサイズ */
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public boolean isConvertible(Object body, MediaType mediaType) {
+        return body instanceof File || body instanceof Path;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * ファイルの全体を読み込み、Content-Typeのcharsetパラメータで指定された文字コード
+     * （指定されていない場合はデフォルトの文字コード）で文字列に変換する。
+     * </p>
+     */
+    @Override
+    public String convert(Object body, MediaType mediaType) {
+        try {
+            String charset = mediaType.getCharset();
+            return new String(Files.readAllBytes(toPath(body)),
+                    charset == null ? Charset.defaultCharset() : Charset.forName(charset));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("body cannot convert to String. cause[" + e.getMessage() + "].", e);
+        }
+    }
+
+    @Override
+    public long getContentLength(Object body, MediaType mediaType) throws IOException {
+        return Files.size(toPath(body));
+    }
+
+    @Override
+    public void write(Object body, MediaType mediaType, Charset charset, OutputStream out) throws IOException {
+        InputStream in = Files.newInputStream(toPath(body));
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+    }
+
+    @Override
+    public void transferTo(Object body, MediaType mediaType, WritableByteChannel channel) throws IOException {
+        SeekableByteChannel in = Files.newByteChannel(toPath(body));
+        try {
+            if (in instanceof FileChannel) {
+                FileChannel file = (FileChannel) in;
+                long size = file.size();
+                long position = 0;
+                while (position < size) {
+                    long transferred = file.transferTo(position, size - position, channel);
+                    if (transferred <= 0) {
+                        // 転送中にファイルが切り詰められた場合
+                        break;
+                    }
+                    position += transferred;
+                }
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+    }
+
+    /**
+     * bodyを{@link Path}に変換する。
+     *
+     * @param body リクエストボディ
+     * @return {@link Path}
+     */
+    private static Path toPath(Object body) {
+        return body instanceof File ? ((File) body).toPath() : (Path) body;
+    }
+}
@@ -0,0 +1,329 @@
+package nablarch.fw.web;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * HTTPヘッダを保持する{@link Map}。
+ * <p>
+ * ヘッダ名の大文字・小文字は区別せず、追加順を保持する。
+ * 同じ名前のヘッダを複数保持でき（{@link #add(String, String)}）、直列化時はそれぞれを1行として出力する。
+ * {@link Map}としては、同じ名前のヘッダのうち最初の値を返す。
+ * </p>
+ * <p>
+ * ヘッダ名と値は配列で保持し、ヘッダ数は少ないため検索は線形に行う。
+ * 変更の都度{@link #getVersion()}が増加するため、直列化結果のキャッシュが有効か否かを複製せずに判定できる。
+ * スレッドセーフではない。
+ * </p>
+ */
+final class HeaderMap extends AbstractMap<String, String> {
+
+    /** 配列の初期サイズ */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** ヘッダ名（追加順） */
+    private String[] names = new String[INITIAL_CAPACITY];
+
+    /** ヘッダの値（追加順） */
+    private String[] values = new String[INITIAL_CAPACITY];
+
+    /** 保持しているヘッダの数（同じ名前のヘッダも個別に数える） */
+    private int count;
+
+    /** 変更の都度増加するバージョン */
+    private int version;
+
+    /** {@link #entrySet()}のビュー */
+    private Set<Map.Entry<String, String>> entrySet;
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key, 0);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key, 0) >= 0;
+    }
+
+    /**
+     * ヘッダを設定する。
+     * 同じ名前のヘッダが存在する場合は、最初のヘッダの値を置き換え、それ以外のヘッダは削除する。
+     *
+     * @param name  ヘッダ名
+     * @param value 値
+     * @return 置き換える前の値。存在しなかった場合は{@code null}
+     */
+    @Override
+    public String put(String name, String value) {
+        if (name == null) {
+            throw new IllegalArgumentException("header name must not be null.");
+        }
+        int index = indexOf(name, 0);
+        if (index < 0) {
+            add(name, value);
+            return null;
+        }
+        String old = values[index];
+        values[index] = value;
+        removeFrom(name, index + 1);
+        version++;
+        return old;
+    }
+
+    /**
+     * ヘッダを追加する。
+     * 同じ名前のヘッダが存在する場合も置き換えずに追加する。
+     *
+     * @param name  ヘッダ名
+     * @param value 値
+     */
+    void add(String name, String value) {
+        if (name == null) {
+            throw new IllegalArgumentException("header name must not be null.");
+        }
+        if (count == names.length) {
+            names = Arrays.copyOf(names, count * 2);
+            values = Arrays.copyOf(values, count * 2);
+        }
+        names[count] = name;
+        values[count] = value;
+        count++;
+        version++;
+    }
+
+    /**
+     * 他の{@link HeaderMap}のヘッダをすべて追加する。
+     *
+     * @param other 追加するヘッダ
+     */
+    void addAll(HeaderMap other) {
+        for (int i = 0; i < other.count; i++) {
+            add(other.names[i], other.values[i]);
+        }
+    }
+
+    /**
+     * 指定した名前のヘッダの値をすべて取得する。
+     *
+     * @param name ヘッダ名
+     * @return 値の一覧（追加順）。存在しない場合は空のリスト
+     */
+    List<String> getAll(String name) {
+        List<String> result = new ArrayList<String>(1);
+        for (int index = indexOf(name, 0); index >= 0; index = indexOf(name, index + 1)) {
+            result.add(values[index]);
+        }
+        return result;
+    }
+
+    @Override
+    public String remove(Object key) {
+        int index = indexOf(key, 0);
+        if (index < 0) {
+            return null;
+        }
+        String old = values[index];
+        removeFrom((String) key, index);
+        version++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(names, 0, count, null);
+        Arrays.fill(values, 0, count, null);
+        count = 0;
+        version++;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (isFirst(i)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * 保持しているヘッダの数を取得する。同じ名前のヘッダも個別に数える。
+     *
+     * @return ヘッダの数
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * 指定した位置のヘッダ名を取得する。
+     *
+     * @param index 位置
+     * @return ヘッダ名
+     */
+    String nameAt(int index) {
+        return names[index];
+    }
+
+    /**
+     * 指定した位置のヘッダの値を取得する。
+     *
+     * @param index 位置
+     * @return ヘッダの値
+     */
+    String valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * バージョンを取得する。ヘッダが変更される都度増加する。
+     *
+     * @return バージョン
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * 指定した名前のヘッダを、指定した位置以降から検索する。
+     *
+     * @param key  ヘッダ名
+     * @param from 検索を開始する位置
+     * @return 見つかった位置。見つからない場合は-1
+     */
+    private int indexOf(Object key, int from) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        String name = (String) key;
+        for (int i = from; i < count; i++) {
+            if (name.equalsIgnoreCase(names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 指定した位置のヘッダが、同じ名前のヘッダのうち最初のものか否か。
+     *
+     * @param index 位置
+     * @return 最初のものである場合は{@code true}
+     */
+    private boolean isFirst(int index) {
+        return indexOf(names[index], 0) == index;
+    }
+
+    /**
+     * 指定した位置以降の、指定した名前のヘッダを削除する。
+     *
+     * @param name ヘッダ名
+     * @param from 削除を開始する位置
+     */
+    private void removeFrom(String name, int from) {
+        int to = from;
+        for (int i = from; i < count; i++) {
+            if (!name.equalsIgnoreCase(names[i])) {
+                names[to] = names[i];
+                values[to] = values[i];
+                to++;
+            }
+        }
+        Arrays.fill(names, to, count, null);
+        Arrays.fill(values, to, count, null);
+        count = to;
+    }
+
+    /**
+     * ヘッダ名毎に、最初の値を要素とする{@link Set}のビュー。
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new Iterator<Map.Entry<String, String>>() {
+
+                /** 次に返す位置 */
+                private int next = advance(0);
+
+                /** 最後に返したヘッダ名 */
+                private String last;
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public Map.Entry<String, String> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final String name = names[next];
+                    last = name;
+                    next = advance(next + 1);
+                    return new SimpleEntry<String, String>(name, get(name)) {
+                        @Override
+                        public String setValue(String value) {
+                            super.setValue(value);
+                            return put(name, value);
+                        }
+                    };
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    int removed = indexOf(last, 0);
+                    HeaderMap.this.remove(last);
+                    next = advance(removed);
+                    last = null;
+                }
+
+                /**
+                 * 指定した位置以降で、ヘッダ名毎に最初のヘッダの位置を取得する。
+                 *
+                 * @param from 検索を開始する位置
+                 * @return 位置。存在しない場合は{@link #count}
+                 */
+                private int advance(int from) {
+                    int index = from;
+                    while (index < count && !isFirst(index)) {
+                        index++;
+                    }
+                    return index;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return HeaderMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            HeaderMap.this.clear();
+        }
+    }
+}
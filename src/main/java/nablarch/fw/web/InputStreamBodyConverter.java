@@ -0,0 +1,87 @@
+package nablarch.fw.web;
+
+import nablarch.core.util.FileUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * {@link InputStream}型のbodyを、全体をメモリ上に読み込まずに書き出すための{@link RestTestBodyConverter}実装クラス。
+ * <p>
+ * バイト数は書き出すまでわからないため、チャンク形式で送信される。
+ * {@link InputStream}は1度しか読み込めないため、リクエストを直列化できるのは1度のみとなる。
+ * 読み込み終えた{@link InputStream}はクローズする。
+ * </p>
+ */
+public class InputStreamBodyConverter implements RestTestStreamingBodyWriter {
+
+    /** 読み込みに使用するバッファのサイズ */
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public boolean isConvertible(Object body, MediaType mediaType) {
+        return body instanceof InputStream;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * bodyの全体を読み込み、Content-Typeのcharsetパラメータで指定された文字コード
+     * （指定されていない場合はデフォルトの文字コード）で文字列に変換する。
+     * </p>
+     */
+    @Override
+    public String convert(Object body, MediaType mediaType) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(body, mediaType, null, out);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("body cannot convert to String. cause[" + e.getMessage() + "].", e);
+        }
+        String charset = mediaType.getCharset();
+        return new String(out.toByteArray(), charset == null ? Charset.defaultCharset() : Charset.forName(charset));
+    }
+
+    @Override
+    public long getContentLength(Object body, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void write(Object body, MediaType mediaType, Charset charset, OutputStream out) throws IOException {
+        InputStream in = (InputStream) body;
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+    }
+
+    @Override
+    public void transferTo(Object body, MediaType mediaType, WritableByteChannel channel) throws IOException {
+        ReadableByteChannel in = Channels.newChannel((InputStream) body);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+    }
+}
@@ -1,19 +1,56 @@
 package nablarch.fw.web;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.json.JsonWriteFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Jacksonを使用してbodyを変換するための{@link RestTestBodyConverter}実装クラス。
+ * <p>
+ * デフォルトでは、{@code application/json}と、{@code application/problem+json}のような
+ * 構造化構文のサフィックスが{@code +json}のMIMEタイプ（{@code application/*+json}）を変換する。
+ * 変換するMIMEタイプは{@link #setMediaTypes(List)}で変更できる。
+ * {@link RestMockHttpRequestBuilder}は変換可否の判定結果をキャッシュするため、
+ * 変換するMIMEタイプは、最初に変換可否を判定した後は変更できない。
+ * </p>
  */
-public class JacksonBodyConverter implements RestTestBodyConverter {
-    /** 変換可能なMIMEタイプ */
-    private static final MediaType CONVERTIBLE_TYPE = new MediaType("application/json");
+public class JacksonBodyConverter implements RestTestBodyWriter {
+    /** デフォルトで変換可能なMIMEタイプ */
+    private static final MediaTypeMatcher DEFAULT_MEDIA_TYPES
+            = new MediaTypeMatcher("application/json", "application/*+json");
+
+    /** キャッシュする{@link ObjectWriter}の最大数 */
+    private static final int MAX_WRITER_CACHE_SIZE = 256;
+
+    /** Jacksonが直接バイト列を書き出す文字コード */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     /** {@link ObjectMapper} */
     private final ObjectMapper objectMapper;
 
+    /** bodyのクラス毎の{@link ObjectWriter} */
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+
+    /** 変換可能なMIMEタイプ */
+    private volatile MediaTypeMatcher mediaTypes = DEFAULT_MEDIA_TYPES;
+
+    /** 変換可否を判定したか否か（判定後は変換可能なMIMEタイプを変更できない） */
+    private volatile boolean mediaTypesFixed = false;
+
     /**
      * コンストラクタ。
      */
@@ -27,18 +64,145 @@ public class JacksonBodyConverter implements RestTestBodyConverter {
 
     @Override
     public boolean isConvertible(Object body, MediaType mediaType) {
-        return CONVERTIBLE_TYPE.equals(mediaType);
+        if (!mediaTypesFixed) {
+            mediaTypesFixed = true;
+        }
+        return mediaTypes.matches(mediaType);
+    }
+
+    /**
+     * 変換可能なMIMEタイプのパターンを設定する。
+     * <p>
+     * 使用できるパターンは{@link MediaTypeMatcher}を参照。
+     * 変換可否の判定結果はキャッシュされるため、最初に変換可否を判定した後は設定できない。
+     * </p>
+     *
+     * @param mediaTypes 変換可能なMIMEタイプのパターン
+     * @throws IllegalStateException 変換可否を判定した後に設定した場合
+     */
+    public void setMediaTypes(List<String> mediaTypes) {
+        if (mediaTypesFixed) {
+            throw new IllegalStateException("media types cannot be changed after the converter is used. "
+                    + "media types=" + mediaTypes + ".");
+        }
+        this.mediaTypes = new MediaTypeMatcher(mediaTypes);
     }
 
     @Override
     public String convert(Object body, MediaType mediaType) {
         try {
-            return objectMapper.writeValueAsString(body);
+            return getWriter(body).writeValueAsString(body);
         } catch (JsonProcessingException e) {
             throw new IllegalArgumentException("body cannot convert to String. cause[" + e.getMessage() + "].", e);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 文字コードがUTF-8の場合は、Jacksonが直接バイト列を書き出す。
+     * </p>
+     */
+    @Override
+    public void write(Object body, MediaType mediaType, Charset charset, OutputStream out) throws IOException {
+        ObjectWriter writer = getWriter(body);
+        try {
+            if (UTF_8.equals(charset)) {
+                writer.writeValue(out, body);
+            } else {
+                Writer encoder = new OutputStreamWriter(out, charset);
+                writer.writeValue(encoder, body);
+                encoder.flush();
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("body cannot convert to String. cause[" + e.getMessage() + "].", e);
+        }
+    }
+
+    /**
+     * 要素を1つずつシリアライズして書き出す。
+     * <p>
+     * 要素をリストに集めたり、文字列に変換したりせずに、{@link JsonGenerator}で順に書き出す。
+     * {@code lineDelimited}が{@code false}の場合はJSONの配列として、
+     * {@code true}の場合は要素毎に改行で区切ったJSON（NDJSON）として書き出す。
+     * 書き出し先のストリームはクローズしない。
+     * </p>
+     *
+     * @param elements      書き出す要素
+     * @param lineDelimited NDJSONとして書き出す場合は{@code true}
+     * @param charset       エンコードに使用する文字コード
+     * @param out           書き出し先
+     * @throws IOException 書き出しに失敗した場合
+     */
+    void writeSequence(Iterator<?> elements, boolean lineDelimited, Charset charset, OutputStream out)
+            throws IOException {
+        Writer encoder = null;
+        JsonGenerator generator;
+        if (UTF_8.equals(charset)) {
+            generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        } else {
+            encoder = new OutputStreamWriter(out, charset);
+            generator = objectMapper.getFactory().createGenerator(encoder);
+        }
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            if (lineDelimited) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            while (elements.hasNext()) {
+                Object element = elements.next();
+                getWriter(element).writeValue(generator, element);
+                if (lineDelimited) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (!lineDelimited) {
+                generator.writeEndArray();
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("body cannot convert to String. cause[" + e.getMessage() + "].", e);
+        } finally {
+            generator.close();
+        }
+        if (encoder != null) {
+            encoder.flush();
+        }
+    }
+
+    /**
+     * bodyのクラスに対応した{@link ObjectWriter}を取得する。
+     * <p>
+     * ルートの型の解決とシリアライザの検索を毎回行わないよう、bodyのクラス毎に生成した{@link ObjectWriter}を再利用する。
+     * {@link #writeSequence(Iterator, boolean, Charset, OutputStream)}で要素毎にフラッシュしないよう、
+     * {@link SerializationFeature#FLUSH_AFTER_WRITE_VALUE}は無効にする（書き出し完了時にはフラッシュされる）。
+     * </p>
+     *
+     * @param body リクエストボディ
+     * @return {@link ObjectWriter}
+     */
+    private ObjectWriter getWriter(Object body) {
+        if (body == null) {
+            return objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+        Class<?> bodyClass = body.getClass();
+        ObjectWriter writer = writers.get(bodyClass);
+        if (writer == null) {
+            writer = objectMapper.writerFor(bodyClass).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            // 想定外に多くのクラスが使用された場合も、メモリを使い続けないよう上限を設ける
+            if (writers.size() < MAX_WRITER_CACHE_SIZE) {
+                ObjectWriter cached = writers.putIfAbsent(bodyClass, writer);
+                if (cached != null) {
+                    writer = cached;
+                }
+            }
+        }
+        return writer;
+    }
+
     /**
      * {@link ObjectMapper}のfactoryインターフェイス
      */
@@ -0,0 +1,216 @@
+package nablarch.fw.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * {@link Iterator}、{@link Iterable}、{@code java.util.stream.Stream}型のbodyを、
+ * 全体をメモリ上に保持せずにJSONとして書き出すための{@link RestTestBodyConverter}実装クラス。
+ * <p>
+ * 要素は{@link JacksonBodyConverter}で1つずつシリアライズし、JSONの配列として書き出す。
+ * Content-Typeが{@value #NDJSON}の場合は、要素毎に改行で区切ったJSON（NDJSON）として書き出す。
+ * バイト数は書き出すまでわからないため、チャンク形式で送信される。
+ * </p>
+ * <p>
+ * {@link Collection}は既に全体がメモリ上にあるため対象とせず、{@link JacksonBodyConverter}で変換する。
+ * {@link Iterator}と{@code Stream}は1度しか読み込めないため、リクエストを直列化できるのは1度のみとなる。
+ * 読み込み終えた{@code Stream}はクローズする。
+ * </p>
+ * <p>
+ * メモリ上に保持せずに送信されるのは、{@link RestMockHttpRequest#writeTo(java.io.OutputStream)}で直列化する場合
+ * （{@link nablarch.test.core.http.RestTestConfiguration#setDirectDispatchEnabled(boolean)}で
+ * ハンドラキューを直接実行する場合）のみである。
+ * デフォルトの内蔵サーバ（Jetty）は{@link RestMockHttpRequest#toString()}でリクエスト全体を文字列に変換して送信するため、
+ * 全要素を書き出した結果がメモリ上に保持される。要素数が非常に多い場合は、ハンドラキューを直接実行すること。
+ * </p>
+ */
+public class JacksonSequenceBodyConverter implements RestTestStreamingBodyWriter {
+
+    /** NDJSONのMIMEタイプ */
+    public static final String NDJSON = "application/x-ndjson";
+
+    /** NDJSONのMIMEタイプに一致する{@link MediaTypeMatcher} */
+    private static final MediaTypeMatcher NDJSON_TYPE = new MediaTypeMatcher(NDJSON);
+
+    /** 文字コードが指定されていない場合に使用する文字コード */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** {@code java.util.stream.BaseStream}（Java 8未満の場合は{@code null}） */
+    private static final Class<?> BASE_STREAM = findClass("java.util.stream.BaseStream");
+
+    /** 要素のシリアライズに使用する{@link JacksonBodyConverter} */
+    private final JacksonBodyConverter jacksonBodyConverter;
+
+    /**
+     * コンストラクタ。
+     */
+    public JacksonSequenceBodyConverter() {
+        this(new JacksonBodyConverter());
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jacksonBodyConverter 要素のシリアライズに使用する{@link JacksonBodyConverter}
+     */
+    public JacksonSequenceBodyConverter(JacksonBodyConverter jacksonBodyConverter) {
+        this.jacksonBodyConverter = jacksonBodyConverter;
+    }
+
+    @Override
+    public boolean isConvertible(Object body, MediaType mediaType) {
+        return isSequence(body)
+                && (NDJSON_TYPE.matches(mediaType) || jacksonBodyConverter.isConvertible(body, mediaType));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * bodyの全体を書き出し、Content-Typeのcharsetパラメータで指定された文字コード
+     * （指定されていない場合はUTF-8）で文字列に変換する。
+     * </p>
+     */
+    @Override
+    public String convert(Object body, MediaType mediaType) {
+        Charset charset = getCharset(mediaType);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(body, mediaType, charset, out);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("body cannot convert to String. cause[" + e.getMessage() + "].", e);
+        }
+        return new String(out.toByteArray(), charset);
+    }
+
+    @Override
+    public long getContentLength(Object body, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void write(Object body, MediaType mediaType, Charset charset, OutputStream out) throws IOException {
+        try {
+            jacksonBodyConverter.writeSequence(toIterator(body), NDJSON_TYPE.matches(mediaType),
+                    charset == null ? getCharset(mediaType) : charset, out);
+        } finally {
+            closeStream(body);
+        }
+    }
+
+    @Override
+    public void transferTo(Object body, MediaType mediaType, WritableByteChannel channel) throws IOException {
+        OutputStream out = Channels.newOutputStream(channel);
+        write(body, mediaType, getCharset(mediaType), out);
+        out.flush();
+    }
+
+    /**
+     * bodyが要素を順に書き出す対象か否か。
+     *
+     * @param body リクエストボディ
+     * @return 対象の場合は{@code true}
+     */
+    private static boolean isSequence(Object body) {
+        return body instanceof Iterator
+                || (body instanceof Iterable && !(body instanceof Collection))
+                || isStream(body);
+    }
+
+    /**
+     * bodyが{@code java.util.stream.BaseStream}か否か。
+     *
+     * @param body リクエストボディ
+     * @return {@code java.util.stream.BaseStream}の場合は{@code true}
+     */
+    static boolean isStream(Object body) {
+        return BASE_STREAM != null && BASE_STREAM.isInstance(body);
+    }
+
+    /**
+     * bodyの要素を順に取得する{@link Iterator}を取得する。
+     *
+     * @param body リクエストボディ
+     * @return {@link Iterator}
+     */
+    private static Iterator<?> toIterator(Object body) {
+        if (body instanceof Iterator) {
+            return (Iterator<?>) body;
+        }
+        if (body instanceof Iterable) {
+            return ((Iterable<?>) body).iterator();
+        }
+        return (Iterator<?>) invokeStreamMethod(body, "iterator");
+    }
+
+    /**
+     * bodyが{@code java.util.stream.BaseStream}の場合はクローズする。
+     *
+     * @param body リクエストボディ
+     */
+    private static void closeStream(Object body) {
+        if (isStream(body)) {
+            invokeStreamMethod(body, "close");
+        }
+    }
+
+    /**
+     * {@code java.util.stream.BaseStream}の引数のないメソッドを呼び出す。
+     * Java 8未満でもこのクラスを使用できるよう、リフレクションで呼び出す。
+     *
+     * @param stream     {@code java.util.stream.BaseStream}
+     * @param methodName メソッド名
+     * @return 戻り値
+     */
+    private static Object invokeStreamMethod(Object stream, String methodName) {
+        try {
+            Method method = BASE_STREAM.getMethod(methodName);
+            return method.invoke(stream);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Content-Typeのcharsetパラメータで指定された文字コードを取得する。
+     *
+     * @param mediaType Content-Type
+     * @return 文字コード。指定されていない場合はUTF-8
+     */
+    private static Charset getCharset(MediaType mediaType) {
+        String charset = mediaType.getCharset();
+        return charset == null ? UTF_8 : Charset.forName(charset);
+    }
+
+    /**
+     * クラスを取得する。
+     *
+     * @param className クラス名
+     * @return クラス。存在しない場合は{@code null}
+     */
+    private static Class<?> findClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
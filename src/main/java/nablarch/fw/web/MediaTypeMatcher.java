@@ -0,0 +1,167 @@
+package nablarch.fw.web;
+
+import nablarch.fw.web.RestTestBodyConverter.MediaType;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * MIMEタイプのパターンに一致するか否かを判定するクラス。
+ * <p>
+ * {@link RestTestBodyConverter#isConvertible(Object, MediaType)}で、
+ * 変換可能なMIMEタイプの範囲を指定するために使用する。パターンは生成時に解析し、判定時には文字列の比較のみを行う。
+ * 使用できるパターンは以下のとおり。
+ * </p>
+ * <ul>
+ *   <li>{@code type/subtype}（完全一致）</li>
+ *   <li>{@code type/*+suffix}（タイプが一致し、構造化構文のサフィックスが一致）</li>
+ *   <li>{@code *}{@code /*+suffix}（構造化構文のサフィックスが一致）</li>
+ *   <li>{@code type/*}（タイプが一致）</li>
+ *   <li>{@code *}{@code /*}（すべて）</li>
+ * </ul>
+ * <p>
+ * パターンのパラメータは無視し、大文字・小文字は区別しない。
+ * 複数の{@link RestTestBodyConverter}が同じMIMEタイプを変換可能な場合は、
+ * {@link RestMockHttpRequestBuilder#setBodyConverters(Collection)}で先に設定したものが使用されるため、
+ * より限定的なパターンを持つものを先に設定すること。
+ * </p>
+ */
+public final class MediaTypeMatcher {
+
+    /** 完全一致のパターン */
+    private static final int EXACT = 0;
+
+    /** タイプとサフィックスを指定したパターン */
+    private static final int TYPE_SUFFIX = 1;
+
+    /** サフィックスのみを指定したパターン */
+    private static final int ANY_SUFFIX = 2;
+
+    /** タイプのみを指定したパターン */
+    private static final int TYPE_WILDCARD = 3;
+
+    /** すべてに一致するパターン */
+    private static final int ANY = 4;
+
+    /** ワイルドカード */
+    private static final String WILDCARD = "*";
+
+    /** パターン */
+    private final String[] patterns;
+
+    /** パターンの種類 */
+    private final int[] kinds;
+
+    /** パターンのタイプ */
+    private final String[] types;
+
+    /** パターンのサブタイプ、またはサフィックス */
+    private final String[] subtypes;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param patterns パターン
+     */
+    public MediaTypeMatcher(String... patterns) {
+        this(Arrays.asList(patterns));
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param patterns パターン
+     */
+    public MediaTypeMatcher(Collection<String> patterns) {
+        int size = patterns.size();
+        this.patterns = patterns.toArray(new String[size]);
+        this.kinds = new int[size];
+        this.types = new String[size];
+        this.subtypes = new String[size];
+        for (int i = 0; i < size; i++) {
+            MediaType pattern = new MediaType(this.patterns[i]);
+            String type = pattern.getType();
+            String subtype = pattern.getSubtype();
+            if (subtype == null || subtype.length() == 0 || type.length() == 0) {
+                throw invalidPattern(this.patterns[i]);
+            }
+            boolean suffixPattern = subtype.startsWith("*+") && pattern.getSuffix() != null;
+            if (WILDCARD.equals(type)) {
+                if (WILDCARD.equals(subtype)) {
+                    kinds[i] = ANY;
+                } else if (suffixPattern) {
+                    kinds[i] = ANY_SUFFIX;
+                } else {
+                    throw invalidPattern(this.patterns[i]);
+                }
+            } else if (WILDCARD.equals(subtype)) {
+                kinds[i] = TYPE_WILDCARD;
+            } else if (suffixPattern) {
+                kinds[i] = TYPE_SUFFIX;
+            } else if (subtype.indexOf('*') >= 0) {
+                throw invalidPattern(this.patterns[i]);
+            } else {
+                kinds[i] = EXACT;
+            }
+            types[i] = type;
+            subtypes[i] = suffixPattern ? pattern.getSuffix() : subtype;
+        }
+    }
+
+    /**
+     * MIMEタイプがいずれかのパターンに一致するか否か。
+     *
+     * @param mediaType MIMEタイプ
+     * @return 一致する場合は{@code true}
+     */
+    public boolean matches(MediaType mediaType) {
+        String type = mediaType.getType();
+        String subtype = mediaType.getSubtype();
+        if (subtype == null) {
+            return false;
+        }
+        String suffix = mediaType.getSuffix();
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case EXACT:
+                    if (types[i].equals(type) && subtypes[i].equals(subtype)) {
+                        return true;
+                    }
+                    break;
+                case TYPE_SUFFIX:
+                    if (types[i].equals(type) && subtypes[i].equals(suffix)) {
+                        return true;
+                    }
+                    break;
+                case ANY_SUFFIX:
+                    if (subtypes[i].equals(suffix)) {
+                        return true;
+                    }
+                    break;
+                case TYPE_WILDCARD:
+                    if (types[i].equals(type)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 不正なパターンであることを表す例外を生成する。
+     *
+     * @param pattern パターン
+     * @return 例外
+     */
+    private static IllegalArgumentException invalidPattern(String pattern) {
+        return new IllegalArgumentException("invalid media type pattern. pattern=[" + pattern + "].");
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(patterns);
+    }
+}
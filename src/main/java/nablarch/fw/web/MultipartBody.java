@@ -0,0 +1,280 @@
+package nablarch.fw.web;
+
+import nablarch.core.util.StringUtil;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * multipart/form-data形式のリクエストボディ。
+ * <p>
+ * 文字列、バイト配列、ファイル、ストリームをパートとして追加できる。
+ * パートの内容は{@link MultipartBodyConverter}が書き出す際に順に読み込まれるため、
+ * ファイルやストリームの内容をメモリ上に読み込むことはない。
+ * </p>
+ * <p>
+ * {@link RestMockHttpRequest#setBody(Object)}で設定すると、
+ * Content-Typeにboundaryパラメータを含む{@link #getContentType()}の値が設定される。
+ * ストリームのパートは1度しか読み込めないため、リクエストを直列化できるのは1度のみとなる。
+ * </p>
+ */
+public class MultipartBody {
+
+    /** multipart/form-dataのMIMEタイプ */
+    public static final String MULTIPART_FORM_DATA = "multipart/form-data";
+
+    /** ファイルのパートのデフォルトContent-Type */
+    private static final String DEFAULT_FILE_CONTENT_TYPE = "application/octet-stream";
+
+    /** boundaryの最大長（RFC 2046） */
+    private static final int MAX_BOUNDARY_LENGTH = 70;
+
+    /** boundary */
+    private final String boundary;
+
+    /** パート（追加順） */
+    private final List<Part> parts = new ArrayList<Part>();
+
+    /**
+     * ランダムなboundaryを持つオブジェクトを生成する。
+     */
+    public MultipartBody() {
+        this("----NablarchTestBoundary" + UUID.randomUUID().toString().replace("-", ""));
+    }
+
+    /**
+     * 指定したboundaryを持つオブジェクトを生成する。
+     *
+     * @param boundary boundary
+     */
+    public MultipartBody(String boundary) {
+        if (StringUtil.isNullOrEmpty(boundary) || boundary.length() > MAX_BOUNDARY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "boundary must be 1 to " + MAX_BOUNDARY_LENGTH + " characters. value=[" + boundary + "].");
+        }
+        this.boundary = boundary;
+    }
+
+    /**
+     * 文字列のパートを追加する。
+     * 文字列はContent-Typeのcharsetパラメータで指定された文字コード（指定されていない場合はUTF-8）でエンコードする。
+     *
+     * @param name  パート名
+     * @param value 値
+     * @return このオブジェクト自体
+     */
+    public MultipartBody addText(String name, String value) {
+        return add(name, null, null, requireContent(value));
+    }
+
+    /**
+     * バイト配列のパートを追加する。
+     *
+     * @param name        パート名
+     * @param fileName    ファイル名
+     * @param contentType パートのContent-Type
+     * @param content     内容
+     * @return このオブジェクト自体
+     */
+    public MultipartBody addBytes(String name, String fileName, String contentType, byte[] content) {
+        return add(name, fileName, contentType, requireContent(content));
+    }
+
+    /**
+     * ファイルのパートを追加する。
+     * ファイル名はファイルの名前、Content-Typeは"application/octet-stream"とする。
+     *
+     * @param name パート名
+     * @param file ファイル
+     * @return このオブジェクト自体
+     */
+    public MultipartBody addFile(String name, File file) {
+        return addFile(name, file, DEFAULT_FILE_CONTENT_TYPE);
+    }
+
+    /**
+     * ファイルのパートを追加する。
+     * ファイル名はファイルの名前とする。
+     *
+     * @param name        パート名
+     * @param file        ファイル
+     * @param contentType パートのContent-Type
+     * @return このオブジェクト自体
+     */
+    public MultipartBody addFile(String name, File file, String contentType) {
+        return addFile(name, requireContent(file).toPath(), contentType);
+    }
+
+    /**
+     * ファイルのパートを追加する。
+     * ファイル名はファイルの名前とする。
+     *
+     * @param name        パート名
+     * @param path        ファイルのパス
+     * @param contentType パートのContent-Type
+     * @return このオブジェクト自体
+     */
+    public MultipartBody addFile(String name, Path path, String contentType) {
+        return add(name, String.valueOf(requireContent(path).getFileName()), contentType, path);
+    }
+
+    /**
+     * ストリームのパートを追加する。
+     * ストリームは書き出し時に最後まで読み込み、クローズする。
+     *
+     * @param name        パート名
+     * @param fileName    ファイル名
+     * @param contentType パートのContent-Type
+     * @param content     内容を読み込むストリーム
+     * @return このオブジェクト自体
+     */
+    public MultipartBody addStream(String name, String fileName, String contentType, InputStream content) {
+        return add(name, fileName, contentType, requireContent(content));
+    }
+
+    /**
+     * boundaryを取得する。
+     *
+     * @return boundary
+     */
+    public String getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * boundaryパラメータを含むContent-Typeを取得する。
+     *
+     * @return Content-Type
+     */
+    public String getContentType() {
+        return MULTIPART_FORM_DATA + "; boundary=" + boundary;
+    }
+
+    /**
+     * パートの一覧を取得する。
+     *
+     * @return パートの一覧（追加順）
+     */
+    List<Part> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * 1度しか読み込めない{@link InputStream}のパートを含むか否か。
+     *
+     * @return {@link InputStream}のパートを含む場合は{@code true}
+     */
+    boolean hasStreamPart() {
+        for (Part part : parts) {
+            if (part.getContent() instanceof InputStream) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * パートを追加する。
+     *
+     * @param name        パート名
+     * @param fileName    ファイル名
+     * @param contentType パートのContent-Type
+     * @param content     内容
+     * @return このオブジェクト自体
+     */
+    private MultipartBody add(String name, String fileName, String contentType, Object content) {
+        if (StringUtil.isNullOrEmpty(name)) {
+            throw new IllegalArgumentException("part name must not be empty.");
+        }
+        parts.add(new Part(name, fileName, contentType, content));
+        return this;
+    }
+
+    /**
+     * パートの内容が{@code null}でないことを確認する。
+     *
+     * @param content 内容
+     * @param <T>     内容の型
+     * @return 内容
+     */
+    private static <T> T requireContent(T content) {
+        if (content == null) {
+            throw new IllegalArgumentException("part content must not be null.");
+        }
+        return content;
+    }
+
+    /**
+     * multipart/form-dataの1パート。
+     */
+    static final class Part {
+
+        /** パート名 */
+        private final String name;
+
+        /** ファイル名 */
+        private final String fileName;
+
+        /** Content-Type */
+        private final String contentType;
+
+        /** 内容（{@link String}、byte配列、{@link Path}、{@link InputStream}のいずれか） */
+        private final Object content;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param name        パート名
+         * @param fileName    ファイル名
+         * @param contentType Content-Type
+         * @param content     内容
+         */
+        Part(String name, String fileName, String contentType, Object content) {
+            this.name = name;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+        /**
+         * パート名を取得する。
+         *
+         * @return パート名
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * ファイル名を取得する。
+         *
+         * @return ファイル名。ファイルでない場合は{@code null}
+         */
+        String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Content-Typeを取得する。
+         *
+         * @return Content-Type。指定されていない場合は{@code null}
+         */
+        String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * 内容を取得する。
+         *
+         * @return 内容
+         */
+        Object getContent() {
+            return content;
+        }
+    }
+}
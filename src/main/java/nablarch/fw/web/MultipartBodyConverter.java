@@ -0,0 +1,222 @@
+package nablarch.fw.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link MultipartBody}型のbodyを、multipart/form-data形式で書き出すための{@link RestTestBodyConverter}実装クラス。
+ * <p>
+ * パートは連結せず、書き出し時に順に読み込んで書き出す。
+ * ファイルのパートは{@link FileBodyConverter}で、ストリームのパートは{@link InputStreamBodyConverter}で書き出す。
+ * ストリームのパートを含む場合はバイト数がわからないため、チャンク形式で送信される。
+ * </p>
+ * <p>
+ * boundaryはContent-Typeのboundaryパラメータの値を使用する。
+ * 文字列のパート、およびパート名・ファイル名は、Content-Typeのcharsetパラメータで指定された文字コード
+ * （指定されていない場合はUTF-8）でエンコードする。
+ * </p>
+ */
+public class MultipartBodyConverter implements RestTestStreamingBodyWriter {
+
+    /** 改行文字 */
+    private static final String LS = "\r\n";
+
+    /** boundaryの前に付与する文字列 */
+    private static final String DASHES = "--";
+
+    /** 文字コードが指定されていない場合に使用する文字コード */
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+
+    /** ファイルのパートを書き出す{@link RestTestStreamingBodyWriter} */
+    private final FileBodyConverter fileBodyConverter = new FileBodyConverter();
+
+    /** ストリームのパートを書き出す{@link RestTestStreamingBodyWriter} */
+    private final InputStreamBodyConverter inputStreamBodyConverter = new InputStreamBodyConverter();
+
+    @Override
+    public boolean isConvertible(Object body, MediaType mediaType) {
+        return body instanceof MultipartBody
+                && MultipartBody.MULTIPART_FORM_DATA.equals(mediaType.toString());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * bodyの全体を書き出し、Content-Typeのcharsetパラメータで指定された文字コード
+     * （指定されていない場合はUTF-8）で文字列に変換する。
+     * バイナリのパートを含む場合は内容が正しく表現されないため、{@link #write}を使用すること。
+     * </p>
+     */
+    @Override
+    public String convert(Object body, MediaType mediaType) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(body, mediaType, null, out);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("body cannot convert to String. cause[" + e.getMessage() + "].", e);
+        }
+        return new String(out.toByteArray(), getCharset(mediaType));
+    }
+
+    @Override
+    public long getContentLength(Object body, MediaType mediaType) throws IOException {
+        Charset charset = getCharset(mediaType);
+        String boundary = getBoundary(mediaType);
+        long contentLength = 0;
+        for (MultipartBody.Part part : ((MultipartBody) body).getParts()) {
+            Object content = part.getContent();
+            long partLength;
+            if (content instanceof String) {
+                partLength = ((String) content).getBytes(charset).length;
+            } else if (content instanceof byte[]) {
+                partLength = ((byte[]) content).length;
+            } else if (content instanceof Path) {
+                partLength = Files.size((Path) content);
+            } else {
+                return -1;
+            }
+            contentLength += partHeader(part, boundary, charset).length + partLength + LS.length();
+        }
+        return contentLength + closeDelimiter(boundary, charset).length;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * パートの文字コードはContent-Typeから決定するため、引数の文字コードは使用しない。
+     * </p>
+     */
+    @Override
+    public void write(Object body, MediaType mediaType, Charset charset, OutputStream out) throws IOException {
+        Charset partCharset = getCharset(mediaType);
+        String boundary = getBoundary(mediaType);
+        byte[] ls = LS.getBytes(partCharset);
+        for (MultipartBody.Part part : ((MultipartBody) body).getParts()) {
+            out.write(partHeader(part, boundary, partCharset));
+            Object content = part.getContent();
+            if (content instanceof String) {
+                out.write(((String) content).getBytes(partCharset));
+            } else if (content instanceof byte[]) {
+                out.write((byte[]) content);
+            } else if (content instanceof Path) {
+                fileBodyConverter.write(content, mediaType, partCharset, out);
+            } else {
+                inputStreamBodyConverter.write(content, mediaType, partCharset, out);
+            }
+            out.write(ls);
+        }
+        out.write(closeDelimiter(boundary, partCharset));
+    }
+
+    @Override
+    public void transferTo(Object body, MediaType mediaType, WritableByteChannel channel) throws IOException {
+        Charset partCharset = getCharset(mediaType);
+        String boundary = getBoundary(mediaType);
+        byte[] ls = LS.getBytes(partCharset);
+        for (MultipartBody.Part part : ((MultipartBody) body).getParts()) {
+            writeFully(channel, partHeader(part, boundary, partCharset));
+            Object content = part.getContent();
+            if (content instanceof String) {
+                writeFully(channel, ((String) content).getBytes(partCharset));
+            } else if (content instanceof byte[]) {
+                writeFully(channel, (byte[]) content);
+            } else if (content instanceof Path) {
+                fileBodyConverter.transferTo(content, mediaType, channel);
+            } else {
+                inputStreamBodyConverter.transferTo(content, mediaType, channel);
+            }
+            writeFully(channel, ls);
+        }
+        writeFully(channel, closeDelimiter(boundary, partCharset));
+    }
+
+    /**
+     * パートの区切りとヘッダを構築する。
+     *
+     * @param part     パート
+     * @param boundary boundary
+     * @param charset  文字コード
+     * @return パートの区切りとヘッダのバイト列
+     */
+    private static byte[] partHeader(MultipartBody.Part part, String boundary, Charset charset) {
+        StringBuilder header = new StringBuilder();
+        header.append(DASHES).append(boundary).append(LS)
+              .append("Content-Disposition: form-data; name=\"").append(escape(part.getName())).append('"');
+        if (part.getFileName() != null) {
+            header.append("; filename=\"").append(escape(part.getFileName())).append('"');
+        }
+        header.append(LS);
+        if (part.getContentType() != null) {
+            header.append("Content-Type: ").append(part.getContentType()).append(LS);
+        }
+        header.append(LS);
+        return header.toString().getBytes(charset);
+    }
+
+    /**
+     * 終端の区切りを構築する。
+     *
+     * @param boundary boundary
+     * @param charset  文字コード
+     * @return 終端の区切りのバイト列
+     */
+    private static byte[] closeDelimiter(String boundary, Charset charset) {
+        return (DASHES + boundary + DASHES + LS).getBytes(charset);
+    }
+
+    /**
+     * パート名・ファイル名を引用符で囲めるようエスケープする。
+     * 引用符と改行文字をパーセントエンコードする（RFC 7578）。
+     *
+     * @param value パート名・ファイル名
+     * @return エスケープした値
+     */
+    private static String escape(String value) {
+        return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    /**
+     * Content-Typeからboundaryを取得する。
+     *
+     * @param mediaType Content-Type
+     * @return boundary
+     */
+    private static String getBoundary(MediaType mediaType) {
+        String boundary = mediaType.getParameter("boundary");
+        if (boundary == null) {
+            throw new IllegalArgumentException("boundary parameter was not found in Content-Type.");
+        }
+        return boundary;
+    }
+
+    /**
+     * Content-Typeから文字コードを取得する。
+     *
+     * @param mediaType Content-Type
+     * @return 文字コード。指定されていない場合はUTF-8
+     */
+    private static Charset getCharset(MediaType mediaType) {
+        String charset = mediaType.getCharset();
+        return charset == null ? DEFAULT_CHARSET : Charset.forName(charset);
+    }
+
+    /**
+     * バイト列をすべてチャネルに書き出す。
+     *
+     * @param channel 書き出し先
+     * @param bytes   バイト列
+     * @throws IOException 書き出しに失敗した場合
+     */
+    private static void writeFully(WritableByteChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package nablarch.fw.web;
+
+/**
+ * RFC 3986に従ってパーセントエンコードを行うクラス。
+ * <p>
+ * 文字の判定とエスケープ文字列は事前に構築した表を参照し、
+ * 文字列はUTF-8のバイト列を生成せずに、呼び出し元のバッファへ直接書き出す。
+ * </p>
+ */
+final class PercentEncoder {
+
+    /** 非予約文字（ALPHA / DIGIT / "-" / "." / "_" / "~"）の表 */
+    private static final boolean[] UNRESERVED = new boolean[128];
+
+    /** クエリパラメータの名前・値にそのまま使用できる文字（非予約文字と"+"）の表 */
+    private static final boolean[] QUERY_COMPONENT_ALLOWED = new boolean[128];
+
+    /** URIにそのまま使用できる文字（非予約文字と予約文字）の表 */
+    private static final boolean[] URI_ALLOWED = new boolean[128];
+
+    /** 16進数表記の値の表（16進数でない文字は-1） */
+    private static final int[] HEX_VALUES = new int[128];
+
+    /** バイト値毎のエスケープ文字列（"%XX"）の表 */
+    private static final char[][] ESCAPES = new char[256][];
+
+    static {
+        String hex = "0123456789ABCDEF";
+        for (int c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (int c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (int c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c : "-._~".toCharArray()) {
+            UNRESERVED[c] = true;
+        }
+        System.arraycopy(UNRESERVED, 0, QUERY_COMPONENT_ALLOWED, 0, UNRESERVED.length);
+        // application/x-www-form-urlencodedではスペースを表す
+        QUERY_COMPONENT_ALLOWED['+'] = true;
+        System.arraycopy(UNRESERVED, 0, URI_ALLOWED, 0, UNRESERVED.length);
+        // gen-delims / sub-delims
+        for (char c : ":/?#[]@!$&'()*+,;=".toCharArray()) {
+            URI_ALLOWED[c] = true;
+        }
+        for (int c = 0; c < HEX_VALUES.length; c++) {
+            HEX_VALUES[c] = Character.digit(c, 16);
+        }
+        for (int b = 0; b < ESCAPES.length; b++) {
+            ESCAPES[b] = new char[] {'%', hex.charAt(b >> 4), hex.charAt(b & 0x0f)};
+        }
+    }
+
+    /**
+     * インスタンス化しない。
+     */
+    private PercentEncoder() {
+    }
+
+    /**
+     * パス変数など、URIの構成要素をエンコードして追加する。
+     * 非予約文字以外はすべてエンコードする。
+     *
+     * @param buffer 追加先
+     * @param value  値
+     * @return 追加先
+     */
+    static StringBuilder appendComponent(StringBuilder buffer, String value) {
+        return append(buffer, value, UNRESERVED, false);
+    }
+
+    /**
+     * クエリパラメータの名前・値をエンコードして追加する。
+     * <p>
+     * エンコード済みの値を指定できるよう、"+"とエンコード済みの"%XX"はそのまま追加する。
+     * それ以外の"%"や、"&amp;"・"="などクエリの区切り文字は、非予約文字以外の文字と同様にエンコードする。
+     * </p>
+     *
+     * @param buffer 追加先
+     * @param value  値
+     * @return 追加先
+     */
+    static StringBuilder appendQueryComponent(StringBuilder buffer, String value) {
+        return append(buffer, value, QUERY_COMPONENT_ALLOWED, true);
+    }
+
+    /**
+     * URIをエンコードして追加する。
+     * <p>
+     * 予約文字は区切り文字として扱いそのまま追加する。
+     * エンコード済みの"%XX"もそのまま追加し、それ以外の"%"はエンコードする。
+     * </p>
+     *
+     * @param buffer 追加先
+     * @param uri    URI
+     * @return 追加先
+     */
+    static StringBuilder appendUri(StringBuilder buffer, String uri) {
+        return append(buffer, uri, URI_ALLOWED, true);
+    }
+
+    /**
+     * 値をエンコードして追加する。
+     *
+     * @param buffer       追加先
+     * @param value        値
+     * @param allowed      そのまま追加する文字の表
+     * @param keepEscaped  エンコード済みの"%XX"をそのまま追加する場合は{@code true}
+     * @return 追加先
+     */
+    private static StringBuilder append(StringBuilder buffer, String value, boolean[] allowed,
+                                        boolean keepEscaped) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (allowed[c] || (keepEscaped && c == '%' && isEscaped(value, i))) {
+                    buffer.append(c);
+                } else {
+                    buffer.append(ESCAPES[c]);
+                }
+            } else if (c < 0x800) {
+                buffer.append(ESCAPES[0xc0 | (c >> 6)])
+                      .append(ESCAPES[0x80 | (c & 0x3f)]);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.append(ESCAPES[0xf0 | (codePoint >> 18)])
+                      .append(ESCAPES[0x80 | ((codePoint >> 12) & 0x3f)])
+                      .append(ESCAPES[0x80 | ((codePoint >> 6) & 0x3f)])
+                      .append(ESCAPES[0x80 | (codePoint & 0x3f)]);
+            } else if (Character.isSurrogate(c)) {
+                // 対になっていないサロゲートは、String#getBytesと同様に"?"に置き換える
+                buffer.append(ESCAPES['?']);
+            } else {
+                buffer.append(ESCAPES[0xe0 | (c >> 12)])
+                      .append(ESCAPES[0x80 | ((c >> 6) & 0x3f)])
+                      .append(ESCAPES[0x80 | (c & 0x3f)]);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * 指定した位置の"%"がエンコード済みの"%XX"の先頭であるか否か。
+     *
+     * @param value    値
+     * @param position "%"の位置
+     * @return エンコード済みの場合は{@code true}
+     */
+    private static boolean isEscaped(String value, int position) {
+        return position + 2 < value.length()
+                && isHex(value.charAt(position + 1))
+                && isHex(value.charAt(position + 2));
+    }
+
+    /**
+     * 16進数表記の文字であるか否か。
+     *
+     * @param c 文字
+     * @return 16進数表記の文字の場合は{@code true}
+     */
+    private static boolean isHex(char c) {
+        return c < HEX_VALUES.length && HEX_VALUES[c] >= 0;
+    }
+}
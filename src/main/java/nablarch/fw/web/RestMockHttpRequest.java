@@ -3,16 +3,41 @@ package nablarch.fw.web;
 import nablarch.core.util.StringUtil;
 import nablarch.core.util.annotation.Published;
 
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 /**
  * RESTfulウェブサービステスト用の{@link HttpRequest}モッククラス。
+ * <p>
+ * 直列化した結果はキャッシュし、同じリクエストを繰り返し送信する場合に再利用する。
+ * キャッシュはセッターでリクエストを変更した際に破棄する。
+ * ヘッダなどボディに影響しない変更の場合は、ボディの直列化結果は破棄せずに再利用する。
+ * {@link #getHeaderMap()}で取得したMapを直接変更した場合は、Mapが保持する更新回数で変更を検知し、
+ * {@link #getParamMap()}で取得したMapを直接変更した場合は、直列化の都度、前回の内容と比較して変更を検知する。
+ * ただし、リクエストボディに設定したオブジェクトの内容を変更した場合は検知できないため、
+ * 改めて{@link #setBody(Object)}を呼び出すこと。
+ * </p>
+ * <p>
+ * ヘッダはヘッダ名の大文字・小文字を区別せず、設定した順に直列化する。
+ * {@link #addHeader(String, String)}で同じ名前のヘッダを複数設定できる。
+ * </p>
+ * <p>
+ * リクエストパラメータの名前と値は、直列化の際にUTF-8でパーセントエンコードする。
+ * "+"とエンコード済みの"%XX"はそのまま送信するため、エンコード済みの値を指定してもよい。
+ * "&amp;"や"="などクエリの区切り文字は、値の一部として扱いエンコードする。
+ * </p>
  */
 @Published
 public class RestMockHttpRequest extends MockHttpRequest {
@@ -20,16 +45,38 @@ public class RestMockHttpRequest extends MockHttpRequest {
     /** 改行文字 */
     private static final String LS = "\r\n";
 
-    /** bodyを書き出すために利用可能な{@link RestTestBodyConverter} */
-    private final Collection<? extends RestTestBodyConverter> bodyConverters;
+    /** bodyを書き出す{@link RestTestBodyConverter}を選択する{@link BodyConverterResolver} */
+    private final BodyConverterResolver bodyConverterResolver;
     /** デフォルトContent-Type */
     private final String defaultContentType;
     /** リクエストボディ */
     private Object body;
+    /** リクエストヘッダ */
+    private final HeaderMap headers = new HeaderMap();
     /** Content-Typeヘッダーのキー */
     private static final String CONTENT_TYPE_KEY = "Content-Type";
     /** Content-Lengthヘッダーのキー */
     private static final String CONTENT_LENGTH_KEY = "Content-Length";
+    /** Transfer-Encodingヘッダーのキー */
+    private static final String TRANSFER_ENCODING_KEY = "Transfer-Encoding";
+    /** チャンク形式を表すTransfer-Encoding */
+    private static final String CHUNKED = "chunked";
+    /** チャンク形式で書き出す際の1チャンクの最大バイト数 */
+    private static final int CHUNK_SIZE = 8192;
+    /** リクエストボディがないことを表すContent-Length */
+    private static final long NO_BODY = -1;
+    /** {@link #writeTo(OutputStream)}でヘッダのエンコードに使用する文字コード */
+    private static final Charset HEAD_CHARSET = Charset.forName("UTF-8");
+    /** charsetパラメータが指定されていないJSONのボディのエンコードに使用する文字コード */
+    private static final Charset JSON_DEFAULT_CHARSET = Charset.forName("UTF-8");
+    /** {@link RestTestBodyWriter}で書き出したボディを、バイト列としてキャッシュする最大バイト数 */
+    private static final int BODY_CACHE_LIMIT = 1024 * 1024;
+
+    /** ボディの直列化結果のキャッシュ */
+    private volatile BodySerialization bodySerializationCache;
+
+    /** 直列化した結果のキャッシュ */
+    private volatile Serialization serializationCache;
 
     /**
      * 引数で渡された{@link RestTestBodyConverter}の{@link Collection}とデフォルトContent-Typeを持つオブジェクトを生成する。
@@ -39,8 +86,20 @@ public class RestMockHttpRequest extends MockHttpRequest {
      */
     public RestMockHttpRequest(Collection<? extends RestTestBodyConverter> bodyConverters,
                                String defaultContentType) {
-        this.bodyConverters = bodyConverters;
+        this(new BodyConverterResolver(bodyConverters, false), defaultContentType);
+    }
+
+    /**
+     * 引数で渡された{@link BodyConverterResolver}とデフォルトContent-Typeを持つオブジェクトを生成する。
+     * {@link RestMockHttpRequestBuilder}が、選択結果のキャッシュを生成したリクエストで共有するために使用する。
+     *
+     * @param bodyConverterResolver {@link RestTestBodyConverter}を選択する{@link BodyConverterResolver}
+     * @param defaultContentType    デフォルトContent-Type
+     */
+    RestMockHttpRequest(BodyConverterResolver bodyConverterResolver, String defaultContentType) {
+        this.bodyConverterResolver = bodyConverterResolver;
         this.defaultContentType = defaultContentType;
+        super.setHeaderMap(headers);
     }
 
     /**
@@ -54,27 +113,54 @@ public class RestMockHttpRequest extends MockHttpRequest {
 
     /**
      * リクエストボディを設定する。
+     * <p>
+     * Content-Typeが設定されていない場合は、デフォルトContent-Typeを設定する。
+     * ただし、{@link MultipartBody}の場合は、boundaryパラメータを含むContent-Typeを設定する。
+     * </p>
      *
      * @param body リクエストボディに設定するオブジェクト
      * @return {@link RestMockHttpRequest}自身
      */
     public RestMockHttpRequest setBody(Object body) {
         this.body = body;
-        if (getMediaType() == null && defaultContentType != null) {
+        invalidate();
+        if (body instanceof MultipartBody) {
+            setMultipartContentType((MultipartBody) body);
+        } else if (getMediaType() == null && defaultContentType != null) {
             setContentType(defaultContentType);
         }
         return this;
     }
 
+    /**
+     * {@link MultipartBody}のboundaryパラメータを含むContent-Typeを設定する。
+     * <p>
+     * Content-Typeが設定されていない場合は{@link MultipartBody#getContentType()}を設定する。
+     * boundaryパラメータのないmultipart/form-dataが設定されている場合は、boundaryパラメータを追加する。
+     * </p>
+     *
+     * @param multipartBody リクエストボディ
+     */
+    private void setMultipartContentType(MultipartBody multipartBody) {
+        RestTestBodyConverter.MediaType mediaType = getMediaType();
+        if (mediaType == null) {
+            setContentType(multipartBody.getContentType());
+        } else if (MultipartBody.MULTIPART_FORM_DATA.equals(mediaType.toString())
+                && mediaType.getParameter("boundary") == null) {
+            setContentType(getHeader(CONTENT_TYPE_KEY) + "; boundary=" + multipartBody.getBoundary());
+        }
+    }
+
     /**
      * Content-TypeヘッダーからMIMEタイプを取得する。
+     * 同じContent-Typeの解析結果は再利用する（{@link RestTestBodyConverter.MediaType#valueOf(String)}）。
      *
      * @return MIMEタイプ
      */
     private RestTestBodyConverter.MediaType getMediaType() {
         String contentType = getHeader(CONTENT_TYPE_KEY);
         if (StringUtil.hasValue(contentType)) {
-            return new RestTestBodyConverter.MediaType(contentType);
+            return RestTestBodyConverter.MediaType.valueOf(contentType);
         }
         return null;
     }
@@ -86,18 +172,33 @@ public class RestMockHttpRequest extends MockHttpRequest {
      * @return {@link RestMockHttpRequest}自身
      */
     public RestMockHttpRequest setContentType(String contentType) {
-        getHeaderMap().put(CONTENT_TYPE_KEY, contentType);
+        headers.put(CONTENT_TYPE_KEY, contentType);
+        invalidate();
         return this;
     }
 
     @Override
     public RestMockHttpRequest setMethod(String method) {
+        invalidate();
         return (RestMockHttpRequest) super.setMethod(method);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 引数のMapは保持せず、その内容をこのリクエストのヘッダとして設定する。
+     * </p>
+     */
     @Override
     public RestMockHttpRequest setHeaderMap(Map<String, String> headers) {
-        return (RestMockHttpRequest) super.setHeaderMap(headers);
+        if (headers != this.headers) {
+            this.headers.clear();
+            if (headers != null) {
+                this.headers.putAll(headers);
+            }
+        }
+        invalidate();
+        return this;
     }
 
     /**
@@ -108,119 +209,567 @@ public class RestMockHttpRequest extends MockHttpRequest {
      * @return このオブジェクト自体
      */
     public RestMockHttpRequest setHeader(String headerName, String value) {
-        getHeaderMap().put(headerName, value);
+        headers.put(headerName, value);
+        if (CONTENT_TYPE_KEY.equalsIgnoreCase(headerName)) {
+            invalidate();
+        } else {
+            invalidateHead();
+        }
         return this;
     }
 
+    /**
+     * HTTPリクエストヘッダを追加する。
+     * 同じ名前のヘッダが設定されている場合も置き換えずに追加し、それぞれを1行として送信する。
+     *
+     * @param headerName リクエストヘッダ名
+     * @param value      リクエストヘッダに設定する値
+     * @return このオブジェクト自体
+     */
+    public RestMockHttpRequest addHeader(String headerName, String value) {
+        headers.add(headerName, value);
+        if (CONTENT_TYPE_KEY.equalsIgnoreCase(headerName)) {
+            invalidate();
+        } else {
+            invalidateHead();
+        }
+        return this;
+    }
+
+    /**
+     * HTTPリクエストヘッダの値をすべて取得する。
+     * ヘッダ名の大文字・小文字は区別しない。
+     *
+     * @param headerName リクエストヘッダ名
+     * @return 値の一覧（設定順）。設定されていない場合は空のリスト
+     */
+    public List<String> getHeaders(String headerName) {
+        return headers.getAll(headerName);
+    }
+
     @Override
     public RestMockHttpRequest setRequestUri(String requestPath) {
+        invalidateHead();
         return (RestMockHttpRequest) super.setRequestUri(requestPath);
     }
 
     @Override
     public RestMockHttpRequest setParam(String name, String... params) {
+        invalidate();
         return (RestMockHttpRequest) super.setParam(name, params);
     }
 
     @Override
     public RestMockHttpRequest setParamMap(Map<String, String[]> params) {
+        invalidate();
         return (RestMockHttpRequest) super.setParamMap(params);
     }
 
     @Override
     public RestMockHttpRequest setCookie(HttpCookie cookie) {
+        invalidateHead();
         return (RestMockHttpRequest) super.setCookie(cookie);
     }
 
     @Override
     public RestMockHttpRequest setHttpVersion(String httpVersion) {
+        invalidateHead();
         return (RestMockHttpRequest) super.setHttpVersion(httpVersion);
     }
 
     @Override
     public RestMockHttpRequest setHost(String host) {
+        invalidateHead();
         return (RestMockHttpRequest) super.setHost(host);
     }
 
     @Override
     public RestMockHttpRequest setRequestPath(String requestPath) {
+        invalidateHead();
         return (RestMockHttpRequest) super.setRequestPath(requestPath);
     }
 
+    /**
+     * ボディを直列化し、結果をキャッシュする。
+     * {@link RestRequestTemplate}の生成時に、ボディの変換を事前に行うために使用する。
+     *
+     * @throws IOException ボディの書き出しに失敗した場合
+     */
+    void prepareBody() throws IOException {
+        BodySerialization bodySerialization = prepareBody(getCheckedParamMap());
+        if (bodySerialization.reusable) {
+            bodySerializationCache = bodySerialization;
+        }
+    }
+
+    /**
+     * このリクエストを複製する。
+     * <p>
+     * ヘッダ・リクエストパラメータは複製し、ボディとボディの直列化結果は共有する。
+     * ボディの直列化結果がない場合は、このリクエストで作成してから共有するため、
+     * 同じリクエストから繰り返し複製して送信しても、ボディの変換は1度のみ行われる。
+     * 複製したリクエストを変更しても、このリクエストには影響しない。
+     * </p>
+     *
+     * @return 複製したリクエスト
+     */
+    public RestMockHttpRequest copy() {
+        Map<String, String[]> paramMap = getCheckedParamMap();
+        BodySerialization bodySerialization = bodySerializationCache;
+        if (bodySerialization == null || !bodySerialization.isReusable(this, paramMap)) {
+            try {
+                bodySerialization = prepareBody(paramMap);
+            } catch (IOException e) {
+                throw new RuntimeException("body cannot be written. cause[" + e.getMessage() + "].", e);
+            }
+            if (bodySerialization.reusable) {
+                bodySerializationCache = bodySerialization;
+            }
+        }
+        return copyWithRequestUri(getRequestUri());
+    }
+
+    /**
+     * リクエストURIのみ異なるリクエストを生成する。
+     * <p>
+     * ヘッダ・リクエストパラメータは複製し、ボディとボディの直列化結果は共有する。
+     * このため、生成したリクエストではボディの変換は行われない。
+     * </p>
+     *
+     * @param requestUri リクエストURI
+     * @return 生成したリクエスト
+     */
+    RestMockHttpRequest copyWithRequestUri(String requestUri) {
+        RestMockHttpRequest copy = new RestMockHttpRequest(bodyConverterResolver, defaultContentType)
+                .setMethod(getMethod())
+                .setHttpVersion(getHttpVersion())
+                .setRequestUri(requestUri)
+                .setParamMap(copyParams(getParamMap()));
+        copy.headers.addAll(headers);
+        copy.body = body;
+        copy.bodySerializationCache = bodySerializationCache;
+        return copy;
+    }
+
+    /**
+     * 直列化した結果のキャッシュを、ボディの直列化結果も含めて破棄する。
+     */
+    private void invalidate() {
+        bodySerializationCache = null;
+        serializationCache = null;
+    }
+
+    /**
+     * 直列化した結果のキャッシュを破棄する。
+     * ボディの直列化結果は再利用するため破棄しない。
+     */
+    private void invalidateHead() {
+        serializationCache = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * {@link RestTestStreamingBodyWriter}で書き出すボディは全体を読み込み、Content-Lengthを設定する。
+     * このため、{@link JacksonSequenceBodyConverter}などで書き出す大きなボディは、全体がメモリ上に保持される。
+     * それ以外の場合は、直列化した結果のキャッシュを使用する。
+     * </p>
+     * <p>
+     * 返却する文字列は、デフォルトの文字コードでエンコードして送信されることを前提とする
+     * （組み込みサーバは{@code toString().getBytes()}を送信する）。
+     * このため、Content-Lengthはボディの文字列をデフォルトの文字コードでエンコードしたバイト数とする。
+     * Content-Typeのcharsetパラメータで指定された文字コードのバイト列を送信する場合は、
+     * {@link #writeTo(OutputStream)}を使用すること。
+     * </p>
+     */
     @Override
     public String toString() {
-        Map<String, String[]> paramMap = getParamMap();
+        if (isStreamingBody()) {
+            String params = concatParams(getCheckedParamMap());
+            Charset charset = getCharset();
+            byte[] bodyBytes = encodeBody(charset);
+            if (bodyBytes == null || bodyBytes.length == 0) {
+                return buildHead(params, NO_BODY, false);
+            }
+            BodyText bodyText = new BodyText(bodyBytes, charset);
+            return buildHead(params, bodyText.length, false) + bodyText.text;
+        }
+        Serialization serialization;
+        try {
+            serialization = prepareSerialization();
+        } catch (IOException e) {
+            throw new RuntimeException("body cannot be written. cause[" + e.getMessage() + "].", e);
+        }
+        String message = serialization.message;
+        if (message != null) {
+            return message;
+        }
+        BodySerialization bodySerialization = serialization.body;
+        if (bodySerialization.contentLength == NO_BODY) {
+            message = serialization.head;
+        } else {
+            BodyText bodyText = bodySerialization.text;
+            if (bodyText == null) {
+                byte[] bodyBytes = bodySerialization.bodyBytes != null ? bodySerialization.bodyBytes
+                        : encodeBody(bodySerialization.charset);
+                bodyText = new BodyText(bodyBytes, bodySerialization.charset);
+                if (bodySerialization.bodyWriter == null) {
+                    // 複製したリクエストでも、ボディの文字列への変換を繰り返さないよう共有する
+                    bodySerialization.text = bodyText;
+                }
+            }
+            String head = bodyText.length == bodySerialization.contentLength ? serialization.head
+                    : buildHead(bodySerialization.params, bodyText.length, false);
+            message = head + bodyText.text;
+        }
+        if (bodySerialization.bodyWriter == null) {
+            serialization.message = message;
+        }
+        return message;
+    }
 
-        if (body != null && !paramMap.isEmpty()) {
-            throw new IllegalStateException("set only one of paramMap or body.");
+    /**
+     * リクエストを直列化して書き出す。
+     * <p>
+     * {@link #toString()}と異なり、メッセージ全体を文字列としてメモリ上に構築せずに、
+     * リクエストライン・ヘッダ・ボディを順に書き出す。
+     * ヘッダはUTF-8で、ボディはContent-Typeのcharsetパラメータで指定された文字コードでエンコードする。
+     * </p>
+     * <p>
+     * ボディの変換に{@link RestTestBodyWriter}を使用する場合は、Content-Lengthを算出するために
+     * 1度書き出しを行い、1MB以下であればバイト列をキャッシュする。
+     * 1MBを超える場合はバイト数のみをキャッシュし、送信の都度ボディを書き出す。
+     * このため、大きなボディでもサイズに比例したメモリを使用しない。
+     * {@link RestTestStreamingBodyWriter}を使用する場合はキャッシュせず、
+     * バイト数がわからない場合はチャンク形式で書き出す。
+     * </p>
+     *
+     * @param out 書き出し先
+     * @throws IOException 書き出しに失敗した場合
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        writeTo(prepareSerialization(), out);
+    }
+
+    /**
+     * リクエストを直列化してチャネルに書き出す。
+     * <p>
+     * ボディの変換に{@link RestTestStreamingBodyWriter}を使用し、バイト数がわかる場合は、
+     * {@link RestTestStreamingBodyWriter#transferTo(Object, RestTestBodyConverter.MediaType, WritableByteChannel)}で
+     * ボディを転送する。
+     * </p>
+     *
+     * @param channel 書き出し先
+     * @throws IOException 書き出しに失敗した場合
+     * @see #writeTo(OutputStream)
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        Serialization serialization = prepareSerialization();
+        BodySerialization bodySerialization = serialization.body;
+        if (!(bodySerialization.bodyWriter instanceof RestTestStreamingBodyWriter) || bodySerialization.chunked) {
+            // チャネルへの書き込み回数を抑えるため、バッファしてから書き出す
+            writeTo(serialization, new BufferedOutputStream(Channels.newOutputStream(channel), CHUNK_SIZE));
+            return;
+        }
+        ByteBuffer head = ByteBuffer.wrap(serialization.headBytes);
+        while (head.hasRemaining()) {
+            channel.write(head);
         }
+        if (bodySerialization.contentLength > 0) {
+            ((RestTestStreamingBodyWriter) bodySerialization.bodyWriter)
+                    .transferTo(body, bodySerialization.mediaType, channel);
+        }
+    }
 
-        String uri = getRequestUri();
+    /**
+     * ボディが{@link RestTestStreamingBodyWriter}で書き出されるか否か。
+     * <p>
+     * {@code true}の場合、ボディの全体をメモリ上に読み込まないよう{@link #writeTo(OutputStream)}で直列化すること。
+     * </p>
+     *
+     * @return {@link RestTestStreamingBodyWriter}で書き出される場合は{@code true}
+     */
+    public boolean isStreamingBody() {
+        if (body == null) {
+            return false;
+        }
+        BodySerialization cached = bodySerializationCache;
+        if (cached != null && cached.isReusable(this, getParamMap())) {
+            // ストリームで書き出すボディはキャッシュしない
+            return false;
+        }
+        RestTestBodyConverter.MediaType mediaType = getMediaType();
+        return mediaType != null && findBodyConverter(mediaType) instanceof RestTestStreamingBodyWriter;
+    }
+
+    /**
+     * 直列化の準備をする。
+     * <p>
+     * キャッシュが有効であればキャッシュを返す。
+     * ヘッダのみが変更されている場合は、ボディの直列化結果を再利用してリクエストライン・ヘッダのみ構築する。
+     * </p>
+     *
+     * @return 直列化に必要な情報
+     * @throws IOException ボディの書き出しに失敗した場合
+     */
+    private Serialization prepareSerialization() throws IOException {
+        Map<String, String[]> paramMap = getCheckedParamMap();
+        Serialization cached = serializationCache;
+        if (cached != null && cached.body.isReusable(this, paramMap) && cached.isReusable(this)) {
+            return cached;
+        }
+        BodySerialization bodySerialization = bodySerializationCache;
+        if (bodySerialization == null || !bodySerialization.isReusable(this, paramMap)) {
+            bodySerialization = prepareBody(paramMap);
+        }
+        Serialization serialization = new Serialization(bodySerialization, getRequestUri(), getHttpVersion(),
+                headers.getVersion(), buildHead(bodySerialization.params, bodySerialization.contentLength, bodySerialization.chunked));
+        if (bodySerialization.reusable) {
+            bodySerializationCache = bodySerialization;
+            serializationCache = serialization;
+        }
+        return serialization;
+    }
+
+    /**
+     * ボディの直列化の準備をする。
+     * ボディの変換方法を決定し、バイト数を算出する。
+     *
+     * @param paramMap リクエストパラメータ
+     * @return ボディの直列化に必要な情報
+     * @throws IOException ボディの書き出しに失敗した場合
+     */
+    private BodySerialization prepareBody(Map<String, String[]> paramMap) throws IOException {
         String params = concatParams(paramMap);
-        String bodyStr = convertBody();
-
-        if (StringUtil.hasValue(params)) {
-            if ("GET".equals(getMethod())) {
-                if (uri.contains("?")) {
-                    uri += "&" + params;
-                } else {
-                    uri += "?" + params;
+        BodySerialization bodySerialization = new BodySerialization(body, getHeader(CONTENT_TYPE_KEY), getMethod(),
+                copyParams(paramMap), params, getCharset());
+        if (isFormBody(params)) {
+            bodySerialization.bodyBytes = encodeParams(params, bodySerialization.charset);
+        } else if (body != null) {
+            bodySerialization.mediaType = getRequiredMediaType();
+            RestTestBodyConverter detectedBodyConverter = findBodyConverter(bodySerialization.mediaType);
+            if (detectedBodyConverter instanceof RestTestStreamingBodyWriter) {
+                bodySerialization.bodyWriter = (RestTestBodyWriter) detectedBodyConverter;
+                bodySerialization.reusable = false;
+                long contentLength = ((RestTestStreamingBodyWriter) detectedBodyConverter)
+                        .getContentLength(body, bodySerialization.mediaType);
+                bodySerialization.chunked = contentLength < 0;
+                bodySerialization.contentLength = bodySerialization.chunked ? NO_BODY : contentLength;
+            } else if (detectedBodyConverter instanceof RestTestBodyWriter) {
+                BufferingCountingOutputStream counter = new BufferingCountingOutputStream(BODY_CACHE_LIMIT);
+                ((RestTestBodyWriter) detectedBodyConverter).write(body, bodySerialization.mediaType,
+                        bodySerialization.charset, counter);
+                bodySerialization.bodyBytes = counter.toByteArray();
+                if (bodySerialization.bodyBytes == null) {
+                    bodySerialization.bodyWriter = (RestTestBodyWriter) detectedBodyConverter;
+                    bodySerialization.contentLength = counter.count;
                 }
             } else {
-                bodyStr = urlEncode(params);
+                bodySerialization.bodyBytes = convertBody(detectedBodyConverter, bodySerialization.mediaType,
+                        bodySerialization.charset);
             }
         }
+        if (bodySerialization.bodyBytes != null) {
+            bodySerialization.contentLength = bodySerialization.bodyBytes.length;
+        }
+        if (bodySerialization.contentLength == 0) {
+            bodySerialization.contentLength = NO_BODY;
+        }
+        return bodySerialization;
+    }
 
-        Map<String, String> headers = new HashMap<String, String>(this.getHeaderMap());
-        if (StringUtil.hasValue(bodyStr)) {
-            setContentLength(headers, bodyStr); // NOSONAR SonarQubeがStringUtil#hasValueしているにも関わらずbodyStrはNullの可能性があると警告するので抑制
+    /**
+     * 準備した情報をもとにリクエストを書き出す。
+     *
+     * @param serialization 直列化に必要な情報
+     * @param out           書き出し先
+     * @throws IOException 書き出しに失敗した場合
+     */
+    private void writeTo(Serialization serialization, OutputStream out) throws IOException {
+        BodySerialization bodySerialization = serialization.body;
+        out.write(serialization.headBytes);
+        if (bodySerialization.chunked) {
+            ChunkedOutputStream chunkedOut = new ChunkedOutputStream(out, CHUNK_SIZE);
+            bodySerialization.bodyWriter.write(body, bodySerialization.mediaType, bodySerialization.charset,
+                    chunkedOut);
+            chunkedOut.finish();
+        } else if (bodySerialization.contentLength != NO_BODY) {
+            if (bodySerialization.bodyWriter != null) {
+                bodySerialization.bodyWriter.write(body, bodySerialization.mediaType, bodySerialization.charset,
+                        out);
+            } else {
+                out.write(bodySerialization.bodyBytes);
+            }
         }
+        out.flush();
+    }
 
-        StringBuilder buffer = new StringBuilder();
+    /**
+     * リクエストパラメータのMapを取得する。
+     * ボディも設定されている場合は例外を送出する。
+     *
+     * @return リクエストパラメータのMap
+     */
+    private Map<String, String[]> getCheckedParamMap() {
+        Map<String, String[]> paramMap = getParamMap();
+        if (body != null && !paramMap.isEmpty()) {
+            throw new IllegalStateException("set only one of paramMap or body.");
+        }
+        return paramMap;
+    }
+
+    /**
+     * リクエストパラメータをボディとして送信するか否か。
+     *
+     * @param params 結合されたリクエストパラメータ
+     * @return GET以外でリクエストパラメータが存在する場合は{@code true}
+     */
+    private boolean isFormBody(String params) {
+        return StringUtil.hasValue(params) && !"GET".equals(getMethod());
+    }
+
+    /**
+     * リクエストパラメータをボディとしてエンコードする。
+     *
+     * @param params  結合されたリクエストパラメータ（パーセントエンコード済み）
+     * @param charset 文字コード
+     * @return リクエストボディのバイト列
+     */
+    private byte[] encodeParams(String params, Charset charset) {
+        return params.getBytes(charset);
+    }
+
+    /**
+     * リクエストライン・ヘッダ・ヘッダの終端を表す空行を構築する。
+     *
+     * @param params        結合されたリクエストパラメータ
+     * @param contentLength リクエストボディのバイト数。ボディがない場合やチャンク形式の場合は{@link #NO_BODY}
+     * @param chunked       チャンク形式で送信する場合は{@code true}
+     * @return リクエストライン・ヘッダ
+     */
+    private String buildHead(String params, long contentLength, boolean chunked) {
+        String uri = getRequestUri();
+        StringBuilder buffer = new StringBuilder(uri.length() + headers.count() * 32 + 64);
         buffer.append(getMethod())
-                .append(' ')
-                .append(urlEncode(uri))
-                .append(' ')
+                .append(' ');
+        PercentEncoder.appendUri(buffer, uri);
+        if (StringUtil.hasValue(params) && "GET".equals(getMethod())) {
+            buffer.append(uri.contains("?") ? '&' : '?')
+                    .append(params);
+        }
+        buffer.append(' ')
                 .append(getHttpVersion())
                 .append(LS);
 
-
-        for (Map.Entry<String, String> entry : headers.entrySet()) {
-            buffer.append(entry.getKey())
-                    .append(": ")
-                    .append(entry.getValue());
-            buffer.append(LS);
+        boolean contentLengthWritten = false;
+        for (int i = 0; i < headers.count(); i++) {
+            String name = headers.nameAt(i);
+            String value = headers.valueAt(i);
+            if (CONTENT_LENGTH_KEY.equalsIgnoreCase(name)) {
+                if (chunked) {
+                    continue;
+                }
+                if (contentLength != NO_BODY) {
+                    if (contentLengthWritten) {
+                        continue;
+                    }
+                    verifyContentLength(value, contentLength);
+                    value = String.valueOf(contentLength);
+                    contentLengthWritten = true;
+                }
+            } else if (chunked && TRANSFER_ENCODING_KEY.equalsIgnoreCase(name)) {
+                continue;
+            }
+            appendHeader(buffer, name, value);
+        }
+        if (contentLength != NO_BODY && !contentLengthWritten) {
+            appendHeader(buffer, CONTENT_LENGTH_KEY, String.valueOf(contentLength));
+        }
+        if (chunked) {
+            appendHeader(buffer, TRANSFER_ENCODING_KEY, CHUNKED);
         }
 
         buffer.append(LS);
-        if (StringUtil.hasValue(bodyStr)) {
-            buffer.append(bodyStr);
-        }
         return buffer.toString();
     }
 
     /**
-     * 引数で渡されたヘッダーMapに Content-Length をセットする。
+     * ヘッダを1行追加する。
+     *
+     * @param buffer 追加先
+     * @param name   ヘッダ名
+     * @param value  値
+     */
+    private static void appendHeader(StringBuilder buffer, String name, String value) {
+        buffer.append(name)
+                .append(": ")
+                .append(value)
+                .append(LS);
+    }
+
+    /**
+     * 設定されたContent-Lengthが正しいか検証する。
      * 誤った Content-Length が設定されていた場合は例外を送出する。
      *
-     * @param headers ヘッダー
-     * @param bodyStr リクエストボディ
-     */
-    @SuppressWarnings("findbugs:DM_DEFAULT_ENCODING") // 既存のNTF実装に合わせて文字コード指定なしのgetBytes()を使用する
-    private void setContentLength(Map<String, String> headers, String bodyStr) {
-        int contentLength = bodyStr.getBytes().length;
-        if (headers.containsKey(CONTENT_LENGTH_KEY)) {
-            String contentLengthFromHeader = headers.get(CONTENT_LENGTH_KEY);
-            if (Integer.parseInt(contentLengthFromHeader) != contentLength) {
-                throw new RuntimeException("wrong Content-Length[" + contentLengthFromHeader + "] was set."
-                        + "correct length is [" + contentLength + "].");
+     * @param contentLengthFromHeader 設定されたContent-Length
+     * @param contentLength           エンコード済みのリクエストボディのバイト数
+     */
+    private static void verifyContentLength(String contentLengthFromHeader, long contentLength) {
+        if (Long.parseLong(contentLengthFromHeader) != contentLength) {
+            throw new RuntimeException("wrong Content-Length[" + contentLengthFromHeader + "] was set."
+                    + "correct length is [" + contentLength + "].");
+        }
+    }
+
+    /**
+     * リクエストパラメータのMapを、値の配列も含めて複製する。
+     *
+     * @param paramMap リクエストパラメータ
+     * @return 複製したリクエストパラメータ
+     */
+    private static Map<String, String[]> copyParams(Map<String, String[]> paramMap) {
+        Map<String, String[]> copy = new HashMap<String, String[]>(paramMap.size() * 2);
+        for (Map.Entry<String, String[]> param : paramMap.entrySet()) {
+            String[] values = param.getValue();
+            copy.put(param.getKey(), values == null ? null : values.clone());
+        }
+        return copy;
+    }
+
+    /**
+     * リクエストパラメータのMapが、値の配列も含めて等しいか否か。
+     *
+     * @param paramMap リクエストパラメータ
+     * @param other    比較するリクエストパラメータ
+     * @return 等しい場合は{@code true}
+     */
+    private static boolean paramsEqual(Map<String, String[]> paramMap, Map<String, String[]> other) {
+        if (paramMap.size() != other.size()) {
+            return false;
+        }
+        for (Map.Entry<String, String[]> param : paramMap.entrySet()) {
+            if (!other.containsKey(param.getKey()) || !Arrays.equals(param.getValue(), other.get(param.getKey()))) {
+                return false;
             }
         }
-        headers.put(CONTENT_LENGTH_KEY, String.valueOf(contentLength));
+        return true;
+    }
+
+    /**
+     * 2つの値が等しいか否か。いずれも{@code null}の場合も等しいものとする。
+     *
+     * @param value 値
+     * @param other 比較する値
+     * @return 等しい場合は{@code true}
+     */
+    private static boolean isEqual(Object value, Object other) {
+        return value == null ? other == null : value.equals(other);
     }
 
     /**
      * リクエストパラメータのMapを"key=value(&key=value...)"の形式で結合する。
+     * パラメータの名前と値は、それぞれUTF-8でパーセントエンコードする。
+     * エンコード済みの値も指定できるよう、"+"とエンコード済みの"%XX"はそのまま結合する。
      *
      * @param paramMap リクエストパラメータ
      * @return 結合されたリクエストパラメータ
@@ -236,9 +785,8 @@ public class RestMockHttpRequest extends MockHttpRequest {
             String name = param.getKey();
             Iterator<String> values = Arrays.asList(param.getValue()).iterator();
             while (values.hasNext()) {
-                buffer.append(name)
-                        .append("=")
-                        .append(values.next());
+                PercentEncoder.appendQueryComponent(buffer, name).append('=');
+                PercentEncoder.appendQueryComponent(buffer, String.valueOf(values.next()));
                 if (values.hasNext()) {
                     buffer.append("&");
                 }
@@ -251,48 +799,320 @@ public class RestMockHttpRequest extends MockHttpRequest {
     }
 
     /**
-     * リクエストURIをURLエンコードする。
+     * リクエストボディのエンコードに使用する文字コードを取得する。
+     * <p>
+     * Content-Typeのcharsetパラメータで指定された文字コードを使用する。
+     * 指定されていない場合、JSON（{@code application/json}、および{@code +json}サフィックスを持つMIMEタイプ）は
+     * RFC 8259に従いUTF-8を、それ以外は既存のNTF実装に合わせてデフォルトの文字コードを使用する。
+     * </p>
      *
-     * @param uri リクエストURI
-     * @return URLエンコードされたリクエストURI
+     * @return 文字コード
      */
-    private String urlEncode(String uri) {
-        try {
-            return new URI(uri).toASCIIString();
-        } catch (URISyntaxException e) {
-            throw new IllegalArgumentException("url encoding failed. cause[" + e.getMessage() + "]", e);
+    private Charset getCharset() {
+        RestTestBodyConverter.MediaType mediaType = getMediaType();
+        if (mediaType == null) {
+            return Charset.defaultCharset();
         }
+        String charset = mediaType.getCharset();
+        if (charset != null) {
+            return Charset.forName(charset);
+        }
+        return isJson(mediaType) ? JSON_DEFAULT_CHARSET : Charset.defaultCharset();
+    }
+
+    /**
+     * MIMEタイプがJSONか否か。
+     *
+     * @param mediaType MIMEタイプ
+     * @return JSONの場合は{@code true}
+     */
+    private static boolean isJson(RestTestBodyConverter.MediaType mediaType) {
+        return "json".equals(mediaType.getSuffix())
+                || ("application".equals(mediaType.getType()) && "json".equals(mediaType.getSubtype()));
     }
 
     /**
-     * リクエストボディを{@link String}に変換する。
+     * リクエストボディをエンコードしたバイト列に変換する。
+     * <p>
+     * 選択された{@link RestTestBodyConverter}が{@link RestTestBodyWriter}を実装している場合は、
+     * 文字列を経由せずにバイト列を書き出す。
+     * </p>
      *
-     * @return リクエストボディの文字列
+     * @param charset 文字コード
+     * @return リクエストボディのバイト列
      */
-    private String convertBody() {
+    private byte[] encodeBody(Charset charset) {
         if (body == null) {
             return null;
         }
+        RestTestBodyConverter.MediaType mediaType = getRequiredMediaType();
+        RestTestBodyConverter detectedBodyConverter = findBodyConverter(mediaType);
+        if (!(detectedBodyConverter instanceof RestTestBodyWriter)) {
+            return convertBody(detectedBodyConverter, mediaType, charset);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ((RestTestBodyWriter) detectedBodyConverter).write(body, mediaType, charset, out);
+        } catch (IOException e) {
+            throw new RuntimeException("body cannot be written. cause[" + e.getMessage() + "].", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * {@link RestTestBodyConverter#convert(Object, RestTestBodyConverter.MediaType)}で変換した
+     * リクエストボディをエンコードする。
+     *
+     * @param bodyConverter 使用する{@link RestTestBodyConverter}
+     * @param mediaType     MIMEタイプ
+     * @param charset       文字コード
+     * @return リクエストボディのバイト列
+     */
+    private byte[] convertBody(RestTestBodyConverter bodyConverter, RestTestBodyConverter.MediaType mediaType,
+                               Charset charset) {
+        String bodyStr = bodyConverter.convert(body, mediaType);
+        return bodyStr == null ? null : bodyStr.getBytes(charset);
+    }
+
+    /**
+     * Content-TypeヘッダーからMIMEタイプを取得する。
+     * Content-Typeヘッダーが存在しない場合は例外を送出する。
+     *
+     * @return MIMEタイプ
+     */
+    private RestTestBodyConverter.MediaType getRequiredMediaType() {
         RestTestBodyConverter.MediaType mediaType = getMediaType();
-        if (mediaType != null) {
-            RestTestBodyConverter detectedBodyConverter = findBodyConverter(mediaType);
-            return detectedBodyConverter.convert(body, mediaType);
-        } else {
+        if (mediaType == null) {
             throw new RuntimeException("there was no Content-Type header but body was not empty.");
         }
+        return mediaType;
     }
 
     /**
      * MIMEタイプに合った{@link RestTestBodyConverter}を見つける。
      *
-     * @return 見つかった{@link HttpBodyWriter}
+     * @return 見つかった{@link RestTestBodyConverter}
      */
     private RestTestBodyConverter findBodyConverter(RestTestBodyConverter.MediaType mediaType) {
-        for (RestTestBodyConverter bodyConverter : bodyConverters) {
-            if (bodyConverter.isConvertible(body, mediaType)) {
-                return bodyConverter;
+        return bodyConverterResolver.resolve(body, mediaType);
+    }
+
+    /**
+     * 書き出されたバイト数を数え、上限までの内容をバッファする{@link OutputStream}。
+     */
+    private static final class BufferingCountingOutputStream extends OutputStream {
+
+        /** バッファする最大バイト数 */
+        private final int limit;
+
+        /** バッファ。上限を超えた場合は{@code null} */
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        /** 書き出されたバイト数 */
+        private long count;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param limit バッファする最大バイト数
+         */
+        BufferingCountingOutputStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+            if (buffer == null) {
+                return;
+            }
+            if (count > limit) {
+                buffer = null;
+            } else {
+                buffer.write(b, off, len);
             }
         }
-        throw new RuntimeException("unsupported media type requested. MIME type = [ " + mediaType + " ]");
+
+        /**
+         * バッファした内容を取得する。
+         *
+         * @return バッファした内容。上限を超えた場合は{@code null}
+         */
+        byte[] toByteArray() {
+            return buffer == null ? null : buffer.toByteArray();
+        }
+    }
+
+    /**
+     * ボディの直列化に必要な情報。
+     * ボディの直列化結果に影響する値を保持し、再利用できるか判定する。
+     */
+    private static final class BodySerialization {
+
+        /** リクエストボディ */
+        private final Object body;
+
+        /** Content-Type */
+        private final String contentType;
+
+        /** HTTPメソッド */
+        private final String method;
+
+        /** リクエストパラメータ（複製） */
+        private final Map<String, String[]> paramMap;
+
+        /** 結合されたリクエストパラメータ */
+        private final String params;
+
+        /** 文字コード */
+        private final Charset charset;
+
+        /** MIMEタイプ */
+        private RestTestBodyConverter.MediaType mediaType;
+
+        /** エンコード済みのリクエストボディ（{@link #bodyWriter}で書き出す場合は{@code null}） */
+        private byte[] bodyBytes;
+
+        /** リクエストボディを書き出す{@link RestTestBodyWriter} */
+        private RestTestBodyWriter bodyWriter;
+
+        /** リクエストボディのバイト数 */
+        private long contentLength = NO_BODY;
+
+        /** チャンク形式で書き出す場合は{@code true} */
+        private boolean chunked;
+
+        /** 再利用できる場合は{@code true} */
+        private boolean reusable = true;
+
+        /** {@link RestMockHttpRequest#toString()}で使用するボディの文字列 */
+        private volatile BodyText text;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param body        リクエストボディ
+         * @param contentType Content-Type
+         * @param method      HTTPメソッド
+         * @param paramMap    リクエストパラメータ（複製）
+         * @param params      結合されたリクエストパラメータ
+         * @param charset     文字コード
+         */
+        BodySerialization(Object body, String contentType, String method, Map<String, String[]> paramMap,
+                          String params, Charset charset) {
+            this.body = body;
+            this.contentType = contentType;
+            this.method = method;
+            this.paramMap = paramMap;
+            this.params = params;
+            this.charset = charset;
+        }
+
+        /**
+         * リクエストの現在の状態で再利用できるか否か。
+         *
+         * @param request  リクエスト
+         * @param paramMap リクエストパラメータ
+         * @return 再利用できる場合は{@code true}
+         */
+        boolean isReusable(RestMockHttpRequest request, Map<String, String[]> paramMap) {
+            return reusable
+                    && body == request.body
+                    && isEqual(contentType, request.getHeader(CONTENT_TYPE_KEY))
+                    && isEqual(method, request.getMethod())
+                    && paramsEqual(paramMap, this.paramMap);
+        }
+    }
+
+    /**
+     * {@link RestMockHttpRequest#toString()}で使用するボディの文字列。
+     * <p>
+     * 返却する文字列はデフォルトの文字コードでエンコードして送信されるため、
+     * Content-Lengthとして、デフォルトの文字コードでエンコードした場合のバイト数を保持する。
+     * </p>
+     */
+    private static final class BodyText {
+
+        /** ボディの文字列 */
+        private final String text;
+
+        /** ボディの文字列をデフォルトの文字コードでエンコードした場合のバイト数 */
+        private final long length;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param bodyBytes エンコード済みのボディ
+         * @param charset   ボディのエンコードに使用した文字コード
+         */
+        BodyText(byte[] bodyBytes, Charset charset) {
+            this.text = new String(bodyBytes, charset);
+            Charset defaultCharset = Charset.defaultCharset();
+            this.length = defaultCharset.equals(charset) ? bodyBytes.length : text.getBytes(defaultCharset).length;
+        }
+    }
+
+    /**
+     * 直列化に必要な情報。
+     */
+    private static final class Serialization {
+
+        /** ボディの直列化に必要な情報 */
+        private final BodySerialization body;
+
+        /** リクエストURI */
+        private final String requestUri;
+
+        /** HTTPバージョン */
+        private final String httpVersion;
+
+        /** ヘッダのバージョン */
+        private final int headerVersion;
+
+        /** リクエストライン・ヘッダ */
+        private final String head;
+
+        /** エンコード済みのリクエストライン・ヘッダ */
+        private final byte[] headBytes;
+
+        /** {@link #toString()}の結果 */
+        private volatile String message;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param body        ボディの直列化に必要な情報
+         * @param requestUri  リクエストURI
+         * @param httpVersion HTTPバージョン
+         * @param headerVersion ヘッダのバージョン
+         * @param head        リクエストライン・ヘッダ
+         */
+        Serialization(BodySerialization body, String requestUri, String httpVersion, int headerVersion,
+                      String head) {
+            this.body = body;
+            this.requestUri = requestUri;
+            this.httpVersion = httpVersion;
+            this.headerVersion = headerVersion;
+            this.head = head;
+            this.headBytes = head.getBytes(HEAD_CHARSET);
+        }
+
+        /**
+         * リクエストの現在の状態で再利用できるか否か。
+         * ボディが再利用できることは呼び出し元で確認すること。
+         *
+         * @param request リクエスト
+         * @return 再利用できる場合は{@code true}
+         */
+        boolean isReusable(RestMockHttpRequest request) {
+            return isEqual(requestUri, request.getRequestUri())
+                    && isEqual(httpVersion, request.getHttpVersion())
+                    && headerVersion == request.headers.getVersion();
+        }
     }
 }
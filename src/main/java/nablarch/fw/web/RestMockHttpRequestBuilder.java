@@ -2,17 +2,35 @@ package nablarch.fw.web;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * {@link RestMockHttpRequest}のビルダークラス。
  */
 public class RestMockHttpRequestBuilder {
 
+    /** 判定結果がボディのクラスとMIMEタイプのみで決まる、組み込みの{@link RestTestBodyConverter} */
+    private static final Set<Class<?>> BUILT_IN_CONVERTERS = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            InputStreamBodyConverter.class
+            , FileBodyConverter.class
+            , MultipartBodyConverter.class
+            , StringBodyConverter.class
+            , JacksonSequenceBodyConverter.class
+            , JacksonBodyConverter.class
+    ));
+
     /** 利用可能な{@link RestTestBodyConverter} */
-    private Collection<? extends RestTestBodyConverter> bodyConverters = Arrays.asList(
-            new StringBodyConverter()
+    private Collection<? extends RestTestBodyConverter> bodyConverters = Arrays.<RestTestBodyConverter>asList(
+            new InputStreamBodyConverter()
+            , new FileBodyConverter()
+            , new MultipartBodyConverter()
+            , new StringBodyConverter()
+            , new JacksonSequenceBodyConverter()
             , new JacksonBodyConverter()
     );
+    /** 生成したリクエストで共有する{@link BodyConverterResolver} */
+    private volatile BodyConverterResolver bodyConverterResolver = createResolver(bodyConverters);
     /** デフォルトContent-Type */
     private String defaultContentType = "application/json";
 
@@ -24,7 +42,7 @@ public class RestMockHttpRequestBuilder {
      * @return 生成された{@link RestMockHttpRequest}
      */
     public RestMockHttpRequest newRequest(String httpMethod, String uri) {
-        return new RestMockHttpRequest(bodyConverters, defaultContentType).setMethod(httpMethod)
+        return new RestMockHttpRequest(bodyConverterResolver, defaultContentType).setMethod(httpMethod)
                 .setRequestUri(uri);
     }
 
@@ -78,6 +96,18 @@ public class RestMockHttpRequestBuilder {
         return newRequest("PATCH", uri);
     }
 
+    /**
+     * 引数で渡されたメソッド、URIパターンで{@link RestRequestTemplate}のビルダーを生成する。
+     *
+     * @param httpMethod HTTPメソッド
+     * @param uriPattern パス変数（例: {@code {id}}）を含むURIパターン
+     * @return 生成された{@link RestRequestTemplate.Builder}
+     */
+    public RestRequestTemplate.Builder template(String httpMethod, String uriPattern) {
+        return new RestRequestTemplate.Builder(uriPattern,
+                new RestMockHttpRequest(bodyConverterResolver, defaultContentType).setMethod(httpMethod));
+    }
+
     /**
      * デフォルトContent-Typeを設定する。
      *
@@ -89,10 +119,39 @@ public class RestMockHttpRequestBuilder {
 
     /**
      * 利用可能な{@link RestTestBodyConverter}を設定する。
+     * <p>
+     * 組み込みの{@link RestTestBodyConverter}と{@link RestTestCacheableBodyConverter}の実装のみを設定した場合、
+     * このビルダーが生成したリクエストは、ボディのクラスとMIMEタイプの組み合わせ毎に
+     * 使用する{@link RestTestBodyConverter}の選択結果を共有する。
+     * 設定した時点で選択結果は破棄されるが、設定した{@link Collection}の内容を後から変更した場合は反映されないため、
+     * 変更する場合は改めて設定すること。
+     * {@link RestTestCacheableBodyConverter}を実装していない独自の{@link RestTestBodyConverter}を含む場合は、
+     * 判定結果がボディのクラスとMIMEタイプ以外に依存する可能性があるため、選択結果を共有せず、送信の都度判定する。
+     * </p>
      *
      * @param bodyConverters {@link RestTestBodyConverter}
      */
     public void setBodyConverters(Collection<? extends RestTestBodyConverter> bodyConverters) {
         this.bodyConverters = bodyConverters;
+        this.bodyConverterResolver = createResolver(bodyConverters);
+    }
+
+    /**
+     * {@link BodyConverterResolver}を生成する。
+     * 選択結果は、組み込みの{@link RestTestBodyConverter}と{@link RestTestCacheableBodyConverter}の実装のみの場合にキャッシュする。
+     *
+     * @param bodyConverters 利用可能な{@link RestTestBodyConverter}
+     * @return {@link BodyConverterResolver}
+     */
+    private static BodyConverterResolver createResolver(Collection<? extends RestTestBodyConverter> bodyConverters) {
+        boolean cacheable = true;
+        for (RestTestBodyConverter bodyConverter : bodyConverters) {
+            if (!BUILT_IN_CONVERTERS.contains(bodyConverter.getClass())
+                    && !(bodyConverter instanceof RestTestCacheableBodyConverter)) {
+                cacheable = false;
+                break;
+            }
+        }
+        return new BodyConverterResolver(bodyConverters, cacheable);
     }
 }
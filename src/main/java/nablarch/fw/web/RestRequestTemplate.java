@@ -0,0 +1,293 @@
+package nablarch.fw.web;
+
+import nablarch.core.util.StringUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * パス変数を含むURIパターンから{@link RestMockHttpRequest}を生成する、変更不可能なリクエストテンプレート。
+ * <p>
+ * HTTPメソッド、URIパターン（例: {@code /users/{id}/orders}）、ヘッダ、ボディを固定し、
+ * {@link #expand(Map)}や{@link #expand(Object...)}でパス変数を展開したリクエストを生成する。
+ * ボディはテンプレートの生成時に変換し、生成したリクエストで変換結果を共有するため、
+ * 同じボディで多数のリクエストを送信する場合にボディの変換が繰り返されない。
+ * </p>
+ * <p>
+ * パス変数の値はUTF-8でパーセントエンコードし、1つのパスセグメントとして展開する。
+ * 生成したリクエストを変更してもテンプレートには影響しない。
+ * ただし、ボディのオブジェクトは共有するため、ボディの内容を変更しないこと。
+ * {@link InputStream}、{@link Iterator}、{@code java.util.stream.Stream}、
+ * {@link InputStream}のパートを含む{@link MultipartBody}など、1度しか読み込めないボディは使用できない。
+ * </p>
+ * 使用例:
+ * <pre>
+ * RestRequestTemplate template = new RestMockHttpRequestBuilder()
+ *         .template("POST", "/users/{id}/orders")
+ *         .setHeader("X-Request-Source", "test")
+ *         .setBody(order)
+ *         .build();
+ * for (String id : ids) {
+ *     sendRequest(template.expand(id));
+ * }
+ * </pre>
+ */
+public final class RestRequestTemplate {
+
+    /** URIパターン */
+    private final String uriPattern;
+
+    /** URIパターンのリテラル部分。パス変数の数より1つ多い */
+    private final String[] literals;
+
+    /** パス変数名（出現順） */
+    private final String[] variables;
+
+    /** パス変数名（重複を除いた出現順） */
+    private final List<String> variableNames;
+
+    /** 生成するリクエストの原型 */
+    private final RestMockHttpRequest prototype;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param uriPattern URIパターン
+     * @param prototype  生成するリクエストの原型（ボディ変換済み）
+     */
+    private RestRequestTemplate(String uriPattern, RestMockHttpRequest prototype) {
+        List<String> literalList = new ArrayList<String>();
+        List<String> variableList = new ArrayList<String>();
+        int position = 0;
+        while (true) {
+            int open = uriPattern.indexOf('{', position);
+            if (open < 0) {
+                literalList.add(uriPattern.substring(position));
+                break;
+            }
+            int close = uriPattern.indexOf('}', open);
+            String name = close < 0 ? null : uriPattern.substring(open + 1, close).trim();
+            if (StringUtil.isNullOrEmpty(name) || name.indexOf('{') >= 0) {
+                throw new IllegalArgumentException("invalid uri pattern. pattern=[" + uriPattern + "].");
+            }
+            literalList.add(uriPattern.substring(position, open));
+            variableList.add(name);
+            position = close + 1;
+        }
+        if (literalList.get(literalList.size() - 1).indexOf('}') >= 0) {
+            throw new IllegalArgumentException("invalid uri pattern. pattern=[" + uriPattern + "].");
+        }
+        List<String> names = new ArrayList<String>();
+        for (String variable : variableList) {
+            if (!names.contains(variable)) {
+                names.add(variable);
+            }
+        }
+        this.uriPattern = uriPattern;
+        this.literals = literalList.toArray(new String[literalList.size()]);
+        this.variables = variableList.toArray(new String[variableList.size()]);
+        this.variableNames = Collections.unmodifiableList(names);
+        this.prototype = prototype;
+    }
+
+    /**
+     * パス変数を展開したリクエストを生成する。
+     *
+     * @param values パス変数の値（パス変数名をキーとする）
+     * @return 生成したリクエスト
+     */
+    public RestMockHttpRequest expand(Map<String, ?> values) {
+        StringBuilder uri = new StringBuilder(uriPattern.length() + variables.length * 8);
+        for (int i = 0; i < variables.length; i++) {
+            uri.append(literals[i]);
+            if (!values.containsKey(variables[i])) {
+                throw new IllegalArgumentException("no value for path variable. name=[" + variables[i] + "].");
+            }
+            appendEncoded(uri, values.get(variables[i]));
+        }
+        uri.append(literals[variables.length]);
+        return prototype.copyWithRequestUri(uri.toString());
+    }
+
+    /**
+     * パス変数を展開したリクエストを生成する。
+     * 値は、パス変数名の出現順（同じ名前は最初の出現位置）に対応する。
+     *
+     * @param values パス変数の値
+     * @return 生成したリクエスト
+     */
+    public RestMockHttpRequest expand(Object... values) {
+        if (values.length != variableNames.size()) {
+            throw new IllegalArgumentException("number of values must be " + variableNames.size()
+                    + ". pattern=[" + uriPattern + "], values=[" + values.length + "].");
+        }
+        StringBuilder uri = new StringBuilder(uriPattern.length() + variables.length * 8);
+        for (int i = 0; i < variables.length; i++) {
+            uri.append(literals[i]);
+            appendEncoded(uri, values[variableNames.indexOf(variables[i])]);
+        }
+        uri.append(literals[variables.length]);
+        return prototype.copyWithRequestUri(uri.toString());
+    }
+
+    /**
+     * URIパターンを取得する。
+     *
+     * @return URIパターン
+     */
+    public String getUriPattern() {
+        return uriPattern;
+    }
+
+    /**
+     * HTTPメソッドを取得する。
+     *
+     * @return HTTPメソッド
+     */
+    public String getMethod() {
+        return prototype.getMethod();
+    }
+
+    /**
+     * パス変数名の一覧を取得する。
+     *
+     * @return パス変数名（重複を除いた出現順）
+     */
+    public List<String> getVariableNames() {
+        return variableNames;
+    }
+
+    /**
+     * パス変数の値をパーセントエンコードして追加する。
+     * RFC 3986の非予約文字以外をエンコードする。
+     *
+     * @param uri   追加先
+     * @param value パス変数の値
+     */
+    private static void appendEncoded(StringBuilder uri, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("path variable value must not be null.");
+        }
+        PercentEncoder.appendComponent(uri, String.valueOf(value));
+    }
+
+    /**
+     * 1度しか読み込めないボディか否か。
+     *
+     * @param body リクエストボディ
+     * @return 1度しか読み込めない場合は{@code true}
+     */
+    private static boolean isSingleUse(Object body) {
+        return body instanceof InputStream
+                || body instanceof Iterator
+                || JacksonSequenceBodyConverter.isStream(body)
+                || (body instanceof MultipartBody && ((MultipartBody) body).hasStreamPart());
+    }
+
+    /**
+     * {@link RestRequestTemplate}のビルダークラス。
+     * {@link RestMockHttpRequestBuilder#template(String, String)}で生成する。
+     */
+    public static final class Builder {
+
+        /** URIパターン */
+        private final String uriPattern;
+
+        /** 生成するリクエストの原型 */
+        private final RestMockHttpRequest prototype;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param uriPattern URIパターン
+         * @param prototype  生成するリクエストの原型
+         */
+        Builder(String uriPattern, RestMockHttpRequest prototype) {
+            this.uriPattern = uriPattern;
+            this.prototype = prototype;
+        }
+
+        /**
+         * HTTPリクエストヘッダの値を設定する。
+         *
+         * @param headerName リクエストヘッダ名
+         * @param value      リクエストヘッダに設定する値
+         * @return このオブジェクト自体
+         */
+        public Builder setHeader(String headerName, String value) {
+            prototype.setHeader(headerName, value);
+            return this;
+        }
+
+        /**
+         * Content-Typeを設定する。
+         *
+         * @param contentType Content-Typeに設定する値
+         * @return このオブジェクト自体
+         */
+        public Builder setContentType(String contentType) {
+            prototype.setContentType(contentType);
+            return this;
+        }
+
+        /**
+         * Cookieを設定する。
+         *
+         * @param cookie Cookie
+         * @return このオブジェクト自体
+         */
+        public Builder setCookie(HttpCookie cookie) {
+            prototype.setCookie(cookie);
+            return this;
+        }
+
+        /**
+         * リクエストパラメータを設定する。
+         *
+         * @param name   パラメータ名
+         * @param params パラメータの値
+         * @return このオブジェクト自体
+         */
+        public Builder setParam(String name, String... params) {
+            prototype.setParam(name, params);
+            return this;
+        }
+
+        /**
+         * リクエストボディを設定する。
+         *
+         * @param body リクエストボディに設定するオブジェクト
+         * @return このオブジェクト自体
+         * @throws IllegalArgumentException 1度しか読み込めないボディの場合
+         */
+        public Builder setBody(Object body) {
+            if (isSingleUse(body)) {
+                throw new IllegalArgumentException("single-use body cannot be used for template. body class=["
+                        + body.getClass().getName() + "].");
+            }
+            prototype.setBody(body);
+            return this;
+        }
+
+        /**
+         * {@link RestRequestTemplate}を生成する。
+         * ボディはこの時点で変換する。
+         *
+         * @return 生成した{@link RestRequestTemplate}
+         */
+        public RestRequestTemplate build() {
+            RestMockHttpRequest snapshot = prototype.copyWithRequestUri(uriPattern);
+            try {
+                snapshot.prepareBody();
+            } catch (IOException e) {
+                throw new RuntimeException("body cannot be written. cause[" + e.getMessage() + "].", e);
+            }
+            return new RestRequestTemplate(uriPattern, snapshot);
+        }
+    }
+}
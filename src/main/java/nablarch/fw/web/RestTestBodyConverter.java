@@ -2,6 +2,13 @@ package nablarch.fw.web;
 
 import nablarch.core.util.StringUtil;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * {@link RestMockHttpRequest}のbodyを文字列に変換するためのインターフェイス。
  */
@@ -26,12 +33,46 @@ public interface RestTestBodyConverter {
     String convert(Object body, MediaType mediaType);
 
     /**
-     * MIMEタイプを表すクラス
+     * MIMEタイプを表すクラス。
+     * <p>
+     * Content-Typeヘッダーの値をRFC 7231のmedia-typeとして解析し、
+     * タイプ、サブタイプ、構造化構文のサフィックス（RFC 6839、例: {@code application/vnd.api+json}の"json"）
+     * およびパラメータを保持する。
+     * タイプ・サブタイプとパラメータ名は小文字に変換し、引用符で囲まれたパラメータの値は引用符とエスケープを取り除く。
+     * 不正な形式のパラメータは無視する。
+     * </p>
+     * <p>
+     * 変更不可能なオブジェクトのため、{@link #valueOf(String)}で取得すると、同じContent-Typeの解析結果を再利用できる。
+     * </p>
      */
     class MediaType {
+        /** charsetパラメータの名前 */
+        private static final String CHARSET_PARAMETER = "charset";
+
+        /** 解析結果を保持するContent-Typeの最大数 */
+        private static final int INTERN_CACHE_SIZE = 512;
+
+        /** 解析結果（Content-Typeヘッダーの値をキーとする） */
+        private static final ConcurrentMap<String, MediaType> INTERNED = new ConcurrentHashMap<String, MediaType>();
+
         /** MIMEタイプ */
         private final String value;
 
+        /** タイプ */
+        private final String type;
+
+        /** サブタイプ */
+        private final String subtype;
+
+        /** 構造化構文のサフィックス */
+        private final String suffix;
+
+        /** パラメータ（名前は小文字） */
+        private final Map<String, String> parameters;
+
+        /** charsetパラメータの値 */
+        private final String charset;
+
         /**
          * コンストラクタ。
          * 引数を解析してMIMEタイプを設定する。
@@ -43,14 +84,177 @@ public interface RestTestBodyConverter {
                 throw new IllegalArgumentException("content type must not be empty.");
             }
 
-            String[] parts = contentType.split(";");
-            String mediaTypeFromArgument = parts[0].trim().toLowerCase();
+            int end = contentType.indexOf(';');
+            if (end < 0) {
+                end = contentType.length();
+            }
+            String mediaTypeFromArgument = contentType.substring(0, end).trim().toLowerCase(Locale.ENGLISH);
 
             if (StringUtil.isNullOrEmpty(mediaTypeFromArgument)) {
                 throw new IllegalArgumentException("media type must not be empty.");
             }
 
             this.value = mediaTypeFromArgument;
+            int slash = value.indexOf('/');
+            this.type = slash < 0 ? value : value.substring(0, slash).trim();
+            this.subtype = slash < 0 ? null : value.substring(slash + 1).trim();
+            int plus = subtype == null ? -1 : subtype.lastIndexOf('+');
+            this.suffix = plus < 0 || plus == subtype.length() - 1 ? null : subtype.substring(plus + 1);
+            this.parameters = parseParameters(contentType, end);
+            this.charset = getParameter(CHARSET_PARAMETER);
+        }
+
+        /**
+         * Content-Typeヘッダーの値に対応する{@link MediaType}を取得する。
+         * <p>
+         * 解析結果を一定数まで保持し、同じContent-Typeに対しては保持している{@link MediaType}を返す。
+         * 保持数が上限に達した場合は、保持している解析結果をすべて破棄する。
+         * </p>
+         *
+         * @param contentType Content-Typeヘッダーの値
+         * @return {@link MediaType}
+         */
+        public static MediaType valueOf(String contentType) {
+            if (contentType == null) {
+                throw new IllegalArgumentException("content type must not be empty.");
+            }
+            MediaType mediaType = INTERNED.get(contentType);
+            if (mediaType == null) {
+                mediaType = new MediaType(contentType);
+                if (INTERNED.size() >= INTERN_CACHE_SIZE) {
+                    INTERNED.clear();
+                }
+                INTERNED.put(contentType, mediaType);
+            }
+            return mediaType;
+        }
+
+        /**
+         * パラメータを解析する。
+         *
+         * @param contentType Content-Typeヘッダーの値
+         * @param position    解析を開始する位置（最初の";"の位置）
+         * @return パラメータ（名前は小文字）
+         */
+        private static Map<String, String> parseParameters(String contentType, int position) {
+            int length = contentType.length();
+            if (position >= length) {
+                return Collections.emptyMap();
+            }
+            Map<String, String> result = new LinkedHashMap<String, String>();
+            int pos = position;
+            while (pos < length) {
+                // ";"の次から、"="または";"までをパラメータ名とする
+                int nameStart = pos + 1;
+                pos = nameStart;
+                while (pos < length && contentType.charAt(pos) != '=' && contentType.charAt(pos) != ';') {
+                    pos++;
+                }
+                if (pos >= length || contentType.charAt(pos) == ';') {
+                    continue;
+                }
+                String name = contentType.substring(nameStart, pos).trim().toLowerCase(Locale.ENGLISH);
+                pos = skipWhitespace(contentType, pos + 1);
+                String parameterValue;
+                if (pos < length && contentType.charAt(pos) == '"') {
+                    StringBuilder quoted = new StringBuilder();
+                    pos++;
+                    while (pos < length && contentType.charAt(pos) != '"') {
+                        char c = contentType.charAt(pos);
+                        if (c == '\\' && pos + 1 < length) {
+                            c = contentType.charAt(++pos);
+                        }
+                        quoted.append(c);
+                        pos++;
+                    }
+                    parameterValue = quoted.toString();
+                    while (pos < length && contentType.charAt(pos) != ';') {
+                        pos++;
+                    }
+                } else {
+                    int valueStart = pos;
+                    while (pos < length && contentType.charAt(pos) != ';') {
+                        pos++;
+                    }
+                    parameterValue = contentType.substring(valueStart, pos).trim();
+                }
+                if (name.length() > 0 && parameterValue.length() > 0 && !result.containsKey(name)) {
+                    result.put(name, parameterValue);
+                }
+            }
+            return Collections.unmodifiableMap(result);
+        }
+
+        /**
+         * 空白（SP / HTAB）を読み飛ばす。
+         *
+         * @param value    文字列
+         * @param position 読み飛ばしを開始する位置
+         * @return 空白でない最初の位置
+         */
+        private static int skipWhitespace(String value, int position) {
+            int pos = position;
+            while (pos < value.length() && (value.charAt(pos) == ' ' || value.charAt(pos) == '\t')) {
+                pos++;
+            }
+            return pos;
+        }
+
+        /**
+         * タイプを取得する。
+         *
+         * @return タイプ（例: "application"）
+         */
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * サブタイプを取得する。
+         *
+         * @return サブタイプ（例: "vnd.api+json"）。"/"を含まない場合は{@code null}
+         */
+        public String getSubtype() {
+            return subtype;
+        }
+
+        /**
+         * 構造化構文のサフィックスを取得する。
+         *
+         * @return サフィックス（例: "json"）。サブタイプが"+"を含まない場合は{@code null}
+         */
+        public String getSuffix() {
+            return suffix;
+        }
+
+        /**
+         * Content-Typeのパラメータをすべて取得する。
+         *
+         * @return パラメータ（名前は小文字、指定された順）。変更はできない
+         */
+        public Map<String, String> getParameters() {
+            return parameters;
+        }
+
+        /**
+         * Content-Typeのパラメータの値を取得する。
+         * パラメータ名の大文字・小文字は区別しない。値を囲む引用符は取り除く。
+         *
+         * @param name パラメータ名
+         * @return パラメータの値。指定されていない場合は{@code null}
+         */
+        public String getParameter(String name) {
+            return parameters.get(name.toLowerCase(Locale.ENGLISH));
+        }
+
+        /**
+         * Content-Typeのcharsetパラメータの値を取得する。
+         * charsetはMIMEタイプの比較（{@link #equals(Object)}）には使用しない。
+         *
+         * @return charset。指定されていない場合は{@code null}
+         */
+        public String getCharset() {
+            return charset;
         }
 
         @Override
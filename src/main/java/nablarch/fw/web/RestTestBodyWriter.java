@@ -0,0 +1,29 @@
+package nablarch.fw.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * {@link RestMockHttpRequest}のbodyをエンコード済みのバイト列として書き出すためのインターフェイス。
+ * <p>
+ * {@link RestTestBodyConverter#convert(Object, MediaType)}で文字列に変換してからエンコードするのではなく、
+ * Content-Typeのcharsetパラメータで指定された文字コードで直接バイト列を書き出す。
+ * このインターフェイスを実装したコンバータが選択された場合、
+ * {@link RestMockHttpRequest}はここで書き出されたバイト列からContent-Lengthを算出する。
+ * </p>
+ */
+public interface RestTestBodyWriter extends RestTestBodyConverter {
+
+    /**
+     * bodyをエンコードしたバイト列を書き出す。
+     * 書き出し先のストリームはクローズしないこと。
+     *
+     * @param body      リクエストボディ
+     * @param mediaType Content-Type
+     * @param charset   エンコードに使用する文字コード
+     * @param out       書き出し先
+     * @throws IOException 書き出しに失敗した場合
+     */
+    void write(Object body, MediaType mediaType, Charset charset, OutputStream out) throws IOException;
+}
@@ -0,0 +1,18 @@
+package nablarch.fw.web;
+
+/**
+ * 変換可否の判定結果がボディのクラスとMIMEタイプのみで決まることを表す{@link RestTestBodyConverter}。
+ * <p>
+ * {@link RestMockHttpRequestBuilder#setBodyConverters(java.util.Collection)}で設定した
+ * {@link RestTestBodyConverter}がすべて組み込みのものか、このインターフェイスを実装したものである場合、
+ * ビルダーが生成したリクエストは、ボディのクラスとMIMEタイプ（パラメータを除く）の組み合わせ毎に
+ * 使用する{@link RestTestBodyConverter}の選択結果を共有し、2回目以降は
+ * {@link #isConvertible(Object, MediaType)}を呼び出さない。
+ * </p>
+ * <p>
+ * このインターフェイスを実装する場合、{@link #isConvertible(Object, MediaType)}の結果は、
+ * ボディの値やコンバータの状態によって変化してはならない。
+ * </p>
+ */
+public interface RestTestCacheableBodyConverter extends RestTestBodyConverter {
+}
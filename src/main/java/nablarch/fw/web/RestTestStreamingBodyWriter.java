@@ -0,0 +1,42 @@
+package nablarch.fw.web;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * {@link RestMockHttpRequest}のbodyを、全体をメモリ上に読み込まずに書き出すためのインターフェイス。
+ * <p>
+ * ファイルやストリームなど、文字列に変換せずにそのまま送信するbodyに使用する。
+ * {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}は、
+ * {@link #getContentLength(Object, MediaType)}でバイト数がわかる場合はContent-Lengthを、
+ * わからない場合はチャンク形式（Transfer-Encoding: chunked）で送信する。
+ * </p>
+ * <p>
+ * {@link RestMockHttpRequest#toString()}ではリクエスト全体を文字列として構築するため、
+ * bodyの全体がメモリ上に読み込まれる点に注意すること。
+ * </p>
+ */
+public interface RestTestStreamingBodyWriter extends RestTestBodyWriter {
+
+    /**
+     * bodyのバイト数を取得する。
+     *
+     * @param body      リクエストボディ
+     * @param mediaType Content-Type
+     * @return バイト数。書き出すまでわからない場合は-1
+     * @throws IOException バイト数の取得に失敗した場合
+     */
+    long getContentLength(Object body, MediaType mediaType) throws IOException;
+
+    /**
+     * bodyをチャネルに書き出す。
+     * ファイルの場合など、可能であればメモリへのコピーを伴わない転送を行うこと。
+     * 書き出し先のチャネルはクローズしないこと。
+     *
+     * @param body      リクエストボディ
+     * @param mediaType Content-Type
+     * @param channel   書き出し先
+     * @throws IOException 書き出しに失敗した場合
+     */
+    void transferTo(Object body, MediaType mediaType, WritableByteChannel channel) throws IOException;
+}
@@ -1,9 +1,13 @@
 package nablarch.fw.web;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
 /**
  * {@link String}型のbodyを返すための{@link RestTestBodyConverter}実装クラス。
  */
-public class StringBodyConverter implements RestTestBodyConverter {
+public class StringBodyConverter implements RestTestBodyWriter {
 
     @Override
     public boolean isConvertible(Object body, MediaType mediaType) {
@@ -14,4 +18,9 @@ public class StringBodyConverter implements RestTestBodyConverter {
     public String convert(Object body, MediaType mediaType) {
         return (String) body;
     }
+
+    @Override
+    public void write(Object body, MediaType mediaType, Charset charset, OutputStream out) throws IOException {
+        out.write(((String) body).getBytes(charset));
+    }
 }
@@ -0,0 +1,137 @@
+package nablarch.fw.web.httpserver;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * チャンク形式（Transfer-Encoding: chunked）のリクエストボディを復元して読み込む{@link InputStream}。
+ * <p>
+ * チャンク拡張は無視し、終端のチャンクに続くトレーラは読み飛ばす。
+ * </p>
+ */
+class ChunkedInputStream extends FilterInputStream {
+
+    /** 現在のチャンクの残りバイト数 */
+    private long remaining;
+
+    /** 終端のチャンクまで読み込んだ場合は{@code true} */
+    private boolean eof;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param in チャンク形式のデータを読み込むストリーム
+     */
+    ChunkedInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!prepareChunk()) {
+            return -1;
+        }
+        int b = in.read();
+        if (b == -1) {
+            throw new IOException("unexpected end of chunked body.");
+        }
+        remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!prepareChunk()) {
+            return -1;
+        }
+        int read = in.read(b, off, (int) Math.min(len, remaining));
+        if (read == -1) {
+            throw new IOException("unexpected end of chunked body.");
+        }
+        remaining -= read;
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return eof ? 0 : (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * 読み込み可能なチャンクを準備する。
+     *
+     * @return 読み込み可能なデータがある場合は{@code true}、終端のチャンクに達した場合は{@code false}
+     * @throws IOException 読み込みに失敗した場合、またはチャンク形式が不正な場合
+     */
+    private boolean prepareChunk() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (remaining > 0) {
+            return true;
+        }
+        String sizeLine = readLine();
+        if (sizeLine.length() == 0) {
+            // 前のチャンクの末尾の改行
+            sizeLine = readLine();
+        }
+        int extension = sizeLine.indexOf(';');
+        String size = (extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim();
+        try {
+            remaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("invalid chunk size. line=[" + sizeLine + "].", e);
+        }
+        if (remaining == 0) {
+            while (readLine().length() > 0) {
+                // トレーラを読み飛ばす
+            }
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * CRLFで終わる1行を読み込む。
+     *
+     * @return 改行を含まない行
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new IOException("unexpected end of chunked body.");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+}
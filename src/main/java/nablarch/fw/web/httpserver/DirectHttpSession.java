@@ -0,0 +1,171 @@
+package nablarch.fw.web.httpserver;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link HttpServerDirect}で使用する{@link HttpSession}の実装。
+ * <p>
+ * セッションは{@link HttpServerDirect}が保持し、セッションIDをキーにリクエストをまたいで共有される。
+ * タイムアウトによる破棄は行わない。
+ * </p>
+ */
+class DirectHttpSession extends DirectProxyHandler {
+
+    /** セッションID */
+    private final String id;
+
+    /** セッションを保持するMap */
+    private final ConcurrentMap<String, DirectHttpSession> sessions;
+
+    /** サーブレットコンテキスト */
+    private final ServletContext servletContext;
+
+    /** セッション属性 */
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+    /** 生成日時 */
+    private final long creationTime = System.currentTimeMillis();
+
+    /** 最終アクセス日時 */
+    private volatile long lastAccessedTime = creationTime;
+
+    /** 最大非アクティブ期間（秒） */
+    private volatile int maxInactiveInterval;
+
+    /** 新規セッションか否か */
+    private volatile boolean isNew = true;
+
+    /** 無効化されたか否か */
+    private volatile boolean invalidated;
+
+    /** プロキシ */
+    private final HttpSession proxy;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param id             セッションID
+     * @param sessions       セッションを保持するMap
+     * @param servletContext サーブレットコンテキスト
+     */
+    DirectHttpSession(String id, ConcurrentMap<String, DirectHttpSession> sessions, ServletContext servletContext) {
+        this.id = id;
+        this.sessions = sessions;
+        this.servletContext = servletContext;
+        this.proxy = newProxy(this, HttpSession.class, HttpSession.class);
+    }
+
+    /**
+     * {@link HttpSession}として取得する。
+     *
+     * @return {@link HttpSession}
+     */
+    HttpSession getHttpSession() {
+        return proxy;
+    }
+
+    /**
+     * セッションIDを取得する。
+     *
+     * @return セッションID
+     */
+    String getId() {
+        return id;
+    }
+
+    /**
+     * 新規セッションか否か。
+     *
+     * @return 新規セッションの場合は{@code true}
+     */
+    boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * 有効なセッションか否か。
+     *
+     * @return 有効な場合は{@code true}
+     */
+    boolean isValid() {
+        return !invalidated;
+    }
+
+    /**
+     * 既存のセッションとしてアクセスされたことを記録する。
+     */
+    void access() {
+        isNew = false;
+        lastAccessedTime = System.currentTimeMillis();
+    }
+
+    @Override
+    protected Object invoke(String name, Object[] args, Method method) {
+        if ("getId".equals(name)) {
+            return id;
+        }
+        if ("getServletContext".equals(name)) {
+            return servletContext;
+        }
+        if ("getCreationTime".equals(name)) {
+            return creationTime;
+        }
+        if ("getLastAccessedTime".equals(name)) {
+            return lastAccessedTime;
+        }
+        if ("getMaxInactiveInterval".equals(name)) {
+            return maxInactiveInterval;
+        }
+        if ("setMaxInactiveInterval".equals(name)) {
+            maxInactiveInterval = (Integer) args[0];
+            return null;
+        }
+        if ("isNew".equals(name)) {
+            return isNew;
+        }
+        if ("invalidate".equals(name)) {
+            checkValid();
+            invalidated = true;
+            sessions.remove(id, this);
+            attributes.clear();
+            return null;
+        }
+        checkValid();
+        if ("getAttribute".equals(name) || "getValue".equals(name)) {
+            return attributes.get((String) args[0]);
+        }
+        if ("setAttribute".equals(name) || "putValue".equals(name)) {
+            if (args[1] == null) {
+                attributes.remove((String) args[0]);
+            } else {
+                attributes.put((String) args[0], args[1]);
+            }
+            return null;
+        }
+        if ("removeAttribute".equals(name) || "removeValue".equals(name)) {
+            attributes.remove((String) args[0]);
+            return null;
+        }
+        if ("getAttributeNames".equals(name)) {
+            return enumeration(attributes.keySet());
+        }
+        if ("getValueNames".equals(name)) {
+            return attributes.keySet().toArray(new String[attributes.size()]);
+        }
+        throw unsupported(method);
+    }
+
+    /**
+     * 無効化されたセッションでないことを確認する。
+     */
+    private void checkValid() {
+        if (invalidated) {
+            throw new IllegalStateException("session was already invalidated. id=[" + id + "].");
+        }
+    }
+}
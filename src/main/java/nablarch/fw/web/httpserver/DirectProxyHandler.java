@@ -0,0 +1,87 @@
+package nablarch.fw.web.httpserver;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+
+/**
+ * {@link HttpServerDirect}で使用するServlet APIオブジェクトの動的プロキシ用{@link InvocationHandler}。
+ * <p>
+ * Servlet APIのインターフェイスはバージョン毎にメソッドが追加されるため、
+ * 実装クラスではなく動的プロキシでインスタンスを生成する。
+ * サブクラスが処理しないメソッドが呼び出された場合は、{@link UnsupportedOperationException}を送出する。
+ * </p>
+ */
+abstract class DirectProxyHandler implements InvocationHandler {
+
+    /** 引数なしを表す配列 */
+    private static final Object[] NO_ARGS = new Object[0];
+
+    @Override
+    public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            return getClass().getSimpleName() + '@' + Integer.toHexString(System.identityHashCode(proxy));
+        }
+        return invoke(name, args == null ? NO_ARGS : args, method);
+    }
+
+    /**
+     * プロキシのメソッド呼び出しを処理する。
+     *
+     * @param name   メソッド名
+     * @param args   引数
+     * @param method 呼び出されたメソッド
+     * @return 戻り値
+     * @throws Exception 処理中に発生した例外
+     */
+    protected abstract Object invoke(String name, Object[] args, Method method) throws Exception;
+
+    /**
+     * サポートしないメソッドが呼び出されたことを表す例外を生成する。
+     * <p>
+     * 既定値を返して処理を継続すると、Servletコンテナ上とは異なる動作に気付けないため、
+     * 呼び出されたメソッドを明示した例外を送出する。
+     * </p>
+     *
+     * @param method 呼び出されたメソッド
+     * @return 例外
+     */
+    protected static UnsupportedOperationException unsupported(Method method) {
+        return new UnsupportedOperationException(method.getDeclaringClass().getSimpleName() + '#' + method.getName()
+                + " is not supported in direct dispatch mode.");
+    }
+
+    /**
+     * {@link Collection}を{@link Enumeration}に変換する。
+     *
+     * @param values 値
+     * @param <T>    要素の型
+     * @return {@link Enumeration}
+     */
+    protected static <T> Enumeration<T> enumeration(Collection<T> values) {
+        return Collections.enumeration(values);
+    }
+
+    /**
+     * 指定したインターフェイスを実装する動的プロキシを生成する。
+     *
+     * @param handler    {@link InvocationHandler}
+     * @param type       戻り値の型
+     * @param interfaces 実装するインターフェイス
+     * @param <T>        戻り値の型
+     * @return 動的プロキシ
+     */
+    protected static <T> T newProxy(InvocationHandler handler, Class<T> type, Class<?>... interfaces) {
+        return type.cast(Proxy.newProxyInstance(interfaces[0].getClassLoader(), interfaces, handler));
+    }
+}
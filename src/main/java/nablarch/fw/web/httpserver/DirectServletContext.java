@@ -0,0 +1,160 @@
+package nablarch.fw.web.httpserver;
+
+import nablarch.fw.web.ResourceLocator;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import java.io.File;
+import java.io.FileInputStream;
+import java.lang.reflect.Method;
+import java.net.URLConnection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link HttpServerDirect}で使用する{@link ServletContext}と{@link FilterConfig}の実装。
+ * <p>
+ * リソースの参照はWarベースパスを先頭から順に検索する。
+ * </p>
+ */
+class DirectServletContext extends DirectProxyHandler {
+
+    /** フィルタ名 */
+    private static final String FILTER_NAME = "WebFrontController";
+
+    /** コンテキストパス */
+    private final String contextPath;
+
+    /** Warベースパス */
+    private final List<ResourceLocator> warBasePaths;
+
+    /** コンテキスト属性 */
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+    /** プロキシ */
+    private final Object proxy;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param contextPath  コンテキストパス
+     * @param warBasePaths Warベースパス
+     */
+    DirectServletContext(String contextPath, List<ResourceLocator> warBasePaths) {
+        this.contextPath = "/".equals(contextPath) ? "" : contextPath;
+        this.warBasePaths = warBasePaths;
+        this.proxy = newProxy(this, Object.class, ServletContext.class, FilterConfig.class);
+    }
+
+    /**
+     * {@link ServletContext}として取得する。
+     *
+     * @return {@link ServletContext}
+     */
+    ServletContext getServletContext() {
+        return (ServletContext) proxy;
+    }
+
+    /**
+     * {@link FilterConfig}として取得する。
+     *
+     * @return {@link FilterConfig}
+     */
+    FilterConfig getFilterConfig() {
+        return (FilterConfig) proxy;
+    }
+
+    /**
+     * コンテキストパスを取得する。
+     *
+     * @return コンテキストパス（ルートの場合は空文字）
+     */
+    String getContextPath() {
+        return contextPath;
+    }
+
+    @Override
+    protected Object invoke(String name, Object[] args, Method method) throws Exception {
+        if ("getServletContext".equals(name)) {
+            return proxy;
+        }
+        if ("getContextPath".equals(name)) {
+            return contextPath;
+        }
+        if ("getFilterName".equals(name) || "getServletContextName".equals(name)) {
+            return FILTER_NAME;
+        }
+        if ("getAttribute".equals(name)) {
+            return attributes.get((String) args[0]);
+        }
+        if ("setAttribute".equals(name)) {
+            if (args[1] == null) {
+                attributes.remove((String) args[0]);
+            } else {
+                attributes.put((String) args[0], args[1]);
+            }
+            return null;
+        }
+        if ("removeAttribute".equals(name)) {
+            attributes.remove((String) args[0]);
+            return null;
+        }
+        if ("getAttributeNames".equals(name)) {
+            return enumeration(attributes.keySet());
+        }
+        if ("getInitParameterNames".equals(name)) {
+            return enumeration(Collections.<String>emptyList());
+        }
+        if ("getMimeType".equals(name)) {
+            return URLConnection.guessContentTypeFromName((String) args[0]);
+        }
+        if ("getRealPath".equals(name)) {
+            File file = findResource((String) args[0]);
+            return file == null ? null : file.getPath();
+        }
+        if ("getResource".equals(name)) {
+            File file = findResource((String) args[0]);
+            return file == null ? null : file.toURI().toURL();
+        }
+        if ("getResourceAsStream".equals(name)) {
+            File file = findResource((String) args[0]);
+            return file == null ? null : new FileInputStream(file);
+        }
+        if ("getServerInfo".equals(name)) {
+            return HttpServerDirect.class.getSimpleName();
+        }
+        if ("getMajorVersion".equals(name)) {
+            return 2;
+        }
+        if ("getMinorVersion".equals(name)) {
+            return 5;
+        }
+        if ("getInitParameter".equals(name)) {
+            // 初期化パラメータは定義しない
+            return null;
+        }
+        if ("log".equals(name)) {
+            // ログはアプリケーションのロガーで出力されるため、コンテナのログは出力しない
+            return null;
+        }
+        throw unsupported(method);
+    }
+
+    /**
+     * Warベースパスからリソースを検索する。
+     *
+     * @param path リソースのパス
+     * @return 見つかったファイル。見つからない場合は{@code null}
+     */
+    private File findResource(String path) {
+        for (ResourceLocator basePath : warBasePaths) {
+            File file = new File(basePath.getRealPath(), path);
+            if (file.exists()) {
+                return file;
+            }
+        }
+        return null;
+    }
+}
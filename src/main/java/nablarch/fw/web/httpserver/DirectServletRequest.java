@@ -0,0 +1,615 @@
+package nablarch.fw.web.httpserver;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.URLDecoder;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link HttpServerDirect}で使用する{@link HttpServletRequest}の実装。
+ * <p>
+ * 直列化したHTTPリクエストのヘッダ部を解析して生成する。
+ * フォワードや非同期処理はサポートしない。
+ * </p>
+ */
+class DirectServletRequest extends DirectProxyHandler {
+
+    /** 改行文字 */
+    private static final String LS = "\r\n";
+
+    /** セッションIDを保持するCookie名 */
+    static final String SESSION_COOKIE_NAME = "JSESSIONID";
+
+    /** ローカルホストのアドレス */
+    private static final String LOCALHOST = "127.0.0.1";
+
+    /** デフォルトのポート番号 */
+    private static final int DEFAULT_PORT = 80;
+
+    /** パラメータのデフォルト文字コード */
+    private static final String DEFAULT_PARAMETER_ENCODING = "UTF-8";
+
+    /** 本文の文字コードのデフォルト */
+    private static final String DEFAULT_BODY_ENCODING = "ISO-8859-1";
+
+    /** フォームパラメータを含むContent-Type */
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    /** リクエストボディの読み込みに使用するバッファのサイズ */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** HTTP日付の書式 */
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    /** サーブレットコンテキスト */
+    private final DirectServletContext servletContext;
+
+    /** セッションを保持するMap */
+    private final ConcurrentMap<String, DirectHttpSession> sessions;
+
+    /** HTTPメソッド */
+    private final String method;
+
+    /** リクエストURI（クエリ文字列を含まない） */
+    private final String requestUri;
+
+    /** クエリ文字列 */
+    private final String queryString;
+
+    /** HTTPバージョン */
+    private final String protocol;
+
+    /** リクエストヘッダー（名前と値の組） */
+    private final List<String[]> headers;
+
+    /** リクエストボディ（ストリームから読み込む場合は、読み込むまで{@code null}） */
+    private byte[] body;
+
+    /** リクエストボディを読み込むストリーム（メモリ上のボディを使用する場合は{@code null}） */
+    private InputStream bodyStream;
+
+    /** リクエストボディを読み込むストリームから生成した{@link DirectServletInputStream} */
+    private DirectServletInputStream streamingInput;
+
+    /** リクエストボディのバイト数（不明な場合は-1） */
+    private final long contentLength;
+
+    /** リクエスト属性 */
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+    /** 文字コード */
+    private String characterEncoding;
+
+    /** リクエストパラメータ（初回参照時に解析する） */
+    private Map<String, String[]> parameters;
+
+    /** リクエストで指定されたセッションID */
+    private final String requestedSessionId;
+
+    /** 本リクエストで使用するセッション */
+    private DirectHttpSession session;
+
+    /** プロキシ */
+    private final HttpServletRequest proxy;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param message        直列化したHTTPリクエスト
+     * @param body           リクエストボディ
+     * @param servletContext サーブレットコンテキスト
+     * @param sessions       セッションを保持するMap
+     */
+    DirectServletRequest(String message, byte[] body, DirectServletContext servletContext,
+                         ConcurrentMap<String, DirectHttpSession> sessions) {
+        this(message, null, body.length, servletContext, sessions);
+        this.body = body;
+    }
+
+    /**
+     * リクエストボディをストリームから読み込むリクエストを生成する。
+     * <p>
+     * リクエストボディは{@link HttpServletRequest#getInputStream()}などで参照された際に、
+     * ストリームから順に読み込まれる。
+     * </p>
+     *
+     * @param message        直列化したHTTPリクエスト
+     * @param bodyStream     リクエストボディを読み込むストリーム
+     * @param contentLength  リクエストボディのバイト数（不明な場合は-1）
+     * @param servletContext サーブレットコンテキスト
+     * @param sessions       セッションを保持するMap
+     */
+    DirectServletRequest(String message, InputStream bodyStream, long contentLength,
+                         DirectServletContext servletContext, ConcurrentMap<String, DirectHttpSession> sessions) {
+        this.servletContext = servletContext;
+        this.sessions = sessions;
+        this.bodyStream = bodyStream;
+        this.contentLength = contentLength;
+
+        String[] lines = message.split(LS);
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3) {
+            throw new IllegalArgumentException("invalid request line. line=[" + lines[0] + "].");
+        }
+        method = requestLine[0];
+        int queryIndex = requestLine[1].indexOf('?');
+        requestUri = queryIndex < 0 ? requestLine[1] : requestLine[1].substring(0, queryIndex);
+        queryString = queryIndex < 0 ? null : requestLine[1].substring(queryIndex + 1);
+        protocol = requestLine[2];
+
+        headers = new ArrayList<String[]>(lines.length - 1);
+        for (int i = 1; i < lines.length; i++) {
+            int separator = lines[i].indexOf(':');
+            if (separator > 0) {
+                headers.add(new String[] {lines[i].substring(0, separator).trim(),
+                        lines[i].substring(separator + 1).trim()});
+            }
+        }
+        if (getHeader("Host") == null) {
+            // サーブレットコンテナ経由の送信と同様に、Hostヘッダーが指定されていない場合はローカルホストとする
+            headers.add(new String[] {"Host", LOCALHOST});
+        }
+        characterEncoding = getCharset(getHeader("Content-Type"));
+        requestedSessionId = findRequestedSessionId();
+        proxy = newProxy(this, HttpServletRequest.class, HttpServletRequest.class);
+    }
+
+    /**
+     * {@link HttpServletRequest}として取得する。
+     *
+     * @return {@link HttpServletRequest}
+     */
+    HttpServletRequest getHttpServletRequest() {
+        return proxy;
+    }
+
+    /**
+     * 本リクエストで新規に生成された有効なセッションを取得する。
+     *
+     * @return 新規に生成されたセッション。存在しない場合は{@code null}
+     */
+    DirectHttpSession getCreatedSession() {
+        return session != null && session.isNew() && session.isValid() ? session : null;
+    }
+
+    @Override
+    protected Object invoke(String name, Object[] args, Method m) throws Exception {
+        if ("getMethod".equals(name)) {
+            return method;
+        }
+        if ("getRequestURI".equals(name)) {
+            return requestUri;
+        }
+        if ("getQueryString".equals(name)) {
+            return queryString;
+        }
+        if ("getProtocol".equals(name)) {
+            return protocol;
+        }
+        if ("getRequestURL".equals(name)) {
+            return new StringBuffer("http://").append(getHost()).append(requestUri);
+        }
+        if ("getContextPath".equals(name)) {
+            return servletContext.getContextPath();
+        }
+        if ("getServletPath".equals(name)) {
+            return requestUri.substring(servletContext.getContextPath().length());
+        }
+        if ("getServletContext".equals(name)) {
+            return servletContext.getServletContext();
+        }
+        if ("getScheme".equals(name)) {
+            return "http";
+        }
+        if ("getServerName".equals(name)) {
+            String host = getHost();
+            int portIndex = host.indexOf(':');
+            return portIndex < 0 ? host : host.substring(0, portIndex);
+        }
+        if ("getServerPort".equals(name) || "getLocalPort".equals(name)) {
+            String host = getHost();
+            int portIndex = host.indexOf(':');
+            return portIndex < 0 ? DEFAULT_PORT : Integer.parseInt(host.substring(portIndex + 1));
+        }
+        if ("getRemoteAddr".equals(name) || "getRemoteHost".equals(name) || "getLocalAddr".equals(name)) {
+            return LOCALHOST;
+        }
+        if ("getLocalName".equals(name)) {
+            return "localhost";
+        }
+        if ("getHeader".equals(name)) {
+            return getHeader((String) args[0]);
+        }
+        if ("getHeaders".equals(name)) {
+            return enumeration(getHeaders((String) args[0]));
+        }
+        if ("getHeaderNames".equals(name)) {
+            Set<String> names = new LinkedHashSet<String>();
+            for (String[] header : headers) {
+                names.add(header[0]);
+            }
+            return enumeration(names);
+        }
+        if ("getIntHeader".equals(name)) {
+            String value = getHeader((String) args[0]);
+            return value == null ? -1 : Integer.parseInt(value);
+        }
+        if ("getDateHeader".equals(name)) {
+            return getDateHeader((String) args[0]);
+        }
+        if ("getContentType".equals(name)) {
+            return getHeader("Content-Type");
+        }
+        if ("getContentLength".equals(name)) {
+            return contentLength > Integer.MAX_VALUE ? -1 : (int) contentLength;
+        }
+        if ("getContentLengthLong".equals(name)) {
+            return contentLength;
+        }
+        if ("getCharacterEncoding".equals(name)) {
+            return characterEncoding;
+        }
+        if ("setCharacterEncoding".equals(name)) {
+            characterEncoding = (String) args[0];
+            return null;
+        }
+        if ("getInputStream".equals(name)) {
+            return getBodyInputStream();
+        }
+        if ("getReader".equals(name)) {
+            String encoding = characterEncoding == null ? DEFAULT_BODY_ENCODING : characterEncoding;
+            return new BufferedReader(new InputStreamReader(getBodyInputStream(), encoding));
+        }
+        if ("getParameter".equals(name)) {
+            String[] values = getParameters().get((String) args[0]);
+            return values == null ? null : values[0];
+        }
+        if ("getParameterValues".equals(name)) {
+            return getParameters().get((String) args[0]);
+        }
+        if ("getParameterMap".equals(name)) {
+            return Collections.unmodifiableMap(getParameters());
+        }
+        if ("getParameterNames".equals(name)) {
+            return enumeration(getParameters().keySet());
+        }
+        if ("getAttribute".equals(name)) {
+            return attributes.get((String) args[0]);
+        }
+        if ("setAttribute".equals(name)) {
+            if (args[1] == null) {
+                attributes.remove((String) args[0]);
+            } else {
+                attributes.put((String) args[0], args[1]);
+            }
+            return null;
+        }
+        if ("removeAttribute".equals(name)) {
+            attributes.remove((String) args[0]);
+            return null;
+        }
+        if ("getAttributeNames".equals(name)) {
+            return enumeration(new ArrayList<String>(attributes.keySet()));
+        }
+        if ("getCookies".equals(name)) {
+            return getCookies();
+        }
+        if ("getSession".equals(name)) {
+            DirectHttpSession current = getSession(args.length == 0 || (Boolean) args[0]);
+            return current == null ? null : current.getHttpSession();
+        }
+        if ("getRequestedSessionId".equals(name)) {
+            return requestedSessionId;
+        }
+        if ("isRequestedSessionIdValid".equals(name)) {
+            return requestedSessionId != null && sessions.containsKey(requestedSessionId);
+        }
+        if ("isRequestedSessionIdFromCookie".equals(name)) {
+            return requestedSessionId != null;
+        }
+        if ("getLocale".equals(name)) {
+            return Locale.getDefault();
+        }
+        if ("getLocales".equals(name)) {
+            return enumeration(Collections.singletonList(Locale.getDefault()));
+        }
+        if ("getDispatcherType".equals(name)) {
+            return toEnum(m.getReturnType(), "REQUEST");
+        }
+        if ("startAsync".equals(name)) {
+            throw new UnsupportedOperationException("asynchronous processing is not supported in direct dispatch mode.");
+        }
+        if ("isAsyncStarted".equals(name) || "isAsyncSupported".equals(name) || "isSecure".equals(name)
+                || "isRequestedSessionIdFromURL".equals(name) || "isRequestedSessionIdFromUrl".equals(name)
+                || "isUserInRole".equals(name)) {
+            return false;
+        }
+        if ("getPathInfo".equals(name) || "getPathTranslated".equals(name) || "getAuthType".equals(name)
+                || "getRemoteUser".equals(name) || "getUserPrincipal".equals(name)) {
+            // サーブレットはコンテキストパス以下のすべてのパスにマッピングし、認証は行わない
+            return null;
+        }
+        throw unsupported(m);
+    }
+
+    /**
+     * ヘッダーの値を取得する。ヘッダー名の大文字・小文字は区別しない。
+     *
+     * @param name ヘッダー名
+     * @return ヘッダーの値（最初の値）。存在しない場合は{@code null}
+     */
+    private String getHeader(String name) {
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                return header[1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ヘッダーの値をすべて取得する。ヘッダー名の大文字・小文字は区別しない。
+     *
+     * @param name ヘッダー名
+     * @return ヘッダーの値
+     */
+    private List<String> getHeaders(String name) {
+        List<String> values = new ArrayList<String>();
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                values.add(header[1]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Hostヘッダーの値を取得する。
+     *
+     * @return Hostヘッダーの値（指定されていない場合はローカルホストのアドレス）
+     */
+    private String getHost() {
+        return getHeader("Host");
+    }
+
+    /**
+     * 日付形式のヘッダーの値を取得する。
+     *
+     * @param name ヘッダー名
+     * @return エポックミリ秒。存在しない場合は{@code -1}
+     */
+    private long getDateHeader(String name) {
+        String value = getHeader(name);
+        if (value == null) {
+            return -1L;
+        }
+        try {
+            return new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US).parse(value).getTime();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("invalid date header. name=[" + name + "] value=[" + value + "].", e);
+        }
+    }
+
+    /**
+     * リクエストパラメータを取得する。
+     * 初回参照時にクエリ文字列とフォームパラメータを解析する。
+     *
+     * @return リクエストパラメータ
+     * @throws IOException 文字コードがサポートされていない場合、リクエストボディの読み込みに失敗した場合
+     */
+    private Map<String, String[]> getParameters() throws IOException {
+        if (parameters == null) {
+            String encoding = characterEncoding == null ? DEFAULT_PARAMETER_ENCODING : characterEncoding;
+            Map<String, List<String>> values = new LinkedHashMap<String, List<String>>();
+            parseParameters(queryString, encoding, values);
+            if (isFormRequest()) {
+                parseParameters(new String(readBody(), DEFAULT_BODY_ENCODING), encoding, values);
+            }
+            parameters = new LinkedHashMap<String, String[]>();
+            for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+                parameters.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * リクエストボディを読み込むストリームを取得する。
+     * <p>
+     * メモリ上のボディの場合は、呼び出しの度に先頭から読み込むストリームを生成する。
+     * ストリームから読み込むボディの場合は、同じストリームを返す。
+     * </p>
+     *
+     * @return リクエストボディを読み込むストリーム
+     */
+    private DirectServletInputStream getBodyInputStream() {
+        if (bodyStream == null) {
+            return new DirectServletInputStream(new ByteArrayInputStream(body));
+        }
+        if (streamingInput == null) {
+            streamingInput = new DirectServletInputStream(bodyStream);
+        }
+        return streamingInput;
+    }
+
+    /**
+     * リクエストボディの全体を取得する。
+     * ストリームから読み込むボディの場合は、残りを全て読み込んでメモリ上に保持する。
+     *
+     * @return リクエストボディ
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private byte[] readBody() throws IOException {
+        if (bodyStream != null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = bodyStream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            body = out.toByteArray();
+            bodyStream = null;
+            streamingInput = null;
+        }
+        return body;
+    }
+
+    /**
+     * フォームパラメータを含むリクエストか否か。
+     *
+     * @return フォームパラメータを含む場合は{@code true}
+     */
+    private boolean isFormRequest() {
+        String contentType = getHeader("Content-Type");
+        return contentType != null
+                && contentType.toLowerCase(Locale.ENGLISH).startsWith(FORM_CONTENT_TYPE)
+                && ("POST".equals(method) || "PUT".equals(method));
+    }
+
+    /**
+     * "key=value(&amp;key=value...)"形式の文字列を解析する。
+     *
+     * @param source   解析対象
+     * @param encoding 文字コード
+     * @param values   解析結果の格納先
+     * @throws UnsupportedEncodingException 文字コードがサポートされていない場合
+     */
+    private static void parseParameters(String source, String encoding, Map<String, List<String>> values)
+            throws UnsupportedEncodingException {
+        if (source == null || source.length() == 0) {
+            return;
+        }
+        for (String pair : source.split("&")) {
+            if (pair.length() == 0) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            String name = URLDecoder.decode(separator < 0 ? pair : pair.substring(0, separator), encoding);
+            String value = separator < 0 ? "" : URLDecoder.decode(pair.substring(separator + 1), encoding);
+            List<String> list = values.get(name);
+            if (list == null) {
+                list = new ArrayList<String>();
+                values.put(name, list);
+            }
+            list.add(value);
+        }
+    }
+
+    /**
+     * CookieヘッダーからCookieを取得する。
+     *
+     * @return Cookie。存在しない場合は{@code null}
+     */
+    private Cookie[] getCookies() {
+        List<Cookie> cookies = new ArrayList<Cookie>();
+        for (String header : getHeaders("Cookie")) {
+            for (String pair : header.split(";")) {
+                int separator = pair.indexOf('=');
+                if (separator <= 0) {
+                    continue;
+                }
+                String name = pair.substring(0, separator).trim();
+                if (name.startsWith("$")) {
+                    continue;
+                }
+                cookies.add(new Cookie(name, pair.substring(separator + 1).trim()));
+            }
+        }
+        return cookies.isEmpty() ? null : cookies.toArray(new Cookie[cookies.size()]);
+    }
+
+    /**
+     * CookieからセッションIDを取得する。
+     *
+     * @return セッションID。存在しない場合は{@code null}
+     */
+    private String findRequestedSessionId() {
+        Cookie[] cookies = getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (SESSION_COOKIE_NAME.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * セッションを取得する。
+     *
+     * @param create セッションが存在しない場合に生成するか否か
+     * @return セッション。存在せず生成もしない場合は{@code null}
+     */
+    private DirectHttpSession getSession(boolean create) {
+        if (session != null && session.isValid()) {
+            return session;
+        }
+        if (session == null && requestedSessionId != null) {
+            DirectHttpSession requested = sessions.get(requestedSessionId);
+            if (requested != null && requested.isValid()) {
+                requested.access();
+                session = requested;
+                return session;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        session = new DirectHttpSession(id, sessions, servletContext.getServletContext());
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * Content-Typeから文字コードを取得する。
+     *
+     * @param contentType Content-Type
+     * @return 文字コード。指定されていない場合は{@code null}
+     */
+    static String getCharset(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.toLowerCase(Locale.ENGLISH).startsWith("charset=")) {
+                return trimmed.substring("charset=".length()).replace("\"", "");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 列挙型の定数を取得する。
+     *
+     * @param type 列挙型
+     * @param name 定数名
+     * @return 定数
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toEnum(Class<?> type, String name) {
+        return Enum.valueOf((Class) type, name);
+    }
+}
@@ -0,0 +1,449 @@
+package nablarch.fw.web.httpserver;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * {@link HttpServerDirect}で使用する{@link HttpServletResponse}の実装。
+ * <p>
+ * ステータスコード、ヘッダーおよびボディをメモリ上に保持し、
+ * {@link #toByteArray()}でHTTPレスポンスの形式に直列化する。
+ * </p>
+ */
+class DirectServletResponse extends DirectProxyHandler {
+
+    /** 改行文字 */
+    private static final String LS = "\r\n";
+
+    /** ヘッダーの文字コード */
+    private static final Charset HEADER_CHARSET = Charset.forName("ISO-8859-1");
+
+    /** ボディのデフォルト文字コード */
+    private static final String DEFAULT_CHARACTER_ENCODING = "ISO-8859-1";
+
+    /** HTTP日付の書式 */
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    /** ステータスコード */
+    private int status = HttpServletResponse.SC_OK;
+
+    /** レスポンスヘッダー（名前と値の組） */
+    private final List<String[]> headers = new ArrayList<String[]>();
+
+    /** Content-Type */
+    private String contentType;
+
+    /** 文字コード */
+    private String characterEncoding;
+
+    /** ボディ */
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    /** ボディを書き込む{@link PrintWriter} */
+    private PrintWriter writer;
+
+    /** ロケール */
+    private Locale locale = Locale.getDefault();
+
+    /** コミット済みか否か */
+    private boolean committed;
+
+    /** プロキシ */
+    private final HttpServletResponse proxy;
+
+    /**
+     * コンストラクタ。
+     */
+    DirectServletResponse() {
+        proxy = newProxy(this, HttpServletResponse.class, HttpServletResponse.class);
+    }
+
+    /**
+     * {@link HttpServletResponse}として取得する。
+     *
+     * @return {@link HttpServletResponse}
+     */
+    HttpServletResponse getHttpServletResponse() {
+        return proxy;
+    }
+
+    @Override
+    protected Object invoke(String name, Object[] args, Method method) throws Exception {
+        if ("setStatus".equals(name)) {
+            status = (Integer) args[0];
+            return null;
+        }
+        if ("getStatus".equals(name)) {
+            return status;
+        }
+        if ("sendError".equals(name)) {
+            sendError((Integer) args[0]);
+            return null;
+        }
+        if ("sendRedirect".equals(name)) {
+            status = HttpServletResponse.SC_FOUND;
+            setHeader("Location", (String) args[0]);
+            committed = true;
+            return null;
+        }
+        if ("setHeader".equals(name)) {
+            setHeader((String) args[0], (String) args[1]);
+            return null;
+        }
+        if ("addHeader".equals(name)) {
+            addHeader((String) args[0], (String) args[1]);
+            return null;
+        }
+        if ("setIntHeader".equals(name)) {
+            setHeader((String) args[0], String.valueOf(args[1]));
+            return null;
+        }
+        if ("addIntHeader".equals(name)) {
+            addHeader((String) args[0], String.valueOf(args[1]));
+            return null;
+        }
+        if ("setDateHeader".equals(name)) {
+            setHeader((String) args[0], formatDate((Long) args[1]));
+            return null;
+        }
+        if ("addDateHeader".equals(name)) {
+            addHeader((String) args[0], formatDate((Long) args[1]));
+            return null;
+        }
+        if ("containsHeader".equals(name)) {
+            return getHeader((String) args[0]) != null;
+        }
+        if ("getHeader".equals(name)) {
+            return getHeader((String) args[0]);
+        }
+        if ("getHeaders".equals(name)) {
+            List<String> values = new ArrayList<String>();
+            for (String[] header : headers) {
+                if (header[0].equalsIgnoreCase((String) args[0])) {
+                    values.add(header[1]);
+                }
+            }
+            return values;
+        }
+        if ("getHeaderNames".equals(name)) {
+            Set<String> names = new LinkedHashSet<String>();
+            for (String[] header : headers) {
+                names.add(header[0]);
+            }
+            return names;
+        }
+        if ("addCookie".equals(name)) {
+            addHeader("Set-Cookie", formatCookie((Cookie) args[0]));
+            return null;
+        }
+        if ("setContentType".equals(name)) {
+            setContentType((String) args[0]);
+            return null;
+        }
+        if ("getContentType".equals(name)) {
+            return getContentType();
+        }
+        if ("setCharacterEncoding".equals(name)) {
+            characterEncoding = (String) args[0];
+            return null;
+        }
+        if ("getCharacterEncoding".equals(name)) {
+            return getCharacterEncoding();
+        }
+        if ("getOutputStream".equals(name)) {
+            return new DirectServletOutputStream(body);
+        }
+        if ("getWriter".equals(name)) {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(body, getCharacterEncoding()));
+            }
+            return writer;
+        }
+        if ("flushBuffer".equals(name)) {
+            flush();
+            committed = true;
+            return null;
+        }
+        if ("isCommitted".equals(name)) {
+            return committed;
+        }
+        if ("reset".equals(name)) {
+            checkNotCommitted();
+            status = HttpServletResponse.SC_OK;
+            headers.clear();
+            contentType = null;
+            characterEncoding = null;
+            body.reset();
+            return null;
+        }
+        if ("resetBuffer".equals(name)) {
+            checkNotCommitted();
+            body.reset();
+            return null;
+        }
+        if ("setLocale".equals(name)) {
+            locale = (Locale) args[0];
+            return null;
+        }
+        if ("getLocale".equals(name)) {
+            return locale;
+        }
+        if (name.startsWith("encode")) {
+            return args[0];
+        }
+        if ("setContentLength".equals(name) || "setContentLengthLong".equals(name) || "setBufferSize".equals(name)) {
+            // Content-Lengthは直列化時にボディから算出し、バッファは上限を設けない
+            return null;
+        }
+        if ("getBufferSize".equals(name)) {
+            return body.size();
+        }
+        throw unsupported(method);
+    }
+
+    /**
+     * エラーステータスを設定する。
+     *
+     * @param statusCode ステータスコード
+     */
+    void sendError(int statusCode) {
+        status = statusCode;
+        committed = true;
+    }
+
+    /**
+     * Set-Cookieヘッダーを追加する。
+     *
+     * @param cookie 追加するCookie
+     */
+    void addCookie(String cookie) {
+        addHeader("Set-Cookie", cookie);
+    }
+
+    /**
+     * HTTPレスポンスの形式に直列化する。
+     *
+     * @return 直列化したHTTPレスポンス
+     * @throws UnsupportedEncodingException 文字コードがサポートされていない場合
+     */
+    byte[] toByteArray() throws UnsupportedEncodingException {
+        flush();
+        StringBuilder head = new StringBuilder();
+        head.append("HTTP/1.1 ")
+                .append(status)
+                .append(' ')
+                .append(getReasonPhrase(status))
+                .append(LS);
+        for (String[] header : headers) {
+            if (!"Content-Type".equalsIgnoreCase(header[0]) && !"Content-Length".equalsIgnoreCase(header[0])) {
+                head.append(header[0]).append(": ").append(header[1]).append(LS);
+            }
+        }
+        String type = getContentType();
+        if (type != null) {
+            head.append("Content-Type: ").append(type).append(LS);
+        }
+        head.append("Content-Length: ").append(body.size()).append(LS).append(LS);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(head.length() + body.size());
+        byte[] headBytes = head.toString().getBytes(HEADER_CHARSET.name());
+        out.write(headBytes, 0, headBytes.length);
+        out.write(body.toByteArray(), 0, body.size());
+        return out.toByteArray();
+    }
+
+    /**
+     * {@link PrintWriter}に書き込まれた内容をボディに反映する。
+     */
+    private void flush() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * コミット済みでないことを確認する。
+     */
+    private void checkNotCommitted() {
+        if (committed) {
+            throw new IllegalStateException("response was already committed.");
+        }
+    }
+
+    /**
+     * ヘッダーの値を取得する。ヘッダー名の大文字・小文字は区別しない。
+     *
+     * @param name ヘッダー名
+     * @return ヘッダーの値（最初の値）。存在しない場合は{@code null}
+     */
+    private String getHeader(String name) {
+        if ("Content-Type".equalsIgnoreCase(name)) {
+            return getContentType();
+        }
+        for (String[] header : headers) {
+            if (header[0].equalsIgnoreCase(name)) {
+                return header[1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ヘッダーを設定する。同名のヘッダーは置き換える。
+     *
+     * @param name  ヘッダー名
+     * @param value ヘッダーの値
+     */
+    private void setHeader(String name, String value) {
+        if ("Content-Type".equalsIgnoreCase(name)) {
+            setContentType(value);
+            return;
+        }
+        for (Iterator<String[]> it = headers.iterator(); it.hasNext();) {
+            if (it.next()[0].equalsIgnoreCase(name)) {
+                it.remove();
+            }
+        }
+        if (value != null) {
+            headers.add(new String[] {name, value});
+        }
+    }
+
+    /**
+     * ヘッダーを追加する。
+     *
+     * @param name  ヘッダー名
+     * @param value ヘッダーの値
+     */
+    private void addHeader(String name, String value) {
+        if ("Content-Type".equalsIgnoreCase(name)) {
+            setContentType(value);
+            return;
+        }
+        headers.add(new String[] {name, value});
+    }
+
+    /**
+     * Content-Typeを設定する。文字コードが含まれる場合は文字コードも設定する。
+     *
+     * @param value Content-Type
+     */
+    private void setContentType(String value) {
+        if (value == null) {
+            contentType = null;
+            return;
+        }
+        String charset = DirectServletRequest.getCharset(value);
+        if (charset != null) {
+            characterEncoding = charset;
+            contentType = value.substring(0, value.indexOf(';')).trim();
+        } else {
+            contentType = value;
+        }
+    }
+
+    /**
+     * Content-Typeを取得する。文字コードが設定されている場合は付与する。
+     *
+     * @return Content-Type
+     */
+    private String getContentType() {
+        if (contentType == null) {
+            return null;
+        }
+        return characterEncoding == null ? contentType : contentType + ";charset=" + characterEncoding;
+    }
+
+    /**
+     * 文字コードを取得する。
+     *
+     * @return 文字コード
+     */
+    private String getCharacterEncoding() {
+        return characterEncoding == null ? DEFAULT_CHARACTER_ENCODING : characterEncoding;
+    }
+
+    /**
+     * HTTP日付の形式に変換する。
+     *
+     * @param time エポックミリ秒
+     * @return HTTP日付
+     */
+    private static String formatDate(long time) {
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(time));
+    }
+
+    /**
+     * CookieをSet-Cookieヘッダーの形式に変換する。
+     *
+     * @param cookie Cookie
+     * @return Set-Cookieヘッダーの値
+     */
+    private static String formatCookie(Cookie cookie) {
+        StringBuilder value = new StringBuilder();
+        value.append(cookie.getName()).append('=').append(cookie.getValue() == null ? "" : cookie.getValue());
+        if (cookie.getDomain() != null) {
+            value.append("; Domain=").append(cookie.getDomain());
+        }
+        if (cookie.getPath() != null) {
+            value.append("; Path=").append(cookie.getPath());
+        }
+        if (cookie.getMaxAge() >= 0) {
+            value.append("; Max-Age=").append(cookie.getMaxAge())
+                    .append("; Expires=").append(formatDate(System.currentTimeMillis() + cookie.getMaxAge() * 1000L));
+        }
+        if (cookie.getSecure()) {
+            value.append("; Secure");
+        }
+        if (isHttpOnly(cookie)) {
+            value.append("; HttpOnly");
+        }
+        return value.toString();
+    }
+
+    /**
+     * CookieにHttpOnly属性が設定されているか否か。
+     * HttpOnly属性はServlet API 3.0で追加されたため、リフレクションで取得する。
+     *
+     * @param cookie Cookie
+     * @return HttpOnly属性が設定されている場合は{@code true}
+     */
+    private static boolean isHttpOnly(Cookie cookie) {
+        try {
+            return (Boolean) Cookie.class.getMethod("isHttpOnly").invoke(cookie);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * ステータスコードに対応する理由フレーズを取得する。
+     *
+     * @param statusCode ステータスコード
+     * @return 理由フレーズ
+     */
+    private static String getReasonPhrase(int statusCode) {
+        try {
+            return new nablarch.fw.web.HttpResponse(statusCode).getReasonPhrase();
+        } catch (IllegalArgumentException e) {
+            return "Unknown";
+        }
+    }
+}
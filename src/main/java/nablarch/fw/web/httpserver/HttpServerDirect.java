@@ -0,0 +1,557 @@
+package nablarch.fw.web.httpserver;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.FileUtil;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.HttpServer;
+import nablarch.fw.web.RestMockHttpRequest;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * サーブレットコンテナを使用せずにハンドラキューを直接実行する{@link HttpServer}実装クラス。
+ * <p>
+ * 直列化したリクエストからメモリ上のサーブレットリクエスト・レスポンスを生成し、
+ * {@link nablarch.fw.web.servlet.WebFrontController}を呼び出し元のスレッドで直接実行する。
+ * ソケットやコンテナのスレッドを経由しないため、リクエスト毎のオーバーヘッドが小さく、
+ * 複数スレッドから同時に呼び出すことができる。
+ * {@link RestMockHttpRequest}は{@link RestMockHttpRequest#writeTo(java.io.OutputStream)}で直列化し、
+ * 書き出しながらヘッダ部とボディ部に分けるため、リクエスト全体を文字列やバイト列として構築しない。
+ * </p>
+ * <p>
+ * ハンドラキューは呼び出し元のスレッドで実行されるため、{@link nablarch.core.ThreadContext}は
+ * ハンドラキューで設定された状態となる点に注意すること。
+ * JSPへのフォワードなどサーブレットコンテナの機能を必要とする処理はサポートしない。
+ * </p>
+ */
+public class HttpServerDirect extends HttpServer {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(HttpServerDirect.class);
+
+    /** ヘッダー部とボディ部の区切り */
+    private static final String HEADER_SEPARATOR = "\r\n\r\n";
+
+    /** ヘッダー部とボディ部の区切り（バイト列） */
+    private static final byte[] HEADER_SEPARATOR_BYTES = {'\r', '\n', '\r', '\n'};
+
+    /** リクエストボディを受け渡すパイプから読み込む際のバッファサイズ */
+    private static final int PIPE_BUFFER_SIZE = 65536;
+
+    /** リクエストを書き出すスレッドの名前の接頭辞 */
+    private static final String WRITER_THREAD_NAME_PREFIX = "direct-request-writer-";
+
+    /** リクエストを書き出すスレッド数の上限 */
+    private static final int WRITER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /** リクエストを書き出すスレッドのアイドル状態での保持時間（秒） */
+    private static final long WRITER_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * リクエストボディをパイプに書き出す{@link ExecutorService}。
+     * スレッドはデーモンスレッドとし、すべてのサーバで共有して再利用する。
+     * 上限を超える書き出しは、スレッドが空くまで待機する。
+     */
+    private static final ExecutorService WRITER_EXECUTOR = createWriterExecutor();
+
+    /** {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}で直列化したヘッダー部の文字コード */
+    private static final String HEAD_ENCODING = "UTF-8";
+
+    /** ハンドラキューで処理されなかったリクエストに404を返す{@link FilterChain} */
+    private static final FilterChain NOT_FOUND_CHAIN = new FilterChain() {
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) {
+            ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    };
+
+    /** セッションを保持するMap */
+    private final ConcurrentMap<String, DirectHttpSession> sessions = new ConcurrentHashMap<String, DirectHttpSession>();
+
+    /** サーブレットコンテキスト */
+    private volatile DirectServletContext servletContext;
+
+    /**
+     * ポートを使用しないため、サポートしない。
+     *
+     * @return 例外を送出するため返却しない
+     * @throws UnsupportedOperationException 常に送出する
+     */
+    @Override
+    public HttpServer start() {
+        throw new UnsupportedOperationException("HttpServerDirect does not listen on a port. use startLocal() instead.");
+    }
+
+    @Override
+    public HttpServerDirect startLocal() {
+        servletContext = new DirectServletContext(getServletContextPath(), getWarBasePaths());
+        getWebFrontController().setServletFilterConfig(servletContext.getFilterConfig());
+        return this;
+    }
+
+    @Override
+    public HttpServer join() {
+        return this;
+    }
+
+    /**
+     * サーバを停止する。
+     * 保持しているセッションは破棄され、再度{@link #startLocal()}を呼び出すまでリクエストは処理できない。
+     *
+     * @return このオブジェクト自体
+     */
+    public HttpServerDirect stop() {
+        servletContext = null;
+        sessions.clear();
+        return this;
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+        DirectServletContext currentContext = servletContext;
+        if (currentContext == null) {
+            throw new RuntimeException("this server is not started. you must call startLocal() method beforehand.");
+        }
+        try {
+            HttpResponse response = HttpResponse.parse(dispatch(request, currentContext));
+            if (isHttpDumpEnabled()) {
+                dumpHttpMessage(request, response);
+            }
+            return response;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * リクエストを直列化してハンドラキューで処理し、直列化したレスポンスを返す。
+     *
+     * @param request        リクエスト
+     * @param currentContext サーブレットコンテキスト
+     * @return 直列化したレスポンス
+     * @throws Exception 処理中に発生した例外
+     */
+    private byte[] dispatch(HttpRequest request, DirectServletContext currentContext) throws Exception {
+        if (!(request instanceof RestMockHttpRequest)) {
+            return dispatch(request.toString(), currentContext);
+        }
+        RestMockHttpRequest restRequest = (RestMockHttpRequest) request;
+        if (restRequest.isStreamingBody()) {
+            return dispatchStreaming(restRequest, currentContext);
+        }
+        RequestMessageOutputStream message = new RequestMessageOutputStream();
+        restRequest.writeTo(message);
+        return dispatch(message.getHead(), message.getBody(), currentContext);
+    }
+
+    /**
+     * リクエストボディの全体をメモリ上に読み込まずにハンドラキューで処理し、直列化したレスポンスを返す。
+     * <p>
+     * 書き出し用のスレッドで{@link RestMockHttpRequest#writeTo(java.nio.channels.WritableByteChannel)}を呼び出して
+     * {@link Pipe}に書き出し、呼び出し元のスレッドではパイプから読み込んだリクエストをハンドラキューで処理する。
+     * チャネルに書き出すため、ファイルのボディは{@link java.nio.channels.FileChannel#transferTo(long, long,
+     * java.nio.channels.WritableByteChannel)}でヒープを経由せずに転送される。
+     * ハンドラキューが読み込まなかったリクエストボディは、処理後に読み捨てる。
+     * </p>
+     *
+     * @param request        リクエスト
+     * @param currentContext サーブレットコンテキスト
+     * @return 直列化したレスポンス
+     * @throws Exception 処理中に発生した例外
+     */
+    private byte[] dispatchStreaming(final RestMockHttpRequest request, DirectServletContext currentContext)
+            throws Exception {
+        final Pipe pipe = Pipe.open();
+        InputStream in = new BufferedInputStream(Channels.newInputStream(pipe.source()), PIPE_BUFFER_SIZE);
+        Future<Void> writer = WRITER_EXECUTOR.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                try {
+                    request.writeTo(pipe.sink());
+                } finally {
+                    FileUtil.closeQuietly(pipe.sink());
+                }
+                return null;
+            }
+        });
+
+        byte[] response;
+        try {
+            String head = readHead(in);
+            String transferEncoding = findHeader(head, "Transfer-Encoding");
+            String contentLength = findHeader(head, "Content-Length");
+            boolean chunked = transferEncoding != null
+                    && transferEncoding.toLowerCase(Locale.ENGLISH).contains("chunked");
+            InputStream body = chunked ? new ChunkedInputStream(in) : in;
+            response = dispatch(head, body, contentLength == null ? -1 : Long.parseLong(contentLength),
+                    currentContext);
+            drain(in);
+        } catch (Exception e) {
+            // 書き出し側の例外が処理失敗の原因である場合はそちらを優先する
+            drainQuietly(in);
+            awaitWriter(writer);
+            throw e;
+        } finally {
+            FileUtil.closeQuietly(in);
+        }
+        awaitWriter(writer);
+        return response;
+    }
+
+    /**
+     * リクエストの書き出しの完了を待機する。
+     * 書き出し中に例外が発生していた場合は、その例外を送出する。
+     *
+     * @param writer リクエストの書き出し処理
+     * @throws InterruptedException 待機中に割り込まれた場合
+     */
+    private static void awaitWriter(Future<Void> writer) throws InterruptedException {
+        try {
+            writer.get();
+        } catch (ExecutionException e) {
+            throwWriteError(e.getCause());
+        }
+    }
+
+    /**
+     * リクエストの書き出し中に発生した例外を送出する。
+     *
+     * @param writeError 書き出し中に発生した例外
+     */
+    private static void throwWriteError(Throwable writeError) {
+        if (writeError instanceof RuntimeException) {
+            throw (RuntimeException) writeError;
+        }
+        if (writeError instanceof Error) {
+            throw (Error) writeError;
+        }
+        throw new RuntimeException("failed to write request. cause[" + writeError.getMessage() + "].", writeError);
+    }
+
+    /**
+     * ストリームからヘッダ部を読み込む。
+     * ヘッダ部の終端を表す区切りまで読み込み、区切りは含まない。
+     *
+     * @param in ストリーム
+     * @return ヘッダ部
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static String readHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < HEADER_SEPARATOR_BYTES.length) {
+            int b = in.read();
+            if (b == -1) {
+                break;
+            }
+            head.write(b);
+            if (b == HEADER_SEPARATOR_BYTES[matched]) {
+                matched++;
+            } else {
+                matched = b == HEADER_SEPARATOR_BYTES[0] ? 1 : 0;
+            }
+        }
+        byte[] bytes = head.toByteArray();
+        int length = matched == HEADER_SEPARATOR_BYTES.length ? bytes.length - matched : bytes.length;
+        return new String(bytes, 0, length, HEAD_ENCODING);
+    }
+
+    /**
+     * ストリームを終端まで読み捨てる。
+     *
+     * @param in ストリーム
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[PIPE_BUFFER_SIZE];
+        while (in.read(buffer) != -1) {
+            // 読み捨てる
+        }
+    }
+
+    /**
+     * ストリームを終端まで読み捨てる。読み込みに失敗した場合は何もしない。
+     *
+     * @param in ストリーム
+     */
+    private static void drainQuietly(InputStream in) {
+        try {
+            drain(in);
+        } catch (IOException ignored) {
+            // 書き出し側で発生した例外、または処理中に発生した例外を送出するため無視する
+        }
+    }
+
+    /**
+     * 直列化したリクエストをハンドラキューで処理し、直列化したレスポンスを返す。
+     *
+     * @param message        直列化したリクエスト
+     * @param currentContext サーブレットコンテキスト
+     * @return 直列化したレスポンス
+     * @throws Exception 処理中に発生した例外
+     */
+    private byte[] dispatch(String message, DirectServletContext currentContext) throws Exception {
+        int separator = message.indexOf(HEADER_SEPARATOR);
+        String head = separator < 0 ? message : message.substring(0, separator);
+        byte[] body = separator < 0 ? new byte[0] : getBytes(message.substring(separator + HEADER_SEPARATOR.length()));
+        return dispatch(head, body, currentContext);
+    }
+
+    /**
+     * リクエストをハンドラキューで処理し、直列化したレスポンスを返す。
+     *
+     * @param head           直列化したリクエストのヘッダ部
+     * @param body           リクエストボディ
+     * @param currentContext サーブレットコンテキスト
+     * @return 直列化したレスポンス
+     * @throws Exception 処理中に発生した例外
+     */
+    private byte[] dispatch(String head, byte[] body, DirectServletContext currentContext) throws Exception {
+        return dispatch(new DirectServletRequest(head, body, currentContext, sessions), currentContext);
+    }
+
+    /**
+     * リクエストボディをストリームから読み込むリクエストをハンドラキューで処理し、直列化したレスポンスを返す。
+     *
+     * @param head           直列化したリクエストのヘッダ部
+     * @param body           リクエストボディを読み込むストリーム
+     * @param contentLength  リクエストボディのバイト数（不明な場合は-1）
+     * @param currentContext サーブレットコンテキスト
+     * @return 直列化したレスポンス
+     * @throws Exception 処理中に発生した例外
+     */
+    private byte[] dispatch(String head, InputStream body, long contentLength, DirectServletContext currentContext)
+            throws Exception {
+        return dispatch(new DirectServletRequest(head, body, contentLength, currentContext, sessions), currentContext);
+    }
+
+    /**
+     * サーブレットリクエストをハンドラキューで処理し、直列化したレスポンスを返す。
+     *
+     * @param servletRequest サーブレットリクエスト
+     * @param currentContext サーブレットコンテキスト
+     * @return 直列化したレスポンス
+     * @throws Exception 処理中に発生した例外
+     */
+    private byte[] dispatch(DirectServletRequest servletRequest, DirectServletContext currentContext) throws Exception {
+        DirectServletResponse servletResponse = new DirectServletResponse();
+        try {
+            getWebFrontController().doFilter(servletRequest.getHttpServletRequest(),
+                    servletResponse.getHttpServletResponse(), NOT_FOUND_CHAIN);
+        } catch (Exception e) {
+            // サーブレットコンテナと同様に、ハンドラキューから送出された例外は500エラーとする。
+            LOGGER.logWarn("uncaught exception occurred in handler queue.", e);
+            servletResponse.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+
+        DirectHttpSession createdSession = servletRequest.getCreatedSession();
+        if (createdSession != null) {
+            String path = currentContext.getContextPath();
+            servletResponse.addCookie(DirectServletRequest.SESSION_COOKIE_NAME + '=' + createdSession.getId()
+                    + "; Path=" + (path.length() == 0 ? "/" : path) + "; HttpOnly");
+        }
+        return servletResponse.toByteArray();
+    }
+
+    /**
+     * リクエストボディの文字列をバイト配列に変換する。
+     * <p>
+     * 内蔵サーバは{@code toString().getBytes()}を送信し、{@link nablarch.fw.web.RestMockHttpRequest#toString()}も
+     * これを前提にContent-Lengthを算出するため、デフォルトの文字コードを使用する。
+     * </p>
+     *
+     * @param value 変換する文字列
+     * @return バイト配列
+     */
+    @SuppressWarnings("findbugs:DM_DEFAULT_ENCODING")
+    private static byte[] getBytes(String value) {
+        return value.getBytes();
+    }
+
+    /**
+     * リクエストボディをパイプに書き出す{@link ExecutorService}を生成する。
+     * アイドル状態のスレッドは一定時間後に破棄する。
+     *
+     * @return リクエストボディをパイプに書き出す{@link ExecutorService}
+     */
+    private static ExecutorService createWriterExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WRITER_THREADS, WRITER_THREADS,
+                WRITER_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new WriterThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 直列化したリクエストのヘッダ部からヘッダの値を取得する。
+     *
+     * @param head 直列化したリクエストのヘッダ部
+     * @param name ヘッダ名
+     * @return ヘッダの値。存在しない場合は{@code null}
+     */
+    private static String findHeader(String head, String name) {
+        for (String line : head.split("\r\n")) {
+            int separator = line.indexOf(':');
+            if (separator > 0 && name.equalsIgnoreCase(line.substring(0, separator).trim())) {
+                return line.substring(separator + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * リクエストを書き出すデーモンスレッドを生成する{@link ThreadFactory}。
+     */
+    private static final class WriterThreadFactory implements ThreadFactory {
+
+        /** 生成したスレッドの連番 */
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, WRITER_THREAD_NAME_PREFIX + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}で書き出されたリクエストを、
+     * ヘッダ部とボディ部に分けて保持する{@link OutputStream}。
+     * <p>
+     * ボディ部はヘッダ部のContent-Lengthのバイト数で確保した配列に直接書き込むため、
+     * リクエスト全体を保持するバッファや、ボディ部を切り出すための複製を作成しない。
+     * </p>
+     */
+    private static final class RequestMessageOutputStream extends OutputStream {
+
+        /** ヘッダ部 */
+        private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+
+        /** ヘッダ部の終端を表す区切りのうち、一致したバイト数 */
+        private int matched;
+
+        /** ヘッダ部の文字列。ヘッダ部の書き出しが完了していない場合は{@code null} */
+        private String headString;
+
+        /** ボディ部 */
+        private byte[] body;
+
+        /** ボディ部に書き込んだバイト数 */
+        private int bodyLength;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (headString == null) {
+                writeHead(b);
+                return;
+            }
+            ensureCapacity(1);
+            body[bodyLength++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int index = off;
+            int end = off + len;
+            while (headString == null && index < end) {
+                writeHead(b[index++]);
+            }
+            if (index == end) {
+                return;
+            }
+            ensureCapacity(end - index);
+            System.arraycopy(b, index, body, bodyLength, end - index);
+            bodyLength += end - index;
+        }
+
+        /**
+         * ヘッダ部に1バイト書き込む。ヘッダ部の終端に達した場合は、ボディ部を確保する。
+         *
+         * @param b 書き込むバイト
+         * @throws IOException ヘッダ部の変換に失敗した場合
+         */
+        private void writeHead(int b) throws IOException {
+            head.write(b);
+            if (b == HEADER_SEPARATOR_BYTES[matched]) {
+                matched++;
+            } else {
+                matched = b == HEADER_SEPARATOR_BYTES[0] ? 1 : 0;
+            }
+            if (matched < HEADER_SEPARATOR_BYTES.length) {
+                return;
+            }
+            byte[] bytes = head.toByteArray();
+            headString = new String(bytes, 0, bytes.length - HEADER_SEPARATOR_BYTES.length, HEAD_ENCODING);
+            String contentLength = findHeader(headString, "Content-Length");
+            body = new byte[contentLength == null ? 0 : Integer.parseInt(contentLength)];
+        }
+
+        /**
+         * ボディ部に指定したバイト数を書き込めるようにする。
+         * Content-Lengthが指定されていない場合のみ、ボディ部を拡張する。
+         *
+         * @param length 書き込むバイト数
+         */
+        private void ensureCapacity(int length) {
+            if (bodyLength + length <= body.length) {
+                return;
+            }
+            if (findHeader(headString, "Content-Length") != null) {
+                throw new IllegalStateException("request body is longer than Content-Length. Content-Length=["
+                        + body.length + "].");
+            }
+            body = Arrays.copyOf(body, Math.max(bodyLength + length, body.length * 2));
+        }
+
+        /**
+         * ヘッダ部を取得する。
+         *
+         * @return ヘッダ部（終端の区切りは含まない）
+         * @throws IOException ヘッダ部の変換に失敗した場合
+         */
+        String getHead() throws IOException {
+            return headString != null ? headString : head.toString(HEAD_ENCODING);
+        }
+
+        /**
+         * ボディ部を取得する。
+         *
+         * @return ボディ部
+         */
+        byte[] getBody() {
+            if (body == null) {
+                return new byte[0];
+            }
+            return bodyLength == body.length ? body : Arrays.copyOf(body, bodyLength);
+        }
+    }
+}
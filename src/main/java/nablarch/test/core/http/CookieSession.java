@@ -0,0 +1,94 @@
+package nablarch.test.core.http;
+
+import nablarch.core.util.annotation.Published;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link RequestResponseCookieManager}が引き継ぐCookieの値を、仮想ユーザ単位で保持するクラス。
+ * <p>
+ * {@link #activate()}で現在のスレッドに紐付けると、そのスレッドから送信したリクエストでは、
+ * {@link RequestResponseCookieManager}（{@link NablarchSIDManager}を含む）がこのオブジェクトにCookieの値を保持する。
+ * そのため、1つのプロセッサを共有したまま、仮想ユーザ毎に独立したセッションを維持できる。
+ * 同じオブジェクトを複数のスレッドで順に有効化すれば、スレッドをまたいで同じセッションを使用できる。
+ * </p>
+ * <p>
+ * Cookieの値はCookie名毎に保持するため、同じCookie名を扱うプロセッサ間では値が共有される。
+ * {@link RequestResponseProcessor#reset()}では消去されないため、必要に応じて{@link #clear()}を呼び出すこと。
+ * </p>
+ * <pre>
+ * CookieSession session = new CookieSession();
+ * session.activate();
+ * try {
+ *     sendRequest(post("/login"));
+ *     sendRequest(get("/projects"));
+ * } finally {
+ *     CookieSession.deactivate();
+ * }
+ * </pre>
+ */
+@Published
+public final class CookieSession {
+
+    /** 現在のスレッドで有効な{@link CookieSession} */
+    private static final ThreadLocal<CookieSession> CURRENT = new ThreadLocal<CookieSession>();
+
+    /** Cookieの値（Cookie名をキーとする） */
+    private final ConcurrentMap<String, String> values = new ConcurrentHashMap<String, String>();
+
+    /**
+     * 現在のスレッドにこのオブジェクトを紐付ける。
+     * 既に紐付いているオブジェクトがある場合は置き換える。
+     */
+    public void activate() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * 現在のスレッドに紐付いている{@link CookieSession}を解除する。
+     */
+    public static void deactivate() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 現在のスレッドに紐付いている{@link CookieSession}を取得する。
+     *
+     * @return 現在のスレッドに紐付いている{@link CookieSession}。紐付いていない場合は{@code null}
+     */
+    public static CookieSession current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Cookieの値を取得する。
+     *
+     * @param cookieName Cookie名
+     * @return Cookieの値。保持していない場合は{@code null}
+     */
+    public String get(String cookieName) {
+        return values.get(cookieName);
+    }
+
+    /**
+     * Cookieの値を保持する。
+     *
+     * @param cookieName Cookie名
+     * @param value      Cookieの値。{@code null}の場合は保持している値を消去する
+     */
+    void put(String cookieName, String value) {
+        if (value == null) {
+            values.remove(cookieName);
+        } else {
+            values.put(cookieName, value);
+        }
+    }
+
+    /**
+     * 保持しているCookieの値をすべて消去する。
+     */
+    public void clear() {
+        values.clear();
+    }
+}
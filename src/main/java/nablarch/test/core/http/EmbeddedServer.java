@@ -0,0 +1,180 @@
+package nablarch.test.core.http;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.HttpServer;
+import nablarch.fw.web.httpserver.HttpServerDirect;
+
+import java.lang.reflect.Field;
+
+/**
+ * 起動済みの内蔵サーバと、内蔵サーバに登録したテスト用ハンドラを保持するクラス。
+ */
+class EmbeddedServer {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(EmbeddedServer.class);
+
+    /** 内蔵サーバ実装がJettyのサーバを保持するフィールド名 */
+    private static final String JETTY_FIELD_NAME = "jetty";
+
+    /** 内蔵サーバ */
+    private final HttpServer server;
+
+    /** テスト用ハンドラ */
+    private final RequestScopedTestSupportHandler handler;
+
+    /** 内蔵サーバへのリクエスト送信を直列化するためのロック（並行送信が無効な場合のみ使用） */
+    private final Object lock;
+
+    /** 送信中のリクエスト数 */
+    private int activeRequests = 0;
+
+    /** 破棄済みか否か */
+    private boolean retired = false;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param server  内蔵サーバ
+     * @param handler テスト用ハンドラ
+     * @param lock    リクエスト送信を直列化するためのロック。直列化しない場合は{@code null}
+     */
+    EmbeddedServer(HttpServer server, RequestScopedTestSupportHandler handler, Object lock) {
+        this.server = server;
+        this.handler = handler;
+        this.lock = lock;
+    }
+
+    /**
+     * {@link ExecutionContext}とハンドラキューの差し替えをリクエストに紐付けて内蔵サーバに渡しレスポンスを返す。
+     * 内蔵サーバには紐付けの識別子を設定した送信用のリクエストを渡すため、引数のリクエストは変更しない。
+     * 並行送信が無効な場合は内蔵サーバへの送信を直列化する。
+     * Jettyを使用する内蔵サーバは、{@link RestTestConfiguration#setConcurrentRequestEnabled(boolean)}で
+     * 並行送信を許可しない限り直列化されるため、複数スレッドから送信しても並行には処理されない。
+     *
+     * @param request  テストリクエスト
+     * @param context  実行コンテキスト
+     * @param override 送信したテストで有効なハンドラキューの差し替え。存在しない場合は{@code null}
+     * @return 内蔵サーバのレスポンス
+     */
+    HttpResponse handle(HttpRequest request, ExecutionContext context, HandlerQueueOverride override) {
+        RequestScopedTestSupportHandler.Binding binding = handler.bind(request, context, override);
+        try {
+            if (lock == null) {
+                return server.handle(binding.getRequest(), context);
+            }
+            synchronized (lock) {
+                return server.handle(binding.getRequest(), context);
+            }
+        } finally {
+            handler.unbind(binding);
+        }
+    }
+
+    /**
+     * リクエストの送信を開始する。
+     * 送信を開始したら、送信の完了後に{@link #exit()}を呼び出すこと。
+     *
+     * @return 送信を開始できた場合は{@code true}。破棄済みで送信できない場合は{@code false}
+     */
+    synchronized boolean enter() {
+        if (retired) {
+            return false;
+        }
+        activeRequests++;
+        return true;
+    }
+
+    /**
+     * リクエストの送信を終了する。
+     * 破棄済みで送信中のリクエストがなくなった場合は、内蔵サーバを停止する。
+     */
+    void exit() {
+        boolean idle;
+        synchronized (this) {
+            activeRequests--;
+            idle = retired && activeRequests == 0;
+        }
+        if (idle) {
+            stop();
+        }
+    }
+
+    /**
+     * リクエストを送信中か否か。
+     *
+     * @return 送信中のリクエストがある場合は{@code true}
+     */
+    synchronized boolean isInUse() {
+        return activeRequests > 0;
+    }
+
+    /**
+     * 内蔵サーバを破棄する。
+     * <p>
+     * 以降は{@link #enter()}による送信の開始を受け付けない。
+     * 送信中のリクエストがない場合は直ちに停止し、送信中の場合は最後のリクエストの終了時に停止する。
+     * </p>
+     */
+    void retire() {
+        boolean idle;
+        synchronized (this) {
+            if (retired) {
+                return;
+            }
+            retired = true;
+            idle = activeRequests == 0;
+        }
+        if (idle) {
+            stop();
+        }
+    }
+
+    /**
+     * 内蔵サーバを停止する。
+     * <p>
+     * {@link HttpServer}は停止のためのAPIを提供していないため、
+     * Jettyを使用する内蔵サーバについては、保持しているJettyのサーバを停止する。
+     * 停止できなかった場合はログを出力し、例外は送出しない。
+     * </p>
+     */
+    void stop() {
+        if (server instanceof HttpServerDirect) {
+            ((HttpServerDirect) server).stop();
+            return;
+        }
+        try {
+            Object jetty = findJetty();
+            if (jetty == null) {
+                LOGGER.logDebug("could not stop the http server because it does not hold a jetty server. class=["
+                        + server.getClass().getName() + "].");
+                return;
+            }
+            jetty.getClass().getMethod("stop").invoke(jetty);
+        } catch (Exception e) {
+            LOGGER.logWarn("failed to stop the http server. class=[" + server.getClass().getName() + "].", e);
+        }
+    }
+
+    /**
+     * 内蔵サーバが保持するJettyのサーバを取得する。
+     *
+     * @return Jettyのサーバ。保持していない場合は{@code null}
+     * @throws IllegalAccessException フィールドにアクセスできなかった場合
+     */
+    private Object findJetty() throws IllegalAccessException {
+        for (Class<?> type = server.getClass(); type != HttpServer.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (JETTY_FIELD_NAME.equals(field.getName())) {
+                    field.setAccessible(true);
+                    return field.get(server);
+                }
+            }
+        }
+        return null;
+    }
+}
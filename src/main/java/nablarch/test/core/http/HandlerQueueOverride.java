@@ -0,0 +1,142 @@
+package nablarch.test.core.http;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.Handler;
+import org.junit.rules.ExternalResource;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 内蔵サーバのハンドラキューを一時的に差し替えるためのルール。
+ * <p>
+ * 内蔵サーバを再起動せずに、起動済みの内蔵サーバが使用するハンドラキューを差し替える。
+ * {@link org.junit.ClassRule}として使用した場合はテストクラス単位で、
+ * {@link org.junit.Rule}として使用した場合はテストメソッド単位でハンドラキューが差し替えられ、
+ * 終了時に元のハンドラキューに戻される。
+ * </p>
+ * <p>
+ * 差し替えは、リクエスト単位で差し替え前後のどちらかのハンドラキュー全体が使用されるように行われる。
+ * 差し替えは、ルールを宣言したテストクラス（{@link org.junit.Rule}の場合はテストメソッド）から
+ * 送信したリクエストを処理する内蔵サーバに対してのみ有効となるため、並行して実行される他のテストクラスには影響しない。
+ * {@link org.junit.ClassRule}と{@link org.junit.Rule}を併用した場合はテストメソッド単位の差し替えが優先され、
+ * テストメソッドの終了時にテストクラス単位の差し替えに戻る。
+ * </p>
+ * <pre>
+ * {@code @ClassRule}
+ * public static HandlerQueueOverride override = new HandlerQueueOverride() {
+ *     {@code @Override}
+ *     protected List&lt;Handler&gt; customize(List&lt;Handler&gt; handlerQueue) {
+ *         handlerQueue.add(1, new InterceptorHandler());
+ *         return handlerQueue;
+ *     }
+ * };
+ * </pre>
+ */
+@Published
+public abstract class HandlerQueueOverride extends ExternalResource {
+
+    /** 有効な差し替え（差し替えの範囲をキーとする） */
+    private static final ConcurrentMap<String, HandlerQueueOverride> ACTIVE =
+            new ConcurrentHashMap<String, HandlerQueueOverride>();
+
+    /** 差し替えの範囲（テストクラス名、またはテストクラス名とテストメソッド名） */
+    private String scope;
+
+    /** この差し替えが有効になる前に、同じ範囲で有効だった差し替え */
+    private HandlerQueueOverride previous;
+
+    /** 内蔵サーバ毎の差し替え後のハンドラキュー */
+    private final Map<HandlerQueueSwitchHandler, List<Handler>> handlerQueues =
+            new IdentityHashMap<HandlerQueueSwitchHandler, List<Handler>>();
+
+    /**
+     * 差し替え後のハンドラキューを生成する。
+     * <p>
+     * 内蔵サーバ毎に、差し替えの対象となる最初のリクエストを処理する際に呼び出される。
+     * 引数のハンドラキューは複製であるため、変更してそのまま返却してよい。
+     * </p>
+     *
+     * @param handlerQueue 内蔵サーバに設定されたハンドラキューの複製
+     * @return 差し替え後のハンドラキュー
+     */
+    protected abstract List<Handler> customize(List<Handler> handlerQueue);
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        scope = toScope(description.getClassName(), description.getMethodName());
+        return super.apply(base, description);
+    }
+
+    @Override
+    protected void before() {
+        previous = ACTIVE.put(scope, this);
+    }
+
+    @Override
+    protected void after() {
+        if (previous == null) {
+            ACTIVE.remove(scope, this);
+        } else {
+            ACTIVE.replace(scope, this, previous);
+        }
+        previous = null;
+    }
+
+    /**
+     * 内蔵サーバで使用する差し替え後のハンドラキューを取得する。
+     * 内蔵サーバ毎に、最初の呼び出し時に{@link #customize(List)}で生成する。
+     *
+     * @param switchHandler 内蔵サーバでハンドラキューを選択するハンドラ
+     * @param baseQueue     内蔵サーバに設定されたハンドラキュー
+     * @return 差し替え後のハンドラキュー（変更不可）
+     */
+    synchronized List<Handler> getHandlerQueue(HandlerQueueSwitchHandler switchHandler, List<Handler> baseQueue) {
+        List<Handler> handlerQueue = handlerQueues.get(switchHandler);
+        if (handlerQueue == null) {
+            handlerQueue = Collections.unmodifiableList(
+                    new ArrayList<Handler>(customize(new ArrayList<Handler>(baseQueue))));
+            handlerQueues.put(switchHandler, handlerQueue);
+        }
+        return handlerQueue;
+    }
+
+    /**
+     * テストに対して有効な差し替えを取得する。
+     * テストメソッド単位の差し替えを、テストクラス単位の差し替えより優先する。
+     *
+     * @param testClass  テストクラス
+     * @param methodName テストメソッド名
+     * @return 有効な差し替え。存在しない場合は{@code null}
+     */
+    static HandlerQueueOverride find(Class<?> testClass, String methodName) {
+        if (testClass == null) {
+            return null;
+        }
+        if (methodName != null) {
+            HandlerQueueOverride override = ACTIVE.get(toScope(testClass.getName(), methodName));
+            if (override != null) {
+                return override;
+            }
+        }
+        return ACTIVE.get(toScope(testClass.getName(), null));
+    }
+
+    /**
+     * 差し替えの範囲を表す文字列を生成する。
+     *
+     * @param className  テストクラス名
+     * @param methodName テストメソッド名。テストクラス単位の場合は{@code null}
+     * @return 差し替えの範囲
+     */
+    private static String toScope(String className, String methodName) {
+        return methodName == null ? className : className + '#' + methodName;
+    }
+}
@@ -0,0 +1,70 @@
+package nablarch.test.core.http;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
+import nablarch.fw.web.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * リクエスト毎に、使用するハンドラキューを選択して後続に追加するハンドラ。
+ * <p>
+ * リクエストを送信したテストで{@link HandlerQueueOverride}が有効な場合は差し替え後のハンドラキューを、
+ * 有効でない場合は内蔵サーバに設定されたハンドラキューを{@link ExecutionContext}に追加する。
+ * 有効な差し替えは、同じ内蔵サーバに登録した{@link RequestScopedTestSupportHandler}から取得する。
+ * ハンドラキューは変更不可能なリストとして保持するため、処理中のリクエストが差し替えの影響を受けることはない。
+ * </p>
+ */
+class HandlerQueueSwitchHandler implements HttpRequestHandler {
+
+    /** 内蔵サーバに設定されたハンドラキュー */
+    private final List<Handler> baseQueue;
+
+    /** 処理中のリクエストに紐付く差し替えを保持するハンドラ */
+    private final RequestScopedTestSupportHandler testSupportHandler;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param handlerQueue       内蔵サーバに設定するハンドラキュー
+     * @param testSupportHandler 処理中のリクエストに紐付く差し替えを保持するハンドラ
+     */
+    HandlerQueueSwitchHandler(List<Handler> handlerQueue, RequestScopedTestSupportHandler testSupportHandler) {
+        this.baseQueue = Collections.unmodifiableList(new ArrayList<Handler>(handlerQueue));
+        this.testSupportHandler = testSupportHandler;
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+        context.addHandlers(resolveQueue());
+        return context.handleNext(request);
+    }
+
+    /**
+     * このハンドラを唯一のハンドラとするハンドラキューを生成する。
+     *
+     * @return ハンドラキュー
+     */
+    List<Handler> toHandlerQueue() {
+        List<Handler> handlerQueue = new ArrayList<Handler>();
+        handlerQueue.add(this);
+        return handlerQueue;
+    }
+
+    /**
+     * 使用するハンドラキューを取得する。
+     *
+     * @return ハンドラキュー
+     */
+    private List<Handler> resolveQueue() {
+        HandlerQueueOverride override = testSupportHandler.getOverride();
+        if (override == null) {
+            return baseQueue;
+        }
+        return override.getHandlerQueue(this, baseQueue);
+    }
+}
@@ -0,0 +1,282 @@
+package nablarch.test.core.http;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 起動した内蔵サーバを設定毎に保持するレジストリ。
+ * <p>
+ * 内蔵サーバは{@link RestTestConfiguration}のうち内蔵サーバの起動に使用する設定
+ * （webBaseDir、webFrontControllerKey、tempDirectory、directDispatchEnabled、concurrentRequestEnabled、
+ * ウォームアップの設定）の組み合わせをキーとして保持し、設定の異なるテストクラスが交互に実行されても
+ * 内蔵サーバを再起動せずに使い回す。
+ * 保持数が{@link RestTestConfiguration#getMaxServerCount()}を超えた場合は、起動中またはリクエストを送信中のものを除き、
+ * 最も長く使用されていない内蔵サーバから破棄する。
+ * 保持している内蔵サーバは、{@link #shutdown()}の呼び出し時またはJVMの終了時に破棄する。
+ * 破棄した内蔵サーバは、送信中のリクエストがなくなった時点で停止する（{@link EmbeddedServer#retire()}）。
+ * </p>
+ */
+class HttpServerRegistry {
+
+    /** 内蔵サーバの起動処理（最も長く使用されていないものから順に並ぶ） */
+    private final Map<Key, FutureTask<EmbeddedServer>> servers =
+            new LinkedHashMap<Key, FutureTask<EmbeddedServer>>(16, 0.75f, true);
+
+    /** シャットダウンフックを登録済みか否か */
+    private boolean shutdownHookRegistered = false;
+
+    /**
+     * 設定に対応する内蔵サーバを取得する。
+     * <p>
+     * 設定に対応する内蔵サーバが存在しない場合は、ファクトリを使用して内蔵サーバを起動し登録する。
+     * バックグラウンド起動が有効な場合は、別スレッドで起動を開始し完了を待たずに返る。
+     * 同期的な起動に失敗した場合は登録せず、次回の取得時に再度起動する。
+     * </p>
+     *
+     * @param config  設定定義
+     * @param factory 内蔵サーバを起動するファクトリ
+     * @return 内蔵サーバの起動処理
+     */
+    FutureTask<EmbeddedServer> acquire(RestTestConfiguration config, Callable<EmbeddedServer> factory) {
+        Key key = new Key(config);
+        FutureTask<EmbeddedServer> task;
+        List<FutureTask<EmbeddedServer>> evicted;
+        synchronized (this) {
+            task = servers.get(key);
+            if (task != null) {
+                return task;
+            }
+            task = new FutureTask<EmbeddedServer>(factory);
+            servers.put(key, task);
+            registerShutdownHookIfNotYet();
+            evicted = evict(config.getMaxServerCount());
+        }
+        for (FutureTask<EmbeddedServer> evictedTask : evicted) {
+            retire(evictedTask);
+        }
+
+        if (config.isBackgroundStartupEnabled()) {
+            Thread thread = new Thread(task, "rest-test-server-startup");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            task.run();
+            if (isFailed(task)) {
+                synchronized (this) {
+                    servers.remove(key);
+                }
+            }
+        }
+        return task;
+    }
+
+    /**
+     * 保持している全ての内蔵サーバを破棄する。
+     * 起動中の内蔵サーバは起動の完了を待ってから破棄する。
+     */
+    void shutdown() {
+        List<FutureTask<EmbeddedServer>> tasks;
+        synchronized (this) {
+            tasks = new ArrayList<FutureTask<EmbeddedServer>>(servers.values());
+            servers.clear();
+        }
+        for (FutureTask<EmbeddedServer> task : tasks) {
+            retire(task);
+        }
+    }
+
+    /**
+     * 保持している内蔵サーバの数を取得する。
+     *
+     * @return 保持している内蔵サーバの数
+     */
+    synchronized int size() {
+        return servers.size();
+    }
+
+    /**
+     * 保持数の上限を超えた内蔵サーバを、最も長く使用されていないものから取り除く。
+     * 起動中の内蔵サーバと、リクエストを送信中の内蔵サーバは取り除かない。
+     *
+     * @param maxServerCount 保持数の上限
+     * @return 取り除いた内蔵サーバの起動処理
+     */
+    private List<FutureTask<EmbeddedServer>> evict(int maxServerCount) {
+        List<FutureTask<EmbeddedServer>> evicted = new ArrayList<FutureTask<EmbeddedServer>>();
+        Iterator<FutureTask<EmbeddedServer>> iterator = servers.values().iterator();
+        while (servers.size() > maxServerCount && iterator.hasNext()) {
+            FutureTask<EmbeddedServer> task = iterator.next();
+            if (isInUse(task)) {
+                continue;
+            }
+            evicted.add(task);
+            iterator.remove();
+        }
+        return evicted;
+    }
+
+    /**
+     * 内蔵サーバが使用中か否か。
+     *
+     * @param task 内蔵サーバの起動処理
+     * @return 起動中またはリクエストを送信中の場合は{@code true}
+     */
+    private static boolean isInUse(FutureTask<EmbeddedServer> task) {
+        if (!task.isDone()) {
+            return true;
+        }
+        try {
+            return task.get().isInUse();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * JVMの終了時に内蔵サーバを停止するシャットダウンフックを登録する。
+     */
+    private void registerShutdownHookIfNotYet() {
+        if (shutdownHookRegistered) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        }, "rest-test-server-shutdown"));
+        shutdownHookRegistered = true;
+    }
+
+    /**
+     * 内蔵サーバを破棄する。
+     * 起動中の場合は起動の完了を待ってから破棄し、起動に失敗していた場合は何もしない。
+     *
+     * @param task 内蔵サーバの起動処理
+     */
+    private static void retire(FutureTask<EmbeddedServer> task) {
+        try {
+            task.get().retire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+            // 起動していないため停止は不要
+        }
+    }
+
+    /**
+     * 起動処理が失敗したか否か。
+     *
+     * @param task 完了した起動処理
+     * @return 失敗した場合は{@code true}
+     */
+    private static boolean isFailed(FutureTask<EmbeddedServer> task) {
+        try {
+            task.get();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 内蔵サーバを識別するキー。
+     */
+    private static final class Key {
+
+        /** Warベースディレクトリ */
+        private final String webBaseDir;
+
+        /** {@link nablarch.fw.web.servlet.WebFrontController}のリポジトリキー */
+        private final String webFrontControllerKey;
+
+        /** 一時ディレクトリ */
+        private final String tempDirectory;
+
+        /** ハンドラキューを直接実行するか否か */
+        private final boolean directDispatchEnabled;
+
+        /** 内蔵サーバへのリクエストの並行送信を許可するか否か */
+        private final boolean concurrentRequestEnabled;
+
+        /** ウォームアップで送信するリクエストURI */
+        private final List<String> warmUpUris;
+
+        /** ウォームアップの繰り返し回数 */
+        private final int warmUpCount;
+
+        /** ウォームアップで送信するリクエストを生成するプロバイダ */
+        private final WarmUpRequestProvider warmUpRequestProvider;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param config 設定定義
+         */
+        Key(RestTestConfiguration config) {
+            this.webBaseDir = config.getWebBaseDir();
+            this.webFrontControllerKey = config.getWebFrontControllerKey();
+            this.tempDirectory = config.getTempDirectory();
+            this.directDispatchEnabled = config.isDirectDispatchEnabled();
+            this.concurrentRequestEnabled = config.isConcurrentRequestEnabled();
+            this.warmUpUris = config.getWarmUpUris() == null ? null : new ArrayList<String>(config.getWarmUpUris());
+            this.warmUpCount = config.getWarmUpCount();
+            this.warmUpRequestProvider = config.getWarmUpRequestProvider();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return isEqual(webBaseDir, other.webBaseDir)
+                    && isEqual(webFrontControllerKey, other.webFrontControllerKey)
+                    && isEqual(tempDirectory, other.tempDirectory)
+                    && directDispatchEnabled == other.directDispatchEnabled
+                    && concurrentRequestEnabled == other.concurrentRequestEnabled
+                    && isEqual(warmUpUris, other.warmUpUris)
+                    && warmUpCount == other.warmUpCount
+                    && isEqual(warmUpRequestProvider, other.warmUpRequestProvider);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = webBaseDir != null ? webBaseDir.hashCode() : 0;
+            result = 31 * result + (webFrontControllerKey != null ? webFrontControllerKey.hashCode() : 0);
+            result = 31 * result + (tempDirectory != null ? tempDirectory.hashCode() : 0);
+            result = 31 * result + (directDispatchEnabled ? 1 : 0);
+            result = 31 * result + (concurrentRequestEnabled ? 1 : 0);
+            result = 31 * result + (warmUpUris != null ? warmUpUris.hashCode() : 0);
+            result = 31 * result + warmUpCount;
+            result = 31 * result + (warmUpRequestProvider != null ? warmUpRequestProvider.hashCode() : 0);
+            return result;
+        }
+
+        /**
+         * {@code null}を考慮して2つの値が等しいか判定する。
+         *
+         * @param a 値
+         * @param b 値
+         * @return 等しい場合は{@code true}
+         */
+        private static boolean isEqual(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
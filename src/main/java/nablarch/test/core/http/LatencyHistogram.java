@@ -0,0 +1,163 @@
+package nablarch.test.core.http;
+
+/**
+ * レイテンシ（ナノ秒）の分布を記録するヒストグラム。
+ * <p>
+ * 値は2のべき乗毎の区間をさらに64分割したバケットに記録する。
+ * バケットは生成時に確保した配列で保持するため、記録時にオブジェクトを生成しない。
+ * 128ナノ秒未満の値は正確に、それ以上の値は相対誤差1/64以内で記録される。
+ * </p>
+ * <p>
+ * スレッドセーフではないため、スレッド毎に生成し、集計時に{@link #add(LatencyHistogram)}で統合すること。
+ * </p>
+ */
+class LatencyHistogram {
+
+    /** 正確に記録する値の上限（この値未満は値そのものをバケットとする） */
+    private static final int EXACT_LIMIT = 128;
+
+    /** 2のべき乗毎の区間を分割する数 */
+    private static final int SUB_BUCKETS = 64;
+
+    /** {@link #SUB_BUCKETS}のビット数 */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /** バケット数（long型の正の値全体を表現できる数） */
+    private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+    /** バケット毎の件数 */
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    /** 件数 */
+    private long totalCount;
+
+    /** 合計 */
+    private long sum;
+
+    /** 最小値 */
+    private long min = Long.MAX_VALUE;
+
+    /** 最大値 */
+    private long max;
+
+    /**
+     * 値を記録する。負の値は0として記録する。
+     *
+     * @param nanos 値（ナノ秒）
+     */
+    void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        counts[bucketIndex(value)]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * 他のヒストグラムの記録内容を統合する。
+     *
+     * @param other 統合するヒストグラム
+     */
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 件数を取得する。
+     *
+     * @return 件数
+     */
+    long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 最小値を取得する。
+     *
+     * @return 最小値。記録されていない場合は0
+     */
+    long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * 最大値を取得する。
+     *
+     * @return 最大値。記録されていない場合は0
+     */
+    long getMax() {
+        return max;
+    }
+
+    /**
+     * 平均値を取得する。
+     *
+     * @return 平均値。記録されていない場合は0
+     */
+    double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * パーセンタイル値を取得する。
+     * <p>
+     * 指定した割合の値が含まれるバケットの上限を返す。ただし、最大値を超えることはない。
+     * </p>
+     *
+     * @param percentile パーセンタイル（0～100）
+     * @return パーセンタイル値。記録されていない場合は0
+     */
+    long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100. value=[" + percentile + "].");
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1L, (long) Math.ceil(percentile / 100 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 値を記録するバケットのインデックスを取得する。
+     *
+     * @param value 値（0以上）
+     * @return バケットのインデックス
+     */
+    private static int bucketIndex(long value) {
+        if (value < EXACT_LIMIT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * バケットに記録される値の上限を取得する。
+     *
+     * @param index バケットのインデックス
+     * @return バケットに記録される値の上限
+     */
+    private static long highestValueOf(int index) {
+        if (index < EXACT_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -13,11 +13,30 @@ import java.util.List;
  * Cookieを引き継ぐためのプロセッサ。
  * レスポンス内の{@link HttpCookie}より指定されたCookieの値を取得し、
  * リクエストのCookieとして付加する。
+ * <p>
+ * Cookieの値は、以下の優先順で選択した保持先に保持する。
+ * </p>
+ * <ol>
+ *   <li>現在のスレッドで有効な{@link CookieSession}（{@link CookieSession#activate()}）</li>
+ *   <li>スレッド毎の保持先（{@link #setThreadIsolationEnabled(boolean)}に{@code true}を設定した場合）</li>
+ *   <li>このプロセッサで共有する保持先</li>
+ * </ol>
+ * <p>
+ * デフォルトでは全てのスレッドで値を共有するため、複数スレッドから同時に送信すると互いの値を上書きする。
+ * 並行して送信する場合は、スレッド毎の保持先か{@link CookieSession}を使用すること。
+ * </p>
  */
 public class RequestResponseCookieManager implements RequestResponseProcessor {
     private static final Logger LOGGER = LoggerManager.get(RequestResponseCookieManager.class);
 
-    private String cookieValue;
+    /** このプロセッサで共有する保持先 */
+    private final CookieSession sharedSession = new CookieSession();
+
+    /** スレッド毎の保持先（{@link #reset()}の度に作り直す） */
+    private volatile ThreadLocal<CookieSession> threadSessions = new ThreadLocal<CookieSession>();
+
+    /** スレッド毎に値を保持するか否か */
+    private volatile boolean threadIsolationEnabled = false;
 
     private String cookieName;
 
@@ -25,6 +44,7 @@ public class RequestResponseCookieManager implements RequestResponseProcessor {
     public HttpRequest processRequest(HttpRequest request) {
         if (request instanceof RestMockHttpRequest) {
             RestMockHttpRequest restMockHttpRequest = (RestMockHttpRequest) request;
+            String cookieValue = cookieName == null ? null : getSession().get(cookieName);
             if (cookieValue != null) {
                 HttpCookie cookie = restMockHttpRequest.getCookie();
                 cookie.put(cookieName, cookieValue);
@@ -46,7 +66,8 @@ public class RequestResponseCookieManager implements RequestResponseProcessor {
 
         for (HttpCookie cookie : cookies) {
             if (cookie.containsKey(cookieName)) {
-                cookieValue = cookie.get(cookieName);
+                String cookieValue = cookie.get(cookieName);
+                getSession().put(cookieName, cookieValue);
                 logDebug("Get cookie: " + cookieName + " = " + cookieValue);
                 return response;
             }
@@ -56,9 +77,17 @@ public class RequestResponseCookieManager implements RequestResponseProcessor {
         return response;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * 共有する保持先とスレッド毎の保持先の値を消去する。
+     * {@link CookieSession}の値は消去しない。
+     * </p>
+     */
     @Override
     public void reset() {
-        cookieValue = null;
+        sharedSession.clear();
+        threadSessions = new ThreadLocal<CookieSession>();
     }
 
     /**
@@ -70,6 +99,42 @@ public class RequestResponseCookieManager implements RequestResponseProcessor {
         this.cookieName = cookieName;
     }
 
+    /**
+     * スレッド毎に値を保持するか否かを設定する。
+     * <p>
+     * {@code true}を設定した場合、Cookieの値をスレッド毎に保持するため、
+     * 1つのプロセッサを複数スレッドで共有しても、スレッド毎に独立したセッションを維持できる。
+     * デフォルトは{@code false}で、全てのスレッドで値を共有する。
+     * </p>
+     *
+     * @param threadIsolationEnabled スレッド毎に値を保持する場合は{@code true}
+     */
+    public void setThreadIsolationEnabled(boolean threadIsolationEnabled) {
+        this.threadIsolationEnabled = threadIsolationEnabled;
+    }
+
+    /**
+     * Cookieの値の保持先を取得する。
+     *
+     * @return Cookieの値の保持先
+     */
+    private CookieSession getSession() {
+        CookieSession session = CookieSession.current();
+        if (session != null) {
+            return session;
+        }
+        if (!threadIsolationEnabled) {
+            return sharedSession;
+        }
+        ThreadLocal<CookieSession> sessions = threadSessions;
+        session = sessions.get();
+        if (session == null) {
+            session = new CookieSession();
+            sessions.set(session);
+        }
+        return session;
+    }
+
     private void logDebug(String message) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.logDebug(message);
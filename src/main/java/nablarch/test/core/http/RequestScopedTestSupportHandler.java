@@ -0,0 +1,344 @@
+package nablarch.test.core.http;
+
+import nablarch.core.util.StringUtil;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.MockHttpRequest;
+import nablarch.fw.web.RestMockHttpRequest;
+import nablarch.fw.web.servlet.NablarchHttpServletRequestWrapper;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * テスト側の{@link ExecutionContext}をリクエスト単位で内蔵サーバに引き渡すハンドラ。
+ * <p>
+ * {@link HttpRequestTestSupportHandler}は{@link ExecutionContext}をフィールドで保持するため、
+ * 複数スレッドから同時にリクエストを送信すると他のリクエストの{@link ExecutionContext}を参照してしまう。
+ * 本ハンドラは、送信前に{@link ExecutionContext}を識別子と紐付け、識別子をリクエストヘッダーに設定した
+ * 送信用のリクエストを生成する。サーバ側ではその識別子から{@link ExecutionContext}を取り出し、
+ * リクエストヘッダーから識別子を取り除いたうえで、リクエスト毎に生成した
+ * {@link HttpRequestTestSupportHandler}に処理を委譲する。
+ * 識別子は{@link HttpRequest}と、{@link ServletExecutionContext#getServletRequest()}のサーブレットAPI
+ * （{@link HttpServletRequest#getHeader(String)}、{@link HttpServletRequest#getHeaders(String)}、
+ * {@link HttpServletRequest#getHeaderNames()}など）から取り除くため、テスト対象のアプリケーションからは参照できない。
+ * ただし、{@link NablarchHttpServletRequestWrapper#getRequest()}でサーブレットコンテナのリクエストを直接取り出した場合は参照できる。
+ * </p>
+ * <p>
+ * 識別子はテストで生成したリクエストには設定しないため、同じリクエストを複数スレッドから同時に送信できる。
+ * ただし、Jettyを使用する内蔵サーバでは、{@link RestTestConfiguration#setConcurrentRequestEnabled(boolean)}で
+ * 並行送信を許可しない限り、内蔵サーバへの送信はロックにより直列化される（{@link EmbeddedServer}）。
+ * </p>
+ * <p>
+ * 送信したテストで有効な{@link HandlerQueueOverride}も{@link ExecutionContext}と合わせて引き渡し、
+ * サーバ側でリクエストを処理している間は{@link #getOverride()}で取得できるようにする。
+ * </p>
+ */
+class RequestScopedTestSupportHandler implements HttpRequestHandler {
+
+    /** {@link ExecutionContext}の識別子を設定するリクエストヘッダー名 */
+    static final String CONTEXT_ID_HEADER = "X-Nablarch-Test-Context-Id";
+
+    /** 設定定義 */
+    private final HttpTestConfiguration config;
+
+    /** 送信中のリクエストに紐付く{@link ExecutionContext} */
+    private final ConcurrentMap<String, Binding> bindings = new ConcurrentHashMap<String, Binding>();
+
+    /** 識別子の採番に使用するシーケンス */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /** サーバ側で処理中のリクエストに紐付く差し替え（リクエストを処理するスレッド毎に保持する） */
+    private final ThreadLocal<HandlerQueueOverride> processingOverride = new ThreadLocal<HandlerQueueOverride>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param config 設定定義
+     */
+    RequestScopedTestSupportHandler(HttpTestConfiguration config) {
+        this.config = config;
+    }
+
+    /**
+     * リクエストに{@link ExecutionContext}を紐付け、送信用のリクエストを生成する。
+     * <p>
+     * 引数のリクエストは変更しない。
+     * </p>
+     *
+     * @param request  リクエスト
+     * @param context  実行コンテキスト
+     * @param override 送信したテストで有効な差し替え。存在しない場合は{@code null}
+     * @return 紐付け
+     */
+    Binding bind(HttpRequest request, ExecutionContext context, HandlerQueueOverride override) {
+        String contextId = String.valueOf(sequence.incrementAndGet());
+        Binding binding = new Binding(contextId, context, override, createRequestToSend(request, contextId));
+        bindings.put(contextId, binding);
+        return binding;
+    }
+
+    /**
+     * 識別子をリクエストヘッダーに設定した送信用のリクエストを生成する。
+     *
+     * @param request   リクエスト
+     * @param contextId 識別子
+     * @return 送信用のリクエスト
+     */
+    private static HttpRequest createRequestToSend(HttpRequest request, String contextId) {
+        if (request instanceof RestMockHttpRequest) {
+            RestMockHttpRequest copy = ((RestMockHttpRequest) request).copy();
+            copy.setHeader(CONTEXT_ID_HEADER, contextId);
+            return copy;
+        }
+        return new ContextIdRequest(request, contextId);
+    }
+
+    /**
+     * リクエストと{@link ExecutionContext}の紐付けを解除する。
+     *
+     * @param binding 紐付け
+     */
+    void unbind(Binding binding) {
+        bindings.remove(binding.contextId);
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+        Binding binding = findBinding(request, context);
+        HttpRequestTestSupportHandler delegate = new HttpRequestTestSupportHandler(config);
+        delegate.setContext(binding == null ? new ExecutionContext() : binding.context);
+        HandlerQueueOverride previous = processingOverride.get();
+        processingOverride.set(binding == null ? null : binding.override);
+        try {
+            return delegate.handle(request, context);
+        } finally {
+            if (previous == null) {
+                processingOverride.remove();
+            } else {
+                processingOverride.set(previous);
+            }
+        }
+    }
+
+    /**
+     * サーバ側で処理中のリクエストに紐付く差し替えを取得する。
+     *
+     * @return 差し替え。存在しない場合は{@code null}
+     */
+    HandlerQueueOverride getOverride() {
+        return processingOverride.get();
+    }
+
+    /**
+     * リクエストに紐付く{@link Binding}を取得する。
+     * <p>
+     * 識別子はテスト対象のアプリケーションに見せないよう、リクエストヘッダーから取り除く。
+     * サーブレットを経由したリクエストの場合は、サーブレットAPIからも参照できないようにする。
+     * </p>
+     *
+     * @param request リクエスト
+     * @param context 実行コンテキスト
+     * @return 紐付け。紐付けられていない場合は{@code null}
+     */
+    private Binding findBinding(HttpRequest request, ExecutionContext context) {
+        String contextId = request.getHeader(CONTEXT_ID_HEADER);
+        if (contextId == null) {
+            return null;
+        }
+        if (context instanceof ServletExecutionContext) {
+            NablarchHttpServletRequestWrapper servletRequest = ((ServletExecutionContext) context).getServletRequest();
+            servletRequest.getHeaderMap().remove(CONTEXT_ID_HEADER);
+            servletRequest.setRequest(
+                    new ContextIdHidingServletRequest((HttpServletRequest) servletRequest.getRequest()));
+        } else {
+            request.getHeaderMap().remove(CONTEXT_ID_HEADER);
+        }
+        return bindings.get(contextId);
+    }
+
+    /**
+     * ハンドラキューの先頭に本ハンドラを登録する。
+     *
+     * @param handlerQueue ハンドラキュー
+     */
+    void register(List<Handler> handlerQueue) {
+        handlerQueue.add(0, this);
+    }
+
+    /**
+     * リクエストと{@link ExecutionContext}の紐付け。
+     */
+    static final class Binding {
+
+        /** 識別子 */
+        private final String contextId;
+
+        /** 実行コンテキスト */
+        private final ExecutionContext context;
+
+        /** 送信したテストで有効な差し替え */
+        private final HandlerQueueOverride override;
+
+        /** 送信用のリクエスト */
+        private final HttpRequest request;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param contextId 識別子
+         * @param context   実行コンテキスト
+         * @param override  送信したテストで有効な差し替え
+         * @param request   送信用のリクエスト
+         */
+        private Binding(String contextId, ExecutionContext context, HandlerQueueOverride override,
+                        HttpRequest request) {
+            this.contextId = contextId;
+            this.context = context;
+            this.override = override;
+            this.request = request;
+        }
+
+        /**
+         * 送信用のリクエストを取得する。
+         *
+         * @return 送信用のリクエスト
+         */
+        HttpRequest getRequest() {
+            return request;
+        }
+    }
+
+    /**
+     * 元のリクエストの直列化結果に識別子のリクエストヘッダーを加えて送信するリクエスト。
+     * <p>
+     * 内蔵サーバは{@link #toString()}の結果を送信するため、元のリクエストを変更せずに識別子を送信できる。
+     * 内蔵サーバがHostヘッダーを設定した場合は、そのヘッダーも加える。
+     * </p>
+     */
+    private static final class ContextIdRequest extends MockHttpRequest {
+
+        /** 元のリクエスト */
+        private final HttpRequest original;
+
+        /** 識別子 */
+        private final String contextId;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param original  元のリクエスト
+         * @param contextId 識別子
+         */
+        ContextIdRequest(HttpRequest original, String contextId) {
+            this.original = original;
+            this.contextId = contextId;
+        }
+
+        @Override
+        public String getMethod() {
+            return original.getMethod();
+        }
+
+        @Override
+        public String getRequestUri() {
+            return original.getRequestUri();
+        }
+
+        @Override
+        public String getHttpVersion() {
+            return original.getHttpVersion();
+        }
+
+        @Override
+        public String getHost() {
+            String host = original.getHost();
+            return StringUtil.isNullOrEmpty(host) ? super.getHost() : host;
+        }
+
+        @Override
+        public String toString() {
+            String message = original.toString();
+            int headStart = message.indexOf("\r\n") + 2;
+            StringBuilder headers = new StringBuilder();
+            headers.append(CONTEXT_ID_HEADER).append(": ").append(contextId).append("\r\n");
+            if (StringUtil.isNullOrEmpty(original.getHost()) && !StringUtil.isNullOrEmpty(super.getHost())) {
+                headers.append("Host: ").append(super.getHost()).append("\r\n");
+            }
+            return message.substring(0, headStart) + headers + message.substring(headStart);
+        }
+    }
+
+    /**
+     * 識別子のリクエストヘッダーを参照できないようにするサーブレットリクエスト。
+     */
+    private static final class ContextIdHidingServletRequest extends HttpServletRequestWrapper {
+
+        /**
+         * コンストラクタ。
+         *
+         * @param request サーブレットコンテナのリクエスト
+         */
+        ContextIdHidingServletRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isContextIdHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Enumeration<String> getHeaders(String name) {
+            if (isContextIdHeader(name)) {
+                return Collections.enumeration(Collections.<String>emptyList());
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = new ArrayList<String>();
+            for (Enumeration<String> e = super.getHeaderNames(); e.hasMoreElements(); ) {
+                String name = e.nextElement();
+                if (!isContextIdHeader(name)) {
+                    names.add(name);
+                }
+            }
+            return Collections.enumeration(names);
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            return isContextIdHeader(name) ? -1 : super.getIntHeader(name);
+        }
+
+        @Override
+        public long getDateHeader(String name) {
+            return isContextIdHeader(name) ? -1L : super.getDateHeader(name);
+        }
+
+        /**
+         * 識別子のリクエストヘッダーか否か。
+         *
+         * @param name リクエストヘッダー名
+         * @return 識別子のリクエストヘッダーの場合は{@code true}
+         */
+        private static boolean isContextIdHeader(String name) {
+            return CONTEXT_ID_HEADER.equalsIgnoreCase(name);
+        }
+    }
+}
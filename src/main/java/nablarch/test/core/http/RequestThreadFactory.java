@@ -0,0 +1,71 @@
+package nablarch.test.core.http;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内蔵サーバへの非同期送信に使用するスレッドを生成する{@link ThreadFactory}。
+ * <p>
+ * 仮想スレッドが利用可能な環境（Java 21以降）では仮想スレッドを生成し、
+ * それ以外の環境ではデーモンスレッドを生成する。
+ * 本モジュールはJava 6以降をサポートするため、仮想スレッドのAPIはリフレクションで呼び出す。
+ * </p>
+ */
+class RequestThreadFactory implements ThreadFactory {
+
+    /** 仮想スレッドを生成する{@link ThreadFactory}（利用できない場合は{@code null}） */
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY = createVirtualThreadFactory();
+
+    /** スレッド名の接頭辞 */
+    private final String namePrefix;
+
+    /** スレッド番号 */
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param namePrefix スレッド名の接頭辞
+     */
+    RequestThreadFactory(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread;
+        if (VIRTUAL_THREAD_FACTORY != null) {
+            thread = VIRTUAL_THREAD_FACTORY.newThread(runnable);
+        } else {
+            thread = new Thread(runnable);
+            thread.setDaemon(true);
+        }
+        thread.setName(namePrefix + threadNumber.incrementAndGet());
+        return thread;
+    }
+
+    /**
+     * 仮想スレッドを生成するか否か。
+     *
+     * @return 仮想スレッドを生成する場合は{@code true}
+     */
+    static boolean isVirtualThreadAvailable() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    /**
+     * 仮想スレッドを生成する{@link ThreadFactory}を取得する。
+     *
+     * @return 仮想スレッドを生成する{@link ThreadFactory}。利用できない場合は{@code null}
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
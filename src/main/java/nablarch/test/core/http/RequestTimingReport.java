@@ -0,0 +1,276 @@
+package nablarch.test.core.http;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.FileUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * リクエスト送信の処理時間をフェーズ毎に集計し、レポートを出力するクラス。
+ * <p>
+ * 処理時間はテストメソッド毎に、以下のフェーズに分けて件数・合計・最大を集計する。
+ * </p>
+ * <ul>
+ *   <li>processRequest: {@link RequestResponseProcessor#processRequest(nablarch.fw.web.HttpRequest)}</li>
+ *   <li>serializeRequest: リクエストの直列化（{@link nablarch.fw.web.HttpRequest#toString()}）</li>
+ *   <li>handle: 内蔵サーバでの処理</li>
+ *   <li>processResponse: {@link RequestResponseProcessor#processResponse(nablarch.fw.web.HttpRequest, nablarch.fw.web.HttpResponse)}</li>
+ * </ul>
+ * <p>
+ * {@link nablarch.fw.web.RestMockHttpRequest}は直列化した結果をキャッシュするため、
+ * 内蔵サーバ内での直列化はキャッシュの再利用となり、handleにはほぼ含まれない。
+ * ただし、ストリームで書き出すボディ（{@link nablarch.fw.web.RestMockHttpRequest#isStreamingBody()}）は
+ * 1度しか読み込めないため事前に直列化せず、その処理時間はhandleに含まれる。
+ * </p>
+ * <p>
+ * レポートはJSON形式とCSV形式で出力する。
+ * </p>
+ */
+class RequestTimingReport {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(RequestTimingReport.class);
+
+    /** JSON形式のレポートのファイル名 */
+    static final String JSON_FILE_NAME = "rest-test-timing.json";
+
+    /** CSV形式のレポートのファイル名 */
+    static final String CSV_FILE_NAME = "rest-test-timing.csv";
+
+    /** フェーズ名 */
+    private static final String[] PHASES = {"processRequest", "serializeRequest", "handle", "processResponse"};
+
+    /** 1ミリ秒あたりのナノ秒 */
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /** レポートの文字コード */
+    private static final String ENCODING = "UTF-8";
+
+    /** テスト毎の集計結果（記録順） */
+    private final Map<String, TestTimings> timings = new LinkedHashMap<String, TestTimings>();
+
+    /**
+     * 1リクエストの処理時間を記録する。
+     *
+     * @param testName             テスト名
+     * @param processRequestNanos  processRequestの処理時間（ナノ秒）
+     * @param serializeNanos       リクエストの直列化の処理時間（ナノ秒）
+     * @param handleNanos          内蔵サーバでの処理時間（ナノ秒）
+     * @param processResponseNanos processResponseの処理時間（ナノ秒）
+     */
+    synchronized void record(String testName, long processRequestNanos, long serializeNanos,
+                             long handleNanos, long processResponseNanos) {
+        TestTimings testTimings = timings.get(testName);
+        if (testTimings == null) {
+            testTimings = new TestTimings();
+            timings.put(testName, testTimings);
+        }
+        testTimings.add(processRequestNanos, serializeNanos, handleNanos, processResponseNanos);
+    }
+
+    /**
+     * 記録された処理時間が存在しないか否か。
+     *
+     * @return 存在しない場合は{@code true}
+     */
+    synchronized boolean isEmpty() {
+        return timings.isEmpty();
+    }
+
+    /**
+     * 記録されたテスト名の一覧を取得する。
+     *
+     * @return テスト名の一覧
+     */
+    synchronized List<String> getTestNames() {
+        return new ArrayList<String>(timings.keySet());
+    }
+
+    /**
+     * JSON形式とCSV形式のレポートを出力する。
+     *
+     * @param directory 出力先ディレクトリ
+     * @throws IOException 出力に失敗した場合
+     */
+    synchronized void write(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("could not create directory. path=[" + directory.getAbsolutePath() + "].");
+        }
+        write(new File(directory, JSON_FILE_NAME), toJson());
+        write(new File(directory, CSV_FILE_NAME), toCsv());
+    }
+
+    /**
+     * レポートを出力する。出力に失敗した場合はログを出力する。
+     *
+     * @param directory 出力先ディレクトリ
+     */
+    void writeQuietly(File directory) {
+        try {
+            write(directory);
+        } catch (IOException e) {
+            LOGGER.logWarn("failed to write request timing report. directory=[" + directory.getAbsolutePath() + "].", e);
+        }
+    }
+
+    /**
+     * JSON形式のレポートを生成する。
+     *
+     * @return JSON形式のレポート
+     */
+    synchronized String toJson() {
+        StringBuilder json = new StringBuilder("{\"tests\":[");
+        boolean firstTest = true;
+        for (Map.Entry<String, TestTimings> entry : timings.entrySet()) {
+            if (!firstTest) {
+                json.append(',');
+            }
+            firstTest = false;
+            TestTimings testTimings = entry.getValue();
+            json.append("{\"test\":").append(quote(entry.getKey()))
+                .append(",\"requests\":").append(testTimings.count)
+                .append(",\"phases\":{");
+            for (int i = 0; i < PHASES.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(quote(PHASES[i]))
+                    .append(":{\"totalMillis\":").append(toMillis(testTimings.totals[i]))
+                    .append(",\"averageMillis\":").append(toMillis(testTimings.average(i)))
+                    .append(",\"maxMillis\":").append(toMillis(testTimings.maxes[i]))
+                    .append('}');
+            }
+            json.append("}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * CSV形式のレポートを生成する。
+     *
+     * @return CSV形式のレポート
+     */
+    synchronized String toCsv() {
+        StringBuilder csv = new StringBuilder("test,phase,requests,totalMillis,averageMillis,maxMillis\n");
+        for (Map.Entry<String, TestTimings> entry : timings.entrySet()) {
+            TestTimings testTimings = entry.getValue();
+            for (int i = 0; i < PHASES.length; i++) {
+                csv.append(escapeCsv(entry.getKey())).append(',')
+                   .append(PHASES[i]).append(',')
+                   .append(testTimings.count).append(',')
+                   .append(toMillis(testTimings.totals[i])).append(',')
+                   .append(toMillis(testTimings.average(i))).append(',')
+                   .append(toMillis(testTimings.maxes[i])).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    /**
+     * ファイルに文字列を出力する。
+     *
+     * @param file    出力先ファイル
+     * @param content 出力する文字列
+     * @throws IOException 出力に失敗した場合
+     */
+    private static void write(File file, String content) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), ENCODING);
+        try {
+            writer.write(content);
+        } finally {
+            FileUtil.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * ナノ秒をミリ秒の文字列に変換する。
+     *
+     * @param nanos ナノ秒
+     * @return ミリ秒の文字列
+     */
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * JSONの文字列リテラルに変換する。
+     *
+     * @param value 値
+     * @return JSONの文字列リテラル
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * CSVの値をエスケープする。
+     *
+     * @param value 値
+     * @return エスケープした値
+     */
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * テスト毎のフェーズ別集計結果。
+     */
+    private static final class TestTimings {
+
+        /** リクエスト件数 */
+        private long count;
+
+        /** フェーズ毎の合計（ナノ秒） */
+        private final long[] totals = new long[PHASES.length];
+
+        /** フェーズ毎の最大（ナノ秒） */
+        private final long[] maxes = new long[PHASES.length];
+
+        /**
+         * 1リクエストの処理時間を加算する。
+         *
+         * @param nanos フェーズ毎の処理時間（ナノ秒）
+         */
+        void add(long... nanos) {
+            count++;
+            for (int i = 0; i < PHASES.length; i++) {
+                totals[i] += nanos[i];
+                maxes[i] = Math.max(maxes[i], nanos[i]);
+            }
+        }
+
+        /**
+         * フェーズの平均を取得する。
+         *
+         * @param phase フェーズのインデックス
+         * @return 平均（ナノ秒）
+         */
+        long average(int phase) {
+            return count == 0 ? 0 : totals[phase] / count;
+        }
+    }
+}
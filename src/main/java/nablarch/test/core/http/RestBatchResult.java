@@ -0,0 +1,154 @@
+package nablarch.test.core.http;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.web.HttpResponse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link SimpleRestTestSupport#sendRequests(List, RequestResponseProcessor)}による一括送信の結果。
+ * <p>
+ * レスポンス、処理時間、発生した例外を、送信したリクエストと同じ順序で保持する。
+ * 例外が発生したリクエストのレスポンスは{@code null}となる。
+ * </p>
+ */
+@Published
+public class RestBatchResult {
+
+    /** 1ミリ秒あたりのナノ秒 */
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /** レスポンス（リクエストの順序） */
+    private final HttpResponse[] responses;
+
+    /** 発生した例外（リクエストの順序） */
+    private final Throwable[] failures;
+
+    /** リクエスト毎の処理時間（ナノ秒） */
+    private final long[] elapsedNanos;
+
+    /** 全体の実行時間（ナノ秒） */
+    private final long totalElapsedNanos;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param responses         レスポンス（リクエストの順序）
+     * @param failures          発生した例外（リクエストの順序）
+     * @param elapsedNanos      リクエスト毎の処理時間（ナノ秒）
+     * @param totalElapsedNanos 全体の実行時間（ナノ秒）
+     */
+    RestBatchResult(HttpResponse[] responses, Throwable[] failures, long[] elapsedNanos, long totalElapsedNanos) {
+        this.responses = responses;
+        this.failures = failures;
+        this.elapsedNanos = elapsedNanos;
+        this.totalElapsedNanos = totalElapsedNanos;
+    }
+
+    /**
+     * 送信したリクエスト数を取得する。
+     *
+     * @return 送信したリクエスト数
+     */
+    public int size() {
+        return responses.length;
+    }
+
+    /**
+     * 指定した位置のリクエストのレスポンスを取得する。
+     *
+     * @param index リクエストの位置（0始まり）
+     * @return レスポンス。例外が発生した場合は{@code null}
+     */
+    public HttpResponse getResponse(int index) {
+        return responses[index];
+    }
+
+    /**
+     * すべてのレスポンスを、リクエストの順序で取得する。
+     * 例外が発生したリクエストの要素は{@code null}となる。
+     *
+     * @return レスポンスの一覧
+     */
+    public List<HttpResponse> getResponses() {
+        return Collections.unmodifiableList(Arrays.asList(responses));
+    }
+
+    /**
+     * 指定した位置のリクエストで発生した例外を取得する。
+     *
+     * @param index リクエストの位置（0始まり）
+     * @return 発生した例外。例外が発生しなかった場合は{@code null}
+     */
+    public Throwable getFailure(int index) {
+        return failures[index];
+    }
+
+    /**
+     * 例外が発生したリクエスト数を取得する。
+     *
+     * @return 例外が発生したリクエスト数
+     */
+    public int getFailureCount() {
+        int count = 0;
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 例外が発生したリクエストが存在するか否か。
+     *
+     * @return 存在する場合は{@code true}
+     */
+    public boolean hasFailures() {
+        return getFailureCount() > 0;
+    }
+
+    /**
+     * 例外が発生したリクエストが存在しないことを表明する。
+     * 存在する場合は、最初に例外が発生したリクエストの例外を原因とする{@link AssertionError}を送出する。
+     */
+    public void assertNoFailures() {
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                AssertionError error = new AssertionError(getFailureCount() + " of " + size()
+                        + " requests failed. first failure index=[" + i + "], cause=[" + failures[i] + "].");
+                error.initCause(failures[i]);
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * 指定した位置のリクエストの処理時間（ミリ秒）を取得する。
+     * 処理時間は、{@link RequestResponseProcessor}による処理を含む送信開始からレスポンス取得までの時間となる。
+     *
+     * @param index リクエストの位置（0始まり）
+     * @return 処理時間（ミリ秒）
+     */
+    public double getElapsedMillis(int index) {
+        return elapsedNanos[index] / NANOS_PER_MILLI;
+    }
+
+    /**
+     * 全体の実行時間（ミリ秒）を取得する。
+     *
+     * @return 全体の実行時間（ミリ秒）
+     */
+    public double getTotalElapsedMillis() {
+        return totalElapsedNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "requests=%d, failures=%d, elapsed=%.3fms",
+                size(), getFailureCount(), getTotalElapsedMillis());
+    }
+}
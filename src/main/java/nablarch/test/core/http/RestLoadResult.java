@@ -0,0 +1,127 @@
+package nablarch.test.core.http;
+
+import nablarch.core.util.annotation.Published;
+
+import java.util.Locale;
+
+/**
+ * {@link RestLoadRunner}による負荷実行の結果。
+ */
+@Published
+public class RestLoadResult {
+
+    /** 1秒あたりのナノ秒 */
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    /** 1ミリ秒あたりのナノ秒 */
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /** レイテンシの分布 */
+    private final LatencyHistogram histogram;
+
+    /** 例外が発生したリクエスト数 */
+    private final long errorCount;
+
+    /** 実行時間（ナノ秒） */
+    private final long elapsedNanos;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param histogram    レイテンシの分布
+     * @param errorCount   例外が発生したリクエスト数
+     * @param elapsedNanos 実行時間（ナノ秒）
+     */
+    RestLoadResult(LatencyHistogram histogram, long errorCount, long elapsedNanos) {
+        this.histogram = histogram;
+        this.errorCount = errorCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 送信したリクエスト数を取得する。
+     * 例外が発生したリクエストも含む。
+     *
+     * @return 送信したリクエスト数
+     */
+    public long getRequestCount() {
+        return histogram.getTotalCount();
+    }
+
+    /**
+     * 例外が発生したリクエスト数を取得する。
+     *
+     * @return 例外が発生したリクエスト数
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * 実行時間（ミリ秒）を取得する。
+     *
+     * @return 実行時間（ミリ秒）
+     */
+    public double getElapsedMillis() {
+        return elapsedNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * スループット（1秒あたりのリクエスト数）を取得する。
+     *
+     * @return スループット
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getRequestCount() * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    /**
+     * レイテンシの平均（ミリ秒）を取得する。
+     *
+     * @return レイテンシの平均（ミリ秒）
+     */
+    public double getMeanLatencyMillis() {
+        return histogram.getMean() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * レイテンシの最小（ミリ秒）を取得する。
+     *
+     * @return レイテンシの最小（ミリ秒）
+     */
+    public double getMinLatencyMillis() {
+        return histogram.getMin() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * レイテンシの最大（ミリ秒）を取得する。
+     *
+     * @return レイテンシの最大（ミリ秒）
+     */
+    public double getMaxLatencyMillis() {
+        return histogram.getMax() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * レイテンシのパーセンタイル値（ミリ秒）を取得する。
+     * 値は相対誤差1/64以内の精度となる。
+     *
+     * @param percentile パーセンタイル（0～100）
+     * @return レイテンシのパーセンタイル値（ミリ秒）
+     */
+    public double getLatencyMillisAtPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "requests=%d, errors=%d, elapsed=%.3fms, throughput=%.1f/s, "
+                        + "latency(ms): mean=%.3f, min=%.3f, p50=%.3f, p90=%.3f, p99=%.3f, p99.9=%.3f, max=%.3f",
+                getRequestCount(), errorCount, getElapsedMillis(), getThroughput(),
+                getMeanLatencyMillis(), getMinLatencyMillis(),
+                getLatencyMillisAtPercentile(50), getLatencyMillisAtPercentile(90),
+                getLatencyMillisAtPercentile(99), getLatencyMillisAtPercentile(99.9),
+                getMaxLatencyMillis());
+    }
+}
@@ -0,0 +1,400 @@
+package nablarch.test.core.http;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 内蔵サーバに対して負荷をかけるクラス。
+ * <p>
+ * デフォルトはクローズドモデルで、指定した数の仮想ユーザがそれぞれ専用のスレッドで、
+ * レスポンスを受け取る度に次のリクエストを送信する。
+ * 仮想ユーザ毎に{@link RequestResponseProcessor}を生成するため、Cookieなどの状態は仮想ユーザ間で共有されない。
+ * また、仮想ユーザのスレッドでは仮想ユーザ毎の{@link CookieSession}を有効化するため、
+ * {@link ProcessorFactory}が同じ{@link RequestResponseCookieManager}を返した場合もCookieは仮想ユーザ間で共有されない。
+ * 実行は、仮想ユーザ毎の送信回数と実行時間のどちらか、または両方で制限する。
+ * </p>
+ * <p>
+ * {@link #setArrivalRate(double)}で到着率を設定した場合はオープンモデルとなり、
+ * 前のレスポンスを待たずに一定の間隔で予定されたリクエストを、仮想ユーザが空き次第送信する。
+ * レイテンシは各リクエストの予定送信時刻から計測するため、内蔵サーバの処理が滞った場合の待ち時間も
+ * レイテンシに含まれる（Coordinated Omissionの補正）。
+ * この場合の仮想ユーザ数は同時に送信できるリクエスト数の上限となり、
+ * 送信回数は「仮想ユーザ数×送信回数」を全体の送信回数として扱う。
+ * </p>
+ * <p>
+ * リクエストは{@link SimpleRestTestSupport#sendRequest(HttpRequest, RequestResponseProcessor)}で送信するため、
+ * 事前に{@link SimpleRestTestSupport#setUp()}で内蔵サーバを起動しておくこと。
+ * 内蔵サーバへの並行送信が無効な場合は、内蔵サーバへの受け渡しが直列化される点に注意すること。
+ * </p>
+ * <pre>
+ * RestLoadResult result = new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+ *         {@code @Override}
+ *         public HttpRequest createRequest(int virtualUser, long iteration) {
+ *             return get("/projects");
+ *         }
+ *     })
+ *     .setVirtualUsers(8)
+ *     .setDuration(10, TimeUnit.SECONDS)
+ *     .run();
+ * </pre>
+ */
+@Published
+public class RestLoadRunner {
+
+    /**
+     * 仮想ユーザが送信するリクエストを生成するインターフェース。
+     */
+    @Published
+    public interface RequestFactory {
+
+        /**
+         * リクエストを生成する。
+         * 複数の仮想ユーザのスレッドから同時に呼び出される。
+         *
+         * @param virtualUser 仮想ユーザの番号（0始まり）
+         * @param iteration   仮想ユーザ毎の送信回数（0始まり）。オープンモデルの場合は全体での送信回数
+         * @return リクエスト
+         */
+        HttpRequest createRequest(int virtualUser, long iteration);
+    }
+
+    /**
+     * 仮想ユーザ毎の{@link RequestResponseProcessor}を生成するインターフェース。
+     */
+    @Published
+    public interface ProcessorFactory {
+
+        /**
+         * {@link RequestResponseProcessor}を生成する。
+         *
+         * @param virtualUser 仮想ユーザの番号（0始まり）
+         * @return 仮想ユーザが使用する{@link RequestResponseProcessor}
+         */
+        RequestResponseProcessor createProcessor(int virtualUser);
+    }
+
+    /** リクエスト・レスポンスともに何もしないプロセッサを生成するファクトリ */
+    private static final ProcessorFactory NOP_PROCESSOR_FACTORY = new ProcessorFactory() {
+        @Override
+        public RequestResponseProcessor createProcessor(int virtualUser) {
+            return new RequestResponseProcessor() {
+                @Override
+                public HttpRequest processRequest(HttpRequest request) {
+                    return request;
+                }
+
+                @Override
+                public HttpResponse processResponse(HttpRequest request, HttpResponse response) {
+                    return response;
+                }
+
+                @Override
+                public void reset() {
+                    // NOP
+                }
+            };
+        }
+    };
+
+    /** 1秒あたりのナノ秒 */
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    /** リクエストを送信するテストサポート */
+    private final SimpleRestTestSupport support;
+
+    /** リクエストを生成するファクトリ */
+    private final RequestFactory requestFactory;
+
+    /** プロセッサを生成するファクトリ */
+    private ProcessorFactory processorFactory = NOP_PROCESSOR_FACTORY;
+
+    /** 仮想ユーザ数 */
+    private int virtualUsers = 1;
+
+    /** 仮想ユーザ毎の送信回数（0の場合は制限しない） */
+    private long iterations = 0;
+
+    /** 実行時間（ナノ秒、0の場合は制限しない） */
+    private long durationNanos = 0;
+
+    /** 到着率（1秒あたりのリクエスト数、0の場合はクローズドモデル） */
+    private double arrivalRate = 0;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param support        リクエストを送信するテストサポート
+     * @param requestFactory リクエストを生成するファクトリ
+     */
+    public RestLoadRunner(SimpleRestTestSupport support, RequestFactory requestFactory) {
+        this.support = support;
+        this.requestFactory = requestFactory;
+    }
+
+    /**
+     * 仮想ユーザ毎の{@link RequestResponseProcessor}を生成するファクトリを設定する。
+     * 設定しない場合は、リクエスト・レスポンスに何もしないプロセッサを使用する。
+     *
+     * @param processorFactory プロセッサを生成するファクトリ
+     * @return このオブジェクト自体
+     */
+    public RestLoadRunner setProcessorFactory(ProcessorFactory processorFactory) {
+        this.processorFactory = processorFactory;
+        return this;
+    }
+
+    /**
+     * 仮想ユーザ数を設定する。デフォルトは1。
+     *
+     * @param virtualUsers 仮想ユーザ数
+     * @return このオブジェクト自体
+     */
+    public RestLoadRunner setVirtualUsers(int virtualUsers) {
+        if (virtualUsers < 1) {
+            throw new IllegalArgumentException("virtualUsers must be greater than 0. value=[" + virtualUsers + "].");
+        }
+        this.virtualUsers = virtualUsers;
+        return this;
+    }
+
+    /**
+     * 仮想ユーザ毎の送信回数を設定する。
+     *
+     * @param iterations 仮想ユーザ毎の送信回数
+     * @return このオブジェクト自体
+     */
+    public RestLoadRunner setIterations(long iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be greater than 0. value=[" + iterations + "].");
+        }
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * 実行時間を設定する。
+     *
+     * @param duration 実行時間
+     * @param unit     実行時間の単位
+     * @return このオブジェクト自体
+     */
+    public RestLoadRunner setDuration(long duration, TimeUnit unit) {
+        if (duration < 1) {
+            throw new IllegalArgumentException("duration must be greater than 0. value=[" + duration + "].");
+        }
+        this.durationNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * 到着率を設定し、オープンモデルで負荷をかけるようにする。
+     *
+     * @param requestsPerSecond 1秒あたりのリクエスト数
+     * @return このオブジェクト自体
+     */
+    public RestLoadRunner setArrivalRate(double requestsPerSecond) {
+        if (!(requestsPerSecond > 0)) {
+            throw new IllegalArgumentException("arrivalRate must be greater than 0. value=[" + requestsPerSecond + "].");
+        }
+        this.arrivalRate = requestsPerSecond;
+        return this;
+    }
+
+    /**
+     * 負荷をかけ、結果を返す。
+     * <p>
+     * 全ての仮想ユーザが同時に送信を開始し、全ての仮想ユーザが送信を終えるまで待機する。
+     * リクエストの送信中に発生した{@link RuntimeException}はエラーとして計上し、送信を継続する。
+     * {@link Error}が発生した場合は、全ての仮想ユーザの終了後に送出する。
+     * </p>
+     *
+     * @return 実行結果
+     */
+    public RestLoadResult run() {
+        if (iterations == 0 && durationNanos == 0) {
+            throw new IllegalStateException("either iterations or duration must be set.");
+        }
+        CountDownLatch startGate = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(virtualUsers);
+        AtomicLong sequence = new AtomicLong();
+        List<VirtualUser> users = new ArrayList<VirtualUser>(virtualUsers);
+        ThreadFactory threadFactory = new RequestThreadFactory("rest-load-user-");
+        for (int i = 0; i < virtualUsers; i++) {
+            VirtualUser user = new VirtualUser(i, processorFactory.createProcessor(i), sequence, startGate, finished);
+            users.add(user);
+            threadFactory.newThread(user).start();
+        }
+
+        long start = System.nanoTime();
+        for (VirtualUser user : users) {
+            user.startTime = start;
+            user.deadline = start + durationNanos;
+        }
+        startGate.countDown();
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for virtual users to finish.", e);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        long errors = 0;
+        for (VirtualUser user : users) {
+            if (user.failure != null) {
+                throw user.failure;
+            }
+            histogram.add(user.histogram);
+            errors += user.errors;
+        }
+        return new RestLoadResult(histogram, errors, elapsed);
+    }
+
+    /**
+     * 仮想ユーザ。
+     */
+    private final class VirtualUser implements Runnable {
+
+        /** 仮想ユーザの番号 */
+        private final int index;
+
+        /** プロセッサ */
+        private final RequestResponseProcessor processor;
+
+        /** オープンモデルでの全体の送信回数の採番に使用するシーケンス */
+        private final AtomicLong sequence;
+
+        /** 送信開始を待ち合わせるラッチ */
+        private final CountDownLatch startGate;
+
+        /** 終了を通知するラッチ */
+        private final CountDownLatch finished;
+
+        /** レイテンシの分布 */
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        /** 送信を開始した時刻（{@link System#nanoTime()}） */
+        private volatile long startTime;
+
+        /** 送信を終了する時刻（{@link System#nanoTime()}） */
+        private volatile long deadline;
+
+        /** 例外が発生したリクエスト数 */
+        private long errors;
+
+        /** 送信を中断させたエラー */
+        private Error failure;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param index     仮想ユーザの番号
+         * @param processor プロセッサ
+         * @param sequence  オープンモデルでの全体の送信回数の採番に使用するシーケンス
+         * @param startGate 送信開始を待ち合わせるラッチ
+         * @param finished  終了を通知するラッチ
+         */
+        VirtualUser(int index, RequestResponseProcessor processor, AtomicLong sequence,
+                    CountDownLatch startGate, CountDownLatch finished) {
+            this.index = index;
+            this.processor = processor;
+            this.sequence = sequence;
+            this.startGate = startGate;
+            this.finished = finished;
+        }
+
+        @Override
+        public void run() {
+            new CookieSession().activate();
+            try {
+                startGate.await();
+                if (arrivalRate > 0) {
+                    runOpenModel();
+                } else {
+                    runClosedModel();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Error e) {
+                failure = e;
+            } finally {
+                CookieSession.deactivate();
+                finished.countDown();
+            }
+        }
+
+        /**
+         * レスポンスを受け取る度に次のリクエストを送信する。
+         */
+        private void runClosedModel() {
+            for (long iteration = 0; !isFinished(iteration); iteration++) {
+                send(iteration, System.nanoTime());
+            }
+        }
+
+        /**
+         * 到着率から求めた予定送信時刻まで待機してリクエストを送信する。
+         * 予定送信時刻を過ぎている場合は待機せずに送信する。
+         */
+        private void runOpenModel() {
+            double intervalNanos = NANOS_PER_SECOND / arrivalRate;
+            long totalRequests = iterations * virtualUsers;
+            while (!Thread.currentThread().isInterrupted()) {
+                long seq = sequence.getAndIncrement();
+                if (totalRequests > 0 && seq >= totalRequests) {
+                    return;
+                }
+                long intendedStart = startTime + (long) (seq * intervalNanos);
+                if (durationNanos > 0 && intendedStart - deadline >= 0) {
+                    return;
+                }
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                }
+                send(seq, intendedStart);
+            }
+        }
+
+        /**
+         * リクエストを送信し、指定した時刻からのレイテンシを記録する。
+         *
+         * @param iteration 送信回数
+         * @param startTime レイテンシの計測を開始する時刻（{@link System#nanoTime()}）
+         */
+        private void send(long iteration, long startTime) {
+            try {
+                support.sendRequest(requestFactory.createRequest(index, iteration), processor);
+            } catch (RuntimeException e) {
+                errors++;
+            }
+            histogram.record(System.nanoTime() - startTime);
+        }
+
+        /**
+         * 送信を終了するか否か。
+         *
+         * @param iteration 次の送信回数
+         * @return 終了する場合は{@code true}
+         */
+        private boolean isFinished(long iteration) {
+            if (iterations > 0 && iteration >= iterations) {
+                return true;
+            }
+            return durationNanos > 0 && System.nanoTime() - deadline >= 0;
+        }
+    }
+}
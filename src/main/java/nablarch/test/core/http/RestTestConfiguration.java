@@ -1,11 +1,34 @@
 package nablarch.test.core.http;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * RESTfulウェブサービステスト向けの{@link HttpTestConfiguration}拡張クラス
  */
 public class RestTestConfiguration extends HttpTestConfiguration {
     /** {@link nablarch.fw.web.servlet.WebFrontController}のリポジトリキー */
     private String webFrontControllerKey = "webFrontController";
+    /** 内蔵サーバへの並行送信を許可するか否か */
+    private boolean concurrentRequestEnabled = false;
+    /** 内蔵サーバを使用せずハンドラキューを直接実行するか否か */
+    private boolean directDispatchEnabled = false;
+    /** 内蔵サーバをバックグラウンドで起動するか否か */
+    private boolean backgroundStartupEnabled = false;
+    /** 同時に保持する内蔵サーバの数の上限 */
+    private int maxServerCount = 3;
+    /** リクエスト送信の処理時間のレポートを出力するか否か */
+    private boolean timingReportEnabled = false;
+    /** リクエスト送信の処理時間のレポートの出力先ディレクトリ */
+    private String timingReportDirectory = "target";
+    /** 非同期送信に使用するスレッド数の上限 */
+    private int asyncRequestThreads = Runtime.getRuntime().availableProcessors();
+    /** ウォームアップで送信するリクエストURI */
+    private List<String> warmUpUris = new ArrayList<String>();
+    /** ウォームアップでリクエストを繰り返し送信する回数 */
+    private int warmUpCount = 1;
+    /** ウォームアップで送信するリクエストを生成する{@link WarmUpRequestProvider} */
+    private WarmUpRequestProvider warmUpRequestProvider;
 
     /**
      * webFrontControllerKey を取得する。
@@ -24,4 +47,247 @@ public class RestTestConfiguration extends HttpTestConfiguration {
     public void setWebFrontControllerKey(String webFrontControllerKey) {
         this.webFrontControllerKey = webFrontControllerKey;
     }
+
+    /**
+     * 内蔵サーバへの並行送信を許可するか否かを取得する。
+     *
+     * @return 並行送信を許可する場合は{@code true}
+     */
+    public boolean isConcurrentRequestEnabled() {
+        return concurrentRequestEnabled;
+    }
+
+    /**
+     * 内蔵サーバへの並行送信を許可するか否かを設定する。
+     * <p>
+     * デフォルトは{@code false}で、複数スレッドから送信されたリクエストは内蔵サーバへの受け渡しが直列化される。
+     * 内蔵サーバが複数スレッドからの同時呼び出しに対応している場合（Jetty9など）のみ{@code true}を設定すること。
+     * Jetty6は単一の接続を使い回すため、同時呼び出しには対応していない。
+     * </p>
+     *
+     * @param concurrentRequestEnabled 並行送信を許可する場合は{@code true}
+     */
+    public void setConcurrentRequestEnabled(boolean concurrentRequestEnabled) {
+        this.concurrentRequestEnabled = concurrentRequestEnabled;
+    }
+
+    /**
+     * 内蔵サーバをバックグラウンドで起動するか否かを取得する。
+     *
+     * @return バックグラウンドで起動する場合は{@code true}
+     */
+    public boolean isBackgroundStartupEnabled() {
+        return backgroundStartupEnabled;
+    }
+
+    /**
+     * 内蔵サーバをバックグラウンドで起動するか否かを設定する。
+     * <p>
+     * {@code true}を設定した場合、初回の{@code setUp}では内蔵サーバの起動（ウォームアップを含む）を
+     * 別スレッドで開始するだけで待ち合わせない。そのため、テストデータの読み込みやDBへの登録と並行して起動が行われる。
+     * リクエスト送信時に起動が完了していない場合は、完了するまで待機する。
+     * 起動に失敗した場合は、リクエスト送信時に例外が送出される。
+     * デフォルトは{@code false}。
+     * </p>
+     *
+     * @param backgroundStartupEnabled バックグラウンドで起動する場合は{@code true}
+     */
+    public void setBackgroundStartupEnabled(boolean backgroundStartupEnabled) {
+        this.backgroundStartupEnabled = backgroundStartupEnabled;
+    }
+
+    /**
+     * 同時に保持する内蔵サーバの数の上限を取得する。
+     *
+     * @return 同時に保持する内蔵サーバの数の上限
+     */
+    public int getMaxServerCount() {
+        return maxServerCount;
+    }
+
+    /**
+     * 同時に保持する内蔵サーバの数の上限を設定する。
+     * <p>
+     * 内蔵サーバはwebBaseDir、webFrontControllerKey、tempDirectory、directDispatchEnabled、
+     * concurrentRequestEnabled、ウォームアップの設定の組み合わせ毎に起動され、
+     * 設定の異なるテストクラスが交互に実行されても再起動せずに使い回される。
+     * 上限を超えた場合は、リクエストを送信中のものを除き、最も長く使用されていない内蔵サーバを停止する。
+     * デフォルトは3。
+     * </p>
+     *
+     * @param maxServerCount 同時に保持する内蔵サーバの数の上限
+     */
+    public void setMaxServerCount(int maxServerCount) {
+        if (maxServerCount < 1) {
+            throw new IllegalArgumentException("maxServerCount must be greater than 0. value=[" + maxServerCount + "].");
+        }
+        this.maxServerCount = maxServerCount;
+    }
+
+    /**
+     * リクエスト送信の処理時間のレポートを出力するか否かを取得する。
+     *
+     * @return レポートを出力する場合は{@code true}
+     */
+    public boolean isTimingReportEnabled() {
+        return timingReportEnabled;
+    }
+
+    /**
+     * リクエスト送信の処理時間のレポートを出力するか否かを設定する。
+     * <p>
+     * {@code true}を設定した場合、リクエスト送信の処理時間をテストメソッド毎に以下のフェーズに分けて集計し、
+     * JVMの終了時に{@link #getTimingReportDirectory()}へJSON形式（rest-test-timing.json）と
+     * CSV形式（rest-test-timing.csv）のレポートを出力する。
+     * </p>
+     * <ul>
+     *   <li>processRequest: {@link RequestResponseProcessor#processRequest(nablarch.fw.web.HttpRequest)}</li>
+     *   <li>serializeRequest: リクエストの直列化</li>
+     *   <li>handle: 内蔵サーバでの処理</li>
+     *   <li>processResponse: {@link RequestResponseProcessor#processResponse(nablarch.fw.web.HttpRequest, nablarch.fw.web.HttpResponse)}</li>
+     * </ul>
+     * <p>
+     * 直列化の処理時間は内蔵サーバに渡す前にリクエストを直列化して計測するため、
+     * 内蔵サーバ内で行われる直列化の処理時間はhandleに含まれる。
+     * デフォルトは{@code false}。
+     * </p>
+     *
+     * @param timingReportEnabled レポートを出力する場合は{@code true}
+     */
+    public void setTimingReportEnabled(boolean timingReportEnabled) {
+        this.timingReportEnabled = timingReportEnabled;
+    }
+
+    /**
+     * リクエスト送信の処理時間のレポートの出力先ディレクトリを取得する。
+     *
+     * @return レポートの出力先ディレクトリ
+     */
+    public String getTimingReportDirectory() {
+        return timingReportDirectory;
+    }
+
+    /**
+     * リクエスト送信の処理時間のレポートの出力先ディレクトリを設定する。
+     * 出力先ディレクトリが同じ設定を使用するテストの処理時間は、同じレポートに集計される。
+     * デフォルトは"target"。
+     *
+     * @param timingReportDirectory レポートの出力先ディレクトリ
+     */
+    public void setTimingReportDirectory(String timingReportDirectory) {
+        this.timingReportDirectory = timingReportDirectory;
+    }
+
+    /**
+     * 非同期送信に使用するスレッド数の上限を取得する。
+     *
+     * @return 非同期送信に使用するスレッド数の上限
+     */
+    public int getAsyncRequestThreads() {
+        return asyncRequestThreads;
+    }
+
+    /**
+     * 非同期送信に使用するスレッド数の上限を設定する。
+     * デフォルトは利用可能なプロセッサ数。
+     *
+     * @param asyncRequestThreads 非同期送信に使用するスレッド数の上限
+     */
+    public void setAsyncRequestThreads(int asyncRequestThreads) {
+        if (asyncRequestThreads < 1) {
+            throw new IllegalArgumentException("asyncRequestThreads must be greater than 0. value=[" + asyncRequestThreads + "].");
+        }
+        this.asyncRequestThreads = asyncRequestThreads;
+    }
+
+    /**
+     * 内蔵サーバを使用せずハンドラキューを直接実行するか否かを取得する。
+     *
+     * @return ハンドラキューを直接実行する場合は{@code true}
+     */
+    public boolean isDirectDispatchEnabled() {
+        return directDispatchEnabled;
+    }
+
+    /**
+     * 内蔵サーバを使用せずハンドラキューを直接実行するか否かを設定する。
+     * <p>
+     * {@code true}を設定した場合、{@link nablarch.fw.web.HttpServerFactory}で生成した内蔵サーバの代わりに
+     * {@link nablarch.fw.web.httpserver.HttpServerDirect}を使用し、ハンドラキューを呼び出し元のスレッドで直接実行する。
+     * サーブレットコンテナを経由しないため、リクエスト毎のオーバーヘッドを削減でき、並行送信も可能となる。
+     * また、{@link java.io.InputStream}や{@link java.util.Iterator}などのボディを、全体をメモリ上に保持せずに送信できる
+     * （内蔵サーバはリクエスト全体を文字列に変換して送信するため、ボディの全体がメモリ上に保持される）。
+     * デフォルトは{@code false}。
+     * </p>
+     *
+     * @param directDispatchEnabled ハンドラキューを直接実行する場合は{@code true}
+     */
+    public void setDirectDispatchEnabled(boolean directDispatchEnabled) {
+        this.directDispatchEnabled = directDispatchEnabled;
+    }
+
+    /**
+     * ウォームアップで送信するリクエストURIを取得する。
+     *
+     * @return ウォームアップで送信するリクエストURI
+     */
+    public List<String> getWarmUpUris() {
+        return warmUpUris;
+    }
+
+    /**
+     * ウォームアップで送信するリクエストURIを設定する。
+     * <p>
+     * 内蔵サーバの起動直後に、指定したURIへのGETリクエストを{@link #getWarmUpCount()}回ずつ送信する。
+     * ハンドラキューやリソースクラスの探索、ボディの変換処理を事前にJITコンパイルさせることで、
+     * 最初に実行されるテストのレスポンス時間だけが突出して長くなることを防ぐ。
+     * ウォームアップのレスポンスは検証しない。デフォルトは空で、ウォームアップは行わない。
+     * </p>
+     *
+     * @param warmUpUris ウォームアップで送信するリクエストURI
+     */
+    public void setWarmUpUris(List<String> warmUpUris) {
+        this.warmUpUris = warmUpUris;
+    }
+
+    /**
+     * ウォームアップでリクエストを繰り返し送信する回数を取得する。
+     *
+     * @return ウォームアップでリクエストを繰り返し送信する回数
+     */
+    public int getWarmUpCount() {
+        return warmUpCount;
+    }
+
+    /**
+     * ウォームアップでリクエストを繰り返し送信する回数を設定する。
+     * デフォルトは1。
+     *
+     * @param warmUpCount ウォームアップでリクエストを繰り返し送信する回数
+     */
+    public void setWarmUpCount(int warmUpCount) {
+        if (warmUpCount < 1) {
+            throw new IllegalArgumentException("warmUpCount must be greater than 0. value=[" + warmUpCount + "].");
+        }
+        this.warmUpCount = warmUpCount;
+    }
+
+    /**
+     * ウォームアップで送信するリクエストを生成する{@link WarmUpRequestProvider}を取得する。
+     *
+     * @return ウォームアップで送信するリクエストを生成する{@link WarmUpRequestProvider}
+     */
+    public WarmUpRequestProvider getWarmUpRequestProvider() {
+        return warmUpRequestProvider;
+    }
+
+    /**
+     * ウォームアップで送信するリクエストを生成する{@link WarmUpRequestProvider}を設定する。
+     * 生成されたリクエストは{@link #setWarmUpUris(List)}で指定したURIへのリクエストに続けて送信される。
+     *
+     * @param warmUpRequestProvider ウォームアップで送信するリクエストを生成する{@link WarmUpRequestProvider}
+     */
+    public void setWarmUpRequestProvider(WarmUpRequestProvider warmUpRequestProvider) {
+        this.warmUpRequestProvider = warmUpRequestProvider;
+    }
 }
@@ -11,6 +11,7 @@ import nablarch.fw.web.HttpResponse;
 import nablarch.fw.web.HttpServer;
 import nablarch.fw.web.HttpServerFactory;
 import nablarch.fw.web.ResourceLocator;
+import nablarch.fw.web.httpserver.HttpServerDirect;
 import nablarch.fw.web.RestMockHttpRequest;
 import nablarch.fw.web.RestMockHttpRequestBuilder;
 import nablarch.fw.web.servlet.WebFrontController;
@@ -28,7 +29,21 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 
@@ -46,17 +61,33 @@ public class SimpleRestTestSupport extends TestEventDispatcher {
     /** デフォルトプロセッサのリポジトリキー */
     private static final String DEFAULT_PROCESSOR_KEY = "defaultProcessor";
 
-    /** 内蔵サーバ */
-    private static HttpServer server;
-    /** テスト用ハンドラ */
-    private static HttpRequestTestSupportHandler handler;
+    /** テスト名が取得できない場合に使用するテスト名 */
+    private static final String UNKNOWN_TEST_NAME = "unknown";
 
-    /** 初期化済みか否か（static） */
-    private static boolean initialized = false;
+    /** 非同期送信スレッドのアイドル状態での保持時間（秒） */
+    private static final long ASYNC_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    /** 起動した内蔵サーバを保持するレジストリ */
+    private static final HttpServerRegistry SERVER_REGISTRY = new HttpServerRegistry();
+
+    /** 非同期送信に使用する{@link ExecutorService}（スレッド数の上限をキーとする） */
+    private static final ConcurrentMap<Integer, ExecutorService> ASYNC_EXECUTORS =
+            new ConcurrentHashMap<Integer, ExecutorService>();
+
+    /** リクエスト送信の処理時間のレポート（出力先ディレクトリの絶対パスをキーとする） */
+    private static final ConcurrentMap<String, RequestTimingReport> TIMING_REPORTS =
+            new ConcurrentHashMap<String, RequestTimingReport>();
+    /** レポートを出力するシャットダウンフックを登録済みか否か */
+    private static final AtomicBoolean TIMING_REPORT_HOOK_REGISTERED = new AtomicBoolean(false);
 
     /** デフォルトのプロセッサ **/
     private RequestResponseProcessor defaultProcessor;
 
+    /** 設定定義 */
+    private volatile RestTestConfiguration config;
+    /** 設定に対応する内蔵サーバの起動処理 */
+    private volatile FutureTask<EmbeddedServer> serverTask;
+
     /** リクエスト・レスポンスともに何もしないプロセッサ **/
     private static final RequestResponseProcessor NOP_PROCESSOR = new RequestResponseProcessor() {
         @Override
@@ -85,7 +116,7 @@ public class SimpleRestTestSupport extends TestEventDispatcher {
     public void setUp() {
         setupDefaultProcessor();
         // HTTPテスト実行用設定情報の取得
-        RestTestConfiguration config = SystemRepository.get(REST_TEST_CONFIGURATION_KEY);
+        config = SystemRepository.get(REST_TEST_CONFIGURATION_KEY);
         initializeIfNotYet(config);
     }
 
@@ -198,6 +229,143 @@ public class SimpleRestTestSupport extends TestEventDispatcher {
         return sendRequestWithContext(request, new ExecutionContext(), processor);
     }
 
+    /**
+     * テストリクエストを非同期で内蔵サーバに渡す。
+     *
+     * @param request テストリクエスト
+     * @return 内蔵サーバのレスポンスを取得するための{@link Future}
+     * @see #sendRequestAsync(HttpRequest, RequestResponseProcessor)
+     */
+    public Future<HttpResponse> sendRequestAsync(HttpRequest request) {
+        return sendRequestAsync(request, defaultProcessor);
+    }
+
+    /**
+     * テストリクエストを非同期で内蔵サーバに渡す。
+     * <p>
+     * リクエストは{@link RestTestConfiguration#getAsyncRequestThreads()}で指定した数を上限とする
+     * スレッドで送信される。Java 21以降では仮想スレッドが使用される。
+     * </p>
+     * <p>
+     * 同じプロセッサーを複数の非同期送信で共有した場合、プロセッサーの内部状態も共有される点に注意すること。
+     * </p>
+     *
+     * @param request   テストリクエスト
+     * @param processor リクエスト・レスポンスに追加処理を実行するプロセッサー
+     * @return 内蔵サーバのレスポンスを取得するための{@link Future}
+     */
+    public Future<HttpResponse> sendRequestAsync(final HttpRequest request, final RequestResponseProcessor processor) {
+        return getAsyncExecutor().submit(new Callable<HttpResponse>() {
+            @Override
+            public HttpResponse call() {
+                return sendRequest(request, processor);
+            }
+        });
+    }
+
+    /**
+     * 複数のテストリクエストを並行して内蔵サーバに渡す。
+     *
+     * @param requests テストリクエスト
+     * @return 一括送信の結果
+     * @see #sendRequests(List, RequestResponseProcessor, int)
+     */
+    public RestBatchResult sendRequests(List<? extends HttpRequest> requests) {
+        return sendRequests(requests, defaultProcessor);
+    }
+
+    /**
+     * 複数のテストリクエストを並行して内蔵サーバに渡す。
+     * 並行数は{@link RestTestConfiguration#getAsyncRequestThreads()}とする。
+     *
+     * @param requests  テストリクエスト
+     * @param processor リクエスト・レスポンスに追加処理を実行するプロセッサー
+     * @return 一括送信の結果
+     * @see #sendRequests(List, RequestResponseProcessor, int)
+     */
+    public RestBatchResult sendRequests(List<? extends HttpRequest> requests, RequestResponseProcessor processor) {
+        return sendRequests(requests, processor, config.getAsyncRequestThreads());
+    }
+
+    /**
+     * 複数のテストリクエストを並行して内蔵サーバに渡す。
+     * <p>
+     * 呼び出し元のスレッドと非同期送信のスレッドで、指定した並行数を上限としてリクエストを先頭から順に送信し、
+     * すべての送信が完了するまで待機する。非同期送信のスレッドは{@link #sendRequestAsync(HttpRequest)}と共有するため、
+     * 実際の並行数は{@link RestTestConfiguration#getAsyncRequestThreads()}に1を加えた数を超えない。
+     * </p>
+     * <p>
+     * 結果はリクエストと同じ順序で返す。
+     * 送信中に例外が発生しても残りのリクエストの送信は継続し、発生した例外は結果に格納する。
+     * 例外の有無は{@link RestBatchResult#assertNoFailures()}などで確認すること。
+     * </p>
+     * <p>
+     * プロセッサーはすべてのリクエストで共有されるため、複数スレッドから同時に呼び出される点に注意すること。
+     * 送信順序に依存するリクエスト（前のリクエストの結果を使用するリクエストなど）には使用しないこと。
+     * </p>
+     *
+     * @param requests    テストリクエスト
+     * @param processor   リクエスト・レスポンスに追加処理を実行するプロセッサー
+     * @param parallelism 並行数の上限
+     * @return 一括送信の結果
+     */
+    public RestBatchResult sendRequests(final List<? extends HttpRequest> requests,
+                                        final RequestResponseProcessor processor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0. value=[" + parallelism + "].");
+        }
+        final int size = requests.size();
+        final HttpResponse[] responses = new HttpResponse[size];
+        final Throwable[] failures = new Throwable[size];
+        final long[] elapsedNanos = new long[size];
+        final AtomicInteger nextIndex = new AtomicInteger();
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = nextIndex.getAndIncrement(); i < size; i = nextIndex.getAndIncrement()) {
+                    long start = System.nanoTime();
+                    try {
+                        responses[i] = sendRequest(requests.get(i), processor);
+                    } catch (Throwable e) {
+                        failures[i] = e;
+                    }
+                    elapsedNanos[i] = System.nanoTime() - start;
+                }
+            }
+        };
+
+        long start = System.nanoTime();
+        int workers = Math.min(parallelism, size);
+        List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+        ExecutorService asyncExecutor = getAsyncExecutor();
+        for (int i = 1; i < workers; i++) {
+            futures.add(asyncExecutor.submit(worker));
+        }
+        // 呼び出し元のスレッドも送信に参加する（非同期送信のスレッドが埋まっていても処理が進むようにするため）
+        worker.run();
+        for (Future<?> future : futures) {
+            awaitWorker(future);
+        }
+        return new RestBatchResult(responses, failures, elapsedNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * 一括送信のワーカーの終了を待機する。
+     * リクエスト毎の例外はワーカー内で結果に格納するため、ここでは待機の中断のみを扱う。
+     *
+     * @param future ワーカーの{@link Future}
+     */
+    private static void awaitWorker(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for the requests to complete.", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     /**
      * {@link ExecutionContext}を設定しテストリクエストを内蔵サーバに渡しレスポンスを返す。
      * {@link ExecutionContext}の設定は{@link HttpRequestTestSupportHandler}を利用する。
@@ -223,54 +391,289 @@ public class SimpleRestTestSupport extends TestEventDispatcher {
      */
     public HttpResponse sendRequestWithContext(HttpRequest request, ExecutionContext context,
                                                RequestResponseProcessor processor) {
+        // 差し替えはテスト単位で有効となるため、非同期送信でも送信元のテストの差し替えを使用する
+        HandlerQueueOverride override = HandlerQueueOverride.find(
+                testDescription.getTestClass(), testDescription.getMethodName());
+        EmbeddedServer embeddedServer = enterServer();
+        try {
+            if (!config.isTimingReportEnabled()) {
+                request = processor.processRequest(request);
+                HttpResponse response = embeddedServer.handle(request, context, override);
+                return processor.processResponse(request, response);
+            }
+            return sendRequestWithTiming(embeddedServer, request, context, processor, override);
+        } finally {
+            embeddedServer.exit();
+        }
+    }
+
+    /**
+     * 処理時間を記録しながらテストリクエストを内蔵サーバに渡しレスポンスを返す。
+     *
+     * @param embeddedServer 内蔵サーバ
+     * @param request        テストリクエスト
+     * @param context        実行コンテキスト
+     * @param processor      リクエスト・レスポンスに追加処理を実行するプロセッサー
+     * @param override       有効なハンドラキューの差し替え。存在しない場合は{@code null}
+     * @return 内蔵サーバのレスポンス
+     */
+    private HttpResponse sendRequestWithTiming(EmbeddedServer embeddedServer, HttpRequest request,
+                                               ExecutionContext context, RequestResponseProcessor processor,
+                                               HandlerQueueOverride override) {
+        long start = System.nanoTime();
         request = processor.processRequest(request);
-        handler.setContext(context);
-        HttpResponse response = server.handle(request, context);
-        return processor.processResponse(request, response);
+        long processed = System.nanoTime();
+        // 直列化の処理時間を計測する（内蔵サーバに渡す複製では、ここで直列化したボディが共有される）
+        // ストリームで書き出すボディは1度しか読み込めないため、内蔵サーバでの処理時間に含める
+        if (!(request instanceof RestMockHttpRequest) || !((RestMockHttpRequest) request).isStreamingBody()) {
+            request.toString();
+        }
+        long serialized = System.nanoTime();
+        HttpResponse response = embeddedServer.handle(request, context, override);
+        long handled = System.nanoTime();
+        response = processor.processResponse(request, response);
+        long end = System.nanoTime();
+        getTimingReport().record(getTestName(), processed - start, serialized - processed,
+                handled - serialized, end - handled);
+        return response;
     }
 
     /**
-     * 初回の場合、内臓サーバを起動する。
+     * 実行中のテストの名前を"クラス名#メソッド名"の形式で取得する。
+     *
+     * @return テストの名前
+     */
+    private String getTestName() {
+        Class<?> testClass = testDescription.getTestClass();
+        if (testClass == null) {
+            return UNKNOWN_TEST_NAME;
+        }
+        return testClass.getName() + '#' + testDescription.getMethodName();
+    }
+
+    /**
+     * 設定に対応する内蔵サーバを取得する。
+     * 内蔵サーバが起動していない場合は起動する。
+     * バックグラウンド起動が有効な場合は、別スレッドで起動を開始し完了を待たずに返る。
+     * <p>
+     * 取得した内蔵サーバはこのインスタンスで保持するため、
+     * 設定の異なるテストクラスを並行して実行しても、それぞれの設定に対応する内蔵サーバが使用される。
+     * </p>
      *
      * @param config 設定定義
      */
-    private static void initializeIfNotYet(RestTestConfiguration config) {
-        if (!initialized) {
-            createHttpServer(config);
-            initialized = true;
+    private void initializeIfNotYet(RestTestConfiguration config) {
+        serverTask = acquireServer(config);
+        if (!config.isBackgroundStartupEnabled()) {
+            awaitStartup();
+        }
+    }
+
+    /**
+     * 設定に対応する内蔵サーバの起動処理をレジストリから取得する。
+     *
+     * @param config 設定定義
+     * @return 内蔵サーバの起動処理
+     */
+    private static FutureTask<EmbeddedServer> acquireServer(final RestTestConfiguration config) {
+        return SERVER_REGISTRY.acquire(config, new Callable<EmbeddedServer>() {
+            @Override
+            public EmbeddedServer call() {
+                return createHttpServer(config);
+            }
+        });
+    }
+
+    /**
+     * 内蔵サーバを取得し、リクエストの送信を開始する。
+     * 保持数の上限を超えたことなどにより内蔵サーバが破棄されていた場合は、レジストリから取得し直す。
+     * 送信の完了後は{@link EmbeddedServer#exit()}を呼び出すこと。
+     *
+     * @return 送信を開始した内蔵サーバ
+     */
+    private EmbeddedServer enterServer() {
+        while (true) {
+            EmbeddedServer embeddedServer = awaitStartup();
+            if (embeddedServer.enter()) {
+                return embeddedServer;
+            }
+            serverTask = acquireServer(config);
+        }
+    }
+
+    /**
+     * 非同期送信に使用する{@link ExecutorService}を取得する。
+     * スレッド数の上限が同じ設定では、同じ{@link ExecutorService}を共有する。
+     *
+     * @return 非同期送信に使用する{@link ExecutorService}
+     */
+    private ExecutorService getAsyncExecutor() {
+        int threads = config.getAsyncRequestThreads();
+        ExecutorService executor = ASYNC_EXECUTORS.get(threads);
+        if (executor != null) {
+            return executor;
+        }
+        ExecutorService created = createAsyncExecutor(threads);
+        executor = ASYNC_EXECUTORS.putIfAbsent(threads, created);
+        if (executor != null) {
+            created.shutdown();
+            return executor;
+        }
+        return created;
+    }
+
+    /**
+     * 設定の出力先ディレクトリに対応するリクエスト送信の処理時間のレポートを取得する。
+     * 出力先ディレクトリが同じ設定では、同じレポートに記録する。
+     *
+     * @return リクエスト送信の処理時間のレポート
+     */
+    private RequestTimingReport getTimingReport() {
+        String directory = new File(config.getTimingReportDirectory()).getAbsolutePath();
+        RequestTimingReport report = TIMING_REPORTS.get(directory);
+        if (report != null) {
+            return report;
+        }
+        RequestTimingReport created = new RequestTimingReport();
+        report = TIMING_REPORTS.putIfAbsent(directory, created);
+        if (report != null) {
+            return report;
+        }
+        registerTimingReportHookIfNotYet();
+        return created;
+    }
+
+    /**
+     * JVMの終了時にリクエスト送信の処理時間のレポートを出力先ディレクトリ毎に出力するシャットダウンフックを登録する。
+     */
+    private static void registerTimingReportHookIfNotYet() {
+        if (!TIMING_REPORT_HOOK_REGISTERED.compareAndSet(false, true)) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (Map.Entry<String, RequestTimingReport> entry : TIMING_REPORTS.entrySet()) {
+                    if (!entry.getValue().isEmpty()) {
+                        entry.getValue().writeQuietly(new File(entry.getKey()));
+                    }
+                }
+            }
+        }, "rest-test-timing-report"));
+    }
+
+    /**
+     * 内蔵サーバの起動の完了を待機し、起動した内蔵サーバを返す。
+     * 起動に失敗していた場合は、起動時に発生した例外を送出する。
+     *
+     * @return 内蔵サーバ
+     */
+    private EmbeddedServer awaitStartup() {
+        try {
+            return serverTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for the http server to start.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
         }
     }
 
     /**
      * キャッシュした HttpServer をリセットする。
+     * 起動済みの内蔵サーバは全て停止する。
      */
-    public static void resetHttpServer() {
-        if (initialized) {
-            server = null;
-            initialized = false;
+    public static synchronized void resetHttpServer() {
+        SERVER_REGISTRY.shutdown();
+        for (Iterator<ExecutorService> iterator = ASYNC_EXECUTORS.values().iterator(); iterator.hasNext(); ) {
+            iterator.next().shutdown();
+            iterator.remove();
         }
     }
 
     /**
-     * HttpServerを生成する。
+     * HttpServerを生成し起動する。
      *
      * @param config 設定定義
+     * @return 起動した内蔵サーバ
      */
-    private static void createHttpServer(RestTestConfiguration config) {
+    private static EmbeddedServer createHttpServer(RestTestConfiguration config) {
         // HTTPサーバ生成
-        server = createHttpServer();
+        HttpServer server = config.isDirectDispatchEnabled() ? new HttpServerDirect() : createHttpServer();
         // HttpTestConfigurationの値を設定する
         server.setTempDirectory(config.getTempDirectory());
         server.setWarBasePaths(getWarBasePaths(config));
         // サーバ起動
         server.startLocal();
-        handler = new HttpRequestTestSupportHandler(config);
+        RequestScopedTestSupportHandler handler = new RequestScopedTestSupportHandler(config);
+        Object lock = config.isConcurrentRequestEnabled() || config.isDirectDispatchEnabled() ? null : new Object();
 
-        // ハンドラキューの準備
+        // ハンドラキューの準備（HandlerQueueOverrideによる差し替えに備え、リクエスト毎にハンドラキューを選択する）
         WebFrontController controller = SystemRepository.get(config.getWebFrontControllerKey());
-        List<Handler> handlerQueue = new ArrayList<Handler>(controller.getHandlerQueue());
+        HandlerQueueSwitchHandler switchHandler = new HandlerQueueSwitchHandler(controller.getHandlerQueue(), handler);
+        List<Handler> handlerQueue = switchHandler.toHandlerQueue();
         handler.register(handlerQueue);
         server.setHandlerQueue(handlerQueue);
+
+        EmbeddedServer embeddedServer = new EmbeddedServer(server, handler, lock);
+        warmUp(config, embeddedServer);
+        return embeddedServer;
+    }
+
+    /**
+     * 設定されたリクエストを内蔵サーバに送信し、ウォームアップを行う。
+     * ウォームアップのレスポンスは検証しない。
+     *
+     * @param config         設定定義
+     * @param embeddedServer 内蔵サーバ
+     */
+    private static void warmUp(RestTestConfiguration config, EmbeddedServer embeddedServer) {
+        List<String> uris = config.getWarmUpUris();
+        WarmUpRequestProvider provider = config.getWarmUpRequestProvider();
+        if ((uris == null || uris.isEmpty()) && provider == null) {
+            return;
+        }
+        RestMockHttpRequestBuilder requestBuilder = SystemRepository.get(HTTP_REQUEST_BUILDER_KEY);
+        if (requestBuilder == null) {
+            throw new IllegalConfigurationException(createNoComponentMessage(HTTP_REQUEST_BUILDER_KEY));
+        }
+        for (int i = 0; i < config.getWarmUpCount(); i++) {
+            // 一度しか送信できないボディを持つリクエストもあるため、毎回生成する
+            List<HttpRequest> requests = new ArrayList<HttpRequest>();
+            if (uris != null) {
+                for (String uri : uris) {
+                    requests.add(requestBuilder.get(uri));
+                }
+            }
+            if (provider != null) {
+                requests.addAll(provider.createRequests(requestBuilder));
+            }
+            for (HttpRequest request : requests) {
+                embeddedServer.handle(request, new ExecutionContext(), null);
+            }
+        }
+    }
+
+    /**
+     * 非同期送信に使用する{@link ExecutorService}を生成する。
+     * アイドル状態のスレッドは一定時間後に破棄する。
+     *
+     * @param threads スレッド数の上限
+     * @return 非同期送信に使用する{@link ExecutorService}
+     */
+    private static ExecutorService createAsyncExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                ASYNC_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new RequestThreadFactory("rest-test-async-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -0,0 +1,30 @@
+package nablarch.test.core.http;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.RestMockHttpRequestBuilder;
+
+import java.util.List;
+
+/**
+ * 内蔵サーバのウォームアップで送信するリクエストを生成するインターフェース。
+ * <p>
+ * URIの指定だけでは表現できないリクエスト（ボディやヘッダーを持つリクエストなど）で
+ * ウォームアップを行う場合に実装し、{@link RestTestConfiguration#setWarmUpRequestProvider(WarmUpRequestProvider)}に設定する。
+ * </p>
+ */
+@Published
+public interface WarmUpRequestProvider {
+
+    /**
+     * ウォームアップで送信するリクエストを生成する。
+     * <p>
+     * 返却したリクエストは{@link RestTestConfiguration#getWarmUpCount()}回繰り返し送信されるため、
+     * 送信しても状態が変化しないリクエストを返すこと。
+     * </p>
+     *
+     * @param builder リクエストの生成に使用する{@link RestMockHttpRequestBuilder}
+     * @return ウォームアップで送信するリクエスト
+     */
+    List<HttpRequest> createRequests(RestMockHttpRequestBuilder builder);
+}
@@ -0,0 +1,39 @@
+package nablarch.fw.web.httpserver;
+
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link HttpServerDirect}でリクエストボディを読み込むための{@link ServletInputStream}。
+ * Servlet API 2.5向けの実装。
+ */
+class DirectServletInputStream extends ServletInputStream {
+
+    /** リクエストボディ */
+    private final InputStream in;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param in リクエストボディ
+     */
+    DirectServletInputStream(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return in.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return in.read(b, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return in.available();
+    }
+}
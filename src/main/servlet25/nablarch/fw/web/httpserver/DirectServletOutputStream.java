@@ -0,0 +1,33 @@
+package nablarch.fw.web.httpserver;
+
+import javax.servlet.ServletOutputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * {@link HttpServerDirect}でレスポンスボディを書き込むための{@link ServletOutputStream}。
+ * Servlet API 2.5向けの実装。
+ */
+class DirectServletOutputStream extends ServletOutputStream {
+
+    /** 書き込み先 */
+    private final ByteArrayOutputStream out;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param out 書き込み先
+     */
+    DirectServletOutputStream(ByteArrayOutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        out.write(b, off, len);
+    }
+}
@@ -0,0 +1,64 @@
+package nablarch.fw.web.httpserver;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link HttpServerDirect}でリクエストボディを読み込むための{@link ServletInputStream}。
+ * Servlet API 3.1向けの実装。ノンブロッキングI/Oはサポートしない。
+ */
+class DirectServletInputStream extends ServletInputStream {
+
+    /** リクエストボディ */
+    private final InputStream in;
+
+    /** 終端まで読み込んだ場合は{@code true} */
+    private boolean finished;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param in リクエストボディ
+     */
+    DirectServletInputStream(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = in.read();
+        finished = read == -1;
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = in.read(b, off, len);
+        finished = read == -1;
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return in.available();
+    }
+
+    @Override
+    public boolean isFinished() {
+        // メモリ上のボディは、終端を読み込む前でも残りのバイト数で判定できる
+        return finished || in instanceof ByteArrayInputStream && ((ByteArrayInputStream) in).available() == 0;
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+        throw new UnsupportedOperationException("non-blocking I/O is not supported in direct dispatch mode.");
+    }
+}
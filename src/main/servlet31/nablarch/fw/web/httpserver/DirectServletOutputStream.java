@@ -0,0 +1,44 @@
+package nablarch.fw.web.httpserver;
+
+import javax.servlet.WriteListener;
+import javax.servlet.ServletOutputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * {@link HttpServerDirect}でレスポンスボディを書き込むための{@link ServletOutputStream}。
+ * Servlet API 3.1向けの実装。ノンブロッキングI/Oはサポートしない。
+ */
+class DirectServletOutputStream extends ServletOutputStream {
+
+    /** 書き込み先 */
+    private final ByteArrayOutputStream out;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param out 書き込み先
+     */
+    DirectServletOutputStream(ByteArrayOutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+        throw new UnsupportedOperationException("non-blocking I/O is not supported in direct dispatch mode.");
+    }
+}
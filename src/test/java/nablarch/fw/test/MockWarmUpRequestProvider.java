@@ -0,0 +1,19 @@
+package nablarch.fw.test;
+
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.RestMockHttpRequestBuilder;
+import nablarch.test.core.http.WarmUpRequestProvider;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * テスト用の{@link WarmUpRequestProvider}実装。
+ * "/warm-up/provider"へのPOSTリクエストを返す。
+ */
+public class MockWarmUpRequestProvider implements WarmUpRequestProvider {
+    @Override
+    public List<HttpRequest> createRequests(RestMockHttpRequestBuilder builder) {
+        return Collections.<HttpRequest>singletonList(builder.post("/warm-up/provider"));
+    }
+}
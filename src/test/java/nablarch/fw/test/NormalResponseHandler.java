@@ -8,12 +8,18 @@ import nablarch.fw.web.HttpResponse;
 /**
  * ユニットテスト用ハンドラ。
  * 常にHTTPステータス 200 OK を返す。
+ * リクエストスコープに"echo"が設定されている場合は、その値を"X-Echo"ヘッダーに設定する。
  */
 public class NormalResponseHandler implements HttpRequestHandler {
     @Override
     public HttpResponse handle(HttpRequest httpRequest, ExecutionContext executionContext) {
         HttpResponse response = new HttpResponse(200);
         response.setHeader("Set-Cookie", "NABLARCH_SID=XXXXXX");
+        Object echo = executionContext.getRequestScopedVar("echo");
+        if (echo != null) {
+            response.setHeader("X-Echo", echo.toString());
+            executionContext.setRequestScopedVar("echoed", echo);
+        }
         return response;
     }
 }
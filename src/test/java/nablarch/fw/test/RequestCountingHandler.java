@@ -0,0 +1,52 @@
+package nablarch.fw.test;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ユニットテスト用ハンドラ。
+ * リクエストURI毎に処理したリクエストの件数を記録し、後続のハンドラに処理を委譲する。
+ */
+public class RequestCountingHandler implements Handler<HttpRequest, HttpResponse> {
+
+    /** リクエストURI毎の件数 */
+    private static final ConcurrentMap<String, AtomicInteger> COUNTS = new ConcurrentHashMap<String, AtomicInteger>();
+
+    @Override
+    public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+        AtomicInteger count = COUNTS.get(request.getRequestUri());
+        if (count == null) {
+            AtomicInteger newCount = new AtomicInteger();
+            count = COUNTS.putIfAbsent(request.getRequestUri(), newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+        return context.handleNext(request);
+    }
+
+    /**
+     * 指定したリクエストURIで処理したリクエストの件数を取得する。
+     *
+     * @param uri リクエストURI
+     * @return 件数
+     */
+    public static int getCount(String uri) {
+        AtomicInteger count = COUNTS.get(uri);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 記録した件数をクリアする。
+     */
+    public static void clear() {
+        COUNTS.clear();
+    }
+}
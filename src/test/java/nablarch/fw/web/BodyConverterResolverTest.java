@@ -0,0 +1,100 @@
+package nablarch.fw.web;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link BodyConverterResolver}のテストクラス。
+ */
+public class BodyConverterResolverTest {
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    /**
+     * キャッシュが有効な場合、ボディのクラスとMIMEタイプの組み合わせ毎に1度だけ判定されることを確認する。
+     * MIMEタイプのパラメータはキーに含まれないことを確認する。
+     */
+    @Test
+    public void testResolveCached() {
+        CountingConverter string = new CountingConverter(String.class, "text/plain");
+        CountingConverter json = new CountingConverter(Object.class, "application/json");
+        BodyConverterResolver sut = new BodyConverterResolver(
+                Arrays.<RestTestBodyConverter>asList(string, json), true);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(sut.resolve("a", mediaType("text/plain; charset=UTF-8")), is((RestTestBodyConverter) string));
+            assertThat(sut.resolve("b", mediaType("text/plain")), is((RestTestBodyConverter) string));
+            assertThat(sut.resolve("c", mediaType("application/json")), is((RestTestBodyConverter) json));
+            assertThat(sut.resolve(1, mediaType("application/json")), is((RestTestBodyConverter) json));
+        }
+        // String/text/plain, String/application/json, Integer/application/json の3通り
+        assertThat(string.count, is(3));
+        assertThat(json.count, is(2));
+    }
+
+    /**
+     * キャッシュが無効な場合、毎回判定されることを確認する。
+     */
+    @Test
+    public void testResolveWithoutCache() {
+        CountingConverter string = new CountingConverter(String.class, "text/plain");
+        BodyConverterResolver sut = new BodyConverterResolver(
+                Collections.<RestTestBodyConverter>singletonList(string), false);
+        for (int i = 0; i < 3; i++) {
+            assertThat(sut.resolve("a", mediaType("text/plain")), is(sameInstance((RestTestBodyConverter) string)));
+        }
+        assertThat(string.count, is(3));
+    }
+
+    /**
+     * 変換可能な{@link RestTestBodyConverter}が存在しない場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testUnsupported() {
+        BodyConverterResolver sut = new BodyConverterResolver(
+                Collections.<RestTestBodyConverter>singletonList(new CountingConverter(String.class, "text/plain")), true);
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("unsupported media type requested. MIME type = [ application/xml ]");
+        sut.resolve("a", mediaType("application/xml"));
+    }
+
+    private static RestTestBodyConverter.MediaType mediaType(String contentType) {
+        return new RestTestBodyConverter.MediaType(contentType);
+    }
+
+    /**
+     * 判定回数を数える{@link RestTestBodyConverter}。
+     */
+    private static final class CountingConverter implements RestTestBodyConverter {
+
+        private final Class<?> type;
+
+        private final String mimeType;
+
+        private int count;
+
+        CountingConverter(Class<?> type, String mimeType) {
+            this.type = type;
+            this.mimeType = mimeType;
+        }
+
+        @Override
+        public boolean isConvertible(Object body, MediaType mediaType) {
+            count++;
+            return type.isInstance(body) && mimeType.equals(mediaType.toString());
+        }
+
+        @Override
+        public String convert(Object body, MediaType mediaType) {
+            return String.valueOf(body);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package nablarch.fw.web;
+
+import nablarch.fw.web.RestTestBodyConverter.MediaType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link FileBodyConverter}のテストクラス。
+ */
+public class FileBodyConverterTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final FileBodyConverter sut = new FileBodyConverter();
+    private final MediaType octetStream = new MediaType("application/octet-stream");
+
+    /**
+     * {@link FileBodyConverter#isConvertible(Object, MediaType)}のテスト。
+     */
+    @Test
+    public void testIsConvertible() throws IOException {
+        File file = temporaryFolder.newFile();
+        assertTrue(sut.isConvertible(file, octetStream));
+        assertTrue(sut.isConvertible(file.toPath(), octetStream));
+        assertFalse(sut.isConvertible("body", octetStream));
+        assertFalse(sut.isConvertible(new ByteArrayInputStream(new byte[0]), octetStream));
+    }
+
+    /**
+     * {@link FileBodyConverter#getContentLength(Object, MediaType)}のテスト。
+     * ファイルのサイズが返されることを確認する。
+     */
+    @Test
+    public void testGetContentLength() throws IOException {
+        Path path = createFile(12345);
+        assertEquals(12345L, sut.getContentLength(path, octetStream));
+        assertEquals(12345L, sut.getContentLength(path.toFile(), octetStream));
+    }
+
+    /**
+     * {@link FileBodyConverter#write(Object, MediaType, Charset, java.io.OutputStream)}のテスト。
+     * ファイルの内容がそのまま書き出されることを確認する。
+     */
+    @Test
+    public void testWrite() throws IOException {
+        Path path = createFile(20000);
+        ByteArrayOutputStream fromFile = new ByteArrayOutputStream();
+        sut.write(path.toFile(), octetStream, Charset.forName("UTF-8"), fromFile);
+        assertArrayEquals(Files.readAllBytes(path), fromFile.toByteArray());
+
+        ByteArrayOutputStream fromPath = new ByteArrayOutputStream();
+        sut.write(path, octetStream, Charset.forName("UTF-8"), fromPath);
+        assertArrayEquals(Files.readAllBytes(path), fromPath.toByteArray());
+    }
+
+    /**
+     * {@link FileBodyConverter#transferTo(Object, MediaType, java.nio.channels.WritableByteChannel)}のテスト。
+     * ファイルの内容がそのまま転送されることを確認する。
+     */
+    @Test
+    public void testTransferTo() throws IOException {
+        Path path = createFile(20000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.transferTo(path.toFile(), octetStream, Channels.newChannel(out));
+        assertArrayEquals(Files.readAllBytes(path), out.toByteArray());
+    }
+
+    /**
+     * {@link FileBodyConverter#convert(Object, MediaType)}のテスト。
+     * Content-Typeのcharsetで文字列に変換されることを確認する。
+     */
+    @Test
+    public void testConvert() throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), "テスト".getBytes("Shift_JIS"));
+        assertEquals("テスト", sut.convert(file, new MediaType("text/plain; charset=Shift_JIS")));
+    }
+
+    /**
+     * テスト用のファイルを作成する。
+     *
+     * @param size バイト数
+     * @return ファイル
+     */
+    private Path createFile(int size) throws IOException {
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = (byte) i;
+        }
+        Path path = temporaryFolder.newFile().toPath();
+        Files.write(path, body);
+        return path;
+    }
+}
@@ -0,0 +1,157 @@
+package nablarch.fw.web;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link HeaderMap}のテストクラス。
+ */
+public class HeaderMapTest {
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    /**
+     * ヘッダ名の大文字・小文字を区別せずに取得・上書きできることを確認する。
+     * 上書きしてもヘッダ名と位置は最初に設定したものが維持されることを確認する。
+     */
+    @Test
+    public void testCaseInsensitive() {
+        HeaderMap sut = new HeaderMap();
+        sut.put("Content-Type", "text/plain");
+        sut.put("X-Test", "a");
+        assertThat(sut.get("content-type"), is("text/plain"));
+        assertThat(sut.containsKey("CONTENT-TYPE"), is(true));
+        assertThat(sut.put("content-TYPE", "application/json"), is("text/plain"));
+        assertThat(sut.size(), is(2));
+        assertThat(sut.nameAt(0), is("Content-Type"));
+        assertThat(sut.valueAt(0), is("application/json"));
+        assertThat(sut.get(1), is(nullValue()));
+    }
+
+    /**
+     * 同じ名前のヘッダを追加順に複数保持できることを確認する。
+     * {@link HeaderMap#put(String, String)}で設定すると、最初のヘッダ以外は削除されることを確認する。
+     */
+    @Test
+    public void testAdd() {
+        HeaderMap sut = new HeaderMap();
+        sut.add("Accept", "a");
+        sut.add("X-Test", "x");
+        sut.add("accept", "b");
+        assertThat(sut.count(), is(3));
+        assertThat(sut.size(), is(2));
+        assertThat(sut.get("ACCEPT"), is("a"));
+        assertThat(sut.getAll("Accept"), is(Arrays.asList("a", "b")));
+        assertThat(sut.getAll("X-None").isEmpty(), is(true));
+
+        sut.put("Accept", "c");
+        assertThat(sut.count(), is(2));
+        assertThat(sut.getAll("accept"), is(Collections.singletonList("c")));
+        assertThat(sut.nameAt(1), is("X-Test"));
+    }
+
+    /**
+     * 配列の初期サイズを超えてヘッダを追加できることを確認する。
+     */
+    @Test
+    public void testGrow() {
+        HeaderMap sut = new HeaderMap();
+        for (int i = 0; i < 20; i++) {
+            sut.add("X-" + i, String.valueOf(i));
+        }
+        assertThat(sut.count(), is(20));
+        assertThat(sut.get("x-19"), is("19"));
+    }
+
+    /**
+     * 削除すると、同じ名前のヘッダがすべて削除され、他のヘッダの順序は維持されることを確認する。
+     */
+    @Test
+    public void testRemove() {
+        HeaderMap sut = new HeaderMap();
+        sut.add("A", "1");
+        sut.add("B", "2");
+        sut.add("a", "3");
+        sut.add("C", "4");
+        assertThat(sut.remove("a"), is("1"));
+        assertThat(sut.remove("none"), is(nullValue()));
+        assertThat(sut.count(), is(2));
+        assertThat(sut.nameAt(0), is("B"));
+        assertThat(sut.nameAt(1), is("C"));
+
+        sut.clear();
+        assertThat(sut.isEmpty(), is(true));
+    }
+
+    /**
+     * {@link HeaderMap#entrySet()}がヘッダ名毎に最初の値を追加順に返すことを確認する。
+     * イテレータでの削除とエントリの値の変更が反映されることを確認する。
+     */
+    @Test
+    public void testEntrySet() {
+        HeaderMap sut = new HeaderMap();
+        sut.add("A", "1");
+        sut.add("B", "2");
+        sut.add("a", "3");
+        sut.add("C", "4");
+        List<String> entries = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : sut.entrySet()) {
+            entries.add(entry.getKey() + "=" + entry.getValue());
+        }
+        assertThat(entries, is(Arrays.asList("A=1", "B=2", "C=4")));
+
+        Iterator<Map.Entry<String, String>> iterator = sut.entrySet().iterator();
+        iterator.next().setValue("9");
+        iterator.next();
+        iterator.remove();
+        assertThat(iterator.next().getKey(), is("C"));
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(sut.getAll("a"), is(Collections.singletonList("9")));
+        assertThat(sut.containsKey("B"), is(false));
+        assertThat(sut.count(), is(2));
+    }
+
+    /**
+     * 変更の都度バージョンが増加し、参照では変化しないことを確認する。
+     */
+    @Test
+    public void testVersion() {
+        HeaderMap sut = new HeaderMap();
+        int version = sut.getVersion();
+        sut.put("A", "1");
+        assertThat(sut.getVersion(), is(not(version)));
+        version = sut.getVersion();
+        sut.get("A");
+        sut.getAll("A");
+        sut.entrySet().size();
+        assertThat(sut.getVersion(), is(version));
+        sut.add("A", "2");
+        assertThat(sut.getVersion(), is(not(version)));
+        version = sut.getVersion();
+        sut.remove("A");
+        assertThat(sut.getVersion(), is(not(version)));
+    }
+
+    /**
+     * ヘッダ名が{@code null}の場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testNullName() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("header name must not be null.");
+        new HeaderMap().put(null, "value");
+    }
+}
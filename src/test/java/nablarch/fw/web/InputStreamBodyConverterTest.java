@@ -0,0 +1,112 @@
+package nablarch.fw.web;
+
+import nablarch.fw.web.RestTestBodyConverter.MediaType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link InputStreamBodyConverter}のテストクラス。
+ */
+public class InputStreamBodyConverterTest {
+    private final InputStreamBodyConverter sut = new InputStreamBodyConverter();
+    private final MediaType octetStream = new MediaType("application/octet-stream");
+
+    /**
+     * {@link InputStreamBodyConverter#isConvertible(Object, MediaType)}のテスト。
+     */
+    @Test
+    public void testIsConvertible() {
+        assertTrue(sut.isConvertible(new ByteArrayInputStream(new byte[0]), octetStream));
+        assertFalse(sut.isConvertible("body", octetStream));
+        assertFalse(sut.isConvertible(new File("body"), octetStream));
+    }
+
+    /**
+     * {@link InputStreamBodyConverter#getContentLength(Object, MediaType)}のテスト。
+     * バイト数は不明として扱われることを確認する。
+     */
+    @Test
+    public void testGetContentLength() {
+        assertEquals(-1L, sut.getContentLength(new ByteArrayInputStream(new byte[10]), octetStream));
+    }
+
+    /**
+     * {@link InputStreamBodyConverter#write(Object, MediaType, Charset, java.io.OutputStream)}のテスト。
+     * 読み込んだバイト列がそのまま書き出され、ストリームがクローズされることを確認する。
+     */
+    @Test
+    public void testWrite() throws IOException {
+        byte[] body = createBody(20000);
+        CloseDetectingInputStream in = new CloseDetectingInputStream(body);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.write(in, octetStream, Charset.forName("UTF-8"), out);
+        assertArrayEquals(body, out.toByteArray());
+        assertTrue(in.closed);
+    }
+
+    /**
+     * {@link InputStreamBodyConverter#transferTo(Object, MediaType, java.nio.channels.WritableByteChannel)}のテスト。
+     * 読み込んだバイト列がそのまま書き出され、ストリームがクローズされることを確認する。
+     */
+    @Test
+    public void testTransferTo() throws IOException {
+        byte[] body = createBody(20000);
+        CloseDetectingInputStream in = new CloseDetectingInputStream(body);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.transferTo(in, octetStream, Channels.newChannel(out));
+        assertArrayEquals(body, out.toByteArray());
+        assertTrue(in.closed);
+    }
+
+    /**
+     * {@link InputStreamBodyConverter#convert(Object, MediaType)}のテスト。
+     * Content-Typeのcharsetで文字列に変換されることを確認する。
+     */
+    @Test
+    public void testConvert() throws IOException {
+        assertEquals("テスト", sut.convert(new ByteArrayInputStream("テスト".getBytes("Shift_JIS")),
+                new MediaType("text/plain; charset=Shift_JIS")));
+    }
+
+    /**
+     * テスト用のボディを生成する。
+     *
+     * @param size バイト数
+     * @return ボディ
+     */
+    private static byte[] createBody(int size) {
+        byte[] body = new byte[size];
+        for (int i = 0; i < size; i++) {
+            body[i] = (byte) i;
+        }
+        return body;
+    }
+
+    /**
+     * クローズされたかを記録する{@link ByteArrayInputStream}
+     */
+    private static class CloseDetectingInputStream extends ByteArrayInputStream {
+        private boolean closed;
+
+        CloseDetectingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package nablarch.fw.web;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.json.JsonWriteFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import mockit.Expectations;
 import mockit.Mocked;
@@ -12,9 +13,17 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * {@link JacksonBodyConverter}のテストクラス。
@@ -51,6 +60,52 @@ public class JacksonBodyConverterTest {
         assertFalse(sut.isConvertible(stringBody, mediaTypeHtml));
     }
 
+    /**
+     * 構造化構文のサフィックスが{@code +json}のMIMEタイプを変換可能と判定することを確認する。
+     */
+    @Test
+    public void testIsConvertible_JsonSuffix() {
+        TestDto dto = new TestDto("test body");
+        assertTrue(sut.isConvertible(dto, new MediaType("application/problem+json")));
+        assertTrue(sut.isConvertible(dto, new MediaType("application/vnd.acme.order+json; charset=utf-8")));
+        assertTrue(sut.isConvertible(dto, new MediaType("APPLICATION/JSON-PATCH+JSON")));
+
+        assertFalse(sut.isConvertible(dto, new MediaType("text/plain+json")));
+        assertFalse(sut.isConvertible(dto, new MediaType("application/vnd.acme+xml")));
+        assertFalse(sut.isConvertible(dto, new MediaType("application/json+xml")));
+    }
+
+    /**
+     * 変換可能なMIMEタイプのパターンを設定した場合、設定したパターンで判定することを確認する。
+     */
+    @Test
+    public void testSetMediaTypes() {
+        JacksonBodyConverter converter = new JacksonBodyConverter();
+        converter.setMediaTypes(Arrays.asList("text/*", "*/*+json"));
+        TestDto dto = new TestDto("test body");
+
+        assertTrue(converter.isConvertible(dto, new MediaType("text/plain")));
+        assertTrue(converter.isConvertible(dto, new MediaType("text/plain+json")));
+        assertTrue(converter.isConvertible(dto, new MediaType("application/problem+json")));
+        assertFalse(converter.isConvertible(dto, new MediaType("application/json")));
+    }
+
+    /**
+     * 変換可否を判定した後は、変換可能なMIMEタイプのパターンを設定できないことを確認する。
+     */
+    @Test
+    public void testSetMediaTypesAfterUsed() {
+        JacksonBodyConverter converter = new JacksonBodyConverter();
+        assertTrue(converter.isConvertible(new TestDto("test body"), new MediaType("application/json")));
+        try {
+            converter.setMediaTypes(Arrays.asList("text/*"));
+            fail("IllegalStateExceptionが送出される");
+        } catch (IllegalStateException e) {
+            assertEquals("media types cannot be changed after the converter is used. media types=[text/*].",
+                    e.getMessage());
+        }
+    }
+
     /**
      * {@link JacksonBodyConverter#convert(Object, MediaType)}のテスト。
      * JavaオブジェクトがJSON形式で書き出されることをテストする。
@@ -76,16 +131,71 @@ public class JacksonBodyConverterTest {
                 , sut.convert(dto, mediaTypeJson));
     }
 
+    /**
+     * {@link JacksonBodyConverter#write(Object, MediaType, Charset, java.io.OutputStream)}のテスト。
+     * 指定した文字コードでエンコードされたJSONが書き出され、書き出し先がクローズされないことを確認する。
+     */
+    @Test
+    public void testWrite() throws IOException {
+        TestDto dto = new TestDto("test body", "value");
+        MediaType mediaTypeJson = new MediaType("application/json");
+        String expected = "{\"field\":\"test body\",\"propertyName\":\"value\"}";
+
+        CloseDetectingOutputStream utf8 = new CloseDetectingOutputStream();
+        sut.write(dto, mediaTypeJson, Charset.forName("UTF-8"), utf8);
+        assertEquals(expected, new String(utf8.toByteArray(), "UTF-8"));
+        assertFalse(utf8.closed);
+
+        CloseDetectingOutputStream utf16 = new CloseDetectingOutputStream();
+        sut.write(dto, mediaTypeJson, Charset.forName("UTF-16BE"), utf16);
+        assertEquals(expected, new String(utf16.toByteArray(), "UTF-16BE"));
+        assertFalse(utf16.closed);
+    }
+
+    /**
+     * クローズされたかを記録する{@link ByteArrayOutputStream}
+     */
+    private static class CloseDetectingOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
+    /**
+     * bodyのクラス毎に{@link ObjectWriter}が1つだけ生成され、再利用されることを確認する。
+     */
+    @Test
+    public void testWriterCachedPerClass() throws Exception {
+        MediaType mediaTypeJson = new MediaType("application/json");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("{\"field\":\"a\",\"propertyName\":\"b\"}",
+                    sut.convert(new TestDto("a", "b"), mediaTypeJson));
+            assertEquals("[1,2]", sut.convert(Arrays.asList(1, 2), mediaTypeJson));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            sut.write(new TestDto("c", "d"), mediaTypeJson, Charset.forName("UTF-8"), out);
+            assertEquals("{\"field\":\"c\",\"propertyName\":\"d\"}", new String(out.toByteArray(), "UTF-8"));
+        }
+        Field field = JacksonBodyConverter.class.getDeclaredField("writers");
+        field.setAccessible(true);
+        Map<?, ?> writers = (Map<?, ?>) field.get(sut);
+        assertEquals(2, writers.size());
+        assertTrue(writers.containsKey(TestDto.class));
+    }
+
     /**
      * {@link JacksonBodyConverter#convert(Object, MediaType)}のテスト。
-     * {@link ObjectMapper#writeValueAsString(Object)}で例外が発生した場合
+     * {@link ObjectWriter#writeValueAsString(Object)}で例外が発生した場合
      * {@link IllegalArgumentException}が送出されることを確認する。
      */
     @Test
-    public void writeValueAsStringThrowsJsonProcessingException(@Mocked final ObjectMapper objectMapper)
+    public void writeValueAsStringThrowsJsonProcessingException(@Mocked final ObjectWriter objectWriter)
             throws JsonProcessingException {
         expectedException.expect(IllegalArgumentException.class);
         expectedException.expectMessage("body cannot convert to String. cause[write failed.].");
@@ -93,7 +203,7 @@ public class JacksonBodyConverterTest {
         TestDto dto = new TestDto("test body", "value");
         MediaType mediaTypeJson = new MediaType("application/json");
         new Expectations() {{
-            objectMapper.writeValueAsString(any);
+            objectWriter.writeValueAsString(any);
             result = new DummyJsonException("write failed.");
         }};
         sut.convert(dto, mediaTypeJson);
@@ -0,0 +1,175 @@
+package nablarch.fw.web;
+
+import nablarch.fw.web.RestTestBodyConverter.MediaType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link JacksonSequenceBodyConverter}のテストクラス。
+ */
+public class JacksonSequenceBodyConverterTest {
+    private final JacksonSequenceBodyConverter sut = new JacksonSequenceBodyConverter();
+    private final MediaType json = new MediaType("application/json");
+    private final MediaType ndjson = new MediaType("application/x-ndjson");
+
+    /**
+     * {@link JacksonSequenceBodyConverter#isConvertible(Object, MediaType)}のテスト。
+     * {@link java.util.Collection}は対象外であることを確認する。
+     */
+    @Test
+    public void testIsConvertible() {
+        assertTrue(sut.isConvertible(Arrays.asList(1, 2).iterator(), json));
+        assertTrue(sut.isConvertible(new Records(2), json));
+        assertTrue(sut.isConvertible(new Records(2), ndjson));
+        assertTrue(sut.isConvertible(new Records(2), new MediaType("application/problem+json")));
+        assertTrue(sut.isConvertible(Arrays.asList(1, 2).stream(), json));
+
+        assertFalse(sut.isConvertible(Arrays.asList(1, 2), json));
+        assertFalse(sut.isConvertible(new Records(2), new MediaType("text/plain")));
+        assertFalse(sut.isConvertible("body", json));
+        assertFalse(sut.isConvertible("body", ndjson));
+    }
+
+    /**
+     * {@link JacksonSequenceBodyConverter#getContentLength(Object, MediaType)}のテスト。
+     * バイト数は不明として扱われることを確認する。
+     */
+    @Test
+    public void testGetContentLength() {
+        assertEquals(-1L, sut.getContentLength(new Records(2), json));
+    }
+
+    /**
+     * {@link JacksonSequenceBodyConverter#write(Object, MediaType, Charset, java.io.OutputStream)}のテスト。
+     * 要素がJSONの配列として書き出されることを確認する。
+     */
+    @Test
+    public void testWriteArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.write(new Records(3), json, Charset.forName("UTF-8"), out);
+        assertEquals("[{\"id\":0,\"name\":\"名前0\"},{\"id\":1,\"name\":\"名前1\"},{\"id\":2,\"name\":\"名前2\"}]"
+                .replace("名前", "\\u540D\\u524D"), new String(out.toByteArray(), "UTF-8"));
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        sut.write(Collections.emptyList().iterator(), json, Charset.forName("UTF-8"), empty);
+        assertEquals("[]", new String(empty.toByteArray(), "UTF-8"));
+    }
+
+    /**
+     * {@link JacksonSequenceBodyConverter#write(Object, MediaType, Charset, java.io.OutputStream)}のテスト。
+     * Content-Typeが{@code application/x-ndjson}の場合、要素毎に改行で区切って書き出されることを確認する。
+     */
+    @Test
+    public void testWriteNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.write(Arrays.<Object>asList(1, "a", null).iterator(), ndjson, Charset.forName("UTF-16BE"), out);
+        assertEquals("1\n\"a\"\nnull\n", new String(out.toByteArray(), "UTF-16BE"));
+    }
+
+    /**
+     * {@link JacksonSequenceBodyConverter#write(Object, MediaType, Charset, java.io.OutputStream)}のテスト。
+     * {@link Stream}の要素が書き出され、{@link Stream}がクローズされることを確認する。
+     */
+    @Test
+    public void testWriteStream() throws IOException {
+        final boolean[] closed = {false};
+        Stream<Integer> stream = Arrays.asList(1, 2).stream().onClose(new Runnable() {
+            @Override
+            public void run() {
+                closed[0] = true;
+            }
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.write(stream, json, Charset.forName("UTF-8"), out);
+        assertEquals("[1,2]", new String(out.toByteArray(), "UTF-8"));
+        assertTrue(closed[0]);
+    }
+
+    /**
+     * {@link JacksonSequenceBodyConverter#transferTo(Object, MediaType, java.nio.channels.WritableByteChannel)}のテスト。
+     */
+    @Test
+    public void testTransferTo() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.transferTo(Arrays.asList(1, 2).iterator(), ndjson, Channels.newChannel(out));
+        assertEquals("1\n2\n", new String(out.toByteArray(), "UTF-8"));
+    }
+
+    /**
+     * {@link JacksonSequenceBodyConverter#convert(Object, MediaType)}のテスト。
+     * Content-Typeのcharsetで文字列に変換されることを確認する。
+     */
+    @Test
+    public void testConvert() {
+        assertEquals("[\"a\",\"b\"]", sut.convert(Arrays.asList("a", "b").iterator(),
+                new MediaType("application/json; charset=Shift_JIS")));
+    }
+
+    /**
+     * 要素を必要になった時点で生成する{@link Iterable}。
+     */
+    private static class Records implements Iterable<Record> {
+        private final int size;
+
+        Records(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Iterator<Record> iterator() {
+            return new Iterator<Record>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Record next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return new Record(next++);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    /**
+     * テスト用の要素。
+     */
+    public static class Record {
+        private final int id;
+
+        Record(int id) {
+            this.id = id;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return "名前" + id;
+        }
+    }
+}
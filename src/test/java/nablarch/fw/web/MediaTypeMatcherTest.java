@@ -0,0 +1,111 @@
+package nablarch.fw.web;
+
+import nablarch.fw.web.RestTestBodyConverter.MediaType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MediaTypeMatcher}のテストクラス。
+ */
+public class MediaTypeMatcherTest {
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    /**
+     * 完全一致のパターンの場合、パラメータと大文字・小文字を無視して一致することを確認する。
+     */
+    @Test
+    public void testExact() {
+        MediaTypeMatcher sut = new MediaTypeMatcher("Application/JSON; charset=UTF-8");
+        assertTrue(sut.matches(mediaType("application/json")));
+        assertTrue(sut.matches(mediaType("APPLICATION/json; charset=Shift_JIS")));
+        assertFalse(sut.matches(mediaType("application/json-p")));
+        assertFalse(sut.matches(mediaType("application/problem+json")));
+        assertFalse(sut.matches(mediaType("text/json")));
+    }
+
+    /**
+     * サフィックスのパターンの場合、構造化構文のサフィックスで一致することを確認する。
+     */
+    @Test
+    public void testSuffix() {
+        MediaTypeMatcher sut = new MediaTypeMatcher("application/*+json");
+        assertTrue(sut.matches(mediaType("application/problem+json")));
+        assertTrue(sut.matches(mediaType("application/vnd.a+b+json")));
+        assertFalse(sut.matches(mediaType("application/json")));
+        assertFalse(sut.matches(mediaType("application/json+xml")));
+        assertFalse(sut.matches(mediaType("text/x+json")));
+
+        MediaTypeMatcher any = new MediaTypeMatcher("*/*+json");
+        assertTrue(any.matches(mediaType("text/x+json")));
+        assertFalse(any.matches(mediaType("application/json")));
+    }
+
+    /**
+     * ワイルドカードのパターンの場合、タイプで一致すること、全てに一致することを確認する。
+     */
+    @Test
+    public void testWildcard() {
+        MediaTypeMatcher sut = new MediaTypeMatcher("text/*");
+        assertTrue(sut.matches(mediaType("text/plain")));
+        assertTrue(sut.matches(mediaType("TEXT/csv; charset=UTF-8")));
+        assertFalse(sut.matches(mediaType("application/json")));
+        assertFalse(sut.matches(mediaType("text")));
+
+        MediaTypeMatcher any = new MediaTypeMatcher("*/*");
+        assertTrue(any.matches(mediaType("application/octet-stream")));
+        assertFalse(any.matches(mediaType("invalid")));
+    }
+
+    /**
+     * 複数のパターンを指定した場合、いずれかのパターンに一致すれば一致と判定することを確認する。
+     */
+    @Test
+    public void testMultiplePatterns() {
+        MediaTypeMatcher sut = new MediaTypeMatcher(Arrays.asList("text/*", "application/*+json", "application/json"));
+        assertTrue(sut.matches(mediaType("application/json")));
+        assertTrue(sut.matches(mediaType("application/problem+json")));
+        assertTrue(sut.matches(mediaType("text/plain")));
+        assertFalse(sut.matches(mediaType("image/png")));
+    }
+
+    /**
+     * サブタイプがないパターンの場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testInvalidPattern_NoSubtype() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("invalid media type pattern. pattern=[application].");
+        new MediaTypeMatcher("application");
+    }
+
+    /**
+     * タイプのみワイルドカードのパターンの場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testInvalidPattern_TypeWildcard() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("invalid media type pattern. pattern=[*/json].");
+        new MediaTypeMatcher("*/json");
+    }
+
+    /**
+     * サブタイプの途中にワイルドカードを含むパターンの場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testInvalidPattern_PartialWildcard() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("invalid media type pattern. pattern=[application/vnd.*].");
+        new MediaTypeMatcher("application/vnd.*");
+    }
+
+    private static MediaType mediaType(String contentType) {
+        return new MediaType(contentType);
+    }
+}
@@ -5,9 +5,15 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -101,6 +107,33 @@ public class MediaTypeTest {
         assertEquals(MULTIPART_TYPE, sut);
     }
 
+    /**
+     * Content-Typeのcharsetパラメータが取得できることを確認する。
+     * 指定されていない場合は{@code null}となることを確認する。
+     */
+    @Test
+    public void testGetCharset() {
+        assertEquals("UTF8", new MediaType(TEXT_PLAIN + ";" + CHARSET).getCharset());
+        assertEquals("Shift_JIS", new MediaType(TEXT_PLAIN + "; Charset=\"Shift_JIS\"").getCharset());
+        assertEquals("UTF-8", new MediaType(MULTIPART + ";" + BOUNDARY + "; charset=UTF-8").getCharset());
+        assertNull(new MediaType(TEXT_PLAIN).getCharset());
+        assertNull(new MediaType(MULTIPART + ";" + BOUNDARY).getCharset());
+        assertNull(new MediaType(TEXT_PLAIN + "; charset=").getCharset());
+    }
+
+    /**
+     * Content-Typeのパラメータが名前の大文字・小文字を区別せずに取得できることを確認する。
+     * 指定されていない場合は{@code null}となることを確認する。
+     */
+    @Test
+    public void testGetParameter() {
+        MediaType sut = new MediaType(MULTIPART + "; Boundary=\"aBoundary\"; charset=UTF-8");
+        assertEquals("aBoundary", sut.getParameter("boundary"));
+        assertEquals("UTF-8", sut.getParameter("CHARSET"));
+        assertNull(sut.getParameter("name"));
+        assertNull(MULTIPART_TYPE.getParameter("boundary"));
+    }
+
     /**
      * {@link MediaType#equals(Object)}、{@link MediaType#hashCode()}が
      * 一般契約に従っていることを確認する。
@@ -125,4 +158,63 @@ public class MediaTypeTest {
         assertNotEquals(x, other);
         assertNotEquals(x.hashCode(), other.hashCode());
     }
-}
\ No newline at end of file
+
+    /**
+     * タイプ、サブタイプ、構造化構文のサフィックスが取得できることを確認する。
+     */
+    @Test
+    public void testTypeSubtypeAndSuffix() {
+        MediaType sut = new MediaType("Application/Vnd.API+JSON; charset=UTF-8");
+        assertEquals("application", sut.getType());
+        assertEquals("vnd.api+json", sut.getSubtype());
+        assertEquals("json", sut.getSuffix());
+        assertEquals("application/vnd.api+json", sut.toString());
+
+        assertNull(TEXT_PLAIN_TYPE.getSuffix());
+        assertEquals("text", TEXT_PLAIN_TYPE.getType());
+        assertEquals("plain", TEXT_PLAIN_TYPE.getSubtype());
+
+        MediaType noSubtype = new MediaType("content_type");
+        assertEquals("content_type", noSubtype.getType());
+        assertNull(noSubtype.getSubtype());
+        assertNull(noSubtype.getSuffix());
+    }
+
+    /**
+     * パラメータが指定された順に取得でき、引用符で囲まれた値の";"やエスケープが解釈されることを確認する。
+     * 不正な形式のパラメータは無視され、同じ名前のパラメータは最初の値が使用されることを確認する。
+     */
+    @Test
+    public void testGetParameters() {
+        MediaType sut = new MediaType("multipart/form-data; Boundary=\"a;b\\\"c\" ;invalid; charset=UTF-8;"
+                + " empty=; charset=Shift_JIS");
+        Map<String, String> expected = new LinkedHashMap<String, String>();
+        expected.put("boundary", "a;b\"c");
+        expected.put("charset", "UTF-8");
+        assertEquals(expected, sut.getParameters());
+        assertEquals("UTF-8", sut.getCharset());
+        assertTrue(TEXT_PLAIN_TYPE.getParameters().isEmpty());
+    }
+
+    /**
+     * {@link MediaType#valueOf(String)}で、同じContent-Typeに対して同じインスタンスが返されることを確認する。
+     */
+    @Test
+    public void testValueOf() {
+        MediaType first = MediaType.valueOf("application/json; charset=UTF-8");
+        assertSame(first, MediaType.valueOf("application/json; charset=UTF-8"));
+        assertEquals("UTF-8", first.getCharset());
+        assertNotSame(first, MediaType.valueOf("application/json"));
+        assertEquals(first, MediaType.valueOf("application/json"));
+    }
+
+    /**
+     * {@link MediaType#valueOf(String)}にNullを指定した場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testValueOfNull() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("content type must not be empty.");
+        MediaType.valueOf(null);
+    }
+}
@@ -0,0 +1,130 @@
+package nablarch.fw.web;
+
+import nablarch.fw.web.RestTestBodyConverter.MediaType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MultipartBodyConverter}のテストクラス。
+ */
+public class MultipartBodyConverterTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static final String LS = "\r\n";
+
+    private final MultipartBodyConverter sut = new MultipartBodyConverter();
+    private final MediaType multipart = new MediaType("multipart/form-data; boundary=XyZ");
+
+    /**
+     * {@link MultipartBodyConverter#isConvertible(Object, MediaType)}のテスト。
+     */
+    @Test
+    public void testIsConvertible() {
+        assertTrue(sut.isConvertible(new MultipartBody(), multipart));
+        assertFalse(sut.isConvertible(new MultipartBody(), new MediaType("application/json")));
+        assertFalse(sut.isConvertible("body", multipart));
+    }
+
+    /**
+     * {@link MultipartBodyConverter#write(Object, MediaType, Charset, java.io.OutputStream)}のテスト。
+     * 文字列・バイト配列・ファイルのパートが順に書き出され、
+     * {@link MultipartBodyConverter#getContentLength(Object, MediaType)}が書き出したバイト数と一致することを確認する。
+     */
+    @Test
+    public void testWrite() throws IOException {
+        File file = temporaryFolder.newFile("upload.txt");
+        Files.write(file.toPath(), "file content".getBytes("UTF-8"));
+        MultipartBody body = new MultipartBody("ignored")
+                .addText("title", "テスト")
+                .addBytes("binary", "data.bin", "application/octet-stream", new byte[] {0, (byte) 0xff})
+                .addFile("file", file, "text/plain");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.write(body, multipart, Charset.forName("ISO-8859-1"), out);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(("--XyZ" + LS
+                + "Content-Disposition: form-data; name=\"title\"" + LS
+                + LS
+                + "テスト" + LS
+                + "--XyZ" + LS
+                + "Content-Disposition: form-data; name=\"binary\"; filename=\"data.bin\"" + LS
+                + "Content-Type: application/octet-stream" + LS
+                + LS).getBytes("UTF-8"));
+        expected.write(new byte[] {0, (byte) 0xff});
+        expected.write((LS
+                + "--XyZ" + LS
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"upload.txt\"" + LS
+                + "Content-Type: text/plain" + LS
+                + LS
+                + "file content" + LS
+                + "--XyZ--" + LS).getBytes("UTF-8"));
+        assertArrayEquals(expected.toByteArray(), out.toByteArray());
+        assertEquals(out.size(), sut.getContentLength(body, multipart));
+
+        ByteArrayOutputStream transferred = new ByteArrayOutputStream();
+        sut.transferTo(body, multipart, Channels.newChannel(transferred));
+        assertArrayEquals(expected.toByteArray(), transferred.toByteArray());
+    }
+
+    /**
+     * ストリームのパートを含む場合、バイト数がわからないことを確認する。
+     */
+    @Test
+    public void testStreamPart() throws IOException {
+        MultipartBody body = new MultipartBody()
+                .addStream("stream", "a.csv", "text/csv", new ByteArrayInputStream("a,b".getBytes("UTF-8")));
+        assertEquals(-1L, sut.getContentLength(body, multipart));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.write(body, multipart, null, out);
+        assertEquals("--XyZ" + LS
+                + "Content-Disposition: form-data; name=\"stream\"; filename=\"a.csv\"" + LS
+                + "Content-Type: text/csv" + LS
+                + LS
+                + "a,b" + LS
+                + "--XyZ--" + LS, out.toString("UTF-8"));
+    }
+
+    /**
+     * パート名・ファイル名の引用符と改行文字がエスケープされることを確認する。
+     */
+    @Test
+    public void testEscape() {
+        MultipartBody body = new MultipartBody().addBytes("a\"b", "c\r\nd", null, new byte[0]);
+        assertEquals("--XyZ" + LS
+                + "Content-Disposition: form-data; name=\"a%22b\"; filename=\"c%0D%0Ad\"" + LS
+                + LS
+                + LS
+                + "--XyZ--" + LS, sut.convert(body, multipart));
+    }
+
+    /**
+     * Content-Typeにboundaryパラメータがない場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testNoBoundary() throws IOException {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("boundary parameter was not found in Content-Type.");
+        sut.getContentLength(new MultipartBody(), new MediaType("multipart/form-data"));
+    }
+}
@@ -0,0 +1,64 @@
+package nablarch.fw.web;
+
+import org.junit.Test;
+
+import java.net.URLEncoder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link PercentEncoder}のテストクラス。
+ */
+public class PercentEncoderTest {
+
+    /**
+     * 構成要素のエンコードでは、非予約文字以外がエンコードされることを確認する。
+     */
+    @Test
+    public void testAppendComponent() {
+        assertThat(component("azAZ09-._~"), is("azAZ09-._~"));
+        assertThat(component(" !\"#$%&'()*+,/:;=?@[]"), is("%20%21%22%23%24%25%26%27%28%29%2A%2B%2C%2F%3A%3B%3D%3F%40%5B%5D"));
+        assertThat(component("éあ𠮷"), is("%C3%A9%E3%81%82%F0%A0%AE%B7"));
+        assertThat(component("a\uD842b"), is("a%3Fb"));
+    }
+
+    /**
+     * 構成要素のエンコード結果が、スペースを除き{@link URLEncoder}と一致することを確認する。
+     */
+    @Test
+    public void testAppendComponentCompatibleWithUrlEncoder() throws Exception {
+        StringBuilder all = new StringBuilder();
+        for (char c = 1; c < 0x3000; c++) {
+            if (!Character.isSurrogate(c)) {
+                all.append(c);
+            }
+        }
+        String expected = URLEncoder.encode(all.toString(), "UTF-8")
+                .replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+        assertThat(component(all.toString()), is(expected));
+    }
+
+    /**
+     * クエリパラメータのエンコードでは、"+"とエンコード済みの"%XX"がそのまま残り、
+     * クエリの区切り文字とそれ以外の"%"がエンコードされることを確認する。
+     */
+    @Test
+    public void testAppendQueryComponent() {
+        assertThat(PercentEncoder.appendQueryComponent(new StringBuilder(), "a%20b+c%2Bd%zz%4&e=f g#あ").toString(),
+                is("a%20b+c%2Bd%25zz%254%26e%3Df%20g%23%E3%81%82"));
+    }
+
+    /**
+     * URIのエンコードでは、予約文字とエンコード済みの"%XX"がそのまま残ることを確認する。
+     */
+    @Test
+    public void testAppendUri() {
+        assertThat(PercentEncoder.appendUri(new StringBuilder(), "/a b/%7e/%zz/%4?x=[1]&y=あ#f").toString(),
+                is("/a%20b/%7e/%25zz/%254?x=[1]&y=%E3%81%82#f"));
+    }
+
+    private static String component(String value) {
+        return PercentEncoder.appendComponent(new StringBuilder(), value).toString();
+    }
+}
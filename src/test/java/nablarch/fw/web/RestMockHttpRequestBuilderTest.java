@@ -6,9 +6,11 @@ import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static nablarch.test.Assertion.fail;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 
@@ -21,7 +23,8 @@ public class RestMockHttpRequestBuilderTest {
 
     /**
      * 利用可能な{@link RestTestBodyConverter}のテスト。
-     * デフォルトでは{@link StringBodyConverter}と{@link JacksonBodyConverter}を持つこと
+     * デフォルトでは{@link InputStreamBodyConverter}、{@link FileBodyConverter}、{@link MultipartBodyConverter}、
+     * {@link StringBodyConverter}と{@link JacksonBodyConverter}を持つこと
      * {@link RestMockHttpRequestBuilder#setBodyConverters(Collection)}で
      * bodyConvertersが設定できることを確認する。
      */
@@ -30,15 +33,19 @@ public class RestMockHttpRequestBuilderTest {
         Field convertersField = sut.getClass().getDeclaredField("bodyConverters");
         convertersField.setAccessible(true);
         List<RestTestBodyConverter> defaultList = (List<RestTestBodyConverter>) convertersField.get(sut);
-        assertEquals(2, defaultList.size());
+        assertEquals(6, defaultList.size());
         for (RestTestBodyConverter converter : defaultList) {
             if (!(converter instanceof StringBodyConverter)
-                    && !(converter instanceof JacksonBodyConverter)) {
+                    && !(converter instanceof JacksonBodyConverter)
+                    && !(converter instanceof JacksonSequenceBodyConverter)
+                    && !(converter instanceof InputStreamBodyConverter)
+                    && !(converter instanceof FileBodyConverter)
+                    && !(converter instanceof MultipartBodyConverter)) {
                 fail("default BodyConverter list has unknown BodyConverter.");
             }
         }
 
-        List<RestTestBodyConverter> bodyConverters = Arrays.asList(new StringBodyConverter(), new JacksonBodyConverter());
+        List<RestTestBodyConverter> bodyConverters = Arrays.<RestTestBodyConverter>asList(new StringBodyConverter(), new JacksonBodyConverter());
         sut.setBodyConverters(bodyConverters);
         List<RestTestBodyConverter> actual = (List<RestTestBodyConverter>) convertersField.get(sut);
         assertThat(actual, is(bodyConverters));
@@ -95,4 +102,89 @@ public class RestMockHttpRequestBuilderTest {
         assertThat(headReq.getMethod(), is("HEAD"));
         assertThat(headReq.getRequestUri(), is("test"));
     }
-}
\ No newline at end of file
+
+    /**
+     * 組み込みの{@link RestTestBodyConverter}のみの場合は、生成したリクエストで選択結果が共有されることを確認する。
+     * {@link RestMockHttpRequestBuilder#setBodyConverters(Collection)}で設定し直すと、
+     * 選択結果が破棄されることを確認する。
+     */
+    @Test
+    public void testBodyConverterResolutionShared() throws NoSuchFieldException, IllegalAccessException {
+        sut.setBodyConverters(Arrays.<RestTestBodyConverter>asList(new StringBodyConverter(), new JacksonBodyConverter()));
+        sut.post("/test").setContentType("text/plain").setBody("a").toString();
+        sut.post("/test").setContentType("text/plain; charset=UTF-8").setBody("b").toString();
+        assertThat(getResolverCache().size(), is(1));
+
+        sut.setBodyConverters(Arrays.<RestTestBodyConverter>asList(new StringBodyConverter()));
+        assertThat(getResolverCache().size(), is(0));
+    }
+
+    /**
+     * 独自の{@link RestTestBodyConverter}を含む場合は、選択結果を共有せず、送信の都度判定することを確認する。
+     */
+    @Test
+    public void testBodyConverterResolutionNotSharedForCustomConverter()
+            throws NoSuchFieldException, IllegalAccessException {
+        final int[] count = {0};
+        StringBodyConverter converter = new StringBodyConverter() {
+            @Override
+            public boolean isConvertible(Object body, MediaType mediaType) {
+                count[0]++;
+                return super.isConvertible(body, mediaType);
+            }
+        };
+        sut.setBodyConverters(Arrays.<RestTestBodyConverter>asList(converter));
+        sut.post("/test").setContentType("text/plain").setBody("a").toString();
+        int countPerRequest = count[0];
+        sut.post("/test").setContentType("text/plain; charset=UTF-8").setBody("b").toString();
+        assertThat(count[0], is(countPerRequest * 2));
+        assertThat(getResolverCache(), is(nullValue()));
+    }
+
+    /**
+     * {@link RestTestCacheableBodyConverter}を実装した独自の{@link RestTestBodyConverter}を含む場合は、
+     * 選択結果を共有することを確認する。
+     */
+    @Test
+    public void testBodyConverterResolutionSharedForCacheableConverter()
+            throws NoSuchFieldException, IllegalAccessException {
+        CountingCacheableConverter converter = new CountingCacheableConverter();
+        sut.setBodyConverters(Arrays.<RestTestBodyConverter>asList(converter, new StringBodyConverter()));
+        sut.post("/test").setContentType("text/plain").setBody("a").toString();
+        int countPerRequest = converter.count;
+        sut.post("/test").setContentType("text/plain; charset=UTF-8").setBody("b").toString();
+        assertThat(converter.count, is(countPerRequest));
+        assertThat(getResolverCache().size(), is(1));
+    }
+
+    /**
+     * 判定した回数を記録する、変換対象を持たない{@link RestTestCacheableBodyConverter}。
+     */
+    private static class CountingCacheableConverter implements RestTestCacheableBodyConverter {
+        private int count;
+
+        @Override
+        public boolean isConvertible(Object body, MediaType mediaType) {
+            count++;
+            return false;
+        }
+
+        @Override
+        public String convert(Object body, MediaType mediaType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * ビルダーが保持する{@link BodyConverterResolver}のキャッシュを取得する。
+     *
+     * @return キャッシュ。キャッシュしない場合は{@code null}
+     */
+    private Map<?, ?> getResolverCache() throws NoSuchFieldException, IllegalAccessException {
+        Field resolverField = sut.getClass().getDeclaredField("bodyConverterResolver");
+        resolverField.setAccessible(true);
+        Field cacheField = BodyConverterResolver.class.getDeclaredField("cache");
+        cacheField.setAccessible(true);
+        return (Map<?, ?>) cacheField.get(resolverField.get(sut));
+    }
+}
@@ -1,15 +1,24 @@
 package nablarch.fw.web;
 
-import mockit.Expectations;
 import nablarch.fw.test.MockConverter;
 import nablarch.fw.test.NoContentConvertibleMockConverter;
 import org.hamcrest.CoreMatchers;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -44,16 +53,16 @@ public class RestMockHttpRequestTest {
             + LS;
     /** JSONをボディにもつPOSTリクエスト */
     private static final String POST_JSON_REQUEST = "POST /test HTTP/1.1" + LS
-            + "Cookie: cookie=dummy" + LS
+            + "Content-Type: application/json" + LS
             + "test: OK" + LS
             + "Content-Length: 19" + LS
-            + "Content-Type: application/json" + LS
+            + "Cookie: cookie=dummy" + LS
             + LS
             + "{\"field\" : \"value\"}";
     /** URLエンコードされたパラメータをボディにもつPOSTリクエスト */
     private static final String POST_FORM_REQUEST = "POST /test HTTP/1.1" + LS
-            + "Content-Length: 32" + LS
             + "Content-Type: application/x-www-form-urlencoded" + LS
+            + "Content-Length: 32" + LS
             + LS
             + "name=%E3%83%86%E3%82%B9%E3%83%88";
 
@@ -227,6 +236,447 @@ public class RestMockHttpRequestTest {
         assertThat(sut.toString(), is(POST_JSON_REQUEST));
     }
 
+    /**
+     * POSTリクエスト作成テスト
+     * {@link RestMockHttpRequest#toString()}では、返却する文字列がデフォルトの文字コードで送信されるため、
+     * ボディをデフォルトの文字コードでエンコードしたバイト数がContent-Lengthに設定されることを確認する。
+     */
+    @Test
+    public void testNormalPostWithCharset() {
+        RestMockHttpRequest utf8 = new RestMockHttpRequest(
+                Collections.singletonList(new StringBodyConverter()), "text/plain; charset=UTF-8")
+                .setMethod("POST")
+                .setRequestUri("/test")
+                .setBody("テスト");
+        assertThat(utf8.toString(), is("POST /test HTTP/1.1" + LS
+                + "Content-Type: text/plain; charset=UTF-8" + LS
+                + "Content-Length: 9" + LS
+                + LS
+                + "テスト"));
+
+        RestMockHttpRequest sjis = new RestMockHttpRequest(
+                Collections.singletonList(new StringBodyConverter()), "text/plain; charset=Shift_JIS")
+                .setMethod("POST")
+                .setRequestUri("/test")
+                .setBody("テスト");
+        String message = sjis.toString();
+        assertThat(message, is("POST /test HTTP/1.1" + LS
+                + "Content-Type: text/plain; charset=Shift_JIS" + LS
+                + "Content-Length: " + "テスト".getBytes().length + LS
+                + LS
+                + "テスト"));
+        // 組み込みサーバが送信するバイト列のボディ部分とContent-Lengthが一致すること
+        byte[] sent = message.getBytes();
+        byte[] head = message.substring(0, message.indexOf(LS + LS) + 4).getBytes();
+        assertThat(sent.length - head.length, is("テスト".getBytes().length));
+    }
+
+    /**
+     * charsetパラメータが指定されていないJSONのボディは、UTF-8でエンコードされることを確認する。
+     */
+    @Test
+    public void testJsonDefaultCharset() throws IOException {
+        RestMockHttpRequest sut = new RestMockHttpRequest(
+                Collections.singletonList(new MockConverter()), "testType")
+                .setMethod("POST")
+                .setRequestUri("/test")
+                .setContentType("application/problem+json")
+                .setBody("テスト");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(out);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(("POST /test HTTP/1.1" + LS
+                + "Content-Type: application/problem+json" + LS
+                + "Content-Length: 9" + LS
+                + LS).getBytes("UTF-8"));
+        expected.write("テスト".getBytes("UTF-8"));
+        assertThat(out.toByteArray(), is(expected.toByteArray()));
+    }
+
+    /**
+     * {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}のテスト。
+     * {@link RestTestBodyConverter}のみを実装したコンバータを使用した場合、
+     * {@link RestMockHttpRequest#toString()}と同じリクエストが書き出されることを確認する。
+     */
+    @Test
+    public void testWriteTo() throws IOException {
+        RestMockHttpRequest sut = new RestMockHttpRequest(
+                Collections.singletonList(new MockConverter()), "testType");
+        sut.setContentType("application/json")
+                .setBody("{\"field\" : \"value\"}")
+                .setMethod("POST")
+                .setRequestUri("/test")
+                .setHeader("test", "OK")
+                .setCookie(MockHttpCookie.valueOf("cookie=dummy"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(out);
+        assertThat(out.toString("UTF-8"), is("POST /test HTTP/1.1" + LS
+                + "Content-Type: application/json" + LS
+                + "test: OK" + LS
+                + "Cookie: cookie=dummy" + LS
+                + "Content-Length: 19" + LS
+                + LS
+                + "{\"field\" : \"value\"}"));
+    }
+
+    /**
+     * {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}のテスト。
+     * フォーム形式のボディを持つリクエストが書き出されることを確認する。
+     */
+    @Test
+    public void testWriteToForm() throws IOException {
+        RestMockHttpRequest sut = new RestMockHttpRequest(
+                Collections.singletonList(new MockConverter()), "testType")
+                .setMethod("POST")
+                .setRequestUri("/test")
+                .setContentType("application/x-www-form-urlencoded")
+                .setParam("name", "テスト");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(Channels.newChannel(out));
+        assertThat(out.toString("UTF-8"), is(POST_FORM_REQUEST));
+    }
+
+    /**
+     * {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}のテスト。
+     * {@link RestTestBodyWriter}を使用した場合、ボディが文字列を経由せずに
+     * Content-Typeのcharsetでエンコードされて書き出され、Content-Lengthがそのバイト数となることを確認する。
+     */
+    @Test
+    public void testWriteToWithBodyWriter() throws IOException {
+        final Charset sjis = Charset.forName("Shift_JIS");
+        RestMockHttpRequest sut = new RestMockHttpRequest(
+                Collections.singletonList(new StringBodyConverter() {
+                    @Override
+                    public String convert(Object body, MediaType mediaType) {
+                        throw new AssertionError("convert must not be called.");
+                    }
+                }), "text/plain; charset=Shift_JIS")
+                .setMethod("PUT")
+                .setRequestUri("/test")
+                .setBody("テスト");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(out);
+
+        byte[] head = ("PUT /test HTTP/1.1" + LS
+                + "Content-Type: text/plain; charset=Shift_JIS" + LS
+                + "Content-Length: 6" + LS
+                + LS).getBytes("UTF-8");
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(head);
+        expected.write("テスト".getBytes(sjis));
+        assertThat(out.toByteArray(), is(expected.toByteArray()));
+    }
+
+    /**
+     * {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}のテスト。
+     * ボディを持たないリクエストが書き出されることを確認する。
+     */
+    @Test
+    public void testWriteToWithoutBody() throws IOException {
+        RestMockHttpRequest sut = new RestMockHttpRequest(
+                Collections.singletonList(new MockConverter()), "testType")
+                .setRequestUri("/test")
+                .setParam("value", "ゲットリクエスト");
+        final boolean[] flushed = {false};
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() throws IOException {
+                flushed[0] = true;
+                super.flush();
+            }
+        };
+        sut.writeTo((OutputStream) out);
+        assertThat(out.toString("UTF-8"), is("GET /test?value=%E3%82%B2%E3%83%83%E3%83%88%E3%83%AA%E3%82%AF%E3%82%A8%E3%82%B9%E3%83%88 HTTP/1.1" + LS + LS));
+        assertTrue(flushed[0]);
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}のテスト。
+     * {@link java.io.InputStream}のボディがチャンク形式で書き出されることを確認する。
+     */
+    @Test
+    public void testWriteToChunked() throws IOException {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .post("/test")
+                .setContentType("application/octet-stream")
+                .setBody(new ByteArrayInputStream("streaming body".getBytes("UTF-8")));
+        assertTrue(sut.isStreamingBody());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(out);
+        assertThat(out.toString("UTF-8"), is("POST /test HTTP/1.1" + LS
+                + "Content-Type: application/octet-stream" + LS
+                + "Transfer-Encoding: chunked" + LS
+                + LS
+                + "e" + LS
+                + "streaming body" + LS
+                + "0" + LS
+                + LS));
+    }
+
+    /**
+     * {@link RestMockHttpRequest#writeTo(java.io.OutputStream)}のテスト。
+     * {@link java.util.Iterator}のボディがJSONの配列としてチャンク形式で書き出され、
+     * {@link java.util.List}のボディは従来どおりContent-Lengthを設定して書き出されることを確認する。
+     */
+    @Test
+    public void testWriteToJsonSequence() throws IOException {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .post("/test")
+                .setBody(Arrays.asList(1, 2, 3).iterator());
+        assertTrue(sut.isStreamingBody());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(out);
+        assertThat(out.toString("UTF-8"), is("POST /test HTTP/1.1" + LS
+                + "Content-Type: application/json" + LS
+                + "Transfer-Encoding: chunked" + LS
+                + LS
+                + "7" + LS
+                + "[1,2,3]" + LS
+                + "0" + LS
+                + LS));
+
+        RestMockHttpRequest list = new RestMockHttpRequestBuilder()
+                .post("/test")
+                .setBody(Arrays.asList(1, 2, 3));
+        assertThat(list.isStreamingBody(), is(false));
+        assertThat(list.toString(), is("POST /test HTTP/1.1" + LS
+                + "Content-Type: application/json" + LS
+                + "Content-Length: 7" + LS
+                + LS
+                + "[1,2,3]"));
+    }
+
+    /**
+     * {@link RestMockHttpRequest#writeTo(java.nio.channels.WritableByteChannel)}のテスト。
+     * ファイルのボディがファイルサイズをContent-Lengthとして書き出されることを確認する。
+     */
+    @Test
+    public void testWriteToFile() throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), "file body".getBytes("UTF-8"));
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .put("/test")
+                .setContentType("application/octet-stream")
+                .setBody(file);
+        assertTrue(sut.isStreamingBody());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(Channels.newChannel(out));
+        assertThat(out.toString("UTF-8"), is("PUT /test HTTP/1.1" + LS
+                + "Content-Type: application/octet-stream" + LS
+                + "Content-Length: 9" + LS
+                + LS
+                + "file body"));
+        assertThat(sut.toString(), is(out.toString("UTF-8")));
+    }
+
+    /**
+     * 変更のないリクエストを繰り返し直列化した場合、キャッシュが使用されボディの変換が1度のみ行われることを確認する。
+     */
+    @Test
+    public void testSerializationCache() throws IOException {
+        CountingStringBodyConverter converter = new CountingStringBodyConverter();
+        RestMockHttpRequest sut = new RestMockHttpRequest(Collections.singletonList(converter), "text/plain")
+                .setMethod("POST")
+                .setRequestUri("/test")
+                .setBody("body");
+        String first = sut.toString();
+        assertThat(sut.toString(), CoreMatchers.sameInstance(first));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(out);
+        assertThat(out.toString("UTF-8"), is(first));
+        assertThat(converter.count, is(1));
+
+        // ヘッダのみの変更はボディの変換結果を再利用する
+        sut.getHeaderMap().put("X-Test", "1");
+        assertThat(sut.toString(), CoreMatchers.containsString("X-Test: 1" + LS));
+        sut.setHeader("X-Test", "2");
+        assertThat(sut.toString(), CoreMatchers.containsString("X-Test: 2" + LS));
+        sut.setRequestUri("/changed");
+        assertThat(sut.toString(), CoreMatchers.startsWith("POST /changed HTTP/1.1" + LS));
+        assertThat(converter.count, is(1));
+
+        // ボディを設定し直した場合は改めて変換する
+        sut.setBody("changed");
+        assertThat(sut.toString(), CoreMatchers.endsWith(LS + "changed"));
+        assertThat(converter.count, is(2));
+    }
+
+    /**
+     * リクエストパラメータのMapを直接変更した場合も、変更が反映されることを確認する。
+     */
+    @Test
+    public void testSerializationCacheWithParamMapChanged() {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder().get("/test").setParam("a", "1");
+        assertThat(sut.toString(), CoreMatchers.startsWith("GET /test?a=1 HTTP/1.1" + LS));
+        sut.getParamMap().get("a")[0] = "2";
+        assertThat(sut.toString(), CoreMatchers.startsWith("GET /test?a=2 HTTP/1.1" + LS));
+        sut.getParamMap().put("b", new String[] {"3"});
+        assertThat(sut.toString(), CoreMatchers.containsString("b=3"));
+    }
+
+    /**
+     * キャッシュする上限を超えるボディは、バイト数のみキャッシュし送信の都度書き出すことを確認する。
+     */
+    @Test
+    public void testSerializationCacheWithLargeBody() throws IOException {
+        CountingStringBodyConverter converter = new CountingStringBodyConverter();
+        char[] chars = new char[1024 * 1024 + 1];
+        java.util.Arrays.fill(chars, 'a');
+        RestMockHttpRequest sut = new RestMockHttpRequest(Collections.singletonList(converter), "text/plain")
+                .setMethod("POST")
+                .setRequestUri("/test")
+                .setBody(new String(chars));
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        sut.writeTo(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        sut.writeTo(second);
+        assertThat(second.size(), is(first.size()));
+        assertTrue(second.toString("UTF-8").contains("Content-Length: " + chars.length + LS));
+        // バイト数の算出で1度、送信の都度1度ずつ書き出す
+        assertThat(converter.count, is(3));
+    }
+
+    /**
+     * 複製したリクエストはヘッダを共有せず、ボディの変換結果を共有することを確認する。
+     */
+    @Test
+    public void testCopy() {
+        CountingStringBodyConverter converter = new CountingStringBodyConverter();
+        RestMockHttpRequest sut = new RestMockHttpRequest(Collections.singletonList(converter), "text/plain")
+                .setMethod("POST")
+                .setRequestUri("/test")
+                .setHeader("X-Test", "1")
+                .setBody("body");
+        String original = sut.toString();
+
+        RestMockHttpRequest copy = sut.copy();
+        copy.setHeader("X-Copy", "1");
+        copy.setHost("localhost");
+        assertThat(copy.getMethod(), is("POST"));
+        assertThat(copy.getRequestUri(), is("/test"));
+        assertThat(copy.getHeader("X-Test"), is("1"));
+        assertThat(copy.toString(), CoreMatchers.containsString("X-Copy: 1" + LS));
+        assertThat(copy.toString(), CoreMatchers.endsWith(LS + "body"));
+
+        assertNull(sut.getHeader("X-Copy"));
+        assertNull(sut.getHost());
+        assertThat(sut.toString(), CoreMatchers.sameInstance(original));
+        assertThat(converter.count, is(1));
+    }
+
+    /**
+     * 書き出した回数を数える{@link StringBodyConverter}。
+     */
+    private static class CountingStringBodyConverter extends StringBodyConverter {
+        private int count;
+
+        @Override
+        public void write(Object body, MediaType mediaType, Charset charset, OutputStream out) throws IOException {
+            count++;
+            super.write(body, mediaType, charset, out);
+        }
+    }
+
+    /**
+     * {@link MultipartBody}を設定した場合、boundaryパラメータを含むContent-Typeが設定され、
+     * multipart/form-data形式で書き出されることを確認する。
+     */
+    @Test
+    public void testMultipartBody() throws IOException {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .post("/upload")
+                .setBody(new MultipartBody("XyZ").addText("name", "value"));
+        assertThat(sut.getHeader("Content-Type"), is("multipart/form-data; boundary=XyZ"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.writeTo(out);
+        assertThat(out.toString("UTF-8"), is("POST /upload HTTP/1.1" + LS
+                + "Content-Type: multipart/form-data; boundary=XyZ" + LS
+                + "Content-Length: 70" + LS
+                + LS
+                + "--XyZ" + LS
+                + "Content-Disposition: form-data; name=\"name\"" + LS
+                + LS
+                + "value" + LS
+                + "--XyZ--" + LS));
+
+        RestMockHttpRequest withoutBoundary = new RestMockHttpRequestBuilder()
+                .post("/upload")
+                .setContentType("multipart/form-data; charset=UTF-8")
+                .setBody(new MultipartBody("XyZ"));
+        assertThat(withoutBoundary.getHeader("Content-Type"), is("multipart/form-data; charset=UTF-8; boundary=XyZ"));
+    }
+
+    /**
+     * {@link RestMockHttpRequest#toString()}のテスト。
+     * {@link java.io.InputStream}のボディは全体を読み込み、Content-Lengthを設定することを確認する。
+     */
+    @Test
+    public void testToStringWithInputStream() throws IOException {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .post("/test")
+                .setContentType("text/plain; charset=UTF-8")
+                .setBody(new ByteArrayInputStream("テスト".getBytes("UTF-8")));
+        assertThat(sut.toString(), is("POST /test HTTP/1.1" + LS
+                + "Content-Type: text/plain; charset=UTF-8" + LS
+                + "Content-Length: 9" + LS
+                + LS
+                + "テスト"));
+    }
+
+    /**
+     * ヘッダ名の大文字・小文字を区別せずに取得・上書きでき、上書きしても重複して出力されないことを確認する。
+     */
+    @Test
+    public void testHeaderCaseInsensitive() {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .post("/test")
+                .setContentType("text/plain")
+                .setHeader("X-Test", "first")
+                .setBody("a");
+        sut.setHeader("content-type", "text/plain; charset=UTF-8")
+                .setHeader("x-test", "second");
+        assertThat(sut.getHeader("CONTENT-TYPE"), is("text/plain; charset=UTF-8"));
+        assertThat(sut.getHeader("X-TEST"), is("second"));
+        assertThat(sut.getHeaderMap().size(), is(2));
+        assertThat(sut.toString(), is("POST /test HTTP/1.1" + LS
+                + "Content-Type: text/plain; charset=UTF-8" + LS
+                + "X-Test: second" + LS
+                + "Content-Length: 1" + LS
+                + LS
+                + "a"));
+    }
+
+    /**
+     * {@link RestMockHttpRequest#addHeader(String, String)}のテスト。
+     * 同じ名前のヘッダが追加順にそれぞれ1行として出力されることを確認する。
+     */
+    @Test
+    public void testAddHeader() {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .get("/test")
+                .addHeader("Accept", "application/json")
+                .addHeader("X-Trace", "1")
+                .addHeader("accept", "text/plain");
+        assertThat(sut.getHeader("Accept"), is("application/json"));
+        assertThat(sut.getHeaders("ACCEPT"), is(Arrays.asList("application/json", "text/plain")));
+        assertThat(sut.getHeaders("X-None").isEmpty(), is(true));
+        assertThat(sut.toString(), is("GET /test HTTP/1.1" + LS
+                + "Accept: application/json" + LS
+                + "X-Trace: 1" + LS
+                + "accept: text/plain" + LS
+                + LS));
+
+        sut.setHeader("Accept", "*/*");
+        assertThat(sut.getHeaders("accept"), is(Collections.singletonList("*/*")));
+        assertThat(sut.toString(), is("GET /test HTTP/1.1" + LS
+                + "Accept: */*" + LS
+                + "X-Trace: 1" + LS
+                + LS));
+    }
+
     @Rule
     public ExpectedException expectedException = ExpectedException.none();
 
@@ -259,22 +709,52 @@ public class RestMockHttpRequestTest {
     }
 
     /**
-     * URIのインスタンス化に失敗した場合、例外が送出されることを確認する。
+     * URIとして不正な文字を含むリクエストURIは、エンコードして送信されることを確認する。
+     * エンコード済みの"%XX"と予約文字はそのまま送信されることを確認する。
      */
     @Test
-    public void testAbnormalURIConstructorThrowsURISyntaxException() throws URISyntaxException {
-        new Expectations(URI.class) {{
-            new URI(anyString);
-            result = new URISyntaxException("uri", "invalid format");
-        }};
-        expectedException.expect(IllegalArgumentException.class);
-        expectedException.expectMessage("url encoding failed. cause[invalid format: uri]");
-        expectedException.expectCause(CoreMatchers.<Throwable>instanceOf(URISyntaxException.class));
-        RestMockHttpRequest sut = new RestMockHttpRequest(
-                Collections.singletonList(new MockConverter()), "text/plain")
-                .setRequestUri("/test");
-        String request = sut.toString();
-        fail("ここには到達しない。" + request);
+    public void testRequestUriEncoded() {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .get("/test path/%E3%81%82/テ%?a=b c#f");
+        assertThat(sut.toString(), is("GET /test%20path/%E3%81%82/%E3%83%86%25?a=b%20c#f HTTP/1.1" + LS + LS));
+    }
+
+    /**
+     * {@link URI}が{@link URISyntaxException}を送出するリクエストURIでも、例外とならずエンコードして送信されることを確認する。
+     */
+    @Test
+    public void testRequestUriRejectedByUriEncoded() {
+        String requestUri = "/test path/%zz";
+        try {
+            new URI(requestUri);
+            fail("URISyntaxExceptionが送出されるリクエストURIを使用すること");
+        } catch (URISyntaxException expected) {
+            // 従来はこの例外をIllegalArgumentExceptionとして送出していた
+        }
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder().get(requestUri);
+        assertThat(sut.toString(), is("GET /test%20path/%25zz HTTP/1.1" + LS + LS));
+    }
+
+    /**
+     * リクエストパラメータの名前と値に含まれる予約文字がエンコードされることを確認する。
+     */
+    @Test
+    public void testParamsEncoded() {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .get("/search")
+                .setParam("q", "a&b=c d/\uD842\uDFB7");
+        assertThat(sut.toString(), is("GET /search?q=a%26b%3Dc%20d%2F%F0%A0%AE%B7 HTTP/1.1" + LS + LS));
+    }
+
+    /**
+     * エンコード済みのリクエストパラメータは、"+"と"%XX"が二重にエンコードされずに送信されることを確認する。
+     */
+    @Test
+    public void testParamsPreEncoded() {
+        RestMockHttpRequest sut = new RestMockHttpRequestBuilder()
+                .get("/search")
+                .setParam("q%5B%5D", "a%20b+c%2Bd");
+        assertThat(sut.toString(), is("GET /search?q%5B%5D=a%20b+c%2Bd HTTP/1.1" + LS + LS));
     }
 
     /**
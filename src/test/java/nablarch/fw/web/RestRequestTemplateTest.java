@@ -0,0 +1,185 @@
+package nablarch.fw.web;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link RestRequestTemplate}のテストクラス。
+ */
+public class RestRequestTemplateTest {
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private static final String LS = "\r\n";
+
+    /**
+     * パス変数名をキーとしたMapで展開できることを確認する。
+     * 値はパーセントエンコードされることを確認する。
+     */
+    @Test
+    public void testExpandWithMap() {
+        RestRequestTemplate sut = new RestMockHttpRequestBuilder()
+                .template("GET", "/users/{id}/orders/{orderId}")
+                .build();
+        Map<String, Object> values = new HashMap<String, Object>();
+        values.put("id", "a b/c");
+        values.put("orderId", 10);
+        RestMockHttpRequest request = sut.expand(values);
+        assertThat(request.getMethod(), is("GET"));
+        assertThat(request.getRequestUri(), is("/users/a%20b%2Fc/orders/10"));
+        assertThat(sut.getVariableNames(), is(Arrays.asList("id", "orderId")));
+        assertThat(sut.getUriPattern(), is("/users/{id}/orders/{orderId}"));
+        assertThat(sut.getMethod(), is("GET"));
+    }
+
+    /**
+     * パス変数名の出現順に値を指定して展開できることを確認する。
+     * 同じ名前のパス変数は同じ値で展開されることを確認する。
+     */
+    @Test
+    public void testExpandWithValues() {
+        RestRequestTemplate sut = new RestMockHttpRequestBuilder()
+                .template("GET", "/{a}/{b}/{a}")
+                .build();
+        assertThat(sut.expand("x", "テスト").getRequestUri(), is("/x/%E3%83%86%E3%82%B9%E3%83%88/x"));
+    }
+
+    /**
+     * ボディはテンプレートの生成時に1度だけ変換され、展開したリクエストで共有されることを確認する。
+     * 展開したリクエストを変更してもテンプレートに影響しないことを確認する。
+     */
+    @Test
+    public void testBodyConvertedOnce() {
+        final int[] count = {0};
+        RestMockHttpRequestBuilder builder = new RestMockHttpRequestBuilder();
+        builder.setBodyConverters(Collections.singletonList(new StringBodyConverter() {
+            @Override
+            public void write(Object body, MediaType mediaType, Charset charset, OutputStream out)
+                    throws IOException {
+                count[0]++;
+                super.write(body, mediaType, charset, out);
+            }
+        }));
+        RestRequestTemplate sut = builder.template("POST", "/users/{id}")
+                .setContentType("text/plain; charset=UTF-8")
+                .setHeader("X-Test", "template")
+                .setBody("body")
+                .build();
+        assertThat(count[0], is(1));
+
+        RestMockHttpRequest first = sut.expand("1");
+        first.setHeader("X-Test", "changed");
+        assertThat(first.toString(), is("POST /users/1 HTTP/1.1" + LS
+                + "Content-Type: text/plain; charset=UTF-8" + LS
+                + "X-Test: changed" + LS
+                + "Content-Length: 4" + LS
+                + LS
+                + "body"));
+        RestMockHttpRequest second = sut.expand("2");
+        assertThat(second.getHeader("X-Test"), is("template"));
+        second.toString();
+        assertThat(count[0], is(1));
+    }
+
+    /**
+     * テンプレートの生成後にビルダーを変更しても、テンプレートに影響しないことを確認する。
+     */
+    @Test
+    public void testBuilderChangedAfterBuild() {
+        RestRequestTemplate.Builder builder = new RestMockHttpRequestBuilder().template("GET", "/users/{id}");
+        RestRequestTemplate sut = builder.build();
+        builder.setHeader("X-Test", "after");
+        assertThat(sut.expand("1").getHeader("X-Test"), is(nullValue()));
+    }
+
+    /**
+     * パス変数の値が指定されていない場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testNoValue() {
+        RestRequestTemplate sut = new RestMockHttpRequestBuilder().template("GET", "/users/{id}").build();
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("no value for path variable. name=[id].");
+        sut.expand(new HashMap<String, Object>());
+    }
+
+    /**
+     * パス変数の値の数が異なる場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testWrongNumberOfValues() {
+        RestRequestTemplate sut = new RestMockHttpRequestBuilder().template("GET", "/users/{id}").build();
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("number of values must be 1. pattern=[/users/{id}], values=[2].");
+        sut.expand("1", "2");
+    }
+
+    /**
+     * URIパターンが不正な場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testInvalidPattern() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("invalid uri pattern. pattern=[/users/{id].");
+        new RestMockHttpRequestBuilder().template("GET", "/users/{id").build();
+    }
+
+    /**
+     * {@link java.io.InputStream}のボディを設定した場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testInputStreamBody() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("single-use body cannot be used for template. body class=[java.io.ByteArrayInputStream].");
+        new RestMockHttpRequestBuilder().template("POST", "/users")
+                .setBody(new ByteArrayInputStream(new byte[0]));
+    }
+
+    /**
+     * {@link java.util.Iterator}のボディを設定した場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testIteratorBody() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("single-use body cannot be used for template.");
+        new RestMockHttpRequestBuilder().template("POST", "/users")
+                .setBody(Arrays.asList("a", "b").iterator());
+    }
+
+    /**
+     * {@link java.io.InputStream}のパートを含む{@link MultipartBody}を設定した場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testMultipartStreamBody() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("single-use body cannot be used for template. body class=[nablarch.fw.web.MultipartBody].");
+        new RestMockHttpRequestBuilder().template("POST", "/users")
+                .setBody(new MultipartBody().addText("name", "value")
+                        .addStream("file", "a.txt", "text/plain", new ByteArrayInputStream(new byte[0])));
+    }
+
+    /**
+     * {@link java.io.InputStream}のパートを含まない{@link MultipartBody}は、テンプレートで使用できることを確認する。
+     */
+    @Test
+    public void testMultipartBody() {
+        RestRequestTemplate template = new RestMockHttpRequestBuilder().template("POST", "/users")
+                .setBody(new MultipartBody().addText("name", "value"))
+                .build();
+        assertThat(template.expand().getBody() instanceof MultipartBody, is(true));
+    }
+}
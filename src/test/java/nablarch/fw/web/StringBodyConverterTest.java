@@ -3,6 +3,11 @@ package nablarch.fw.web;
 import nablarch.fw.web.RestTestBodyConverter.MediaType;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -42,4 +47,22 @@ public class StringBodyConverterTest {
         MediaType mediaTypePlain = new MediaType("text/plain");
         assertEquals(body, sut.convert(body, mediaTypePlain));
     }
+
+    /**
+     * {@link StringBodyConverter#write(Object, MediaType, Charset, java.io.OutputStream)}のテスト。
+     * 指定した文字コードでエンコードされたバイト列が書き出されることを確認する。
+     */
+    @Test
+    public void writeBytesTest() throws IOException {
+        String body = "テスト";
+        MediaType mediaTypePlain = new MediaType("text/plain");
+
+        ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+        sut.write(body, mediaTypePlain, Charset.forName("UTF-8"), utf8);
+        assertArrayEquals(body.getBytes("UTF-8"), utf8.toByteArray());
+
+        ByteArrayOutputStream sjis = new ByteArrayOutputStream();
+        sut.write(body, mediaTypePlain, Charset.forName("Shift_JIS"), sjis);
+        assertArrayEquals(body.getBytes("Shift_JIS"), sjis.toByteArray());
+    }
 }
\ No newline at end of file
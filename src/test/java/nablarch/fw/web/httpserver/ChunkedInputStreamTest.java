@@ -0,0 +1,85 @@
+package nablarch.fw.web.httpserver;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link ChunkedInputStream}のテスト
+ */
+public class ChunkedInputStreamTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    /**
+     * チャンク形式のデータが復元され、後続のデータが読み込まれないことを確認する。
+     */
+    @Test
+    public void testRead() throws IOException {
+        ByteArrayInputStream source = new ByteArrayInputStream(
+                "5\r\nhello\r\n1;ext=value\r\n,\r\na\r\n chunked!!\r\n0\r\nTrailer: x\r\n\r\nnext".getBytes("US-ASCII"));
+        assertThat(readAll(new ChunkedInputStream(source)), is("hello, chunked!!"));
+        assertThat(readAll(source), is("next"));
+    }
+
+    /**
+     * 1バイトずつ読み込んだ場合も復元されることを確認する。
+     */
+    @Test
+    public void testReadSingleByte() throws IOException {
+        InputStream sut = new ChunkedInputStream(
+                new ByteArrayInputStream("2\r\nab\r\n1\r\nc\r\n0\r\n\r\n".getBytes("US-ASCII")));
+        StringBuilder actual = new StringBuilder();
+        int b;
+        while ((b = sut.read()) != -1) {
+            actual.append((char) b);
+        }
+        assertThat(actual.toString(), is("abc"));
+        assertThat(sut.read(), is(-1));
+    }
+
+    /**
+     * チャンクの途中でデータが終わった場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testUnexpectedEnd() throws IOException {
+        expectedException.expect(IOException.class);
+        expectedException.expectMessage("unexpected end of chunked body.");
+        readAll(new ChunkedInputStream(new ByteArrayInputStream("5\r\nhel".getBytes("US-ASCII"))));
+    }
+
+    /**
+     * チャンクサイズが不正な場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testInvalidChunkSize() throws IOException {
+        expectedException.expect(IOException.class);
+        expectedException.expectMessage("invalid chunk size. line=[xyz].");
+        readAll(new ChunkedInputStream(new ByteArrayInputStream("xyz\r\n".getBytes("US-ASCII"))));
+    }
+
+    /**
+     * ストリームを終端まで読み込む。
+     *
+     * @param in ストリーム
+     * @return 読み込んだ文字列
+     */
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("US-ASCII");
+    }
+}
@@ -0,0 +1,459 @@
+package nablarch.fw.web.httpserver;
+
+import mockit.Deencapsulation;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.jaxrs.JaxRsResponseHandler;
+import nablarch.fw.web.HttpCookie;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.RestMockHttpRequest;
+import nablarch.fw.web.RestMockHttpRequestBuilder;
+import nablarch.fw.web.servlet.ServletExecutionContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * {@link HttpServerDirect}のテスト
+ */
+public class HttpServerDirectTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final RestMockHttpRequestBuilder builder = new RestMockHttpRequestBuilder();
+
+    /**
+     * クエリ文字列のパラメータがデコードされてハンドラに渡されることを確認する。
+     */
+    @Test
+    public void testQueryParameter() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                return text(request.getParam("a")[0] + "," + request.getParam("b")[0]);
+            }
+        });
+        HttpResponse response = sut.handle(builder.get("/test?a=1&b=%E3%81%82"), new ExecutionContext());
+        assertThat(response.getStatusCode(), is(200));
+        assertThat(response.getBodyString(), is("1,あ"));
+    }
+
+    /**
+     * フォーム形式のボディがパラメータとして解析されることを確認する。
+     */
+    @Test
+    public void testFormParameter() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                return text(request.getParam("name")[0]);
+            }
+        });
+        RestMockHttpRequest request = builder.post("/test")
+                .setContentType("application/x-www-form-urlencoded")
+                .setBody("name=%E5%90%8D%E5%89%8D");
+        assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("名前"));
+    }
+
+    /**
+     * リクエストボディとヘッダーがハンドラに渡されることを確認する。
+     */
+    @Test
+    public void testRequestBody() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                InputStream in = null;
+                try {
+                    in = ((ServletExecutionContext) context).getServletRequest().getInputStream();
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    int b;
+                    while ((b = in.read()) != -1) {
+                        out.write(b);
+                    }
+                    return text(request.getHeader("X-Test") + ":" + out.toString("UTF-8"));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        RestMockHttpRequest request = builder.post("/test")
+                .setHeader("X-Test", "header")
+                .setContentType("text/plain")
+                .setBody("body");
+        assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("header:body"));
+    }
+
+    /**
+     * Content-Typeのcharsetでエンコードされたリクエストボディと、ASCII以外の文字を含むヘッダーが
+     * ハンドラに渡されることを確認する。
+     */
+    @Test
+    public void testRequestBodyWithCharset() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                try {
+                    InputStream in = ((ServletExecutionContext) context).getServletRequest().getInputStream();
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    int b;
+                    while ((b = in.read()) != -1) {
+                        out.write(b);
+                    }
+                    return text(request.getHeader("X-Test") + ":" + out.toString("Shift_JIS")
+                            + ":" + request.getHeader("Content-Length"));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        RestMockHttpRequest request = builder.post("/test")
+                .setHeader("X-Test", "ヘッダー")
+                .setContentType("text/plain; charset=Shift_JIS")
+                .setBody("本文");
+        assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("ヘッダー:本文:4"));
+    }
+
+    /**
+     * {@link InputStream}のボディが、全体をメモリ上に読み込まずにチャンク形式で受け渡されることを確認する。
+     */
+    @Test
+    public void testStreamingBody() {
+        HttpServerDirect sut = createServer(new CountingHandler());
+        RestMockHttpRequest request = builder.post("/test")
+                .setContentType("application/octet-stream")
+                .setBody(new GeneratedInputStream(10 * 1024 * 1024));
+        assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("10485760:-1:chunked"));
+    }
+
+    /**
+     * ファイルのボディが、ファイルサイズをContent-Lengthとして受け渡されることを確認する。
+     */
+    @Test
+    public void testFileBody() throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), new byte[300000]);
+        HttpServerDirect sut = createServer(new CountingHandler());
+        RestMockHttpRequest request = builder.put("/test")
+                .setContentType("application/octet-stream")
+                .setBody(file.toPath());
+        assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("300000:300000:null"));
+    }
+
+    /**
+     * キャッシュの上限を超える{@link nablarch.fw.web.RestTestBodyWriter}のボディが、
+     * Content-Lengthとともに欠けることなく受け渡されることを確認する。
+     */
+    @Test
+    public void testLargeBody() {
+        char[] chars = new char[3 * 1024 * 1024];
+        Arrays.fill(chars, 'a');
+        HttpServerDirect sut = createServer(new CountingHandler());
+        RestMockHttpRequest request = builder.post("/test")
+                .setContentType("text/plain; charset=UTF-8")
+                .setBody(new String(chars));
+        assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("3145728:3145728:null"));
+    }
+
+    /**
+     * ハンドラがボディを読み込まなかった場合も、処理が完了することを確認する。
+     */
+    @Test
+    public void testStreamingBodyNotRead() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                return text("not read");
+            }
+        });
+        RestMockHttpRequest request = builder.post("/test")
+                .setContentType("application/octet-stream")
+                .setBody(new GeneratedInputStream(1024 * 1024));
+        assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("not read"));
+    }
+
+    /**
+     * ボディの読み込み中に例外が発生した場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testStreamingBodyFailed() {
+        HttpServerDirect sut = createServer(new CountingHandler());
+        RestMockHttpRequest request = builder.post("/test")
+                .setContentType("application/octet-stream")
+                .setBody(new GeneratedInputStream(1024 * 1024) {
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        throw new IOException("read failed.");
+                    }
+                });
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("failed to write request. cause[read failed.].");
+        sut.handle(request, new ExecutionContext());
+    }
+
+    /**
+     * ボディを書き出すスレッドが、上限の範囲で再利用されるデーモンスレッドであることを確認する。
+     */
+    @Test
+    public void testStreamingBodyWriterThreadReused() {
+        HttpServerDirect sut = createServer(new CountingHandler());
+        ThreadPoolExecutor executor = Deencapsulation.getField(HttpServerDirect.class, "WRITER_EXECUTOR");
+        final Set<Thread> writers = Collections.synchronizedSet(new HashSet<Thread>());
+        for (int i = 0; i < executor.getMaximumPoolSize() + 2; i++) {
+            RestMockHttpRequest request = builder.post("/test")
+                    .setContentType("application/octet-stream")
+                    .setBody(new GeneratedInputStream(1024) {
+                        @Override
+                        public int read(byte[] b, int off, int len) throws IOException {
+                            writers.add(Thread.currentThread());
+                            return super.read(b, off, len);
+                        }
+                    });
+            assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("1024:-1:chunked"));
+        }
+        assertThat(writers.size(), is(lessThanOrEqualTo(executor.getMaximumPoolSize())));
+        for (Thread writer : writers) {
+            assertThat(writer.isDaemon(), is(true));
+            assertThat(writer.getName(), startsWith("direct-request-writer-"));
+        }
+    }
+
+    /**
+     * Hostが指定されていない場合、送信元のリクエストを変更せずにローカルホストとして処理されることを確認する。
+     */
+    @Test
+    public void testDefaultHost() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                HttpServletRequest servletRequest = ((ServletExecutionContext) context).getServletRequest();
+                return text(servletRequest.getHeader("Host") + ":" + servletRequest.getServerName() + ":"
+                        + servletRequest.getServerPort());
+            }
+        });
+        RestMockHttpRequest request = builder.get("/test");
+        assertThat(sut.handle(request, new ExecutionContext()).getBodyString(), is("127.0.0.1:127.0.0.1:80"));
+        assertThat(request.getHost(), is(nullValue()));
+        assertThat(request.getHeader("Host"), is(nullValue()));
+
+        assertThat(sut.handle(builder.get("/test").setHost("example.com:8080"), new ExecutionContext())
+                .getBodyString(), is("example.com:8080:example.com:8080"));
+    }
+
+    /**
+     * セッションがCookieで引き継がれ、リクエストをまたいで共有されることを確認する。
+     */
+    @Test
+    public void testSession() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                Integer count = context.getSessionScopedVar("count");
+                count = count == null ? 1 : count + 1;
+                context.setSessionScopedVar("count", count);
+                return text(String.valueOf(count));
+            }
+        });
+        HttpResponse first = sut.handle(builder.get("/test"), new ExecutionContext());
+        assertThat(first.getBodyString(), is("1"));
+        assertThat(first.getHeader("Set-Cookie"), startsWith("JSESSIONID="));
+
+        String sessionId = null;
+        for (HttpCookie cookie : first.getHttpCookies()) {
+            if (cookie.containsKey("JSESSIONID")) {
+                sessionId = cookie.get("JSESSIONID");
+            }
+        }
+        HttpResponse second = sut.handle(builder.get("/test").setHeader("Cookie", "JSESSIONID=" + sessionId),
+                new ExecutionContext());
+        assertThat(second.getBodyString(), is("2"));
+    }
+
+    /**
+     * ハンドラキューから例外が送出された場合、500エラーとなることを確認する。
+     */
+    @Test
+    public void testUncaughtException() {
+        HttpServerDirect sut = new HttpServerDirect();
+        List<Handler> handlerQueue = new ArrayList<Handler>();
+        handlerQueue.add(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                throw new IllegalStateException("error");
+            }
+        });
+        sut.setHandlerQueue(handlerQueue);
+        sut.startLocal();
+        assertThat(sut.handle(builder.get("/test"), new ExecutionContext()).getStatusCode(), is(500));
+    }
+
+    /**
+     * 起動前にリクエストを処理しようとした場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testNotStarted() {
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("this server is not started.");
+        new HttpServerDirect().handle(builder.get("/test"), new ExecutionContext());
+    }
+
+    /**
+     * 停止後にリクエストを処理しようとした場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testStop() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                return text("ok");
+            }
+        });
+        assertThat(sut.handle(builder.get("/test"), new ExecutionContext()).getBodyString(), is("ok"));
+        sut.stop();
+        expectedException.expect(RuntimeException.class);
+        expectedException.expectMessage("this server is not started.");
+        sut.handle(builder.get("/test"), new ExecutionContext());
+    }
+
+    /**
+     * ポートを使用した起動はサポートされないことを確認する。
+     */
+    @Test
+    public void testStart() {
+        expectedException.expect(UnsupportedOperationException.class);
+        new HttpServerDirect().start();
+    }
+
+    /**
+     * サポートしないServlet APIのメソッドを呼び出した場合、メソッド名を含む例外が送出されることを確認する。
+     */
+    @Test
+    public void testUnsupportedServletMethod() {
+        HttpServerDirect sut = createServer(new HttpRequestHandler() {
+            @Override
+            public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                HttpServletRequest servletRequest = ((ServletExecutionContext) context).getServletRequest();
+                try {
+                    servletRequest.getRequestDispatcher("/other");
+                    return text("dispatched");
+                } catch (UnsupportedOperationException e) {
+                    return text(servletRequest.getPathInfo() + ":" + servletRequest.isSecure() + ":" + e.getMessage());
+                }
+            }
+        });
+        HttpResponse response = sut.handle(builder.get("/test"), new ExecutionContext());
+        assertThat(response.getBodyString(),
+                is("null:false:ServletRequest#getRequestDispatcher is not supported in direct dispatch mode."));
+    }
+
+    /**
+     * リクエストボディのバイト数と、Content-Length、Transfer-Encodingを返すハンドラ。
+     */
+    private static class CountingHandler implements HttpRequestHandler {
+        @Override
+        public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+            try {
+                HttpServletRequest servletRequest = ((ServletExecutionContext) context).getServletRequest();
+                InputStream in = servletRequest.getInputStream();
+                byte[] buffer = new byte[8192];
+                long count = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    count += read;
+                }
+                return text(count + ":" + servletRequest.getContentLength()
+                        + ":" + servletRequest.getHeader("Transfer-Encoding"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * 指定したバイト数のデータを生成する{@link InputStream}。
+     */
+    private static class GeneratedInputStream extends InputStream {
+        private long remaining;
+
+        GeneratedInputStream(long size) {
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return 'a';
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int read = (int) Math.min(len, remaining);
+            Arrays.fill(b, off, off + read, (byte) 'a');
+            remaining -= read;
+            return read;
+        }
+    }
+
+    /**
+     * {@link JaxRsResponseHandler}と指定したハンドラで構成したサーバを生成する。
+     *
+     * @param handler ハンドラ
+     * @return 起動済みのサーバ
+     */
+    private HttpServerDirect createServer(HttpRequestHandler handler) {
+        HttpServerDirect server = new HttpServerDirect();
+        List<Handler> handlerQueue = new ArrayList<Handler>();
+        handlerQueue.add(new JaxRsResponseHandler());
+        handlerQueue.add(handler);
+        server.setHandlerQueue(handlerQueue);
+        server.startLocal();
+        return server;
+    }
+
+    /**
+     * UTF-8のテキストレスポンスを生成する。
+     *
+     * @param body ボディ
+     * @return レスポンス
+     */
+    private static HttpResponse text(String body) {
+        HttpResponse response = new HttpResponse(200);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.write(body);
+        return response;
+    }
+}
@@ -0,0 +1,107 @@
+package nablarch.test.core.http;
+
+import nablarch.fw.Handler;
+import org.junit.Test;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * {@link HandlerQueueOverride}のテスト
+ */
+public class HandlerQueueOverrideTest {
+
+    /**
+     * テストクラス単位とテストメソッド単位の差し替えを併用した場合、
+     * テストメソッド単位の差し替えが優先され、終了時にテストクラス単位の差し替えに戻ることを確認する。
+     */
+    @Test
+    public void testFind_ClassRuleAndRule() throws Throwable {
+        final HandlerQueueOverride classRule = new NopOverride();
+        final HandlerQueueOverride rule = new NopOverride();
+        final Statement test = new Statement() {
+            @Override
+            public void evaluate() {
+                assertThat(HandlerQueueOverride.find(TestClass.class, "test"), is(sameInstance(rule)));
+                assertThat(HandlerQueueOverride.find(TestClass.class, "other"), is(sameInstance(classRule)));
+            }
+        };
+        Statement testClass = new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                assertThat(HandlerQueueOverride.find(TestClass.class, "test"), is(sameInstance(classRule)));
+                rule.apply(test, Description.createTestDescription(TestClass.class, "test")).evaluate();
+                assertThat(HandlerQueueOverride.find(TestClass.class, "test"), is(sameInstance(classRule)));
+            }
+        };
+
+        classRule.apply(testClass, Description.createSuiteDescription(TestClass.class)).evaluate();
+        assertThat(HandlerQueueOverride.find(TestClass.class, "test"), is(nullValue()));
+    }
+
+    /**
+     * 同じ範囲で差し替えを重ねた場合、終了時に前の差し替えに戻ることを確認する。
+     */
+    @Test
+    public void testFind_Nested() throws Throwable {
+        final HandlerQueueOverride outer = new NopOverride();
+        final HandlerQueueOverride inner = new NopOverride();
+        final Description description = Description.createSuiteDescription(TestClass.class);
+        Statement statement = new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                inner.apply(new Statement() {
+                    @Override
+                    public void evaluate() {
+                        assertThat(HandlerQueueOverride.find(TestClass.class, "test"), is(sameInstance(inner)));
+                    }
+                }, description).evaluate();
+                assertThat(HandlerQueueOverride.find(TestClass.class, "test"), is(sameInstance(outer)));
+            }
+        };
+
+        outer.apply(statement, description).evaluate();
+        assertThat(HandlerQueueOverride.find(TestClass.class, "test"), is(nullValue()));
+    }
+
+    /**
+     * 差し替えが、宣言したテストクラス以外には影響しないことを確認する。
+     */
+    @Test
+    public void testFind_OtherTestClass() throws Throwable {
+        final HandlerQueueOverride override = new NopOverride();
+        Statement statement = new Statement() {
+            @Override
+            public void evaluate() {
+                assertThat(HandlerQueueOverride.find(TestClass.class, "test"), is(sameInstance(override)));
+                assertThat(HandlerQueueOverride.find(OtherTestClass.class, "test"), is(nullValue()));
+                assertThat(HandlerQueueOverride.find(null, null), is(nullValue()));
+            }
+        };
+        override.apply(statement, Description.createSuiteDescription(TestClass.class)).evaluate();
+    }
+
+    /**
+     * ハンドラキューを変更しない差し替え。
+     */
+    private static class NopOverride extends HandlerQueueOverride {
+        @Override
+        protected List<Handler> customize(List<Handler> handlerQueue) {
+            return handlerQueue;
+        }
+    }
+
+    /** 差し替えを宣言するテストクラス */
+    private static class TestClass {
+    }
+
+    /** 差し替えを宣言しないテストクラス */
+    private static class OtherTestClass {
+    }
+}
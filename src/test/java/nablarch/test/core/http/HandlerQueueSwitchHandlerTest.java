@@ -0,0 +1,141 @@
+package nablarch.test.core.http;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
+import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.RestMockHttpRequestBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * {@link HandlerQueueSwitchHandler}のテスト
+ */
+public class HandlerQueueSwitchHandlerTest {
+
+    private final CountingOverride override = new CountingOverride();
+
+    private final RequestScopedTestSupportHandler testSupportHandler =
+            new RequestScopedTestSupportHandler(new RestTestConfiguration());
+
+    private final HandlerQueueSwitchHandler sut = new HandlerQueueSwitchHandler(
+            createQueue(new StatusHandler(200)), testSupportHandler);
+
+    /**
+     * 差し替えが有効でない場合、設定されたハンドラキューで処理されることを確認する。
+     */
+    @Test
+    public void testHandle_NotOverridden() {
+        assertThat(handle(testSupportHandler, sut, null).getStatusCode(), is(200));
+        assertThat(override.customized.get(), is(0));
+    }
+
+    /**
+     * 送信時に差し替えが指定された場合、そのリクエストのみ差し替え後のハンドラキューで処理されることを確認する。
+     */
+    @Test
+    public void testHandle_Overridden() {
+        assertThat(handle(testSupportHandler, sut, override).getStatusCode(), is(201));
+        assertThat(handle(testSupportHandler, sut, override).getStatusCode(), is(201));
+        assertThat("差し替え後のハンドラキューは再利用される", override.customized.get(), is(1));
+
+        assertThat(handle(testSupportHandler, sut, null).getStatusCode(), is(200));
+
+        CountingOverride another = new CountingOverride();
+        assertThat(handle(testSupportHandler, sut, another).getStatusCode(), is(201));
+        assertThat(another.customized.get(), is(1));
+        assertThat(handle(testSupportHandler, sut, override).getStatusCode(), is(201));
+        assertThat(override.customized.get(), is(1));
+        assertThat(testSupportHandler.getOverride(), is(nullValue()));
+    }
+
+    /**
+     * 差し替え後のハンドラキューが内蔵サーバ毎に生成されることを確認する。
+     */
+    @Test
+    public void testHandle_OverriddenPerServer() {
+        RequestScopedTestSupportHandler otherTestSupportHandler =
+                new RequestScopedTestSupportHandler(new RestTestConfiguration());
+        HandlerQueueSwitchHandler other = new HandlerQueueSwitchHandler(
+                createQueue(new StatusHandler(202)), otherTestSupportHandler);
+
+        assertThat(handle(testSupportHandler, sut, override).getStatusCode(), is(201));
+        assertThat(handle(otherTestSupportHandler, other, override).getStatusCode(), is(201));
+        assertThat(override.customized.get(), is(2));
+        assertThat(handle(otherTestSupportHandler, other, null).getStatusCode(), is(202));
+    }
+
+    /**
+     * 内蔵サーバと同様に、{@link RequestScopedTestSupportHandler}と
+     * {@link HandlerQueueSwitchHandler}からなるハンドラキューでリクエストを処理する。
+     *
+     * @param testSupportHandler 内蔵サーバに登録するテスト用ハンドラ
+     * @param switchHandler      ハンドラキューを選択するハンドラ
+     * @param override           送信時に有効な差し替え
+     * @return レスポンス
+     */
+    private static HttpResponse handle(RequestScopedTestSupportHandler testSupportHandler,
+                                       HandlerQueueSwitchHandler switchHandler, HandlerQueueOverride override) {
+        RequestScopedTestSupportHandler.Binding binding = testSupportHandler.bind(
+                new RestMockHttpRequestBuilder().get("/test"), new ExecutionContext(), override);
+        try {
+            List<Handler> handlerQueue = switchHandler.toHandlerQueue();
+            testSupportHandler.register(handlerQueue);
+            ExecutionContext context = new ExecutionContext();
+            context.addHandlers(handlerQueue);
+            return context.handleNext(binding.getRequest());
+        } finally {
+            testSupportHandler.unbind(binding);
+        }
+    }
+
+    /**
+     * ハンドラキューを生成する。
+     *
+     * @param handler ハンドラ
+     * @return ハンドラキュー
+     */
+    private static List<Handler> createQueue(Handler handler) {
+        List<Handler> handlerQueue = new ArrayList<Handler>();
+        handlerQueue.add(handler);
+        return handlerQueue;
+    }
+
+    /**
+     * 先頭に201を返すハンドラを追加し、呼び出された回数を記録する差し替え。
+     */
+    private static class CountingOverride extends HandlerQueueOverride {
+        private final AtomicInteger customized = new AtomicInteger();
+
+        @Override
+        protected List<Handler> customize(List<Handler> handlerQueue) {
+            customized.incrementAndGet();
+            handlerQueue.add(0, new StatusHandler(201));
+            return handlerQueue;
+        }
+    }
+
+    /**
+     * 指定したステータスコードを返すハンドラ。
+     */
+    private static class StatusHandler implements HttpRequestHandler {
+        private final int statusCode;
+
+        StatusHandler(int statusCode) {
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+            return new HttpResponse(statusCode);
+        }
+    }
+}
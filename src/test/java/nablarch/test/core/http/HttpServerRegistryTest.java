@@ -0,0 +1,241 @@
+package nablarch.test.core.http;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link HttpServerRegistry}のテスト
+ */
+public class HttpServerRegistryTest {
+
+    private final HttpServerRegistry sut = new HttpServerRegistry();
+
+    @After
+    public void tearDown() {
+        sut.shutdown();
+    }
+
+    /**
+     * 同じ設定の場合は起動済みの内蔵サーバが返されることを確認する。
+     */
+    @Test
+    public void testAcquire_SameConfiguration() throws Exception {
+        MockServerFactory factory = new MockServerFactory();
+        FutureTask<EmbeddedServer> first = sut.acquire(createConfig("a"), factory);
+        FutureTask<EmbeddedServer> second = sut.acquire(createConfig("a"), factory);
+        assertThat(second, is(sameInstance(first)));
+        assertThat(factory.created.get(), is(1));
+        assertThat(sut.size(), is(1));
+    }
+
+    /**
+     * 設定が異なる場合は別の内蔵サーバが起動されることを確認する。
+     */
+    @Test
+    public void testAcquire_DifferentConfiguration() throws Exception {
+        MockServerFactory factory = new MockServerFactory();
+        RestTestConfiguration other = createConfig("a");
+        other.setWebFrontControllerKey("otherController");
+        FutureTask<EmbeddedServer> first = sut.acquire(createConfig("a"), factory);
+        FutureTask<EmbeddedServer> second = sut.acquire(other, factory);
+        assertThat(second.get(), is(not(sameInstance(first.get()))));
+        assertThat(factory.created.get(), is(2));
+    }
+
+    /**
+     * 保持数の上限を超えた場合、最も長く使用されていない内蔵サーバが停止されることを確認する。
+     */
+    @Test
+    public void testAcquire_EvictLeastRecentlyUsed() throws Exception {
+        MockServerFactory factory = new MockServerFactory();
+        MockServer a = (MockServer) sut.acquire(createConfig("a"), factory).get();
+        MockServer b = (MockServer) sut.acquire(createConfig("b"), factory).get();
+        // aを使用したため、bが最も長く使用されていない内蔵サーバとなる
+        sut.acquire(createConfig("a"), factory);
+        MockServer c = (MockServer) sut.acquire(createConfig("c"), factory).get();
+
+        assertThat(sut.size(), is(2));
+        assertThat(a.stopped.get(), is(0));
+        assertThat(b.stopped.get(), is(1));
+        assertThat(c.stopped.get(), is(0));
+
+        sut.acquire(createConfig("b"), factory);
+        assertThat(factory.created.get(), is(4));
+    }
+
+    /**
+     * 保持数の上限を超えても、リクエストを送信中の内蔵サーバは停止されないことを確認する。
+     */
+    @Test
+    public void testAcquire_EvictSkipsServerInUse() throws Exception {
+        MockServerFactory factory = new MockServerFactory();
+        MockServer a = (MockServer) sut.acquire(createConfig("a"), factory).get();
+        MockServer b = (MockServer) sut.acquire(createConfig("b"), factory).get();
+        assertThat(a.enter(), is(true));
+        sut.acquire(createConfig("c"), factory);
+
+        assertThat(sut.size(), is(2));
+        assertThat(a.stopped.get(), is(0));
+        assertThat(b.stopped.get(), is(1));
+        a.exit();
+        assertThat(a.stopped.get(), is(0));
+    }
+
+    /**
+     * リクエストを送信中に破棄された内蔵サーバは、送信の終了時に停止されることを確認する。
+     */
+    @Test
+    public void testShutdown_ServerInUse() throws Exception {
+        MockServer a = (MockServer) sut.acquire(createConfig("a"), new MockServerFactory()).get();
+        assertThat(a.enter(), is(true));
+        sut.shutdown();
+        assertThat(a.stopped.get(), is(0));
+        assertThat(a.enter(), is(false));
+
+        a.exit();
+        assertThat(a.stopped.get(), is(1));
+    }
+
+    /**
+     * 並行送信やウォームアップの設定が異なる場合は別の内蔵サーバが起動されることを確認する。
+     */
+    @Test
+    public void testAcquire_DifferentServerSettings() throws Exception {
+        MockServerFactory factory = new MockServerFactory();
+        RestTestConfiguration concurrent = createConfig("a");
+        concurrent.setConcurrentRequestEnabled(true);
+        RestTestConfiguration warmUpUris = createConfig("a");
+        warmUpUris.setWarmUpUris(Arrays.asList("/warmup"));
+        RestTestConfiguration warmUpCount = createConfig("a");
+        warmUpCount.setWarmUpUris(Arrays.asList("/warmup"));
+        warmUpCount.setWarmUpCount(2);
+        for (RestTestConfiguration config : Arrays.asList(createConfig("a"), concurrent, warmUpUris, warmUpCount)) {
+            config.setMaxServerCount(4);
+            sut.acquire(config, factory);
+        }
+        assertThat(factory.created.get(), is(4));
+        assertThat(sut.size(), is(4));
+
+        RestTestConfiguration same = createConfig("a");
+        same.setMaxServerCount(4);
+        same.setWarmUpUris(Arrays.asList("/warmup"));
+        sut.acquire(same, factory);
+        assertThat(factory.created.get(), is(4));
+    }
+
+    /**
+     * 同期的な起動に失敗した場合は登録されず、次回の取得時に再度起動されることを確認する。
+     */
+    @Test
+    public void testAcquire_StartupFailed() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Callable<EmbeddedServer> failure = new Callable<EmbeddedServer>() {
+            @Override
+            public EmbeddedServer call() {
+                count.incrementAndGet();
+                throw new IllegalStateException("startup failed");
+            }
+        };
+        FutureTask<EmbeddedServer> task = sut.acquire(createConfig("a"), failure);
+        try {
+            task.get();
+            fail("ここに到達したらExceptionが発生していない");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("startup failed"));
+        }
+        assertThat(sut.size(), is(0));
+
+        sut.acquire(createConfig("a"), failure);
+        assertThat(count.get(), is(2));
+    }
+
+    /**
+     * バックグラウンド起動が有効な場合、別スレッドで起動されることを確認する。
+     */
+    @Test
+    public void testAcquire_BackgroundStartup() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger otherThread = new AtomicInteger();
+        RestTestConfiguration config = createConfig("a");
+        config.setBackgroundStartupEnabled(true);
+        FutureTask<EmbeddedServer> task = sut.acquire(config, new Callable<EmbeddedServer>() {
+            @Override
+            public EmbeddedServer call() {
+                if (Thread.currentThread() != caller) {
+                    otherThread.incrementAndGet();
+                }
+                return new MockServer();
+            }
+        });
+        task.get();
+        assertThat(otherThread.get(), is(1));
+    }
+
+    /**
+     * シャットダウンした場合、全ての内蔵サーバが停止されることを確認する。
+     */
+    @Test
+    public void testShutdown() throws Exception {
+        MockServerFactory factory = new MockServerFactory();
+        MockServer a = (MockServer) sut.acquire(createConfig("a"), factory).get();
+        MockServer b = (MockServer) sut.acquire(createConfig("b"), factory).get();
+        sut.shutdown();
+        assertThat(a.stopped.get(), is(1));
+        assertThat(b.stopped.get(), is(1));
+        assertThat(sut.size(), is(0));
+    }
+
+    /**
+     * 保持数の上限を2とした設定を生成する。
+     *
+     * @param webBaseDir Warベースディレクトリ
+     * @return 設定
+     */
+    private static RestTestConfiguration createConfig(String webBaseDir) {
+        RestTestConfiguration config = new RestTestConfiguration();
+        config.setWebBaseDir(webBaseDir);
+        config.setMaxServerCount(2);
+        return config;
+    }
+
+    /**
+     * 停止された回数を記録する内蔵サーバ。
+     */
+    private static class MockServer extends EmbeddedServer {
+        private final AtomicInteger stopped = new AtomicInteger();
+
+        MockServer() {
+            super(null, null, null);
+        }
+
+        @Override
+        void stop() {
+            stopped.incrementAndGet();
+        }
+    }
+
+    /**
+     * {@link MockServer}を生成するファクトリ。
+     */
+    private static class MockServerFactory implements Callable<EmbeddedServer> {
+        private final AtomicInteger created = new AtomicInteger();
+
+        @Override
+        public EmbeddedServer call() {
+            created.incrementAndGet();
+            return new MockServer();
+        }
+    }
+}
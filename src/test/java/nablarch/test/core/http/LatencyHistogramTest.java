@@ -0,0 +1,95 @@
+package nablarch.test.core.http;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * {@link LatencyHistogram}のテスト
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * 128未満の値は正確に記録されることを確認する。
+     */
+    @Test
+    public void testExactValues() {
+        LatencyHistogram sut = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            sut.record(i);
+        }
+        assertThat(sut.getTotalCount(), is(100L));
+        assertThat(sut.getMin(), is(1L));
+        assertThat(sut.getMax(), is(100L));
+        assertThat(sut.getMean(), is(50.5));
+        assertThat(sut.getValueAtPercentile(50), is(50L));
+        assertThat(sut.getValueAtPercentile(99), is(99L));
+        assertThat(sut.getValueAtPercentile(100), is(100L));
+        assertThat(sut.getValueAtPercentile(0), is(1L));
+    }
+
+    /**
+     * 大きな値が相対誤差1/64以内で記録されることを確認する。
+     */
+    @Test
+    public void testLargeValues() {
+        LatencyHistogram sut = new LatencyHistogram();
+        for (long i = 1; i <= 10000; i++) {
+            sut.record(i * 1000000L);
+        }
+        for (double percentile : new double[] {10, 50, 90, 99, 99.9}) {
+            double expected = Math.ceil(percentile * 100) * 1000000.0;
+            long actual = sut.getValueAtPercentile(percentile);
+            assertThat(actual, is(greaterThanOrEqualTo((long) expected)));
+            assertThat((double) actual, is(closeTo(expected, expected / 64)));
+        }
+        assertThat(sut.getValueAtPercentile(100), is(10000000000L));
+        assertThat(sut.getValueAtPercentile(100), is(lessThanOrEqualTo(sut.getMax())));
+    }
+
+    /**
+     * long型の最大値と負の値を記録できることを確認する。
+     */
+    @Test
+    public void testBoundaryValues() {
+        LatencyHistogram sut = new LatencyHistogram();
+        sut.record(-1);
+        sut.record(Long.MAX_VALUE);
+        assertThat(sut.getMin(), is(0L));
+        assertThat(sut.getValueAtPercentile(50), is(0L));
+        assertThat(sut.getValueAtPercentile(100), is(Long.MAX_VALUE));
+    }
+
+    /**
+     * 統合したヒストグラムに両方の記録内容が含まれることを確認する。
+     */
+    @Test
+    public void testAdd() {
+        LatencyHistogram sut = new LatencyHistogram();
+        LatencyHistogram other = new LatencyHistogram();
+        sut.record(10);
+        other.record(20);
+        other.record(30);
+        sut.add(other);
+        assertThat(sut.getTotalCount(), is(3L));
+        assertThat(sut.getMin(), is(10L));
+        assertThat(sut.getMax(), is(30L));
+        assertThat(sut.getMean(), is(20.0));
+    }
+
+    /**
+     * 記録されていない場合は0が返されることを確認する。
+     */
+    @Test
+    public void testEmpty() {
+        LatencyHistogram sut = new LatencyHistogram();
+        assertThat(sut.getMin(), is(0L));
+        assertThat(sut.getMax(), is(0L));
+        assertThat(sut.getMean(), is(0.0));
+        assertThat(sut.getValueAtPercentile(99), is(0L));
+    }
+}
@@ -175,4 +175,79 @@ public class RequestResponseCookieManagerTest {
         assertNull(processedRequest.getHeader("Cookie"));
     }
 
-}
\ No newline at end of file
+    /**
+     * スレッド毎に値を保持する場合、他のスレッドで取得したCookieの値が付加されないことを確認する。
+     * リセットすると、全てのスレッドの値が消去されることを確認する。
+     */
+    @Test
+    public void testThreadIsolation() throws Exception {
+        final NablarchSIDManager sut = new NablarchSIDManager();
+        sut.setThreadIsolationEnabled(true);
+        sut.processResponse(new MockHttpRequest(), createResponse("NABLARCH_SID", "main"));
+
+        final String[] otherThread = new String[2];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                otherThread[0] = sut.processRequest(createRequest()).getHeader("Cookie");
+                sut.processResponse(new MockHttpRequest(), createResponse("NABLARCH_SID", "other"));
+                otherThread[1] = sut.processRequest(createRequest()).getHeader("Cookie");
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNull(otherThread[0]);
+        assertThat(otherThread[1], is("NABLARCH_SID=other"));
+        assertThat(sut.processRequest(createRequest()).getHeader("Cookie"), is("NABLARCH_SID=main"));
+
+        sut.reset();
+        assertNull(sut.processRequest(createRequest()).getHeader("Cookie"));
+    }
+
+    /**
+     * {@link CookieSession}が有効な場合、Cookieの値が{@link CookieSession}に保持されることを確認する。
+     * リセットしても{@link CookieSession}の値は消去されないことを確認する。
+     */
+    @Test
+    public void testCookieSession() {
+        NablarchSIDManager sut = new NablarchSIDManager();
+        sut.processResponse(new MockHttpRequest(), createResponse("NABLARCH_SID", "shared"));
+
+        CookieSession user1 = new CookieSession();
+        CookieSession user2 = new CookieSession();
+        try {
+            user1.activate();
+            assertThat(CookieSession.current(), is(user1));
+            assertNull(sut.processRequest(createRequest()).getHeader("Cookie"));
+            sut.processResponse(new MockHttpRequest(), createResponse("NABLARCH_SID", "user1"));
+
+            user2.activate();
+            sut.processResponse(new MockHttpRequest(), createResponse("NABLARCH_SID", "user2"));
+
+            user1.activate();
+            assertThat(sut.processRequest(createRequest()).getHeader("Cookie"), is("NABLARCH_SID=user1"));
+            sut.reset();
+            assertThat(sut.processRequest(createRequest()).getHeader("Cookie"), is("NABLARCH_SID=user1"));
+        } finally {
+            CookieSession.deactivate();
+        }
+        assertNull(CookieSession.current());
+        assertThat(user2.get("NABLARCH_SID"), is("user2"));
+        assertNull(sut.processRequest(createRequest()).getHeader("Cookie"));
+
+        user1.clear();
+        assertNull(user1.get("NABLARCH_SID"));
+    }
+
+    private static HttpRequest createRequest() {
+        return new RestMockHttpRequest(Collections.singletonList(new MockConverter()), "testType");
+    }
+
+    private static HttpResponse createResponse(String name, String value) {
+        HttpResponse response = new HttpResponse();
+        HttpCookie httpCookie = new HttpCookie();
+        httpCookie.put(name, value);
+        response.addCookie(httpCookie);
+        return response;
+    }
+}
@@ -0,0 +1,49 @@
+package nablarch.test.core.http;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link RequestThreadFactory}のテスト
+ */
+public class RequestThreadFactoryTest {
+
+    /**
+     * 接頭辞と連番からなる名前のデーモンスレッドが生成されることを確認する。
+     * 仮想スレッドは常にデーモンスレッドとなる。
+     */
+    @Test
+    public void testNewThread() {
+        RequestThreadFactory sut = new RequestThreadFactory("test-");
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                // NOP
+            }
+        };
+        Thread first = sut.newThread(runnable);
+        Thread second = sut.newThread(runnable);
+
+        assertThat(first.getName(), is("test-1"));
+        assertThat(second.getName(), is("test-2"));
+        assertTrue(first.isDaemon());
+    }
+
+    /**
+     * 仮想スレッドのAPIが存在する環境でのみ仮想スレッドが利用可能と判定されることを確認する。
+     */
+    @Test
+    public void testIsVirtualThreadAvailable() {
+        boolean hasVirtualThreadApi;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            hasVirtualThreadApi = true;
+        } catch (NoSuchMethodException e) {
+            hasVirtualThreadApi = false;
+        }
+        assertThat(RequestThreadFactory.isVirtualThreadAvailable(), is(hasVirtualThreadApi));
+    }
+}
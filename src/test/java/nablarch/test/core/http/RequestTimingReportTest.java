@@ -0,0 +1,70 @@
+package nablarch.test.core.http;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link RequestTimingReport}のテスト
+ */
+public class RequestTimingReportTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final RequestTimingReport sut = new RequestTimingReport();
+
+    /**
+     * テスト毎にフェーズ別の合計・平均・最大がJSON形式で出力されることを確認する。
+     */
+    @Test
+    public void testToJson() {
+        sut.record("Test#a", 1000000L, 2000000L, 3000000L, 4000000L);
+        sut.record("Test#a", 3000000L, 0L, 5000000L, 0L);
+        sut.record("Test\"b", 500L, 0L, 0L, 0L);
+        assertThat(sut.toJson(), is("{\"tests\":["
+                + "{\"test\":\"Test#a\",\"requests\":2,\"phases\":{"
+                + "\"processRequest\":{\"totalMillis\":4.000,\"averageMillis\":2.000,\"maxMillis\":3.000},"
+                + "\"serializeRequest\":{\"totalMillis\":2.000,\"averageMillis\":1.000,\"maxMillis\":2.000},"
+                + "\"handle\":{\"totalMillis\":8.000,\"averageMillis\":4.000,\"maxMillis\":5.000},"
+                + "\"processResponse\":{\"totalMillis\":4.000,\"averageMillis\":2.000,\"maxMillis\":4.000}}},"
+                + "{\"test\":\"Test\\\"b\",\"requests\":1,\"phases\":{"
+                + "\"processRequest\":{\"totalMillis\":0.001,\"averageMillis\":0.001,\"maxMillis\":0.001},"
+                + "\"serializeRequest\":{\"totalMillis\":0.000,\"averageMillis\":0.000,\"maxMillis\":0.000},"
+                + "\"handle\":{\"totalMillis\":0.000,\"averageMillis\":0.000,\"maxMillis\":0.000},"
+                + "\"processResponse\":{\"totalMillis\":0.000,\"averageMillis\":0.000,\"maxMillis\":0.000}}}"
+                + "]}"));
+    }
+
+    /**
+     * テストとフェーズの組毎に1行のCSV形式で出力されることを確認する。
+     */
+    @Test
+    public void testToCsv() {
+        sut.record("Test#a,b", 1000000L, 2000000L, 3000000L, 4000000L);
+        assertThat(sut.toCsv(), is("test,phase,requests,totalMillis,averageMillis,maxMillis\n"
+                + "\"Test#a,b\",processRequest,1,1.000,1.000,1.000\n"
+                + "\"Test#a,b\",serializeRequest,1,2.000,2.000,2.000\n"
+                + "\"Test#a,b\",handle,1,3.000,3.000,3.000\n"
+                + "\"Test#a,b\",processResponse,1,4.000,4.000,4.000\n"));
+    }
+
+    /**
+     * 指定したディレクトリにJSON形式とCSV形式のレポートが出力されることを確認する。
+     */
+    @Test
+    public void testWrite() throws Exception {
+        sut.record("Test#a", 1L, 1L, 1L, 1L);
+        File directory = new File(temporaryFolder.getRoot(), "report");
+        sut.write(directory);
+        assertThat(new File(directory, RequestTimingReport.JSON_FILE_NAME).isFile(), is(true));
+        assertThat(new File(directory, RequestTimingReport.CSV_FILE_NAME).isFile(), is(true));
+        assertThat(sut.getTestNames(), contains("Test#a"));
+    }
+}
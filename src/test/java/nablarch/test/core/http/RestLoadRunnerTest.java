@@ -0,0 +1,236 @@
+package nablarch.test.core.http;
+
+import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpResponse;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+/**
+ * {@link RestLoadRunner}のテスト
+ */
+public class RestLoadRunnerTest extends SimpleRestTestSupport {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    /**
+     * 仮想ユーザ毎に指定した回数のリクエストが送信されることを確認する。
+     */
+    @Test
+    public void testRun_Iterations() {
+        final Set<String> sent = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        final AtomicInteger processors = new AtomicInteger();
+        RestLoadResult result = new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+            @Override
+            public HttpRequest createRequest(int virtualUser, long iteration) {
+                sent.add(virtualUser + "-" + iteration);
+                return get("/test");
+            }
+        }).setProcessorFactory(new RestLoadRunner.ProcessorFactory() {
+            @Override
+            public RequestResponseProcessor createProcessor(int virtualUser) {
+                processors.incrementAndGet();
+                return new NablarchSIDManager();
+            }
+        }).setVirtualUsers(4).setIterations(10).run();
+
+        assertThat(result.getRequestCount(), is(40L));
+        assertThat(result.getErrorCount(), is(0L));
+        assertThat(sent.size(), is(40));
+        assertThat(processors.get(), is(4));
+        assertThat(result.getThroughput(), is(greaterThan(0.0)));
+        assertThat(result.getLatencyMillisAtPercentile(99), is(greaterThanOrEqualTo(result.getLatencyMillisAtPercentile(50))));
+        assertThat(result.getMaxLatencyMillis(), is(greaterThanOrEqualTo(result.getLatencyMillisAtPercentile(99))));
+    }
+
+    /**
+     * 仮想ユーザのスレッドでは仮想ユーザ毎の{@link CookieSession}が有効となり、
+     * 同じプロセッサを共有してもCookieが仮想ユーザ間で共有されないことを確認する。
+     */
+    @Test
+    public void testRun_CookieSessionPerVirtualUser() {
+        final ConcurrentHashMap<Integer, CookieSession> sessions = new ConcurrentHashMap<Integer, CookieSession>();
+        final AtomicInteger mismatches = new AtomicInteger();
+        final NablarchSIDManager shared = new NablarchSIDManager();
+        new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+            @Override
+            public HttpRequest createRequest(int virtualUser, long iteration) {
+                CookieSession current = CookieSession.current();
+                CookieSession previous = sessions.putIfAbsent(virtualUser, current);
+                if (current == null || (previous != null && previous != current)) {
+                    mismatches.incrementAndGet();
+                }
+                return get("/test");
+            }
+        }).setProcessorFactory(new RestLoadRunner.ProcessorFactory() {
+            @Override
+            public RequestResponseProcessor createProcessor(int virtualUser) {
+                return shared;
+            }
+        }).setVirtualUsers(4).setIterations(3).run();
+
+        assertThat(mismatches.get(), is(0));
+        assertThat(new HashSet<CookieSession>(sessions.values()).size(), is(4));
+        for (CookieSession session : sessions.values()) {
+            assertThat(session.get("NABLARCH_SID"), is("XXXXXX"));
+        }
+        assertNull(CookieSession.current());
+    }
+
+    /**
+     * 指定した実行時間が経過するまでリクエストが送信されることを確認する。
+     */
+    @Test
+    public void testRun_Duration() {
+        RestLoadResult result = new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+            @Override
+            public HttpRequest createRequest(int virtualUser, long iteration) {
+                return get("/test");
+            }
+        }).setVirtualUsers(2).setDuration(200, TimeUnit.MILLISECONDS).run();
+
+        assertThat(result.getRequestCount(), is(greaterThan(0L)));
+        assertThat(result.getElapsedMillis(), is(greaterThanOrEqualTo(200.0)));
+    }
+
+    /**
+     * 到着率を設定した場合、予定送信時刻に従って「仮想ユーザ数×送信回数」のリクエストが送信されることを確認する。
+     */
+    @Test
+    public void testRun_ArrivalRate() {
+        final Set<Long> sent = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        RestLoadResult result = new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+            @Override
+            public HttpRequest createRequest(int virtualUser, long iteration) {
+                sent.add(iteration);
+                return get("/test");
+            }
+        }).setVirtualUsers(2).setIterations(5).setArrivalRate(100).run();
+
+        assertThat(result.getRequestCount(), is(10L));
+        assertThat(sent.size(), is(10));
+        // 最後のリクエストの予定送信時刻は開始から90ミリ秒後
+        assertThat(result.getElapsedMillis(), is(greaterThanOrEqualTo(90.0)));
+    }
+
+    /**
+     * 到着率を設定した場合、レイテンシが予定送信時刻から計測されることを確認する。
+     * 先頭のリクエストで50ミリ秒停滞すると、後続のリクエストの待ち時間もレイテンシに含まれる。
+     */
+    @Test
+    public void testRun_ArrivalRate_CoordinatedOmission() {
+        RestLoadResult result = new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+            @Override
+            public HttpRequest createRequest(int virtualUser, long iteration) {
+                if (iteration == 0) {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return get("/test");
+            }
+        }).setIterations(5).setArrivalRate(100).run();
+
+        assertThat(result.getRequestCount(), is(5L));
+        // 予定送信時刻は0,10,20,30,40ミリ秒後のため、レイテンシは50,40,30,20,10ミリ秒以上となる
+        assertThat(result.getMaxLatencyMillis(), is(greaterThanOrEqualTo(50.0)));
+        assertThat(result.getLatencyMillisAtPercentile(50), is(greaterThanOrEqualTo(30.0)));
+        assertThat(result.getMinLatencyMillis(), is(greaterThanOrEqualTo(10.0)));
+    }
+
+    /**
+     * 到着率と実行時間を設定した場合、実行時間内に予定されたリクエストのみ送信されることを確認する。
+     */
+    @Test
+    public void testRun_ArrivalRate_Duration() {
+        RestLoadResult result = new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+            @Override
+            public HttpRequest createRequest(int virtualUser, long iteration) {
+                return get("/test");
+            }
+        }).setVirtualUsers(2).setDuration(100, TimeUnit.MILLISECONDS).setArrivalRate(100).run();
+
+        // 予定送信時刻は0,10,...,90ミリ秒後
+        assertThat(result.getRequestCount(), is(10L));
+    }
+
+    /**
+     * 送信中に例外が発生した場合、エラーとして計上され送信が継続されることを確認する。
+     */
+    @Test
+    public void testRun_Error() {
+        RestLoadResult result = new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+            @Override
+            public HttpRequest createRequest(int virtualUser, long iteration) {
+                if (iteration % 2 == 0) {
+                    throw new IllegalStateException("error");
+                }
+                return get("/test");
+            }
+        }).setIterations(4).run();
+
+        assertThat(result.getRequestCount(), is(4L));
+        assertThat(result.getErrorCount(), is(2L));
+    }
+
+    /**
+     * 送信中に{@link Error}が発生した場合、送出されることを確認する。
+     */
+    @Test
+    public void testRun_Failure() {
+        expectedException.expect(AssertionError.class);
+        expectedException.expectMessage("failure");
+        new RestLoadRunner(this, new RestLoadRunner.RequestFactory() {
+            @Override
+            public HttpRequest createRequest(int virtualUser, long iteration) {
+                throw new AssertionError("failure");
+            }
+        }).setVirtualUsers(2).setIterations(1).run();
+    }
+
+    /**
+     * 送信回数と実行時間のどちらも設定されていない場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testRun_NoLimit() {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("either iterations or duration must be set.");
+        new RestLoadRunner(this, null).run();
+    }
+
+    /**
+     * 不正な設定値の場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testSetVirtualUsers_Invalid() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("virtualUsers must be greater than 0. value=[0].");
+        new RestLoadRunner(this, null).setVirtualUsers(0);
+    }
+
+    /**
+     * 不正な到着率の場合、例外が送出されることを確認する。
+     */
+    @Test
+    public void testSetArrivalRate_Invalid() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("arrivalRate must be greater than 0. value=[0.0].");
+        new RestLoadRunner(this, null).setArrivalRate(0);
+    }
+}
@@ -5,30 +5,57 @@ import mockit.Expectations;
 import mockit.Mocked;
 import nablarch.core.exception.IllegalConfigurationException;
 import nablarch.core.repository.SystemRepository;
+import nablarch.core.util.FileUtil;
 import nablarch.core.util.StringUtil;
 import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.test.RequestCountingHandler;
 import nablarch.fw.web.HttpRequest;
+import nablarch.fw.web.HttpRequestHandler;
 import nablarch.fw.web.HttpResponse;
+import nablarch.fw.web.HttpServer;
+import nablarch.fw.web.MockHttpRequest;
 import nablarch.fw.web.RestMockHttpRequest;
 import nablarch.fw.web.RestMockHttpRequestBuilder;
+import nablarch.fw.web.servlet.ServletExecutionContext;
 import nablarch.test.RepositoryInitializer;
 import nablarch.test.core.rule.TestDescription;
 import org.junit.After;
+import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.Description;
 import org.junit.runner.RunWith;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
@@ -73,6 +100,246 @@ public class SimpleRestTestSupportTest {
             assertThat(request.getHeader("Cookie"), is("NABLARCH_SID=XXXXXX"));
         }
 
+        /**
+         * {@link ExecutionContext}がリクエスト単位で内蔵サーバに引き渡され、
+         * サーバ側で設定された値がテスト側の{@link ExecutionContext}に戻されることを確認する。
+         */
+        @Test
+        public void testSendRequestWithContext_ContextBoundToRequest() {
+            RestMockHttpRequest request = get("/test");
+            ExecutionContext context = new ExecutionContext();
+            context.setRequestScopedVar("echo", "value");
+
+            HttpResponse response = sendRequestWithContext(request, context);
+            assertThat(response.getHeader("X-Echo"), is("value"));
+            assertThat(context.<String>getRequestScopedVar("echoed"), is("value"));
+            assertNull(request.getHeader(RequestScopedTestSupportHandler.CONTEXT_ID_HEADER));
+            assertNull(request.getHost());
+        }
+
+        /**
+         * 送信したリクエストの直列化結果のキャッシュが、送信後も使用されることを確認する。
+         */
+        @Test
+        public void testSendRequestWithContext_SerializationCacheKept() {
+            RestMockHttpRequest request = post("/test")
+                    .setHeader("Content-Type", "text/plain")
+                    .setBody("body");
+            RequestResponseProcessor processor = new RequestResponseProcessor() {
+                @Override
+                public HttpRequest processRequest(HttpRequest request) {
+                    return request;
+                }
+
+                @Override
+                public HttpResponse processResponse(HttpRequest request, HttpResponse response) {
+                    return response;
+                }
+
+                @Override
+                public void reset() {
+                    // NOP
+                }
+            };
+            String serialized = request.toString();
+
+            for (int i = 0; i < 2; i++) {
+                HttpResponse response = sendRequestWithContext(request, new ExecutionContext(), processor);
+                assertStatusCode("200 OK", HttpResponse.Status.OK, response);
+            }
+            assertThat(request.toString(), sameInstance(serialized));
+        }
+
+        /**
+         * {@link RestMockHttpRequest}以外のリクエストでも、
+         * {@link ExecutionContext}がリクエスト単位で内蔵サーバに引き渡され、
+         * リクエストが変更されないことを確認する。
+         */
+        @Test
+        public void testSendRequestWithContext_MockHttpRequest() {
+            MockHttpRequest request = new MockHttpRequest("GET /test HTTP/1.1");
+            ExecutionContext context = new ExecutionContext();
+            context.setRequestScopedVar("echo", "value");
+
+            HttpResponse response = sendRequestWithContext(request, context);
+            assertStatusCode("200 OK", HttpResponse.Status.OK, response);
+            assertThat(response.getHeader("X-Echo"), is("value"));
+            assertThat(context.<String>getRequestScopedVar("echoed"), is("value"));
+            assertNull(request.getHeader(RequestScopedTestSupportHandler.CONTEXT_ID_HEADER));
+        }
+
+        /**
+         * 複数スレッドから同時にリクエストを送信しても、
+         * それぞれのリクエストに設定した{@link ExecutionContext}が使用されることを確認する。
+         */
+        @Test
+        public void testSendRequestWithContext_Concurrent() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<String[]>> futures = new ArrayList<Future<String[]>>();
+                for (int i = 0; i < 100; i++) {
+                    final String value = "value" + i;
+                    futures.add(executor.submit(new Callable<String[]>() {
+                        @Override
+                        public String[] call() {
+                            ExecutionContext context = new ExecutionContext();
+                            context.setRequestScopedVar("echo", value);
+                            HttpResponse response = sendRequestWithContext(get("/test"), context);
+                            return new String[] {value, response.getHeader("X-Echo"),
+                                    context.<String>getRequestScopedVar("echoed")};
+                        }
+                    }));
+                }
+                for (Future<String[]> future : futures) {
+                    String[] result = future.get();
+                    assertThat(result[1], is(result[0]));
+                    assertThat(result[2], is(result[0]));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * {@link SimpleRestTestSupport#sendRequestAsync(HttpRequest)}で非同期に送信したリクエストの
+         * レスポンスを{@link Future}から取得できることを確認する。
+         */
+        @Test
+        public void testSendRequestAsync() throws Exception {
+            List<Future<HttpResponse>> futures = new ArrayList<Future<HttpResponse>>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(sendRequestAsync(get("/test")));
+            }
+            for (Future<HttpResponse> future : futures) {
+                assertStatusCode("200 OK", HttpResponse.Status.OK, future.get());
+            }
+        }
+
+        /**
+         * {@link SimpleRestTestSupport#sendRequestAsync(HttpRequest, RequestResponseProcessor)}で
+         * 指定したプロセッサーが使用されることを確認する。
+         */
+        @Test
+        public void testSendRequestAsyncWithProcessor() throws Exception {
+            NablarchSIDManager processor = new NablarchSIDManager();
+            RestMockHttpRequest request = get("/test");
+            sendRequestAsync(request, processor).get();
+            sendRequestAsync(request, processor).get();
+            assertThat(request.getHeader("Cookie"), is("NABLARCH_SID=XXXXXX"));
+        }
+
+        /**
+         * {@link SimpleRestTestSupport#sendRequests(List, RequestResponseProcessor)}で一括送信した結果が
+         * リクエストと同じ順序で返されることを確認する。
+         * 例外が発生したリクエストがあっても残りのリクエストは送信され、例外が結果に格納されることを確認する。
+         */
+        @Test
+        public void testSendRequests() {
+            List<HttpRequest> requests = new ArrayList<HttpRequest>();
+            for (int i = 0; i < 50; i++) {
+                requests.add(get("/test?no=" + i));
+            }
+            RequestResponseProcessor processor = new RequestResponseProcessor() {
+                @Override
+                public HttpRequest processRequest(HttpRequest request) {
+                    if (request.getRequestUri().endsWith("=7")) {
+                        throw new IllegalStateException("failed.");
+                    }
+                    return request;
+                }
+
+                @Override
+                public HttpResponse processResponse(HttpRequest request, HttpResponse response) {
+                    response.setHeader("X-Uri", request.getRequestUri());
+                    return response;
+                }
+
+                @Override
+                public void reset() {
+                    // NOP
+                }
+            };
+
+            RestBatchResult result = sendRequests(requests, processor);
+            assertThat(result.size(), is(50));
+            assertThat(result.getFailureCount(), is(1));
+            assertTrue(result.hasFailures());
+            assertThat(result.getFailure(7).getMessage(), is("failed."));
+            assertNull(result.getResponse(7));
+            for (int i = 0; i < 50; i++) {
+                if (i != 7) {
+                    assertNull(result.getFailure(i));
+                    assertThat(result.getResponse(i).getHeader("X-Uri"), is("/test?no=" + i));
+                    assertTrue(result.getElapsedMillis(i) >= 0);
+                }
+            }
+            assertThat(result.getResponses().size(), is(50));
+            assertTrue(result.getTotalElapsedMillis() > 0);
+
+            try {
+                result.assertNoFailures();
+                fail("AssertionErrorが送出される");
+            } catch (AssertionError e) {
+                assertThat(e.getMessage(), is("1 of 50 requests failed. first failure index=[7], "
+                        + "cause=[java.lang.IllegalStateException: failed.]."));
+                assertThat(e.getCause(), is((Throwable) result.getFailure(7)));
+            }
+        }
+
+        /**
+         * 並行数に1を指定した場合、呼び出し元のスレッドで順に送信されることを確認する。
+         */
+        @Test
+        public void testSendRequests_SingleThread() {
+            final List<String> threads = new ArrayList<String>();
+            RequestResponseProcessor processor = new RequestResponseProcessor() {
+                @Override
+                public HttpRequest processRequest(HttpRequest request) {
+                    threads.add(Thread.currentThread().getName());
+                    return request;
+                }
+
+                @Override
+                public HttpResponse processResponse(HttpRequest request, HttpResponse response) {
+                    return response;
+                }
+
+                @Override
+                public void reset() {
+                    // NOP
+                }
+            };
+            List<HttpRequest> requests = new ArrayList<HttpRequest>();
+            for (int i = 0; i < 3; i++) {
+                requests.add(get("/test"));
+            }
+            RestBatchResult result = sendRequests(requests, processor, 1);
+            result.assertNoFailures();
+            assertThat(result.toString().startsWith("requests=3, failures=0, elapsed="), is(true));
+            String current = Thread.currentThread().getName();
+            assertThat(threads, is(Arrays.asList(current, current, current)));
+        }
+
+        /**
+         * 空のリクエストを一括送信した場合、空の結果が返されることを確認する。
+         */
+        @Test
+        public void testSendRequests_Empty() {
+            RestBatchResult result = sendRequests(new ArrayList<HttpRequest>());
+            assertThat(result.size(), is(0));
+            result.assertNoFailures();
+        }
+
+        /**
+         * 並行数に0以下を指定した場合、例外が送出されることを確認する。
+         */
+        @Test
+        public void testSendRequests_InvalidParallelism() {
+            expectedException.expect(IllegalArgumentException.class);
+            expectedException.expectMessage("parallelism must be greater than 0. value=[0].");
+            sendRequests(new ArrayList<HttpRequest>(), null, 0);
+        }
+
         /**
          * SystemRepositoryにリクエストビルダーが登録されていない場合、例外が送出されることを確認する。
          *
@@ -180,6 +447,75 @@ public class SimpleRestTestSupportTest {
         }
     }
 
+    /**
+     * {@link HandlerQueueOverride}でハンドラキューを差し替えたテストクラスのテスト。
+     */
+    public static class HandlerQueueOverrideTest extends SimpleRestTestSupport {
+        @ClassRule
+        public static HandlerQueueOverride override = new HandlerQueueOverride() {
+            @Override
+            protected List<Handler> customize(List<Handler> handlerQueue) {
+                handlerQueue.add(handlerQueue.size() - 1, new HttpRequestHandler() {
+                    @Override
+                    public HttpResponse handle(HttpRequest request, ExecutionContext context) {
+                        HttpResponse response = context.handleNext(request);
+                        response.setHeader("X-Override", "true");
+                        if (isContextIdVisible(request, context)) {
+                            response.setHeader("X-Context-Id", "visible");
+                        }
+                        return response;
+                    }
+                });
+                return handlerQueue;
+            }
+        };
+
+        /**
+         * 差し替え後のハンドラキューでリクエストが処理されることを確認する。
+         */
+        @Test
+        public void testSendRequest() {
+            HttpResponse response = sendRequest(get("/test"));
+            assertStatusCode("200 OK", HttpResponse.Status.OK, response);
+            assertThat(response.getHeader("X-Override"), is("true"));
+        }
+
+        /**
+         * {@link ExecutionContext}の紐付けに使用するリクエストヘッダーを参照できるか否か。
+         * {@link HttpRequest}と、サーブレットAPIの両方から参照を試みる。
+         *
+         * @param request リクエスト
+         * @param context 実行コンテキスト
+         * @return 参照できる場合は{@code true}
+         */
+        private static boolean isContextIdVisible(HttpRequest request, ExecutionContext context) {
+            String name = RequestScopedTestSupportHandler.CONTEXT_ID_HEADER;
+            HttpServletRequest servletRequest = ((ServletExecutionContext) context).getServletRequest();
+            if (request.getHeader(name) != null || servletRequest.getHeader(name) != null
+                    || servletRequest.getHeaders(name).hasMoreElements() || servletRequest.getIntHeader(name) != -1) {
+                return true;
+            }
+            for (Enumeration<?> names = servletRequest.getHeaderNames(); names.hasMoreElements(); ) {
+                if (name.equalsIgnoreCase((String) names.nextElement())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * {@link ExecutionContext}の紐付けに使用するリクエストヘッダーが、
+         * テスト対象のアプリケーションに渡されないことを確認する。
+         * {@link HttpRequest}とサーブレットAPIのどちらからも参照できないことを確認する。
+         */
+        @Test
+        public void testSendRequest_ContextIdHeaderHidden() {
+            HttpResponse response = sendRequest(get("/test"));
+            assertStatusCode("200 OK", HttpResponse.Status.OK, response);
+            assertNull(response.getHeader("X-Context-Id"));
+        }
+    }
+
     /**
      * {@link RestTestSupport}単体でのテスト
      */
@@ -187,6 +523,9 @@ public class SimpleRestTestSupportTest {
         @Rule
         public ExpectedException expectedException = ExpectedException.none();
 
+        @Rule
+        public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
         /**
          * SystemRepositoryに{@link nablarch.fw.web.HttpServerFactory}が登録されていない場合、例外が送出されることを確認する。
          */
@@ -281,6 +620,269 @@ public class SimpleRestTestSupportTest {
             }
         }
 
+        /**
+         * ハンドラキューを直接実行する設定の場合、内蔵サーバと同じレスポンスが返ることを確認する。
+         */
+        @Test
+        public void testSendRequest_DirectDispatch() {
+            SimpleRestTestSupport sut = new SimpleRestTestSupport();
+            setDummyDescription(Object.class, sut);
+            RepositoryInitializer.recreateRepository("nablarch/test/core/http/direct-dispatch.xml");
+            try {
+                SimpleRestTestSupport.resetHttpServer();
+                sut.setUp();
+                RestMockHttpRequest request = sut.get("/test");
+                ExecutionContext context = new ExecutionContext();
+                context.setRequestScopedVar("echo", "value");
+
+                HttpResponse response = sut.sendRequestWithContext(request, context);
+                sut.assertStatusCode("200 OK", HttpResponse.Status.OK, response);
+                assertThat(response.getContentLength(), is("0"));
+                assertNull(response.getContentType());
+                assertThat(response.getHeader("X-Echo"), is("value"));
+                assertThat(context.<String>getRequestScopedVar("echoed"), is("value"));
+
+                sut.sendRequest(request);
+                assertThat(request.getHeader("Cookie"), is("NABLARCH_SID=XXXXXX"));
+            } finally {
+                RepositoryInitializer.revertDefaultRepository();
+            }
+        }
+
+        /**
+         * ウォームアップが設定されている場合、内蔵サーバの起動時にリクエストが送信されることを確認する。
+         */
+        @Test
+        public void testSetUp_WarmUp() {
+            SimpleRestTestSupport sut = new SimpleRestTestSupport();
+            setDummyDescription(Object.class, sut);
+            RepositoryInitializer.recreateRepository("nablarch/test/core/http/warm-up.xml");
+            RequestCountingHandler.clear();
+            try {
+                SimpleRestTestSupport.resetHttpServer();
+                sut.setUp();
+                assertThat(RequestCountingHandler.getCount("/warm-up/first"), is(3));
+                assertThat(RequestCountingHandler.getCount("/warm-up/second"), is(3));
+                assertThat(RequestCountingHandler.getCount("/warm-up/provider"), is(3));
+
+                // 2回目以降のsetUpではウォームアップは行われない
+                sut.setUp();
+                assertThat(RequestCountingHandler.getCount("/warm-up/first"), is(3));
+            } finally {
+                RequestCountingHandler.clear();
+                RepositoryInitializer.revertDefaultRepository();
+            }
+        }
+
+        /**
+         * バックグラウンド起動が有効な場合、起動の完了を待ってからリクエストが送信されることを確認する。
+         */
+        @Test
+        public void testSendRequest_BackgroundStartup() throws Exception {
+            SimpleRestTestSupport sut = new SimpleRestTestSupport();
+            setDummyDescription(Object.class, sut);
+            RepositoryInitializer.recreateRepository("nablarch/test/core/http/background-startup.xml");
+            try {
+                SimpleRestTestSupport.resetHttpServer();
+                sut.setUp();
+                sut.assertStatusCode("200 OK", HttpResponse.Status.OK, sut.sendRequest(sut.get("/test")));
+                sut.assertStatusCode("200 OK", HttpResponse.Status.OK, sut.sendRequestAsync(sut.get("/test")).get());
+            } finally {
+                RepositoryInitializer.revertDefaultRepository();
+            }
+        }
+
+        /**
+         * バックグラウンド起動に失敗した場合、リクエスト送信時に起動時の例外が送出されることを確認する。
+         */
+        @Test
+        public void testSendRequest_BackgroundStartupFailed() {
+            expectedException.expect(IllegalConfigurationException.class);
+            expectedException.expectMessage("could not find component. name=[httpServerFactory].");
+            SimpleRestTestSupport sut = new SimpleRestTestSupport();
+            setDummyDescription(Object.class, sut);
+            RepositoryInitializer.recreateRepository("nablarch/test/core/http/background-startup-no-http-server-factory.xml");
+            try {
+                SimpleRestTestSupport.resetHttpServer();
+                sut.setUp();
+                sut.sendRequest(sut.get("/test"));
+            } finally {
+                RepositoryInitializer.revertDefaultRepository();
+            }
+            fail("ここに到達したらExceptionが発生していない");
+        }
+
+        /**
+         * リセットした場合、起動済みの内蔵サーバが停止されることを確認する。
+         */
+        @Test
+        public void testResetHttpServer_StopServer() throws Exception {
+            SimpleRestTestSupport sut = new SimpleRestTestSupport();
+            setDummyDescription(Object.class, sut);
+            SimpleRestTestSupport.resetHttpServer();
+            sut.setUp();
+            Future<EmbeddedServer> serverTask = Deencapsulation.getField(sut, "serverTask");
+            HttpServer server = Deencapsulation.getField(serverTask.get(), "server");
+            Object jetty = Deencapsulation.getField(server, "jetty");
+            assertThat((Boolean) jetty.getClass().getMethod("isStarted").invoke(jetty), is(true));
+
+            SimpleRestTestSupport.resetHttpServer();
+            assertThat((Boolean) jetty.getClass().getMethod("isStopped").invoke(jetty), is(true));
+        }
+
+        /**
+         * 非同期送信のスレッド数の上限を変更した場合、変更後の上限の{@link ExecutorService}が使用されることを確認する。
+         */
+        @Test
+        public void testSendRequestAsync_AsyncRequestThreadsChanged() throws Exception {
+            SimpleRestTestSupport sut = new SimpleRestTestSupport();
+            setDummyDescription(Object.class, sut);
+            SimpleRestTestSupport.resetHttpServer();
+            sut.setUp();
+            RestTestConfiguration config = Deencapsulation.getField(sut, "config");
+            int original = config.getAsyncRequestThreads();
+            ThreadPoolExecutor first = Deencapsulation.invoke(sut, "getAsyncExecutor");
+            try {
+                config.setAsyncRequestThreads(original + 1);
+                ThreadPoolExecutor second = Deencapsulation.invoke(sut, "getAsyncExecutor");
+                assertThat(first.getMaximumPoolSize(), is(original));
+                assertThat(second.getMaximumPoolSize(), is(original + 1));
+                sut.assertStatusCode("200 OK", HttpResponse.Status.OK, sut.sendRequestAsync(sut.get("/test")).get());
+            } finally {
+                config.setAsyncRequestThreads(original);
+            }
+        }
+
+        /**
+         * 処理時間の記録が有効な場合、テスト毎に処理時間が記録されることを確認する。
+         */
+        @Test
+        public void testSendRequest_TimingReport() throws Exception {
+            SimpleRestTestSupport sut = new SimpleRestTestSupport();
+            setDummyDescription(SimpleRestTestSupportTest.class, sut);
+            RepositoryInitializer.recreateRepository("nablarch/test/core/http/timing-report.xml");
+            File directory = temporaryFolder.newFolder("timing");
+            try {
+                SimpleRestTestSupport.resetHttpServer();
+                sut.setUp();
+                setTimingReportDirectory(sut, directory);
+                sut.sendRequest(sut.get("/test"));
+                RequestTimingReport report = Deencapsulation.invoke(sut, "getTimingReport");
+                assertThat(report.getTestNames(), contains(SimpleRestTestSupportTest.class.getName() + "#dummy"));
+
+                report.write(directory);
+                String csv = readReport(new File(directory, RequestTimingReport.CSV_FILE_NAME));
+                assertThat(csv, containsString(SimpleRestTestSupportTest.class.getName() + "#dummy,handle,1,"));
+                String json = readReport(new File(directory, RequestTimingReport.JSON_FILE_NAME));
+                assertThat(json, containsString(
+                        "{\"test\":\"" + SimpleRestTestSupportTest.class.getName() + "#dummy\",\"requests\":1,"));
+            } finally {
+                removeTimingReport(directory);
+                RepositoryInitializer.revertDefaultRepository();
+            }
+        }
+
+        /**
+         * 処理時間の記録が有効な場合も、1度しか読み込めないボディが送信前に読み込まれないことを確認する。
+         */
+        @Test
+        public void testSendRequest_TimingReportWithInputStreamBody() throws Exception {
+            SimpleRestTestSupport sut = new SimpleRestTestSupport();
+            setDummyDescription(SimpleRestTestSupportTest.class, sut);
+            RepositoryInitializer.recreateRepository("nablarch/test/core/http/timing-report.xml");
+            File directory = temporaryFolder.newFolder("timing");
+            try {
+                SimpleRestTestSupport.resetHttpServer();
+                sut.setUp();
+                setTimingReportDirectory(sut, directory);
+                SingleUseInputStream body = new SingleUseInputStream("test".getBytes());
+                sut.sendRequest(new RestMockHttpRequestBuilder().post("/test")
+                        .setContentType("application/octet-stream").setBody(body));
+                assertThat(body.exhausted, is(true));
+            } finally {
+                removeTimingReport(directory);
+                RepositoryInitializer.revertDefaultRepository();
+            }
+        }
+
+        /**
+         * 処理時間のレポートの出力先ディレクトリを設定する。
+         * ビルドディレクトリにレポートを出力しないよう、一時ディレクトリを使用する。
+         *
+         * @param sut       テスト対象
+         * @param directory 出力先ディレクトリ
+         */
+        private static void setTimingReportDirectory(SimpleRestTestSupport sut, File directory) {
+            RestTestConfiguration config = Deencapsulation.getField(sut, "config");
+            config.setTimingReportDirectory(directory.getPath());
+        }
+
+        /**
+         * 出力されたレポートを読み込む。
+         *
+         * @param file レポートのファイル
+         * @return レポートの内容
+         * @throws IOException 読み込みに失敗した場合
+         */
+        private static String readReport(File file) throws IOException {
+            InputStream in = new FileInputStream(file);
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toString("UTF-8");
+            } finally {
+                FileUtil.closeQuietly(in);
+            }
+        }
+
+        /**
+         * 出力先ディレクトリに対応する処理時間のレポートを破棄する。
+         * JVMの終了時に削除済みの一時ディレクトリへレポートが出力されないようにする。
+         *
+         * @param directory 出力先ディレクトリ
+         */
+        private static void removeTimingReport(File directory) {
+            Map<String, RequestTimingReport> reports =
+                    Deencapsulation.getField(SimpleRestTestSupport.class, "TIMING_REPORTS");
+            reports.remove(directory.getAbsolutePath());
+        }
+
+        /**
+         * 終端まで読み込んだ後に再度読み込まれた場合、例外を送出する{@link ByteArrayInputStream}。
+         */
+        private static final class SingleUseInputStream extends ByteArrayInputStream {
+
+            private boolean exhausted;
+
+            SingleUseInputStream(byte[] buf) {
+                super(buf);
+            }
+
+            @Override
+            public synchronized int read() {
+                return checkExhausted(super.read());
+            }
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return checkExhausted(super.read(b, off, len));
+            }
+
+            private int checkExhausted(int read) {
+                if (read == -1) {
+                    if (exhausted) {
+                        throw new IllegalStateException("body was read twice.");
+                    }
+                    exhausted = true;
+                }
+                return read;
+            }
+        }
+
         /**
          * staticなHttpServerを初期化する。
          */